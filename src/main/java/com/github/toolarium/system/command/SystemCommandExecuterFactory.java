@@ -7,19 +7,38 @@ package com.github.toolarium.system.command;
 
 import com.github.toolarium.system.command.builder.ISystemCommandExecuterTypeBuilder;
 import com.github.toolarium.system.command.builder.system.SystemCommandExecuterTypeBuilder;
+import com.github.toolarium.system.command.dag.SystemCommandDagBuilder;
 import com.github.toolarium.system.command.dto.ISystemCommand;
 import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
 import com.github.toolarium.system.command.dto.list.SystemCommandGroupList;
 import com.github.toolarium.system.command.executer.ISystemCommandExecuter;
+import com.github.toolarium.system.command.executer.ParallelOutputMode;
+import com.github.toolarium.system.command.executer.impl.AbstractSystemCommandExecuterImpl;
 import com.github.toolarium.system.command.executer.impl.LinuxSystemCommandExecuterImpl;
+import com.github.toolarium.system.command.executer.impl.ParallelSystemCommandExecuterImpl;
 import com.github.toolarium.system.command.executer.impl.UnixSystemCommandExecuterImpl;
 import com.github.toolarium.system.command.executer.impl.WindowsSystemCommandExecuterImpl;
+import com.github.toolarium.system.command.process.IAsynchronousProcess;
 import com.github.toolarium.system.command.process.folder.FolderCleanupService;
+import com.github.toolarium.system.command.process.folder.ProcessFolderRegistry;
+import com.github.toolarium.system.command.process.folder.RamFolderUtil;
+import com.github.toolarium.system.command.process.folder.ScriptFolderLayout;
+import com.github.toolarium.system.command.process.impl.ReattachedProcess;
+import com.github.toolarium.system.command.process.journal.ProcessJournal;
+import com.github.toolarium.system.command.process.reattach.PersistedRun;
+import com.github.toolarium.system.command.process.reattach.PersistedRunLocator;
+import com.github.toolarium.system.command.process.stream.IProcessOutputStream;
+import com.github.toolarium.system.command.process.stream.output.ProcessOutputStream;
 import com.github.toolarium.system.command.process.thread.NameableThreadFactory;
+import com.github.toolarium.system.command.process.util.ScriptUtil;
+import com.github.toolarium.system.command.template.SystemCommandTemplate;
 import com.github.toolarium.system.command.util.OSUtil;
 import java.io.IOException;
+import java.nio.file.FileStore;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -42,16 +61,26 @@ public final class SystemCommandExecuterFactory {
     /** Get the default timeunit of the folder cleanup service */ 
     public static final TimeUnit TIMEUNIT = TimeUnit.SECONDS;
 
+    /** The default minimum free space of a RAM backed script folder: 64 MB */
+    public static final long DEFAULT_RAM_MINIMUM_FREE_SPACE = 64L * 1024L * 1024L;
+
     private static final String TOOLARIUM_SYSTEM_COMMAND_TEMP_SUBFOLDER = "toolarium-system-command";
     private static final Logger LOG = LoggerFactory.getLogger(SystemCommandExecuterFactory.class);
     private static NameableThreadFactory nameableThreadFactory = new NameableThreadFactory("folder");
     private ScheduledExecutorService folderCleanupService;
+    private FolderCleanupService folderCleanupTask;
     private volatile Boolean folderCleanupServiceIsRunning;
     private long initialDelay = INITIAL_DELAY;
     private long period = PERIOD;
     private TimeUnit timeUnit = TIMEUNIT;
-    private Path basePath;
+    private volatile Path basePath;
+    private volatile Path diskBasePath;
+    private volatile boolean ramBacked = false;
+    private volatile FileStore ramFileStore;
+    private long ramMinimumFreeSpace = DEFAULT_RAM_MINIMUM_FREE_SPACE;
     private long lockFolderThreshold = 1 * 60 * 60 * 1000; // one day
+    private ScriptFolderLayout scriptFolderLayout = ScriptFolderLayout.FLAT;
+    private volatile boolean processJournalEnabled = false;
 
 
     /**
@@ -79,6 +108,7 @@ public final class SystemCommandExecuterFactory {
             @Override
             public void run() {
                 stopFolderCleanupService();
+                ProcessJournal.getInstance().close();
             }
         });
     }
@@ -104,6 +134,16 @@ public final class SystemCommandExecuterFactory {
     }
 
 
+    /**
+     * Create a builder of a directed acyclic graph of system command executers
+     *
+     * @return the dag builder
+     */
+    public static SystemCommandDagBuilder dagBuilder() {
+        return new SystemCommandDagBuilder();
+    }
+
+
     /**
      * Create a system command executer
      *
@@ -129,18 +169,32 @@ public final class SystemCommandExecuterFactory {
             startFolderCleanupService();
         }
         
-        if (OSUtil.getInstance().isWindows()) {
-            
-            LOG.debug("Choose " + WindowsSystemCommandExecuterImpl.class.getName() + " as executer.");
-            return new WindowsSystemCommandExecuterImpl(systemCommandGroupList);
-        } else if (OSUtil.getInstance().isLinux()) {
-            
-            LOG.debug("Choose " + LinuxSystemCommandExecuterImpl.class.getName() + " as executer.");
-            return new LinuxSystemCommandExecuterImpl(systemCommandGroupList);
-        }
+        return createSystemCommandExecuterImpl(systemCommandGroupList);
+    }
 
-        LOG.debug("Choose " + UnixSystemCommandExecuterImpl.class.getName() + " as executer.");
-        return new UnixSystemCommandExecuterImpl(systemCommandGroupList);
+
+    /**
+     * Create a system command executer of parallel branches which are started concurrently and joined
+     *
+     * @param branchList the executers of the branches
+     * @param parallelOutputMode defines how the output of the branches is combined
+     * @return the system command executer
+     * @throws IllegalArgumentException In case of less than two branches
+     */
+    public ISystemCommandExecuter createParallelSystemCommandExecuter(List<ISystemCommandExecuter> branchList, ParallelOutputMode parallelOutputMode) {
+        return new ParallelSystemCommandExecuterImpl(branchList, parallelOutputMode);
+    }
+
+
+    /**
+     * Compile a system command template: the system command group list has to consist of one system command which is not run as script.
+     *
+     * @param systemCommandGroupList the system command group list
+     * @return the system command template
+     * @throws IllegalArgumentException In case the system command group list can not be compiled
+     */
+    public SystemCommandTemplate createSystemCommandTemplate(ISystemCommandGroupList systemCommandGroupList) {
+        return SystemCommandTemplate.compile(systemCommandGroupList, createSystemCommandExecuterImpl(systemCommandGroupList));
     }
 
     
@@ -156,7 +210,8 @@ public final class SystemCommandExecuterFactory {
             folderCleanupServiceIsRunning = Boolean.TRUE;
             LOG.info("Start folder cleanup service...");
             folderCleanupService = Executors.newScheduledThreadPool(1, nameableThreadFactory);
-            folderCleanupService.scheduleAtFixedRate(new FolderCleanupService(basePath, lockFolderThreshold), initialDelay, period, timeUnit);
+            folderCleanupTask = new FolderCleanupService(basePath, diskBasePath, ProcessFolderRegistry.NEW_FOLDER_THRESHOLD, lockFolderThreshold);
+            folderCleanupService.scheduleAtFixedRate(folderCleanupTask, initialDelay, period, timeUnit);
         }
     }
     
@@ -215,6 +270,8 @@ public final class SystemCommandExecuterFactory {
                     LOG.info("Stop folder cleanup service...");
                     folderCleanupService.shutdown();
                     folderCleanupService = null;
+                    folderCleanupTask.close();
+                    folderCleanupTask = null;
                     folderCleanupServiceIsRunning = Boolean.FALSE;
                 }
             }
@@ -258,9 +315,274 @@ public final class SystemCommandExecuterFactory {
             }
         }
 
+        this.diskBasePath = this.basePath;
+        this.ramBacked = false;
+        this.ramFileStore = null;
+        if (folderCleanupServiceIsRunning != null && folderCleanupServiceIsRunning) {
+            stopFolderCleanupService();
+            startFolderCleanupService();
+        }
+    }
+
+
+    /**
+     * Place the script folders in a RAM backed folder (tmpfs), the shared memory folder or the runtime directory of the user.
+     * The current script folder base path is kept as disk base path: it is used in case the RAM backed folder is full and
+     * for the input files of the executers with {@link com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#inputOnDisk()}.
+     *
+     * @return true if the script folders are placed in a RAM backed folder; false if there is none with enough free space
+     */
+    public boolean useRamScriptFolderBasePath() {
+        return useRamScriptFolderBasePath(RamFolderUtil.getInstance().getCandidates());
+    }
+
+
+    /**
+     * Place the script folders in the first RAM backed folder (tmpfs) of the candidates with enough free space.
+     *
+     * @param candidates the candidates in the order of preference
+     * @return true if the script folders are placed in a RAM backed folder; false if there is none with enough free space
+     */
+    public boolean useRamScriptFolderBasePath(List<Path> candidates) {
+        Path ramFolder = RamFolderUtil.getInstance().select(candidates, ramMinimumFreeSpace);
+        if (ramFolder == null) {
+            LOG.info("No RAM backed script folder available, keep script folder base path [" + basePath + "].");
+            return false;
+        }
+
+        Path ramBasePath = ramFolder.resolve(TOOLARIUM_SYSTEM_COMMAND_TEMP_SUBFOLDER);
+        try {
+            Files.createDirectories(ramBasePath);
+        } catch (IOException e) {
+            LOG.warn("Could not create path [" + ramBasePath + "]: " + e.getMessage(), e);
+            return false;
+        }
+
+        Path currentDiskBasePath = diskBasePath;
+        setScriptFolderBasePath(ramBasePath);
+        this.diskBasePath = currentDiskBasePath;
+
+        // the file store is resolved once, a launch only reads its usable space
+        this.ramFileStore = RamFolderUtil.getInstance().getFileStore(ramBasePath);
+        this.ramBacked = true;
+        LOG.info("Use RAM backed script folder base path [" + ramBasePath + "], disk base path [" + diskBasePath + "].");
         if (folderCleanupServiceIsRunning != null && folderCleanupServiceIsRunning) {
+            // the disk base path is cleaned up as well
             stopFolderCleanupService();
             startFolderCleanupService();
         }
+
+        return true;
+    }
+
+
+    /**
+     * Check if the script folder base path is RAM backed
+     *
+     * @return true if the script folders are placed in a RAM backed folder
+     */
+    public boolean isScriptFolderBasePathInRam() {
+        return ramBacked;
+    }
+
+
+    /**
+     * Get the disk base path: the fallback of a RAM backed script folder base path, otherwise the script folder base path
+     *
+     * @return the disk base path
+     */
+    public Path getDiskScriptFolderBasePath() {
+        return diskBasePath;
+    }
+
+
+    /**
+     * Get the minimum free space of a RAM backed script folder
+     *
+     * @return the minimum free space in bytes
+     */
+    public long getRamMinimumFreeSpace() {
+        return ramMinimumFreeSpace;
+    }
+
+
+    /**
+     * Set the minimum free space of a RAM backed script folder. In case the RAM backed folder has less free space the script folders
+     * of new runs are placed in the disk base path.
+     *
+     * @param ramMinimumFreeSpace the minimum free space in bytes
+     * @throws IllegalArgumentException In case of a negative value
+     */
+    public void setRamMinimumFreeSpace(long ramMinimumFreeSpace) {
+        if (ramMinimumFreeSpace < 0) {
+            throw new IllegalArgumentException("Invalid minimum free space: " + ramMinimumFreeSpace + "!");
+        }
+
+        this.ramMinimumFreeSpace = ramMinimumFreeSpace;
+    }
+
+
+    /**
+     * Get the script folder layout
+     *
+     * @return the script folder layout
+     */
+    public ScriptFolderLayout getScriptFolderLayout() {
+        return scriptFolderLayout;
+    }
+
+
+    /**
+     * Set the script folder layout. The layout can be changed at any time, the folder cleanup service handles all layouts.
+     *
+     * @param scriptFolderLayout the script folder layout, null for {@link ScriptFolderLayout#FLAT}
+     */
+    public void setScriptFolderLayout(ScriptFolderLayout scriptFolderLayout) {
+        if (scriptFolderLayout == null) {
+            this.scriptFolderLayout = ScriptFolderLayout.FLAT;
+        } else {
+            this.scriptFolderLayout = scriptFolderLayout;
+        }
+    }
+
+
+    /**
+     * Get the script folder of a system command group list
+     *
+     * @param id the id of the system command group list
+     * @return the script folder
+     */
+    public Path getScriptFolderPath(String id) {
+        Path scriptFolderBasePath = basePath;
+        if (ramBacked && !RamFolderUtil.getInstance().hasFreeSpace(ramFileStore, ramMinimumFreeSpace)) {
+            LOG.debug("RAM backed script folder [" + scriptFolderBasePath + "] is full, use disk base path [" + diskBasePath + "] (id:" + id + ").");
+            scriptFolderBasePath = diskBasePath;
+        }
+
+        return scriptFolderLayout.resolve(scriptFolderBasePath, id, Instant.now());
+    }
+
+
+    /**
+     * Get the folder of the input files of a run which keeps its input files on disk. The input folder of a RAM backed
+     * script folder is placed in the reserved input folder of the disk base path, otherwise it is the script folder.
+     *
+     * @param scriptPath the script folder
+     * @return the input folder
+     */
+    public Path getInputFolderPath(Path scriptPath) {
+        Path ramBasePath = basePath;
+        if (!ramBacked || scriptPath == null || !scriptPath.startsWith(ramBasePath)) {
+            return scriptPath;
+        }
+
+        return diskBasePath.resolve(ScriptUtil.INPUT_FOLDER_NAME).resolve(ramBasePath.relativize(scriptPath));
+    }
+
+
+    /**
+     * Get the script folder of an input folder, see {@link #getInputFolderPath(Path)}.
+     *
+     * @param inputFolderPath the input folder
+     * @return the script folder or null if the folder is not an input folder of a RAM backed script folder
+     */
+    public Path getScriptFolderPathOfInputFolder(Path inputFolderPath) {
+        if (!ramBacked || inputFolderPath == null) {
+            return null;
+        }
+
+        Path inputBasePath = diskBasePath.resolve(ScriptUtil.INPUT_FOLDER_NAME);
+        if (inputFolderPath.equals(inputBasePath) || !inputFolderPath.startsWith(inputBasePath)) {
+            return null;
+        }
+
+        return basePath.resolve(inputBasePath.relativize(inputFolderPath));
+    }
+
+
+    /**
+     * Check if the process journal is enabled
+     *
+     * @return true if the runs are recorded in the process journal instead of pid and lock files
+     */
+    public boolean isProcessJournalEnabled() {
+        return processJournalEnabled;
+    }
+
+
+    /**
+     * Enable or disable the process journal. In case it is enabled the runs are recorded in the {@link ProcessJournal}
+     * instead of pid and lock files in the script folder. All JVMs which share a script folder base path should use the same setting.
+     *
+     * @param processJournalEnabled true to enable the process journal
+     */
+    public void setProcessJournalEnabled(boolean processJournalEnabled) {
+        this.processJournalEnabled = processJournalEnabled;
+    }
+
+
+    /**
+     * List the persisted runs with at least one running process: the runs of the process journal and the script folders
+     * with pid files. The runs of other JVMs and of JVMs which have ended are included.
+     *
+     * @return the running runs
+     */
+    public List<PersistedRun> listRunning() {
+        return PersistedRunLocator.getInstance().listRunning();
+    }
+
+
+    /**
+     * Reattach to a persisted run, e.g. which was started by another JVM. The persisted output is written to the standard
+     * output and error. Only the output of a detached run is persisted, see {@link com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#detached()}.
+     *
+     * @param id the id of the system command group list
+     * @return the reattached process
+     * @throws IllegalArgumentException In case the run is not known
+     */
+    public IAsynchronousProcess reattach(String id) {
+        return reattach(id, new ProcessOutputStream(System.out), new ProcessOutputStream(System.err));
+    }
+
+
+    /**
+     * Reattach to a persisted run, e.g. which was started by another JVM. The persisted output is followed from its start
+     * until the process has ended. Only the output of a detached run is persisted, see {@link com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#detached()}.
+     *
+     * @param id the id of the system command group list
+     * @param processOut the process output stream or null
+     * @param processErr the process error stream or null
+     * @return the reattached process
+     * @throws IllegalArgumentException In case the run is not known
+     */
+    public IAsynchronousProcess reattach(String id, IProcessOutputStream processOut, IProcessOutputStream processErr) {
+        PersistedRun persistedRun = PersistedRunLocator.getInstance().get(id);
+        if (persistedRun == null) {
+            throw new IllegalArgumentException("Unknown run [" + id + "]!");
+        }
+
+        return new ReattachedProcess(persistedRun, processOut, processErr, AbstractSystemCommandExecuterImpl.DEFAULT_POLL_TIMEOUT);
+    }
+
+
+    /**
+     * Create the system command executer of the current platform
+     *
+     * @param systemCommandGroupList the system commandm group list
+     * @return the system command executer
+     */
+    private AbstractSystemCommandExecuterImpl createSystemCommandExecuterImpl(ISystemCommandGroupList systemCommandGroupList) {
+        if (OSUtil.getInstance().isWindows()) {
+            
+            LOG.debug("Choose " + WindowsSystemCommandExecuterImpl.class.getName() + " as executer.");
+            return new WindowsSystemCommandExecuterImpl(systemCommandGroupList);
+        } else if (OSUtil.getInstance().isLinux()) {
+            
+            LOG.debug("Choose " + LinuxSystemCommandExecuterImpl.class.getName() + " as executer.");
+            return new LinuxSystemCommandExecuterImpl(systemCommandGroupList);
+        }
+
+        LOG.debug("Choose " + UnixSystemCommandExecuterImpl.class.getName() + " as executer.");
+        return new UnixSystemCommandExecuterImpl(systemCommandGroupList);
     }
 }
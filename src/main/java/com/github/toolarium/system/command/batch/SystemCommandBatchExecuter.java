@@ -0,0 +1,289 @@
+/*
+ * SystemCommandBatchExecuter.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.batch;
+
+import com.github.toolarium.system.command.process.util.ParallelProcessRunner;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Executes a command over a large list of arguments like <code>xargs</code>: the arguments are appended to the command
+ * and packed into the fewest invocations which fit into the argument size limit of the platform, see
+ * {@link OSUtil#getArgumentMaxLength()}. The batches are executed in parallel on a bounded pool, the result maps a
+ * failure back to its batch and its arguments.
+ *
+ * <p>The command is started directly without a shell, the arguments are passed unchanged.</p>
+ *
+ * @author patrick
+ */
+public final class SystemCommandBatchExecuter {
+    /** The size which is kept free of the argument size limit */
+    public static final long ARGUMENT_HEADROOM = 2048;
+
+    private static final Logger LOG = LoggerFactory.getLogger(SystemCommandBatchExecuter.class);
+    private static final int POINTER_SIZE = 8;
+    private static final int WINDOWS_QUOTE_SIZE = 3;
+    private final List<String> commandList;
+    private File workingPath;
+    private int maxParallelism;
+    private int maxArguments;
+
+
+    /**
+     * Constructor for SystemCommandBatchExecuter
+     *
+     * @param command the command and its fixed arguments
+     * @throws IllegalArgumentException In case of an empty command
+     */
+    public SystemCommandBatchExecuter(String... command) {
+        if (command == null || command.length == 0 || command[0] == null || command[0].isBlank()) {
+            throw new IllegalArgumentException("Invalid command!");
+        }
+
+        this.commandList = List.of(command);
+        this.workingPath = null;
+        this.maxParallelism = Runtime.getRuntime().availableProcessors();
+        this.maxArguments = 0;
+    }
+
+
+    /**
+     * Set the working path of the batches
+     *
+     * @param workingPath the working path or null to use the working path of the JVM
+     */
+    public void setWorkingPath(File workingPath) {
+        this.workingPath = workingPath;
+    }
+
+
+    /**
+     * Get the maximum number of batches which are executed in parallel
+     *
+     * @return the maximum number of parallel batches
+     */
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+
+    /**
+     * Set the maximum number of batches which are executed in parallel, by default the number of processors
+     *
+     * @param maxParallelism the maximum number of parallel batches
+     * @throws IllegalArgumentException In case of an invalid value
+     */
+    public void setMaxParallelism(int maxParallelism) {
+        if (maxParallelism <= 0) {
+            throw new IllegalArgumentException("Invalid max parallelism: " + maxParallelism + "!");
+        }
+
+        this.maxParallelism = maxParallelism;
+    }
+
+
+    /**
+     * Get the maximum number of arguments of a batch
+     *
+     * @return the maximum number of arguments or 0 in case it is only limited by the argument size limit
+     */
+    public int getMaxArguments() {
+        return maxArguments;
+    }
+
+
+    /**
+     * Set the maximum number of arguments of a batch like <code>xargs -n</code>
+     *
+     * @param maxArguments the maximum number of arguments or 0 in case it is only limited by the argument size limit
+     * @throws IllegalArgumentException In case of an invalid value
+     */
+    public void setMaxArguments(int maxArguments) {
+        if (maxArguments < 0) {
+            throw new IllegalArgumentException("Invalid max arguments: " + maxArguments + "!");
+        }
+
+        this.maxArguments = maxArguments;
+    }
+
+
+    /**
+     * Get the size which is available for the appended arguments of a batch: the argument size limit of the platform
+     * without the command, the environment and the {@link #ARGUMENT_HEADROOM}.
+     *
+     * @return the available size
+     */
+    public long getArgumentLimit() {
+        long result = OSUtil.getInstance().getArgumentMaxLength() - ARGUMENT_HEADROOM;
+        for (String command : commandList) {
+            result -= getSize(command);
+        }
+
+        if (!OSUtil.getInstance().isWindows()) {
+            // the environment shares the limit on unix
+            for (Map.Entry<String, String> e : System.getenv().entrySet()) {
+                result -= getSize(e.getKey() + "=" + e.getValue());
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Pack the arguments into the fewest batches which fit into the argument limit
+     *
+     * @param argumentList the arguments
+     * @return the arguments of the batches in the order of the argument list
+     * @throws IllegalArgumentException In case an argument does not fit into the argument limit
+     */
+    public List<List<String>> createBatches(List<String> argumentList) {
+        if (argumentList == null) {
+            throw new IllegalArgumentException("Invalid argument list!");
+        }
+
+        long argumentLimit = getArgumentLimit();
+        List<List<String>> result = new ArrayList<>();
+        List<String> batch = new ArrayList<>();
+        long batchSize = 0;
+        for (int i = 0; i < argumentList.size(); i++) {
+            String argument = argumentList.get(i);
+            if (argument == null) {
+                throw new IllegalArgumentException("Invalid argument " + i + "!");
+            }
+
+            long size = getSize(argument);
+            if (size > argumentLimit) {
+                throw new IllegalArgumentException("The argument " + i + " exceeds the argument limit of " + argumentLimit + "!");
+            }
+
+            if (!batch.isEmpty() && (batchSize + size > argumentLimit || (maxArguments > 0 && batch.size() >= maxArguments))) {
+                result.add(Collections.unmodifiableList(batch));
+                batch = new ArrayList<>();
+                batchSize = 0;
+            }
+
+            batch.add(argument);
+            batchSize += size;
+        }
+
+        if (!batch.isEmpty()) {
+            result.add(Collections.unmodifiableList(batch));
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Execute the command over the arguments
+     *
+     * @param argumentList the arguments
+     * @return the result
+     * @throws IllegalArgumentException In case an argument does not fit into the argument limit
+     */
+    public SystemCommandBatchResult run(List<String> argumentList) {
+        final Instant startTime = Instant.now();
+        List<List<String>> batchList = createBatches(argumentList);
+
+        int[] exitValues = new int[batchList.size()];
+        Arrays.fill(exitValues, -1);
+        String[] outputs = new String[batchList.size()];
+        String[] errorOutputs = new String[batchList.size()];
+        Arrays.fill(outputs, "");
+        Arrays.fill(errorOutputs, "");
+        ParallelProcessRunner processRunner = new ParallelProcessRunner("batch", maxParallelism);
+        if (!processRunner.run(batchList.size(), index -> runBatch(index, batchList.get(index), processRunner, exitValues, outputs, errorOutputs))) {
+            LOG.warn("Batched execution aborted: " + this);
+        }
+
+        SystemCommandBatchResult result = new SystemCommandBatchResult(batchList, exitValues, outputs, errorOutputs, Duration.between(startTime, Instant.now()));
+        LOG.debug("Batched execution ended: " + result);
+        return result;
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "SystemCommandBatchExecuter [command=" + commandList + ", maxParallelism=" + maxParallelism + ", maxArguments=" + maxArguments + "]";
+    }
+
+
+    /**
+     * Run a batch
+     *
+     * @param index the index of the batch
+     * @param batch the arguments of the batch
+     * @param processRunner the process runner
+     * @param exitValues the exit values of the batches
+     * @param outputs the output of the batches
+     * @param errorOutputs the error output of the batches
+     */
+    private void runBatch(int index, List<String> batch, ParallelProcessRunner processRunner, int[] exitValues, String[] outputs, String[] errorOutputs) {
+        List<String> command = new ArrayList<>(commandList);
+        command.addAll(batch);
+
+        int exitValue = -1;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayOutputStream errorOutput = new ByteArrayOutputStream();
+        Process process = null;
+        try {
+            process = processRunner.start(new ProcessBuilder(command).directory(workingPath));
+            process.getOutputStream().close();
+            Thread errorThread = processRunner.transfer("batch-" + index + "-err", process.getErrorStream(), errorOutput);
+
+            try (InputStream is = process.getInputStream()) {
+                is.transferTo(output);
+            }
+
+            exitValue = process.waitFor();
+            errorThread.join();
+        } catch (IOException e) {
+            LOG.warn("Could not execute batch " + index + ": " + e.getMessage());
+            errorOutput.writeBytes(String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            processRunner.end(process);
+            exitValues[index] = exitValue;
+            outputs[index] = output.toString();
+            errorOutputs[index] = errorOutput.toString();
+        }
+    }
+
+
+    /**
+     * Get the size of an argument: on unix the bytes with the terminating zero and the pointer, on windows the
+     * characters with the separator and the quotes
+     *
+     * @param argument the argument
+     * @return the size
+     */
+    private long getSize(String argument) {
+        if (OSUtil.getInstance().isWindows()) {
+            return argument.length() + WINDOWS_QUOTE_SIZE;
+        }
+
+        return argument.getBytes(StandardCharsets.UTF_8).length + 1 + POINTER_SIZE;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * SystemCommandBatchResult.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.batch;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * The result of a batched execution, see {@link SystemCommandBatchExecuter}.
+ *
+ * @author patrick
+ */
+public final class SystemCommandBatchResult {
+    private final List<List<String>> batchList;
+    private final int[] exitValues;
+    private final String[] outputs;
+    private final String[] errorOutputs;
+    private final Duration duration;
+
+
+    /**
+     * Constructor for SystemCommandBatchResult
+     *
+     * @param batchList the arguments of the batches
+     * @param exitValues the exit values of the batches
+     * @param outputs the output of the batches
+     * @param errorOutputs the error output of the batches
+     * @param duration the duration of the whole execution
+     */
+    SystemCommandBatchResult(List<List<String>> batchList, int[] exitValues, String[] outputs, String[] errorOutputs, Duration duration) {
+        this.batchList = batchList;
+        this.exitValues = exitValues;
+        this.outputs = outputs;
+        this.errorOutputs = errorOutputs;
+        this.duration = duration;
+    }
+
+
+    /**
+     * Check if all batches ended successful
+     *
+     * @return true if all batches ended with exit value 0
+     */
+    public boolean isSuccess() {
+        return getFailedBatches().isEmpty();
+    }
+
+
+    /**
+     * Get the number of batches
+     *
+     * @return the number of batches
+     */
+    public int getBatchCount() {
+        return batchList.size();
+    }
+
+
+    /**
+     * Get the arguments of a batch
+     *
+     * @param batch the index of the batch
+     * @return the arguments
+     */
+    public List<String> getBatchArguments(int batch) {
+        return batchList.get(batch);
+    }
+
+
+    /**
+     * Get the index of the batch of an argument
+     *
+     * @param argumentIndex the index of the argument in the argument list
+     * @return the index of the batch
+     * @throws IllegalArgumentException In case of an invalid index
+     */
+    public int getBatchIndex(int argumentIndex) {
+        int start = 0;
+        for (int i = 0; i < batchList.size(); i++) {
+            start += batchList.get(i).size();
+            if (argumentIndex >= 0 && argumentIndex < start) {
+                return i;
+            }
+        }
+
+        throw new IllegalArgumentException("Invalid argument index: " + argumentIndex + "!");
+    }
+
+
+    /**
+     * Get the exit value of a batch
+     *
+     * @param batch the index of the batch
+     * @return the exit value, -1 in case the batch could not be executed
+     */
+    public int getExitValue(int batch) {
+        return exitValues[batch];
+    }
+
+
+    /**
+     * Get the output of a batch
+     *
+     * @param batch the index of the batch
+     * @return the output
+     */
+    public String getOutput(int batch) {
+        return outputs[batch];
+    }
+
+
+    /**
+     * Get the error output of a batch
+     *
+     * @param batch the index of the batch
+     * @return the error output
+     */
+    public String getErrorOutput(int batch) {
+        return errorOutputs[batch];
+    }
+
+
+    /**
+     * Get the output of all batches in the order of the batches
+     *
+     * @return the output
+     */
+    public String getOutput() {
+        return String.join("", outputs);
+    }
+
+
+    /**
+     * Get the index of the failed batches
+     *
+     * @return the index of the failed batches in ascending order
+     */
+    public List<Integer> getFailedBatches() {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < exitValues.length; i++) {
+            if (exitValues[i] != 0) {
+                result.add(i);
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Get the arguments which failed: of each failed batch the arguments which are named in its error output as a
+     * whole word, in case none is named all arguments of the batch.
+     *
+     * @return the failed arguments in the order of the argument list
+     */
+    public List<String> getFailedArguments() {
+        List<String> result = new ArrayList<>();
+        for (Integer batch : getFailedBatches()) {
+            List<String> namedArgumentList = new ArrayList<>();
+            for (String argument : batchList.get(batch)) {
+                if (isNamed(errorOutputs[batch], argument)) {
+                    namedArgumentList.add(argument);
+                }
+            }
+
+            if (namedArgumentList.isEmpty()) {
+                result.addAll(batchList.get(batch));
+            } else {
+                result.addAll(namedArgumentList);
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Get the duration of the whole execution
+     *
+     * @return the duration
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "SystemCommandBatchResult [batches=" + batchList.size() + ", failedBatches=" + getFailedBatches() + ", duration=" + duration + "]";
+    }
+
+
+    /**
+     * Check if an argument is named as a whole word in an error output, e.g. a path is not named by a longer path
+     *
+     * @param errorOutput the error output
+     * @param argument the argument
+     * @return true if the argument is named
+     */
+    private static boolean isNamed(String errorOutput, String argument) {
+        if (argument.isEmpty()) {
+            return false;
+        }
+
+        int index = errorOutput.indexOf(argument);
+        while (index >= 0) {
+            int end = index + argument.length();
+            if ((index == 0 || isDelimiter(errorOutput.charAt(index - 1))) && (end == errorOutput.length() || isDelimiter(errorOutput.charAt(end)))) {
+                return true;
+            }
+
+            index = errorOutput.indexOf(argument, index + 1);
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Check if a character delimits a word of an error output
+     *
+     * @param c the character
+     * @return true if it is not part of a name or path
+     */
+    private static boolean isDelimiter(char c) {
+        return !Character.isLetterOrDigit(c) && "._-/\\~".indexOf(c) < 0;
+    }
+}
@@ -6,6 +6,10 @@
 package com.github.toolarium.system.command.builder;
 
 import com.github.toolarium.system.command.executer.ISystemCommandExecuter;
+import com.github.toolarium.system.command.executer.ParallelOutputMode;
+import com.github.toolarium.system.command.remote.RemoteSystemCommandExecuter;
+import com.github.toolarium.system.command.template.SystemCommandTemplate;
+import java.time.Duration;
 
 
 /**
@@ -46,6 +50,36 @@ public interface ISystemCommandExecuterBuilder {
      */
     ISystemCommandExecuterTypeBuilder pipe();
 
+
+    /**
+     * Start a next command in parallel to the current command: the current command ends a branch and the next command
+     * starts a new branch. The branches are started concurrently and combined by {@link #join()}.
+     *
+     * @return the builder
+     */
+    ISystemCommandExecuterTypeBuilder parallel();
+
+
+    /**
+     * Join the parallel branches: the output of each branch is written as a whole in the order of the branches.
+     * The exit value is 0 if all branches were successful, otherwise the exit value of the first failed branch.
+     *
+     * @return the system executer
+     * @throws IllegalStateException In case there are no parallel branches
+     */
+    ISystemCommandExecuter join();
+
+
+    /**
+     * Join the parallel branches. The exit value is 0 if all branches were successful, otherwise the exit value 
+     * of the first failed branch.
+     *
+     * @param parallelOutputMode defines how the output of the branches is combined
+     * @return the system executer
+     * @throws IllegalStateException In case there are no parallel branches
+     */
+    ISystemCommandExecuter join(ParallelOutputMode parallelOutputMode);
+
     
     /**
      * Set the shell of the current command
@@ -120,6 +154,17 @@ public interface ISystemCommandExecuterBuilder {
      */
     ISystemCommandExecuterBuilder environmentVariable(String key, String value);
 
+
+    /**
+     * Start from a minimal environment: only the environment variables of the default allowlist 
+     * {@link com.github.toolarium.system.command.process.util.EnvironmentSnapshot#DEFAULT_ALLOWLIST} and the additional 
+     * variables are inherited from the JVM. The environment variables which are set by the builder are always passed.
+     *
+     * @param additionalVariables the additional environment variables to inherit
+     * @return the system command executer builder
+     */
+    ISystemCommandExecuterBuilder minimalEnvironment(String... additionalVariables);
+
     
     /**
      * Lock the current system command group list (default timeout).
@@ -137,6 +182,79 @@ public interface ISystemCommandExecuterBuilder {
      */
     ISystemCommandExecuterBuilder lock(Integer lockTimeoutInSeconds);
 
+
+    
+    /**
+     * Cache the result of a synchronous execution. An identical execution (same commands, environment, working path, 
+     * user and input) returns the stored exit value and output without to start a process.
+     *
+     * @param timeToLive the time to live of the cached result
+     * @return the system command executer builder
+     */
+    ISystemCommandExecuterBuilder cached(Duration timeToLive);
+
+    
+    /**
+     * Identical concurrent synchronous executions (same commands, environment, working path, user and input) 
+     * are started only once. All callers get the result of this execution.
+     *
+     * @return the system command executer builder
+     */
+    ISystemCommandExecuterBuilder singleFlight();
+
+    
+    /**
+     * Hedge a synchronous execution: in case it is not completed within the given latency percentile of the 
+     * recent successful executions of the same command, a second copy is started. The first successful result 
+     * wins and the other process tree is killed. 
+     *
+     * @param percentile the latency percentile, e.g. 95
+     * @return the system command executer builder
+     */
+    ISystemCommandExecuterBuilder hedged(double percentile);
+
+    
+    /**
+     * Stream the script into the standard input of the shell (e.g. <code>sh -s</code>) instead to write it into
+     * the script folder. The process ids are tracked in memory, there are no files written. The commands of the 
+     * script can not read from the standard input. In case it is not supported (e.g. piped commands, an input 
+     * file or buffer, a substitute user or on windows) the script is written as file.
+     *
+     * @return the system command executer builder
+     */
+    ISystemCommandExecuterBuilder diskless();
+
+    
+    /**
+     * Use a cached script: the script is parametrized through environment variables and stored once under its content 
+     * hash. Later executions of the same shape (the same command states, environment and working paths) reuse the 
+     * executable script instead to generate it again, only the command lines are passed as environment variables.
+     *
+     * @return the system command executer builder
+     */
+    ISystemCommandExecuterBuilder cachedScript();
+
+    
+    /**
+     * Detach the run: the standard output and error of the run are written into the script folder instead of a pipe 
+     * and followed from there. The processes can outlive the JVM, the run can be listed and reattached by 
+     * {@link com.github.toolarium.system.command.SystemCommandExecuterFactory#listRunning()} and 
+     * {@link com.github.toolarium.system.command.SystemCommandExecuterFactory#reattach(String)}.
+     *
+     * @return the system command executer builder
+     */
+    ISystemCommandExecuterBuilder detached();
+
+    
+    /**
+     * Keep the input files of the run on disk in case the script folder base path is RAM backed, e.g. for large input files.
+     * The scripts and pid files are still placed in the RAM backed script folder, 
+     * see {@link com.github.toolarium.system.command.SystemCommandExecuterFactory#useRamScriptFolderBasePath()}.
+     *
+     * @return the system command executer builder
+     */
+    ISystemCommandExecuterBuilder inputOnDisk();
+
    
     /**
      * Build the system executer
@@ -144,4 +262,25 @@ public interface ISystemCommandExecuterBuilder {
      * @return the system executer
      */
     ISystemCommandExecuter build();
+
+
+    /**
+     * Build a system command template which is compiled once and launched many times. The command and the environment variables 
+     * can contain typed placeholders <code>{{name}}</code> or <code>{{name:type}}</code> which are bound on each launch. 
+     * The template has to consist of one system command which is not run as script.
+     *
+     * @return the system command template
+     * @throws IllegalArgumentException In case the system command can not be compiled
+     */
+    SystemCommandTemplate buildTemplate();
+
+
+    /**
+     * Build a system executer which runs the system command on one of the agents of a remote system command executer. 
+     * The working path and the environment variables have to be valid on the host of the agent.
+     *
+     * @param remoteSystemCommandExecuter the remote system command executer which selects the agent
+     * @return the system executer
+     */
+    ISystemCommandExecuter buildRemote(RemoteSystemCommandExecuter remoteSystemCommandExecuter);
 }
@@ -0,0 +1,529 @@
+/*
+ * DockerContainerPool.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.builder.docker;
+
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.thread.NameableThreadFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Manages long-lived docker containers. Instead to start a new container for every call, one named container
+ * per image and configuration is started once. The commands are dispatched with <code>docker exec</code>.
+ * Containers which are not used anymore are evicted after an idle timeout.
+ *
+ * @author patrick
+ */
+public final class DockerContainerPool {
+    /** The container name prefix */
+    public static final String CONTAINER_NAME_PREFIX = "toolarium-";
+
+    /** The default idle timeout in milliseconds */
+    public static final long DEFAULT_IDLE_TIMEOUT = 10 * 60 * 1000; // 10 minutes
+
+    /** The default keep alive command which is used to keep a container running */
+    public static final String DEFAULT_KEEP_ALIVE_COMMAND = "tail -f /dev/null";
+
+    /** The default eviction period in seconds */
+    public static final long EVICTION_PERIOD = 30;
+
+    private static final Logger LOG = LoggerFactory.getLogger(DockerContainerPool.class);
+    private static NameableThreadFactory nameableThreadFactory = new NameableThreadFactory("docker");
+    private Map<String, DockerContainer> containerMap;
+    private ScheduledExecutorService evictionService;
+    private volatile long idleTimeout;
+
+
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final DockerContainerPool INSTANCE = new DockerContainerPool();
+    }
+
+
+    /**
+     * Constructor
+     */
+    private DockerContainerPool() {
+        containerMap = new ConcurrentHashMap<>();
+        evictionService = null;
+        idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+        Runtime.getRuntime().addShutdownHook(new Thread(DockerContainerPool.class.getName() + ": Shutdown hook") {
+            /**
+             * @see java.lang.Thread#run()
+             */
+            @Override
+            public void run() {
+                removeAll();
+            }
+        });
+    }
+
+
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static DockerContainerPool getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+
+    /**
+     * Acquire a running container. In case there is no container or the health check fails a new container will be started.
+     * The container is in use and not evicted until it is released by {@link #release(String, String, String, Integer, String)}.
+     *
+     * @param dockerExecutable the docker executable
+     * @param image the image
+     * @param name the container name or null to generate a name from the configuration
+     * @param port the port or null
+     * @param keepAliveCommand the keep alive command or null to use the default
+     * @return the name of the running container
+     * @throws IllegalStateException In case the container could not be started
+     */
+    public String acquire(String dockerExecutable, String image, String name, Integer port, String keepAliveCommand) {
+        final String key = getKey(dockerExecutable, image, name, port, keepAliveCommand);
+        final DockerContainer newContainer = new DockerContainer(dockerExecutable, image, getContainerName(dockerExecutable, image, name, port, keepAliveCommand), port, getKeepAliveCommand(keepAliveCommand));
+
+        DockerContainer container = null;
+        while (container == null) {
+            DockerContainer pooledContainer = containerMap.computeIfAbsent(key, k -> newContainer);
+            synchronized (pooledContainer) {
+                // the container could be evicted in the meantime
+                if (containerMap.get(key) == pooledContainer) {
+                    if (!isHealthy(pooledContainer)) {
+                        start(pooledContainer);
+                    }
+
+                    pooledContainer.acquire();
+                    container = pooledContainer;
+                }
+            }
+        }
+
+        startEvictionService();
+        return container.getName();
+    }
+
+
+    /**
+     * Release a container which was acquired by {@link #acquire(String, String, String, Integer, String)}. The idle timeout starts
+     * as soon as the container is not in use anymore.
+     *
+     * @param dockerExecutable the docker executable
+     * @param image the image
+     * @param name the container name or null to generate a name from the configuration
+     * @param port the port or null
+     * @param keepAliveCommand the keep alive command or null to use the default
+     */
+    public void release(String dockerExecutable, String image, String name, Integer port, String keepAliveCommand) {
+        DockerContainer container = containerMap.get(getKey(dockerExecutable, image, name, port, keepAliveCommand));
+        if (container == null) {
+            return;
+        }
+
+        synchronized (container) {
+            container.release();
+        }
+    }
+
+
+    /**
+     * Get the name of the container of a configuration. The container is not started.
+     *
+     * @param dockerExecutable the docker executable
+     * @param image the image
+     * @param name the container name or null to generate a name from the configuration
+     * @param port the port or null
+     * @param keepAliveCommand the keep alive command or null to use the default
+     * @return the name of the container
+     */
+    public String getContainerName(String dockerExecutable, String image, String name, Integer port, String keepAliveCommand) {
+        if (name != null && !name.isBlank()) {
+            return name;
+        }
+
+        return CONTAINER_NAME_PREFIX + Integer.toHexString(getKey(dockerExecutable, image, name, port, keepAliveCommand).hashCode() & Integer.MAX_VALUE);
+    }
+
+
+    /**
+     * Verify if a container is running. The state is not taken from the {@link DockerStateCache}, it will be always verified.
+     *
+     * @param dockerExecutable the docker executable
+     * @param name the container name
+     * @return true if the container is running
+     */
+    public boolean isRunning(String dockerExecutable, String name) {
+        DockerStateCache.getInstance().invalidateContainer(dockerExecutable, name);
+        return DockerStateCache.getInstance().isContainerRunning(dockerExecutable, name);
+    }
+
+
+    /**
+     * Evict all containers which are not in use and reached the idle timeout
+     *
+     * @return the number of evicted containers
+     */
+    public int evictIdleContainers() {
+        int counter = 0;
+
+        for (Map.Entry<String, DockerContainer> e : containerMap.entrySet()) {
+            DockerContainer container = e.getValue();
+            synchronized (container) {
+                if (!container.isInUse() && (System.currentTimeMillis() - container.getLastAccess().toEpochMilli()) >= idleTimeout) {
+                    LOG.info("Evict idle docker container [" + container.getName() + "].");
+                    containerMap.remove(e.getKey(), container);
+                    remove(container);
+                    counter++;
+                }
+            }
+        }
+
+        return counter;
+    }
+
+
+    /**
+     * Remove all containers of this pool
+     */
+    public void removeAll() {
+        List<DockerContainer> list = new ArrayList<>(containerMap.values());
+        containerMap.clear();
+        for (DockerContainer container : list) {
+            remove(container);
+        }
+
+        synchronized (this) {
+            if (evictionService != null) {
+                evictionService.shutdown();
+                evictionService = null;
+            }
+        }
+    }
+
+
+    /**
+     * Get the number of pooled containers
+     *
+     * @return the number of pooled containers
+     */
+    public int size() {
+        return containerMap.size();
+    }
+
+
+    /**
+     * Get the idle timeout
+     *
+     * @return the idle timeout in milliseconds
+     */
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+
+    /**
+     * Set the idle timeout
+     *
+     * @param idleTimeout the idle timeout in milliseconds
+     */
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+
+    /**
+     * Get the key of a container configuration
+     *
+     * @param dockerExecutable the docker executable
+     * @param image the image
+     * @param name the container name or null
+     * @param port the port or null
+     * @param keepAliveCommand the keep alive command or null
+     * @return the key
+     */
+    private String getKey(String dockerExecutable, String image, String name, Integer port, String keepAliveCommand) {
+        return dockerExecutable + "|" + image + "|" + name + "|" + port + "|" + getKeepAliveCommand(keepAliveCommand);
+    }
+
+
+    /**
+     * Get the keep alive command
+     *
+     * @param keepAliveCommand the keep alive command or null
+     * @return the keep alive command or the default
+     */
+    private String getKeepAliveCommand(String keepAliveCommand) {
+        if (keepAliveCommand == null || keepAliveCommand.isBlank()) {
+            return DEFAULT_KEEP_ALIVE_COMMAND;
+        }
+
+        return keepAliveCommand;
+    }
+
+
+    /**
+     * Verify if the container is healthy
+     *
+     * @param container the container
+     * @return true if it is healthy
+     */
+    private boolean isHealthy(DockerContainer container) {
+        if (!container.isStarted()) {
+            return false;
+        }
+
+        // the cached state could hide a died container
+        boolean isRunning = isRunning(container.getDockerExecutable(), container.getName());
+        if (!isRunning) {
+            LOG.info("Docker container [" + container.getName() + "] is not running anymore.");
+        }
+
+        return isRunning;
+    }
+
+
+    /**
+     * Start the container
+     *
+     * @param container the container
+     * @throws IllegalStateException In case the container could not be started
+     */
+    private void start(DockerContainer container) {
+        // remove an existing container with the same name
+        DockerUtil.getInstance().runDockerCommand(container.getDockerExecutable(), "rm", "-f", container.getName());
+
+        List<String> cmd = new ArrayList<>();
+        cmd.add("run");
+        cmd.add("-d");
+        cmd.add("--name");
+        cmd.add(container.getName());
+        if (container.getPort() != null) {
+            cmd.add("-p");
+            cmd.add(container.getPort() + ":" + container.getPort());
+        }
+        cmd.add(container.getImage());
+
+        // the keep alive command is split into its arguments, they are passed to docker without a shell
+        cmd.addAll(Arrays.asList(container.getKeepAliveCommand().trim().split("\\s+")));
+
+        LOG.info("Start docker container [" + container.getName() + "] of image [" + container.getImage() + "]...");
+        ISynchronousProcess process = DockerUtil.getInstance().runDockerCommand(container.getDockerExecutable(), cmd.toArray(new String[cmd.size()]));
+        if (!DockerUtil.getInstance().isSuccessful(process)) {
+            DockerStateCache.getInstance().invalidateContainer(container.getDockerExecutable(), container.getName());
+            throw new IllegalStateException("Could not start docker container [" + container.getName() + "]: " + process.getErrorOutput());
+        }
+
+        DockerStateCache.getInstance().putContainerState(container.getDockerExecutable(), container.getName(), true);
+        container.setStarted(true);
+    }
+
+
+    /**
+     * Remove the container
+     *
+     * @param container the container
+     */
+    private void remove(DockerContainer container) {
+        try {
+            LOG.debug("Remove docker container [" + container.getName() + "]...");
+            DockerUtil.getInstance().runDockerCommand(container.getDockerExecutable(), "rm", "-f", container.getName());
+        } catch (RuntimeException e) {
+            LOG.warn("Could not remove docker container [" + container.getName() + "]: " + e.getMessage());
+        } finally {
+            DockerStateCache.getInstance().invalidateContainer(container.getDockerExecutable(), container.getName());
+            container.setStarted(false);
+        }
+    }
+
+
+    /**
+     * Start the eviction service
+     */
+    private void startEvictionService() {
+        if (evictionService != null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (evictionService == null) {
+                evictionService = Executors.newScheduledThreadPool(1, nameableThreadFactory);
+                evictionService.scheduleAtFixedRate(() -> {
+                    try {
+                        evictIdleContainers();
+                    } catch (RuntimeException e) {
+                        LOG.warn("Error occured while evict idle docker containers: " + e.getMessage(), e);
+                    }
+                }, EVICTION_PERIOD, EVICTION_PERIOD, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+
+    /**
+     * The pooled docker container
+     *
+     * @author patrick
+     */
+    private static class DockerContainer {
+        private final String dockerExecutable;
+        private final String image;
+        private final String name;
+        private final Integer port;
+        private final String keepAliveCommand;
+        private volatile Instant lastAccess;
+        private volatile boolean started;
+        private int useCount;
+
+
+        /**
+         * Constructor for DockerContainer
+         *
+         * @param dockerExecutable the docker executable
+         * @param image the image
+         * @param name the name
+         * @param port the port
+         * @param keepAliveCommand the keep alive command
+         */
+        DockerContainer(String dockerExecutable, String image, String name, Integer port, String keepAliveCommand) {
+            this.dockerExecutable = dockerExecutable;
+            this.image = image;
+            this.name = name;
+            this.port = port;
+            this.keepAliveCommand = keepAliveCommand;
+            this.lastAccess = Instant.now();
+            this.started = false;
+            this.useCount = 0;
+        }
+
+
+        /**
+         * Get the docker executable
+         *
+         * @return the docker executable
+         */
+        public String getDockerExecutable() {
+            return dockerExecutable;
+        }
+
+
+        /**
+         * Get the image
+         *
+         * @return the image
+         */
+        public String getImage() {
+            return image;
+        }
+
+
+        /**
+         * Get the name
+         *
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+
+        /**
+         * Get the port
+         *
+         * @return the port
+         */
+        public Integer getPort() {
+            return port;
+        }
+
+
+        /**
+         * Get the keep alive command
+         *
+         * @return the keep alive command
+         */
+        public String getKeepAliveCommand() {
+            return keepAliveCommand;
+        }
+
+
+        /**
+         * Get the last access
+         *
+         * @return the last access
+         */
+        public Instant getLastAccess() {
+            return lastAccess;
+        }
+
+
+        /**
+         * Mark the container in use
+         */
+        public void acquire() {
+            useCount++;
+            lastAccess = Instant.now();
+        }
+
+
+        /**
+         * Release the container, the last access is updated
+         */
+        public void release() {
+            if (useCount > 0) {
+                useCount--;
+            }
+
+            lastAccess = Instant.now();
+        }
+
+
+        /**
+         * Check if the container is in use
+         *
+         * @return true if it is in use
+         */
+        public boolean isInUse() {
+            return useCount > 0;
+        }
+
+
+        /**
+         * Check if the container is started
+         *
+         * @return true if it is started
+         */
+        public boolean isStarted() {
+            return started;
+        }
+
+
+        /**
+         * Set the container started
+         *
+         * @param started true if it is started
+         */
+        public void setStarted(boolean started) {
+            this.started = started;
+        }
+    }
+}
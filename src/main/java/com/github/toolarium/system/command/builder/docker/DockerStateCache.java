@@ -0,0 +1,325 @@
+/*
+ * DockerStateCache.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.builder.docker;
+
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Caches the result of docker image and container state lookups. Every lookup spawns a docker process, therefore the
+ * results are kept for a time to live. Entries are evicted after the time to live or explicit by the invalidate methods.
+ *
+ * @author patrick
+ */
+public final class DockerStateCache {
+    /** The default time to live */
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofSeconds(10);
+
+    private static final Logger LOG = LoggerFactory.getLogger(DockerStateCache.class);
+    private static final String IMAGE_FORMAT = "{{.Repository}}:{{.Tag}}";
+    private Map<String, CacheEntry<List<String>>> imageMap;
+    private Map<String, CacheEntry<Boolean>> containerMap;
+    private volatile long timeToLive;
+
+
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final DockerStateCache INSTANCE = new DockerStateCache();
+    }
+
+
+    /**
+     * Constructor
+     */
+    private DockerStateCache() {
+        imageMap = new ConcurrentHashMap<>();
+        containerMap = new ConcurrentHashMap<>();
+        timeToLive = DEFAULT_TIME_TO_LIVE.toMillis();
+    }
+
+
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static DockerStateCache getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+
+    /**
+     * Get the images as list of <code>repository:tag</code>
+     *
+     * @param dockerExecutable the docker executable
+     * @param filter the image filter (e.g. a repository name) or null to get all images
+     * @return the images
+     * @throws IllegalStateException In case the images could not be read
+     */
+    public List<String> getImages(String dockerExecutable, String filter) {
+        final String key = createKey(dockerExecutable, filter);
+        CacheEntry<List<String>> entry = imageMap.get(key);
+        if (entry != null && !entry.isExpired()) {
+            return entry.getValue();
+        }
+
+        ISynchronousProcess process = DockerUtil.getInstance().runDockerCommand(dockerExecutable, "images", "--format", IMAGE_FORMAT, filter);
+        if (!DockerUtil.getInstance().isSuccessful(process)) {
+            throw new IllegalStateException("Could not read docker images: " + process.getErrorOutput());
+        }
+
+        List<String> result = new ArrayList<>();
+        if (process.getOutput() != null) {
+            for (String line : process.getOutput().split("\\R")) {
+                String image = line.trim();
+                if (image.startsWith("\"") && image.endsWith("\"") && image.length() > 1) {
+                    image = image.substring(1, image.length() - 1);
+                }
+
+                if (!image.isBlank()) {
+                    result.add(image);
+                }
+            }
+        }
+
+        result = Collections.unmodifiableList(result);
+        put(imageMap, key, result);
+        return result;
+    }
+
+
+    /**
+     * Verify if an image exists
+     *
+     * @param dockerExecutable the docker executable
+     * @param image the image
+     * @return true if the image exists
+     */
+    public boolean existsImage(String dockerExecutable, String image) {
+        if (image == null || image.isBlank()) {
+            return false;
+        }
+
+        return !getImages(dockerExecutable, image.trim()).isEmpty();
+    }
+
+
+    /**
+     * Verify if a container is running
+     *
+     * @param dockerExecutable the docker executable
+     * @param name the container name
+     * @return true if the container is running
+     */
+    public boolean isContainerRunning(String dockerExecutable, String name) {
+        final String key = createKey(dockerExecutable, name);
+        CacheEntry<Boolean> entry = containerMap.get(key);
+        if (entry != null && !entry.isExpired()) {
+            return entry.getValue();
+        }
+
+        ISynchronousProcess process = DockerUtil.getInstance().runDockerCommand(dockerExecutable, "inspect", "-f", "{{.State.Running}}", name);
+        boolean isRunning = DockerUtil.getInstance().isSuccessful(process) && process.getOutput() != null && "true".equals(process.getOutput().trim());
+        put(containerMap, key, isRunning);
+        return isRunning;
+    }
+
+
+    /**
+     * Set a known container state, e.g. after a container was started
+     *
+     * @param dockerExecutable the docker executable
+     * @param name the container name
+     * @param isRunning true if the container is running
+     */
+    public void putContainerState(String dockerExecutable, String name, boolean isRunning) {
+        put(containerMap, createKey(dockerExecutable, name), isRunning);
+    }
+
+
+    /**
+     * Stop many containers with one docker invocation. The state of the containers will be invalidated.
+     *
+     * @param dockerExecutable the docker executable
+     * @param names the container names
+     * @return the terminated process or null if there are no names
+     */
+    public ISynchronousProcess stop(String dockerExecutable, String... names) {
+        if (names == null || names.length == 0) {
+            return null;
+        }
+
+        try {
+            String[] parameters = new String[names.length + 1];
+            parameters[0] = "stop";
+            System.arraycopy(names, 0, parameters, 1, names.length);
+            return DockerUtil.getInstance().runDockerCommand(dockerExecutable, parameters);
+        } finally {
+            invalidateContainer(dockerExecutable, names);
+        }
+    }
+
+
+    /**
+     * Invalidate the state of containers
+     *
+     * @param dockerExecutable the docker executable
+     * @param names the container names
+     */
+    public void invalidateContainer(String dockerExecutable, String... names) {
+        if (names == null) {
+            return;
+        }
+
+        for (String name : names) {
+            containerMap.remove(createKey(dockerExecutable, name));
+        }
+    }
+
+
+    /**
+     * Invalidate all cached images
+     */
+    public void invalidateImages() {
+        imageMap.clear();
+    }
+
+
+    /**
+     * Invalidate all cached entries
+     */
+    public void invalidate() {
+        LOG.debug("Invalidate docker state cache.");
+        imageMap.clear();
+        containerMap.clear();
+    }
+
+
+    /**
+     * Get the number of cached entries
+     *
+     * @return the number of cached entries
+     */
+    public int size() {
+        return imageMap.size() + containerMap.size();
+    }
+
+
+    /**
+     * Get the time to live
+     *
+     * @return the time to live
+     */
+    public Duration getTimeToLive() {
+        return Duration.ofMillis(timeToLive);
+    }
+
+
+    /**
+     * Set the time to live. A time to live of 0 disables the cache.
+     *
+     * @param timeToLive the time to live
+     * @throws IllegalArgumentException In case of an invalid time to live
+     */
+    public void setTimeToLive(Duration timeToLive) {
+        if (timeToLive == null || timeToLive.isNegative()) {
+            throw new IllegalArgumentException("Invalid time to live [" + timeToLive + "]!");
+        }
+
+        this.timeToLive = timeToLive.toMillis();
+        invalidate();
+    }
+
+
+    /**
+     * Create the cache key
+     *
+     * @param dockerExecutable the docker executable
+     * @param name the name
+     * @return the key
+     */
+    private String createKey(String dockerExecutable, String name) {
+        return dockerExecutable + "|" + name;
+    }
+
+
+    /**
+     * Put a value into a map and evict the expired entries
+     *
+     * @param <T> the type
+     * @param map the map
+     * @param key the key
+     * @param value the value
+     */
+    private <T> void put(Map<String, CacheEntry<T>> map, String key, T value) {
+        for (Iterator<CacheEntry<T>> it = map.values().iterator(); it.hasNext();) {
+            if (it.next().isExpired()) {
+                it.remove();
+            }
+        }
+
+        if (timeToLive > 0) {
+            map.put(key, new CacheEntry<T>(value, System.currentTimeMillis() + timeToLive));
+        }
+    }
+
+
+    /**
+     * The cache entry
+     *
+     * @param <T> the type
+     * @author patrick
+     */
+    private static class CacheEntry<T> {
+        private final T value;
+        private final long expiry;
+
+
+        /**
+         * Constructor for CacheEntry
+         *
+         * @param value the value
+         * @param expiry the expiry time in milliseconds
+         */
+        CacheEntry(T value, long expiry) {
+            this.value = value;
+            this.expiry = expiry;
+        }
+
+
+        /**
+         * Get the value
+         *
+         * @return the value
+         */
+        public T getValue() {
+            return value;
+        }
+
+
+        /**
+         * Check if the entry is expired
+         *
+         * @return true if it is expired
+         */
+        public boolean isExpired() {
+            return System.currentTimeMillis() >= expiry;
+        }
+    }
+}
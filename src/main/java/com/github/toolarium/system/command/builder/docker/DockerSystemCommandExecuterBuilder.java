@@ -7,7 +7,11 @@ package com.github.toolarium.system.command.builder.docker;
 
 import com.github.toolarium.system.command.builder.system.AbstractCommandExecuterBuilder;
 import com.github.toolarium.system.command.dto.list.SystemCommandGroupList;
+import com.github.toolarium.system.command.executer.ISystemCommandExecuter;
+import com.github.toolarium.system.command.remote.RemoteSystemCommandExecuter;
+import com.github.toolarium.system.command.template.SystemCommandTemplate;
 import com.github.toolarium.system.command.util.OSUtil;
+import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -27,6 +31,8 @@ public class DockerSystemCommandExecuterBuilder extends AbstractCommandExecuterB
     private Integer port;
     private String image;
     private Map<String, String> parameters;
+    private Boolean persistent;
+    private String keepAliveCommand;
 
     
     /**
@@ -45,6 +51,8 @@ public class DockerSystemCommandExecuterBuilder extends AbstractCommandExecuterB
         port = null;
         image = null;
         parameters = new LinkedHashMap<>();
+        persistent = null;
+        keepAliveCommand = null;
     }
     
     
@@ -119,6 +127,15 @@ public class DockerSystemCommandExecuterBuilder extends AbstractCommandExecuterB
         return (DockerSystemCommandExecuterBuilder)super.environmentVariable(key, value);
     }
 
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#minimalEnvironment(java.lang.String[])
+     */
+    @Override
+    public DockerSystemCommandExecuterBuilder minimalEnvironment(String... additionalVariables) {
+        return (DockerSystemCommandExecuterBuilder)super.minimalEnvironment(additionalVariables);
+    }
+
     
     /**
      * Set the docker image
@@ -221,6 +238,35 @@ public class DockerSystemCommandExecuterBuilder extends AbstractCommandExecuterB
     }
 
     
+    /**
+     * Run the commands in a long-lived container. One named container per image and configuration is started once 
+     * and the commands are dispatched with <code>docker exec</code>. The container is acquired when a run starts, it is reused
+     * across invocations and evicted by the {@link DockerContainerPool} after an idle timeout.
+     *
+     * @param persistent true to reuse a long-lived container
+     * @return the docker system command executer builder
+     */
+    public DockerSystemCommandExecuterBuilder persistent(boolean persistent) {
+        this.persistent = persistent;
+        return this;
+    }
+
+    
+    /**
+     * Set the command which keeps a persistent container running, by default {@link DockerContainerPool#DEFAULT_KEEP_ALIVE_COMMAND}.
+     *
+     * @param keepAliveCommand the keep alive command
+     * @return the docker system command executer builder
+     */
+    public DockerSystemCommandExecuterBuilder keepAliveCommand(String keepAliveCommand) {
+        if (keepAliveCommand != null) {
+            this.keepAliveCommand = keepAliveCommand.trim();
+        }
+        
+        return this;
+    }
+
+    
     /**
      * Stop a docker container
      *
@@ -228,15 +274,30 @@ public class DockerSystemCommandExecuterBuilder extends AbstractCommandExecuterB
      * @return the docker system command executer builder
      */
     public DockerSystemCommandExecuterBuilder stop(String name) {
+        return stop(new String[] {name});
+    }
+
+    
+    /**
+     * Stop docker containers. All containers are stopped with one docker invocation.
+     *
+     * @param names the conatiner names to stop
+     * @return the docker system command executer builder
+     */
+    public DockerSystemCommandExecuterBuilder stop(String... names) {
         this.dockerCommand = "stop";
-        this.name = name;
+        this.name = null;
+        if (names != null && names.length > 0) {
+            this.name = String.join(" ", names).trim();
+        }
         this.nameTag = Boolean.FALSE;
         return this;
     }
 
     
     /**
-     * Get docker images
+     * Get docker images. Every run spawns a docker process, repeated lookups should use the cached
+     * {@link DockerStateCache#getImages(String, String)}.
      *
      * @return the docker system command executer builder
      */
@@ -252,7 +313,8 @@ public class DockerSystemCommandExecuterBuilder extends AbstractCommandExecuterB
 
     
     /**
-     * Get docker images
+     * Get docker images. Every run spawns a docker process, repeated lookups and existence checks should use the cached
+     * {@link DockerStateCache#getImages(String, String)} and {@link DockerStateCache#existsImage(String, String)}.
      *
      * @param name the conatiner name to filter
      * @return the docker system command executer builder
@@ -294,6 +356,97 @@ public class DockerSystemCommandExecuterBuilder extends AbstractCommandExecuterB
         return (DockerSystemCommandExecuterBuilder)super.lock(lockTimeoutInSeconds);
     }
 
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#cached(java.time.Duration)
+     */
+    @Override
+    public DockerSystemCommandExecuterBuilder cached(Duration timeToLive) {
+        return (DockerSystemCommandExecuterBuilder)super.cached(timeToLive);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#singleFlight()
+     */
+    @Override
+    public DockerSystemCommandExecuterBuilder singleFlight() {
+        return (DockerSystemCommandExecuterBuilder)super.singleFlight();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#hedged(double)
+     */
+    @Override
+    public DockerSystemCommandExecuterBuilder hedged(double percentile) {
+        return (DockerSystemCommandExecuterBuilder)super.hedged(percentile);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#diskless()
+     */
+    @Override
+    public DockerSystemCommandExecuterBuilder diskless() {
+        return (DockerSystemCommandExecuterBuilder)super.diskless();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#cachedScript()
+     */
+    @Override
+    public DockerSystemCommandExecuterBuilder cachedScript() {
+        return (DockerSystemCommandExecuterBuilder)super.cachedScript();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#detached()
+     */
+    @Override
+    public DockerSystemCommandExecuterBuilder detached() {
+        return (DockerSystemCommandExecuterBuilder)super.detached();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#inputOnDisk()
+     */
+    @Override
+    public DockerSystemCommandExecuterBuilder inputOnDisk() {
+        return (DockerSystemCommandExecuterBuilder)super.inputOnDisk();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#buildTemplate()
+     * @throws IllegalStateException In case of a persistent container
+     */
+    @Override
+    public SystemCommandTemplate buildTemplate() {
+        if (isPersistentRun()) {
+            throw new IllegalStateException("A persistent docker container can not be built as template!");
+        }
+
+        return super.buildTemplate();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#buildRemote(com.github.toolarium.system.command.remote.RemoteSystemCommandExecuter)
+     * @throws IllegalStateException In case of a persistent container
+     */
+    @Override
+    public ISystemCommandExecuter buildRemote(RemoteSystemCommandExecuter remoteSystemCommandExecuter) {
+        if (isPersistentRun()) {
+            throw new IllegalStateException("A persistent docker container can not be built as remote executer!");
+        }
+
+        return super.buildRemote(remoteSystemCommandExecuter);
+    }
+
     
     /**
      * @see com.github.toolarium.system.command.builder.system.AbstractCommandExecuterBuilder#childBuild(com.github.toolarium.system.command.dto.list.SystemCommandGroupList)
@@ -301,6 +454,11 @@ public class DockerSystemCommandExecuterBuilder extends AbstractCommandExecuterB
      */
     @Override
     protected void childBuild(SystemCommandGroupList systemCommandGroupList) throws IllegalArgumentException {
+        if (isPersistentRun()) {
+            childBuildExec(systemCommandGroupList);
+            return;
+        }
+        
         command(dockerExecutable, dockerExecutable);
         command(dockerCommand, dockerCommand);
 
@@ -337,4 +495,73 @@ public class DockerSystemCommandExecuterBuilder extends AbstractCommandExecuterB
             systemCommandGroupList.forceRunAsScript();
         }
     }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.system.AbstractCommandExecuterBuilder#buildSystemCommandExecuter()
+     */
+    @Override
+    protected ISystemCommandExecuter buildSystemCommandExecuter() {
+        ISystemCommandExecuter systemCommandExecuter = super.buildSystemCommandExecuter();
+        final String containerDockerExecutable = dockerExecutable;
+        if (isPersistentRun()) {
+            // the container is resolved when a run starts, it could be evicted in the meantime
+            final String containerImage = image;
+            final String containerName = name;
+            final Integer containerPort = port;
+            final String containerKeepAliveCommand = keepAliveCommand;
+            return new DockerSystemCommandExecuterWrapper(systemCommandExecuter,
+                    () -> DockerContainerPool.getInstance().acquire(containerDockerExecutable, containerImage, containerName, containerPort, containerKeepAliveCommand),
+                    () -> DockerContainerPool.getInstance().release(containerDockerExecutable, containerImage, containerName, containerPort, containerKeepAliveCommand));
+        }
+
+        if ("stop".equals(dockerCommand) && name != null && !name.isBlank()) {
+            // the state of the stopped containers is invalidated when the stop ended, a lookup in the meantime could cache it again
+            final String[] names = name.split("\\s+");
+            return new DockerSystemCommandExecuterWrapper(systemCommandExecuter, null, () -> DockerStateCache.getInstance().invalidateContainer(containerDockerExecutable, names));
+        }
+
+        return systemCommandExecuter;
+    }
+
+
+    /**
+     * Verify if the commands run in a persistent container
+     *
+     * @return true if the commands run in a persistent container
+     */
+    private boolean isPersistentRun() {
+        return persistent != null && persistent && "run".equals(dockerCommand);
+    }
+
+
+    /**
+     * Build the exec command which runs inside a persistent container
+     *
+     * @param systemCommandGroupList the system command group list
+     * @throws IllegalArgumentException In case of an invalid argument
+     */
+    private void childBuildExec(SystemCommandGroupList systemCommandGroupList) throws IllegalArgumentException {
+        if (image == null || image.isBlank()) {
+            throw new IllegalArgumentException("Missing docker image!");
+        }
+
+        String containerName = DockerContainerPool.getInstance().getContainerName(dockerExecutable, image, name, port, keepAliveCommand);
+        command(dockerExecutable, dockerExecutable);
+        command("exec");
+
+        if (interactive != null && interactive) {
+            command("-it");
+        }
+
+        command(containerName);
+
+        if (parameters != null && !parameters.isEmpty()) {
+            command(parameters, null, false, false);
+        }
+        
+        if (!OSUtil.getInstance().isWindows()) {
+            systemCommandGroupList.forceRunAsScript();
+        }
+    }
 }
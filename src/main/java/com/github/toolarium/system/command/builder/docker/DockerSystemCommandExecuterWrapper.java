@@ -0,0 +1,159 @@
+/*
+ * DockerSystemCommandExecuterWrapper.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.builder.docker;
+
+import com.github.toolarium.system.command.executer.ISystemCommandExecuter;
+import com.github.toolarium.system.command.executer.impl.AbstractSystemCommandExecuterImpl;
+import com.github.toolarium.system.command.process.IAsynchronousProcess;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.stream.IProcessInputStream;
+import com.github.toolarium.system.command.process.stream.IProcessOutputStream;
+import com.github.toolarium.system.command.process.stream.output.ProcessOutputStream;
+
+
+/**
+ * Wraps the {@link ISystemCommandExecuter} of a docker command to keep the docker state in line with the runs: the start action
+ * is called when a run starts, the end action when the run ended. E.g. a pooled container is acquired from the {@link DockerContainerPool}
+ * when a run starts and released when it ended, the state of stopped containers is invalidated when the stop ended.
+ *
+ * @author patrick
+ */
+class DockerSystemCommandExecuterWrapper implements ISystemCommandExecuter {
+    private final ISystemCommandExecuter systemCommandExecuter;
+    private final Runnable startAction;
+    private final Runnable endAction;
+
+
+    /**
+     * Constructor for DockerSystemCommandExecuterWrapper
+     *
+     * @param systemCommandExecuter the system command executer of the docker command
+     * @param startAction the action which is called when a run starts or null
+     * @param endAction the action which is called when a run ended or null
+     */
+    DockerSystemCommandExecuterWrapper(ISystemCommandExecuter systemCommandExecuter, Runnable startAction, Runnable endAction) {
+        this.systemCommandExecuter = systemCommandExecuter;
+        this.startAction = startAction;
+        this.endAction = endAction;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runSynchronous()
+     */
+    @Override
+    public ISynchronousProcess runSynchronous() {
+        return runSynchronous(0);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runSynchronous(int)
+     */
+    @Override
+    public ISynchronousProcess runSynchronous(int numberOfSecondsToWait) {
+        return runSynchronous(null, numberOfSecondsToWait);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runSynchronous(com.github.toolarium.system.command.process.stream.IProcessInputStream, int)
+     */
+    @Override
+    public ISynchronousProcess runSynchronous(IProcessInputStream processInputStream, int numberOfSecondsToWait) {
+        start();
+        try {
+            return systemCommandExecuter.runSynchronous(processInputStream, numberOfSecondsToWait);
+        } finally {
+            end();
+        }
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runAsynchronous()
+     */
+    @Override
+    public IAsynchronousProcess runAsynchronous() {
+        return runAsynchronous(null, new ProcessOutputStream(System.out), new ProcessOutputStream(System.err));
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runAsynchronous(com.github.toolarium.system.command.process.stream.IProcessOutputStream)
+     */
+    @Override
+    public IAsynchronousProcess runAsynchronous(IProcessOutputStream processOutAndErr) {
+        return runAsynchronous(null, processOutAndErr, processOutAndErr, AbstractSystemCommandExecuterImpl.DEFAULT_POLL_TIMEOUT);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runAsynchronous(com.github.toolarium.system.command.process.stream.IProcessOutputStream, com.github.toolarium.system.command.process.stream.IProcessOutputStream)
+     */
+    @Override
+    public IAsynchronousProcess runAsynchronous(IProcessOutputStream processOut, IProcessOutputStream processErr) {
+        return runAsynchronous(null, processOut, processErr, AbstractSystemCommandExecuterImpl.DEFAULT_POLL_TIMEOUT);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runAsynchronous(com.github.toolarium.system.command.process.stream.IProcessInputStream,
+     *      com.github.toolarium.system.command.process.stream.IProcessOutputStream, com.github.toolarium.system.command.process.stream.IProcessOutputStream)
+     */
+    @Override
+    public IAsynchronousProcess runAsynchronous(IProcessInputStream processInputStream, IProcessOutputStream processOut, IProcessOutputStream processErr) {
+        return runAsynchronous(processInputStream, processOut, processErr, AbstractSystemCommandExecuterImpl.DEFAULT_POLL_TIMEOUT);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runAsynchronous(com.github.toolarium.system.command.process.stream.IProcessInputStream,
+     *      com.github.toolarium.system.command.process.stream.IProcessOutputStream, com.github.toolarium.system.command.process.stream.IProcessOutputStream, long)
+     */
+    @Override
+    public IAsynchronousProcess runAsynchronous(IProcessInputStream processInputStream, IProcessOutputStream processOut, IProcessOutputStream processErr, long pollTimeout) {
+        start();
+
+        IAsynchronousProcess process;
+        try {
+            process = systemCommandExecuter.runAsynchronous(processInputStream, processOut, processErr, pollTimeout);
+        } catch (RuntimeException e) {
+            end();
+            throw e;
+        }
+
+        ProcessHandle processHandle = process.getProcessHandle();
+        if (processHandle == null) {
+            end();
+        } else {
+            // e.g. the container stays in use until the process ended
+            processHandle.onExit().whenComplete((p, e) -> end());
+        }
+
+        return process;
+    }
+
+
+    /**
+     * Call the start action
+     */
+    private void start() {
+        if (startAction != null) {
+            startAction.run();
+        }
+    }
+
+
+    /**
+     * Call the end action
+     */
+    private void end() {
+        if (endAction != null) {
+            endAction.run();
+        }
+    }
+}
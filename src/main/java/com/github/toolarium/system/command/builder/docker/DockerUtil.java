@@ -0,0 +1,89 @@
+/*
+ * DockerUtil.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.builder.docker;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.builder.system.SystemCommandExecuterBuilder;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.util.OSUtil;
+
+
+/**
+ * Docker util
+ *
+ * @author patrick
+ */
+public final class DockerUtil {
+    /** The default timeout in seconds of a docker command */
+    public static final int DOCKER_COMMAND_TIMEOUT = 60;
+
+    private static final String[] POSIX_EXEC_SHELL = {"sh", "-c", "exec \"$0\" \"$@\""};
+
+
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final DockerUtil INSTANCE = new DockerUtil();
+    }
+
+
+    /**
+     * Constructor
+     */
+    private DockerUtil() {
+        // NOP
+    }
+
+
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static DockerUtil getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+
+    /**
+     * Run a docker command synchronous. Each parameter is passed as one argument to docker, e.g. a container name or an
+     * image is not interpreted by the shell.
+     *
+     * @param dockerExecutable the docker executable
+     * @param parameters the parameters, a null or blank parameter is ignored
+     * @return the terminated process
+     */
+    public ISynchronousProcess runDockerCommand(String dockerExecutable, String... parameters) {
+        SystemCommandExecuterBuilder builder = SystemCommandExecuterFactory.builder().system();
+        if (!OSUtil.getInstance().isWindows()) {
+            // the shell passes the arguments unchanged to docker
+            builder.shell(POSIX_EXEC_SHELL);
+        }
+
+        builder.command(dockerExecutable);
+        for (String parameter : parameters) {
+            if (parameter != null && !parameter.isBlank()) {
+                builder.command(parameter);
+            }
+        }
+
+        return builder.build().runSynchronous(DOCKER_COMMAND_TIMEOUT);
+    }
+
+
+    /**
+     * Check if the process was successful
+     *
+     * @param process the process
+     * @return true if the process ended with exit value 0
+     */
+    public boolean isSuccessful(ISynchronousProcess process) {
+        return process != null && process.getExitValue() != null && process.getExitValue() == 0;
+    }
+}
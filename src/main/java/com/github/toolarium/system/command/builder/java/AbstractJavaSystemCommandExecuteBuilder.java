@@ -8,6 +8,7 @@ package com.github.toolarium.system.command.builder.java;
 import com.github.toolarium.system.command.builder.system.AbstractCommandExecuterBuilder;
 import com.github.toolarium.system.command.dto.list.SystemCommandGroupList;
 import com.github.toolarium.system.command.util.OSUtil;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -119,6 +120,15 @@ public abstract class AbstractJavaSystemCommandExecuteBuilder extends AbstractCo
         return (AbstractJavaSystemCommandExecuteBuilder)super.environmentVariable(key, value);
     }
 
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#minimalEnvironment(java.lang.String[])
+     */
+    @Override
+    public AbstractJavaSystemCommandExecuteBuilder minimalEnvironment(String... additionalVariables) {
+        return (AbstractJavaSystemCommandExecuteBuilder)super.minimalEnvironment(additionalVariables);
+    }
+
     
     /**
      * Set the jre path
@@ -337,6 +347,69 @@ public abstract class AbstractJavaSystemCommandExecuteBuilder extends AbstractCo
     }
 
 
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#cached(java.time.Duration)
+     */
+    @Override
+    public AbstractJavaSystemCommandExecuteBuilder cached(Duration timeToLive) {
+        return (AbstractJavaSystemCommandExecuteBuilder)super.cached(timeToLive);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#singleFlight()
+     */
+    @Override
+    public AbstractJavaSystemCommandExecuteBuilder singleFlight() {
+        return (AbstractJavaSystemCommandExecuteBuilder)super.singleFlight();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#hedged(double)
+     */
+    @Override
+    public AbstractJavaSystemCommandExecuteBuilder hedged(double percentile) {
+        return (AbstractJavaSystemCommandExecuteBuilder)super.hedged(percentile);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#diskless()
+     */
+    @Override
+    public AbstractJavaSystemCommandExecuteBuilder diskless() {
+        return (AbstractJavaSystemCommandExecuteBuilder)super.diskless();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#cachedScript()
+     */
+    @Override
+    public AbstractJavaSystemCommandExecuteBuilder cachedScript() {
+        return (AbstractJavaSystemCommandExecuteBuilder)super.cachedScript();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#detached()
+     */
+    @Override
+    public AbstractJavaSystemCommandExecuteBuilder detached() {
+        return (AbstractJavaSystemCommandExecuteBuilder)super.detached();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#inputOnDisk()
+     */
+    @Override
+    public AbstractJavaSystemCommandExecuteBuilder inputOnDisk() {
+        return (AbstractJavaSystemCommandExecuteBuilder)super.inputOnDisk();
+    }
+
+
     /**
      * @see com.github.toolarium.system.command.builder.system.AbstractCommandExecuterBuilder#childBuild(com.github.toolarium.system.command.dto.list.SystemCommandGroupList)
      * @throws IllegalArgumentException In case of an invalid argument
@@ -15,9 +15,16 @@ import com.github.toolarium.system.command.dto.env.ProcessEnvironment;
 import com.github.toolarium.system.command.dto.group.SystemCommandGroup;
 import com.github.toolarium.system.command.dto.list.SystemCommandGroupList;
 import com.github.toolarium.system.command.executer.ISystemCommandExecuter;
+import com.github.toolarium.system.command.executer.ParallelOutputMode;
+import com.github.toolarium.system.command.process.util.EnvironmentSnapshot;
+import com.github.toolarium.system.command.remote.RemoteSystemCommandExecuter;
+import com.github.toolarium.system.command.template.SystemCommandTemplate;
 import com.github.toolarium.system.command.util.SystemCommandFactory;
 import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -34,6 +41,7 @@ public abstract class AbstractCommandExecuterBuilder implements ISystemCommandEx
     private SystemCommand currentSystemCommand;
     private IProcessEnvironment parentProcessEnvironment;
     private List<String> parentShell;
+    private List<ISystemCommandExecuter> parallelBranchList;
     
 
     /**
@@ -46,6 +54,7 @@ public abstract class AbstractCommandExecuterBuilder implements ISystemCommandEx
         this.currentSystemCommand = null;
         this.parentProcessEnvironment = null;
         this.parentShell = null;
+        this.parallelBranchList = null;
     }
 
     
@@ -84,6 +93,45 @@ public abstract class AbstractCommandExecuterBuilder implements ISystemCommandEx
         return addSystemCommandGroup();
     }
 
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#parallel()
+     */
+    @Override
+    public ISystemCommandExecuterTypeBuilder parallel() {
+        List<ISystemCommandExecuter> branchList = new ArrayList<>();
+        if (parallelBranchList != null) {
+            branchList.addAll(parallelBranchList);
+        }
+
+        branchList.add(buildSystemCommandExecuter());
+        return new SystemCommandExecuterTypeBuilder(new SystemCommandGroupList(), branchList);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#join()
+     */
+    @Override
+    public ISystemCommandExecuter join() {
+        return join(ParallelOutputMode.ORDERED);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#join(com.github.toolarium.system.command.executer.ParallelOutputMode)
+     */
+    @Override
+    public ISystemCommandExecuter join(ParallelOutputMode parallelOutputMode) {
+        if (parallelBranchList == null) {
+            throw new IllegalStateException("There are no parallel branches to join, use parallel() before!");
+        }
+
+        List<ISystemCommandExecuter> branchList = new ArrayList<>(parallelBranchList);
+        branchList.add(buildSystemCommandExecuter());
+        return SystemCommandExecuterFactory.getInstance().createParallelSystemCommandExecuter(branchList, parallelOutputMode);
+    }
+
     
     /**
      * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#shell(java.lang.String[])
@@ -165,6 +213,21 @@ public abstract class AbstractCommandExecuterBuilder implements ISystemCommandEx
         return this;
     }
 
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#minimalEnvironment(java.lang.String[])
+     */
+    @Override
+    public ISystemCommandExecuterBuilder minimalEnvironment(String... additionalVariables) {
+        Set<String> environmentAllowlist = new LinkedHashSet<>(EnvironmentSnapshot.DEFAULT_ALLOWLIST);
+        if (additionalVariables != null) {
+            environmentAllowlist.addAll(Arrays.asList(additionalVariables));
+        }
+
+        getProcessEnvironment().setEnvironmentAllowlist(environmentAllowlist);
+        return this;
+    }
+
     
     /**
      * Add a new command 
@@ -240,13 +303,127 @@ public abstract class AbstractCommandExecuterBuilder implements ISystemCommandEx
     }
 
 
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#cached(java.time.Duration)
+     */
+    @Override
+    public ISystemCommandExecuterBuilder cached(Duration timeToLive) {
+        if (timeToLive == null || timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Invalid cache time to live [" + timeToLive + "]!");
+        }
+
+        systemCommandGroupList.setCacheTimeToLive(timeToLive);
+        return this;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#singleFlight()
+     */
+    @Override
+    public ISystemCommandExecuterBuilder singleFlight() {
+        systemCommandGroupList.setSingleFlight(true);
+        return this;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#hedged(double)
+     */
+    @Override
+    public ISystemCommandExecuterBuilder hedged(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid hedge percentile [" + percentile + "]!");
+        }
+
+        systemCommandGroupList.setHedgePercentile(percentile);
+        return this;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#diskless()
+     */
+    @Override
+    public ISystemCommandExecuterBuilder diskless() {
+        systemCommandGroupList.setDiskless(true);
+        return this;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#cachedScript()
+     */
+    @Override
+    public ISystemCommandExecuterBuilder cachedScript() {
+        systemCommandGroupList.setScriptCache(true);
+        return this;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#detached()
+     */
+    @Override
+    public ISystemCommandExecuterBuilder detached() {
+        systemCommandGroupList.setDetached(true);
+        return this;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#inputOnDisk()
+     */
+    @Override
+    public ISystemCommandExecuterBuilder inputOnDisk() {
+        systemCommandGroupList.setInputOnDisk(true);
+        return this;
+    }
+
+
     /**
      * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#build()
      */
     @Override
     public ISystemCommandExecuter build() {
+        if (parallelBranchList != null) {
+            // the last branch of parallel branches
+            return join();
+        }
+
+        return buildSystemCommandExecuter();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#buildTemplate()
+     */
+    @Override
+    public SystemCommandTemplate buildTemplate() {
+        if (parallelBranchList != null) {
+            throw new IllegalStateException("Parallel branches can not be built as template!");
+        }
+
         childBuild(systemCommandGroupList);
-        return SystemCommandExecuterFactory.getInstance().createSystemCommandExecuter(systemCommandGroupList);
+        return SystemCommandExecuterFactory.getInstance().createSystemCommandTemplate(systemCommandGroupList);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#buildRemote(com.github.toolarium.system.command.remote.RemoteSystemCommandExecuter)
+     */
+    @Override
+    public ISystemCommandExecuter buildRemote(RemoteSystemCommandExecuter remoteSystemCommandExecuter) {
+        if (remoteSystemCommandExecuter == null) {
+            throw new IllegalArgumentException("Invalid remote system command executer!");
+        }
+
+        if (parallelBranchList != null) {
+            throw new IllegalStateException("Parallel branches can not be built as remote executer!");
+        }
+
+        childBuild(systemCommandGroupList);
+        return remoteSystemCommandExecuter.createSystemCommandExecuter(systemCommandGroupList);
     }
 
 
@@ -331,7 +508,7 @@ public abstract class AbstractCommandExecuterBuilder implements ISystemCommandEx
      */
     protected ISystemCommandExecuterTypeBuilder addSystemCommand(SystemCommandExecutionStatusResult systemCommandExecutionStatusResult) {
         getSystemCommand().setSystemCommandExecutionStatusResult(systemCommandExecutionStatusResult);
-        return new SystemCommandExecuterTypeBuilder(systemCommandGroupList);
+        return new SystemCommandExecuterTypeBuilder(systemCommandGroupList, parallelBranchList);
     }
 
     
@@ -353,6 +530,32 @@ public abstract class AbstractCommandExecuterBuilder implements ISystemCommandEx
         
         systemCommandGroupList.add(new SystemCommandGroup());
         currentSystemCommand = null;
-        return new SystemCommandExecuterTypeBuilder(systemCommandGroupList);
+        return new SystemCommandExecuterTypeBuilder(systemCommandGroupList, parallelBranchList);
+    }
+
+
+    /**
+     * Build the system executer of the system command group list
+     *
+     * @return the system executer
+     */
+    protected ISystemCommandExecuter buildSystemCommandExecuter() {
+        childBuild(systemCommandGroupList);
+        if (systemCommandGroupList.isDetached()) {
+            // a detached run needs a script folder for its output
+            systemCommandGroupList.forceRunAsScript();
+        }
+        
+        return SystemCommandExecuterFactory.getInstance().createSystemCommandExecuter(systemCommandGroupList);
+    }
+
+
+    /**
+     * Set the executers of the previous parallel branches
+     * 
+     * @param parallelBranchList the executers of the previous parallel branches or null
+     */
+    void setParallelBranchList(List<ISystemCommandExecuter> parallelBranchList) {
+        this.parallelBranchList = parallelBranchList;
     }
 }
@@ -6,6 +6,7 @@
 package com.github.toolarium.system.command.builder.system;
 
 import com.github.toolarium.system.command.dto.list.SystemCommandGroupList;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Set;
 
@@ -107,6 +108,15 @@ public final class SystemCommandExecuterBuilder extends AbstractCommandExecuterB
         return (SystemCommandExecuterBuilder)super.environmentVariable(key, value);
     }
 
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#minimalEnvironment(java.lang.String[])
+     */
+    @Override
+    public SystemCommandExecuterBuilder minimalEnvironment(String... additionalVariables) {
+        return (SystemCommandExecuterBuilder)super.minimalEnvironment(additionalVariables);
+    }
+
     
     /**
      * Add a new command 
@@ -182,6 +192,69 @@ public final class SystemCommandExecuterBuilder extends AbstractCommandExecuterB
     }
 
 
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#cached(java.time.Duration)
+     */
+    @Override
+    public SystemCommandExecuterBuilder cached(Duration timeToLive) {
+        return (SystemCommandExecuterBuilder)super.cached(timeToLive);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#singleFlight()
+     */
+    @Override
+    public SystemCommandExecuterBuilder singleFlight() {
+        return (SystemCommandExecuterBuilder)super.singleFlight();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#hedged(double)
+     */
+    @Override
+    public SystemCommandExecuterBuilder hedged(double percentile) {
+        return (SystemCommandExecuterBuilder)super.hedged(percentile);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#diskless()
+     */
+    @Override
+    public SystemCommandExecuterBuilder diskless() {
+        return (SystemCommandExecuterBuilder)super.diskless();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#cachedScript()
+     */
+    @Override
+    public SystemCommandExecuterBuilder cachedScript() {
+        return (SystemCommandExecuterBuilder)super.cachedScript();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#detached()
+     */
+    @Override
+    public SystemCommandExecuterBuilder detached() {
+        return (SystemCommandExecuterBuilder)super.detached();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#inputOnDisk()
+     */
+    @Override
+    public SystemCommandExecuterBuilder inputOnDisk() {
+        return (SystemCommandExecuterBuilder)super.inputOnDisk();
+    }
+
+
     /**
      * @see com.github.toolarium.system.command.builder.system.AbstractCommandExecuterBuilder#childBuild(com.github.toolarium.system.command.dto.list.SystemCommandGroupList)
      */
@@ -11,6 +11,8 @@ import com.github.toolarium.system.command.builder.docker.DockerSystemCommandExe
 import com.github.toolarium.system.command.builder.java.JarSystemCommandExecuterBuilder;
 import com.github.toolarium.system.command.builder.java.JavaSystemCommandExecuterBuilder;
 import com.github.toolarium.system.command.dto.list.SystemCommandGroupList;
+import com.github.toolarium.system.command.executer.ISystemCommandExecuter;
+import java.util.List;
 
 
 /**
@@ -20,6 +22,7 @@ import com.github.toolarium.system.command.dto.list.SystemCommandGroupList;
  */
 public class SystemCommandExecuterTypeBuilder implements ISystemCommandExecuterTypeBuilder {
     private SystemCommandGroupList systemCommandGroupList;
+    private List<ISystemCommandExecuter> parallelBranchList;
     
 
     /**
@@ -28,7 +31,19 @@ public class SystemCommandExecuterTypeBuilder implements ISystemCommandExecuterT
      * @param systemCommandGroupList the system command group list
      */
     public SystemCommandExecuterTypeBuilder(SystemCommandGroupList systemCommandGroupList) {
+        this(systemCommandGroupList, null);
+    }
+
+
+    /**
+     * Constructor for SystemCommandExecuterTypeBuilder
+     * 
+     * @param systemCommandGroupList the system command group list
+     * @param parallelBranchList the executers of the previous parallel branches or null
+     */
+    SystemCommandExecuterTypeBuilder(SystemCommandGroupList systemCommandGroupList, List<ISystemCommandExecuter> parallelBranchList) {
         this.systemCommandGroupList = systemCommandGroupList;
+        this.parallelBranchList = parallelBranchList;
     }
 
     
@@ -37,7 +52,7 @@ public class SystemCommandExecuterTypeBuilder implements ISystemCommandExecuterT
      */
     @Override
     public SystemCommandExecuterBuilder system() {
-        return new SystemCommandExecuterBuilder(systemCommandGroupList);
+        return prepare(new SystemCommandExecuterBuilder(systemCommandGroupList));
     }
 
     
@@ -46,7 +61,7 @@ public class SystemCommandExecuterTypeBuilder implements ISystemCommandExecuterT
      */
     @Override
     public JarSystemCommandExecuterBuilder jar(String jarFile) {
-        return new JarSystemCommandExecuterBuilder(systemCommandGroupList).jar(jarFile);
+        return prepare(new JarSystemCommandExecuterBuilder(systemCommandGroupList)).jar(jarFile);
     }
 
     
@@ -55,7 +70,7 @@ public class SystemCommandExecuterTypeBuilder implements ISystemCommandExecuterT
      */
     @Override
     public JavaSystemCommandExecuterBuilder java(Class<?> clazz) {
-        return new JavaSystemCommandExecuterBuilder(systemCommandGroupList).javaMain(clazz.getName());
+        return prepare(new JavaSystemCommandExecuterBuilder(systemCommandGroupList)).javaMain(clazz.getName());
     }
 
 
@@ -64,7 +79,7 @@ public class SystemCommandExecuterTypeBuilder implements ISystemCommandExecuterT
      */
     @Override
     public JavaSystemCommandExecuterBuilder java(String main) {
-        return new JavaSystemCommandExecuterBuilder(systemCommandGroupList).javaMain(main);
+        return prepare(new JavaSystemCommandExecuterBuilder(systemCommandGroupList)).javaMain(main);
     }
 
 
@@ -73,6 +88,19 @@ public class SystemCommandExecuterTypeBuilder implements ISystemCommandExecuterT
      */
     @Override
     public DockerSystemCommandExecuterBuilder docker() {
-        return new DockerSystemCommandExecuterBuilder(systemCommandGroupList);
+        return prepare(new DockerSystemCommandExecuterBuilder(systemCommandGroupList));
+    }
+
+
+    /**
+     * Prepare a builder: it continues the previous parallel branches
+     *
+     * @param <T> the builder type
+     * @param builder the builder
+     * @return the builder
+     */
+    private <T extends AbstractCommandExecuterBuilder> T prepare(T builder) {
+        builder.setParallelBranchList(parallelBranchList);
+        return builder;
     }
 }
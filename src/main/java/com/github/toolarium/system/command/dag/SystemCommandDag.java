@@ -0,0 +1,543 @@
+/*
+ * SystemCommandDag.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.dag;
+
+import com.github.toolarium.system.command.dto.ISystemCommand.SystemCommandExecutionStatusResult;
+import com.github.toolarium.system.command.executer.ISystemCommandExecuter;
+import com.github.toolarium.system.command.process.IAsynchronousProcess;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.impl.SynchronousProcess;
+import com.github.toolarium.system.command.process.stream.ProcessStreamFactory;
+import com.github.toolarium.system.command.process.stream.output.ProcessBufferOutputStream;
+import com.github.toolarium.system.command.process.thread.NameableThreadFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A directed acyclic graph of system command executers. A node is executed as soon as all its incoming edges are
+ * resolved and their conditions are fulfilled; independent branches are executed in parallel on a bounded pool. A node
+ * whose conditions are not fulfilled is skipped, which cancels the nodes downstream of a failure. The dag can be
+ * executed several times, e.g. by {@link #run()}.
+ *
+ * @author patrick
+ */
+public final class SystemCommandDag {
+    private static final Logger LOG = LoggerFactory.getLogger(SystemCommandDag.class);
+    private final Map<String, ISystemCommandExecuter> nodeMap;
+    private final Map<String, List<Edge>> incomingEdgeMap;
+    private final Map<String, List<Edge>> outgoingEdgeMap;
+    private final List<String> topologicalOrder;
+    private final int maxParallelism;
+
+
+    /**
+     * Constructor for SystemCommandDag
+     *
+     * @param nodeMap the nodes
+     * @param edgeList the edges
+     * @param maxParallelism the maximum number of parallel nodes
+     * @throws IllegalArgumentException In case an edge references an unknown node or the edges contain a cycle
+     */
+    SystemCommandDag(Map<String, ISystemCommandExecuter> nodeMap, List<Edge> edgeList, int maxParallelism) {
+        if (nodeMap.isEmpty()) {
+            throw new IllegalArgumentException("The dag has no nodes!");
+        }
+
+        this.nodeMap = Collections.unmodifiableMap(new LinkedHashMap<>(nodeMap));
+        this.incomingEdgeMap = new HashMap<>();
+        this.outgoingEdgeMap = new HashMap<>();
+        for (String name : nodeMap.keySet()) {
+            incomingEdgeMap.put(name, new ArrayList<>());
+            outgoingEdgeMap.put(name, new ArrayList<>());
+        }
+
+        for (Edge edge : edgeList) {
+            if (!nodeMap.containsKey(edge.getSource()) || !nodeMap.containsKey(edge.getTarget())) {
+                throw new IllegalArgumentException("Invalid edge [" + edge + "], unknown node!");
+            }
+
+            outgoingEdgeMap.get(edge.getSource()).add(edge);
+            incomingEdgeMap.get(edge.getTarget()).add(edge);
+        }
+
+        verifyAcyclic();
+        this.topologicalOrder = Collections.unmodifiableList(sortTopological());
+        this.maxParallelism = maxParallelism;
+    }
+
+
+    /**
+     * Get the names of the nodes in topological order
+     *
+     * @return the names of the nodes
+     */
+    public List<String> getNodeNames() {
+        return topologicalOrder;
+    }
+
+
+    /**
+     * Get the maximum number of nodes which are executed in parallel
+     *
+     * @return the maximum number of parallel nodes
+     */
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+
+    /**
+     * Execute the dag and wait until all nodes are done
+     *
+     * @return the result
+     */
+    public SystemCommandDagResult run() {
+        return run(0);
+    }
+
+
+    /**
+     * Execute the dag. In case the time to wait elapses, the running nodes are destroyed and the remaining nodes are cancelled.
+     *
+     * @param numberOfSecondsToWait the number of seconds to wait, 0 to wait until all nodes are done
+     * @return the result
+     */
+    public SystemCommandDagResult run(int numberOfSecondsToWait) {
+        final long startTime = System.nanoTime();
+        long deadline = 0;
+        if (numberOfSecondsToWait > 0) {
+            deadline = startTime + TimeUnit.SECONDS.toNanos(numberOfSecondsToWait);
+        }
+
+        Map<String, NodeState> nodeStateMap = new LinkedHashMap<>();
+        Deque<NodeState> readyQueue = new ArrayDeque<>();
+        for (String name : topologicalOrder) {
+            NodeState nodeState = new NodeState(name, incomingEdgeMap.get(name).size());
+            nodeStateMap.put(name, nodeState);
+            if (nodeState.remainingEdges == 0) {
+                readyQueue.add(nodeState);
+            }
+        }
+
+        BlockingQueue<NodeState> doneQueue = new LinkedBlockingQueue<>();
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(maxParallelism, nodeMap.size()), new NameableThreadFactory("dag"));
+        try {
+            int resolved = 0;
+            while (resolved < nodeStateMap.size()) {
+                while (!readyQueue.isEmpty()) {
+                    NodeState nodeState = readyQueue.poll();
+                    if (cancelled.get()) {
+                        nodeState.status = SystemCommandDagNodeStatus.CANCELLED;
+                        resolved += resolve(nodeState, nodeStateMap, readyQueue);
+                    } else if (nodeState.blocked) {
+                        LOG.debug("Skip node [" + nodeState.name + "] of dag.");
+                        nodeState.status = SystemCommandDagNodeStatus.SKIPPED;
+                        resolved += resolve(nodeState, nodeStateMap, readyQueue);
+                    } else {
+                        executorService.execute(() -> execute(nodeState, cancelled, doneQueue));
+                    }
+                }
+
+                if (resolved < nodeStateMap.size()) {
+                    NodeState nodeState = poll(doneQueue, deadline, cancelled.get());
+                    if (nodeState == null) {
+                        LOG.info("Cancel dag after timeout of " + numberOfSecondsToWait + " seconds.");
+                        cancel(nodeStateMap, cancelled);
+                    } else {
+                        resolved += resolve(nodeState, nodeStateMap, readyQueue);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(nodeStateMap, cancelled);
+            for (NodeState nodeState : nodeStateMap.values()) {
+                if (nodeState.status == null) {
+                    nodeState.status = SystemCommandDagNodeStatus.CANCELLED;
+                }
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        SystemCommandDagResult result = createResult(nodeStateMap, Duration.ofNanos(System.nanoTime() - startTime));
+        LOG.info("Dag ended (nodes:" + nodeStateMap.size() + ", success:" + result.isSuccess() + ", duration:" + result.getDuration().toMillis() + "ms, critical-path:" + result.getCriticalPath()
+                 + ", critical-path-duration:" + result.getCriticalPathDuration().toMillis() + "ms).");
+        return result;
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("SystemCommandDag [nodes=").append(topologicalOrder).append(", edges=[");
+        String separator = "";
+        for (String name : topologicalOrder) {
+            for (Edge edge : outgoingEdgeMap.get(name)) {
+                builder.append(separator).append(edge);
+                separator = ", ";
+            }
+        }
+
+        return builder.append("], maxParallelism=").append(maxParallelism).append("]").toString();
+    }
+
+
+    /**
+     * Execute a node
+     *
+     * @param nodeState the state of the node
+     * @param cancelled the cancel flag of the execution
+     * @param doneQueue the queue of the done nodes
+     */
+    private void execute(NodeState nodeState, AtomicBoolean cancelled, BlockingQueue<NodeState> doneQueue) {
+        if (cancelled.get()) {
+            nodeState.status = SystemCommandDagNodeStatus.CANCELLED;
+            doneQueue.add(nodeState);
+            return;
+        }
+
+        nodeState.startTime = Instant.now();
+        final long start = System.nanoTime();
+        ProcessBufferOutputStream outputStream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+        ProcessBufferOutputStream errorOutputStream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+        SystemCommandDagNodeStatus status = SystemCommandDagNodeStatus.FAILED;
+        try {
+            IAsynchronousProcess process = nodeMap.get(nodeState.name).runAsynchronous(outputStream, errorOutputStream);
+            nodeState.process = process;
+            if (cancelled.get()) {
+                // the execution was cancelled while the process was started
+                process.destroyTree();
+            }
+
+            int exitValue = process.waitFor();
+            nodeState.result = new SynchronousProcess(process.getSystemCommandGroupList(), process.getPid(), process.getStartTime(), process.getTotalCpuDuration(),
+                                                      exitValue, outputStream.toString(), errorOutputStream.toString());
+            if (cancelled.get()) {
+                status = SystemCommandDagNodeStatus.CANCELLED;
+            } else if (exitValue == 0) {
+                status = SystemCommandDagNodeStatus.SUCCESS;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = SystemCommandDagNodeStatus.CANCELLED;
+        } catch (RuntimeException e) {
+            LOG.warn("Could not execute node [" + nodeState.name + "] of dag: " + e.getMessage());
+        } finally {
+            nodeState.duration = Duration.ofNanos(System.nanoTime() - start);
+            nodeState.status = status;
+            doneQueue.add(nodeState);
+        }
+    }
+
+
+    /**
+     * Resolve a done node: the outgoing edges are evaluated and the target nodes without open edges are ready
+     *
+     * @param nodeState the state of the done node
+     * @param nodeStateMap the states of all nodes
+     * @param readyQueue the queue of the ready nodes
+     * @return the number of resolved nodes
+     */
+    private int resolve(NodeState nodeState, Map<String, NodeState> nodeStateMap, Deque<NodeState> readyQueue) {
+        for (Edge edge : outgoingEdgeMap.get(nodeState.name)) {
+            NodeState target = nodeStateMap.get(edge.getTarget());
+            if (!edge.isFulfilled(nodeState.status)) {
+                target.blocked = true;
+            }
+
+            target.remainingEdges--;
+            if (target.remainingEdges == 0) {
+                readyQueue.add(target);
+            }
+        }
+
+        return 1;
+    }
+
+
+    /**
+     * Cancel the execution: the running processes are destroyed, the remaining nodes are not executed
+     *
+     * @param nodeStateMap the states of all nodes
+     * @param cancelled the cancel flag of the execution
+     */
+    private void cancel(Map<String, NodeState> nodeStateMap, AtomicBoolean cancelled) {
+        cancelled.set(true);
+        for (NodeState nodeState : nodeStateMap.values()) {
+            IAsynchronousProcess process = nodeState.process;
+            if (process != null && nodeState.status == null) {
+                process.destroyTree();
+            }
+        }
+    }
+
+
+    /**
+     * Wait for the next done node
+     *
+     * @param doneQueue the queue of the done nodes
+     * @param deadline the deadline in nanoseconds or 0
+     * @param cancelled true if the execution is already cancelled
+     * @return the done node or null in case the deadline elapsed
+     * @throws InterruptedException in case of thread interrupt
+     */
+    private NodeState poll(BlockingQueue<NodeState> doneQueue, long deadline, boolean cancelled) throws InterruptedException {
+        if (deadline == 0 || cancelled) {
+            return doneQueue.take();
+        }
+
+        return doneQueue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * Create the result with the critical path: the chain of executed nodes with the longest total duration
+     *
+     * @param nodeStateMap the states of all nodes
+     * @param duration the duration of the execution
+     * @return the result
+     */
+    private SystemCommandDagResult createResult(Map<String, NodeState> nodeStateMap, Duration duration) {
+        Map<String, Duration> finishMap = new HashMap<>();
+        Map<String, String> predecessorMap = new HashMap<>();
+        String last = null;
+        List<SystemCommandDagNodeResult> nodeResultList = new ArrayList<>();
+        for (NodeState nodeState : nodeStateMap.values()) {
+            nodeResultList.add(new SystemCommandDagNodeResult(nodeState.name, nodeState.status, nodeState.result, nodeState.startTime, nodeState.duration));
+            if (nodeState.startTime == null) {
+                continue;
+            }
+
+            Duration finish = Duration.ZERO;
+            for (Edge edge : incomingEdgeMap.get(nodeState.name)) {
+                Duration predecessorFinish = finishMap.get(edge.getSource());
+                if (predecessorFinish != null && predecessorFinish.compareTo(finish) > 0) {
+                    finish = predecessorFinish;
+                    predecessorMap.put(nodeState.name, edge.getSource());
+                }
+            }
+
+            finishMap.put(nodeState.name, finish.plus(nodeState.duration));
+            if (last == null || finishMap.get(nodeState.name).compareTo(finishMap.get(last)) > 0) {
+                last = nodeState.name;
+            }
+        }
+
+        List<String> criticalPath = new ArrayList<>();
+        Duration criticalPathDuration = Duration.ZERO;
+        if (last != null) {
+            criticalPathDuration = finishMap.get(last);
+            for (String name = last; name != null; name = predecessorMap.get(name)) {
+                criticalPath.add(0, name);
+            }
+        }
+
+        return new SystemCommandDagResult(nodeResultList, criticalPath, criticalPathDuration, duration);
+    }
+
+
+    /**
+     * Verify that the edges contain no cycle
+     *
+     * @throws IllegalArgumentException In case of a cycle
+     */
+    private void verifyAcyclic() {
+        Map<String, Boolean> visitMap = new HashMap<>();
+        Deque<String> path = new ArrayDeque<>();
+        for (String name : nodeMap.keySet()) {
+            visit(name, visitMap, path);
+        }
+    }
+
+
+    /**
+     * Visit a node by depth first search: a node is in progress (false) as long as its descendants are visited
+     *
+     * @param name the name of the node
+     * @param visitMap the visited nodes: false in progress, true done
+     * @param path the current path
+     * @throws IllegalArgumentException In case of a cycle
+     */
+    private void visit(String name, Map<String, Boolean> visitMap, Deque<String> path) {
+        Boolean visited = visitMap.get(name);
+        if (Boolean.TRUE.equals(visited)) {
+            return;
+        }
+
+        path.addLast(name);
+        if (Boolean.FALSE.equals(visited)) {
+            List<String> cycle = new ArrayList<>(path);
+            throw new IllegalArgumentException("Invalid dag, it contains the cycle [" + String.join(" -> ", cycle.subList(cycle.indexOf(name), cycle.size())) + "]!");
+        }
+
+        visitMap.put(name, Boolean.FALSE);
+        for (Edge edge : outgoingEdgeMap.get(name)) {
+            visit(edge.getTarget(), visitMap, path);
+        }
+
+        visitMap.put(name, Boolean.TRUE);
+        path.removeLast();
+    }
+
+
+    /**
+     * Sort the nodes topological, independent nodes keep the order in which they were added
+     *
+     * @return the names of the nodes in topological order
+     */
+    private List<String> sortTopological() {
+        Map<String, Integer> remainingEdgeMap = new HashMap<>();
+        Deque<String> readyQueue = new ArrayDeque<>();
+        for (String name : nodeMap.keySet()) {
+            remainingEdgeMap.put(name, incomingEdgeMap.get(name).size());
+            if (incomingEdgeMap.get(name).isEmpty()) {
+                readyQueue.add(name);
+            }
+        }
+
+        List<String> result = new ArrayList<>();
+        while (!readyQueue.isEmpty()) {
+            String name = readyQueue.poll();
+            result.add(name);
+            for (Edge edge : outgoingEdgeMap.get(name)) {
+                int remaining = remainingEdgeMap.get(edge.getTarget()) - 1;
+                remainingEdgeMap.put(edge.getTarget(), remaining);
+                if (remaining == 0) {
+                    readyQueue.add(edge.getTarget());
+                }
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * An edge of the dag
+     *
+     * @author patrick
+     */
+    static final class Edge {
+        private final String source;
+        private final String target;
+        private final SystemCommandExecutionStatusResult condition;
+
+
+        /**
+         * Constructor for Edge
+         *
+         * @param source the name of the source node
+         * @param target the name of the target node
+         * @param condition the condition
+         */
+        Edge(String source, String target, SystemCommandExecutionStatusResult condition) {
+            this.source = source;
+            this.target = target;
+            this.condition = condition;
+        }
+
+
+        /**
+         * Get the name of the source node
+         *
+         * @return the name of the source node
+         */
+        String getSource() {
+            return source;
+        }
+
+
+        /**
+         * Get the name of the target node
+         *
+         * @return the name of the target node
+         */
+        String getTarget() {
+            return target;
+        }
+
+
+        /**
+         * Check if the condition is fulfilled by the status of the source node
+         *
+         * @param status the status of the source node
+         * @return true if the condition is fulfilled
+         */
+        boolean isFulfilled(SystemCommandDagNodeStatus status) {
+            if (condition == SystemCommandExecutionStatusResult.SUCCESS_OR_ERROR) {
+                return true;
+            }
+
+            if (condition == SystemCommandExecutionStatusResult.ERROR) {
+                return status == SystemCommandDagNodeStatus.FAILED;
+            }
+
+            return status == SystemCommandDagNodeStatus.SUCCESS;
+        }
+
+
+        /**
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+            return source + " -> " + target + " (" + condition + ")";
+        }
+    }
+
+
+    /**
+     * The state of a node during an execution
+     *
+     * @author patrick
+     */
+    private static final class NodeState {
+        private final String name;
+        private int remainingEdges;
+        private boolean blocked;
+        private volatile SystemCommandDagNodeStatus status;
+        private volatile IAsynchronousProcess process;
+        private volatile ISynchronousProcess result;
+        private volatile Instant startTime;
+        private volatile Duration duration;
+
+
+        /**
+         * Constructor for NodeState
+         *
+         * @param name the name of the node
+         * @param remainingEdges the number of incoming edges
+         */
+        NodeState(String name, int remainingEdges) {
+            this.name = name;
+            this.remainingEdges = remainingEdges;
+            this.blocked = false;
+            this.status = null;
+            this.duration = Duration.ZERO;
+        }
+    }
+}
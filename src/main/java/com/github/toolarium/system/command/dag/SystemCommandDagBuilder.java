@@ -0,0 +1,140 @@
+/*
+ * SystemCommandDagBuilder.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.dag;
+
+import com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder;
+import com.github.toolarium.system.command.dto.ISystemCommand.SystemCommandExecutionStatusResult;
+import com.github.toolarium.system.command.executer.ISystemCommandExecuter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Builds a {@link SystemCommandDag}: the nodes are system command executers, e.g. a single command or a group list of
+ * a {@link ISystemCommandExecuterBuilder}, and the edges define the order and the condition under which the target node
+ * is executed.
+ *
+ * @author patrick
+ */
+public final class SystemCommandDagBuilder {
+    private final Map<String, ISystemCommandExecuter> nodeMap;
+    private final List<SystemCommandDag.Edge> edgeList;
+    private int maxParallelism;
+
+
+    /**
+     * Constructor for SystemCommandDagBuilder
+     */
+    public SystemCommandDagBuilder() {
+        this.nodeMap = new LinkedHashMap<>();
+        this.edgeList = new ArrayList<>();
+        this.maxParallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+
+    /**
+     * Add a node
+     *
+     * @param name the unique name of the node
+     * @param systemCommandExecuter the system command executer of the node
+     * @return the dag builder
+     */
+    public SystemCommandDagBuilder node(String name, ISystemCommandExecuter systemCommandExecuter) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Invalid node name!");
+        }
+
+        if (systemCommandExecuter == null) {
+            throw new IllegalArgumentException("Invalid system command executer of node [" + name + "]!");
+        }
+
+        if (nodeMap.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate node [" + name + "]!");
+        }
+
+        nodeMap.put(name, systemCommandExecuter);
+        return this;
+    }
+
+
+    /**
+     * Add a node
+     *
+     * @param name the unique name of the node
+     * @param systemCommandExecuterBuilder the system command executer builder of the node, it is built immediately
+     * @return the dag builder
+     */
+    public SystemCommandDagBuilder node(String name, ISystemCommandExecuterBuilder systemCommandExecuterBuilder) {
+        if (systemCommandExecuterBuilder == null) {
+            throw new IllegalArgumentException("Invalid system command executer builder of node [" + name + "]!");
+        }
+
+        return node(name, systemCommandExecuterBuilder.build());
+    }
+
+
+    /**
+     * Add an edge: the target node is executed after the source node was successful
+     *
+     * @param source the name of the source node
+     * @param target the name of the target node
+     * @return the dag builder
+     */
+    public SystemCommandDagBuilder edge(String source, String target) {
+        return edge(source, target, SystemCommandExecutionStatusResult.SUCCESS);
+    }
+
+
+    /**
+     * Add an edge: the target node is executed after the source node in case the condition is fulfilled. With
+     * {@link SystemCommandExecutionStatusResult#SUCCESS} the source node has to be successful, with
+     * {@link SystemCommandExecutionStatusResult#ERROR} it has to fail and with
+     * {@link SystemCommandExecutionStatusResult#SUCCESS_OR_ERROR} the edge is always fulfilled as soon as the source node
+     * is done, even if it was skipped. A node with several incoming edges is executed when all of them are fulfilled.
+     *
+     * @param source the name of the source node
+     * @param target the name of the target node
+     * @param condition the condition
+     * @return the dag builder
+     */
+    public SystemCommandDagBuilder edge(String source, String target, SystemCommandExecutionStatusResult condition) {
+        if (condition == null) {
+            throw new IllegalArgumentException("Invalid condition of edge [" + source + " -> " + target + "]!");
+        }
+
+        edgeList.add(new SystemCommandDag.Edge(source, target, condition));
+        return this;
+    }
+
+
+    /**
+     * Define the maximum number of nodes which are executed in parallel, by default the number of processors
+     *
+     * @param maxParallelism the maximum number of parallel nodes
+     * @return the dag builder
+     */
+    public SystemCommandDagBuilder maxParallelism(int maxParallelism) {
+        if (maxParallelism <= 0) {
+            throw new IllegalArgumentException("Invalid maximum parallelism " + maxParallelism + "!");
+        }
+
+        this.maxParallelism = maxParallelism;
+        return this;
+    }
+
+
+    /**
+     * Build the dag
+     *
+     * @return the dag
+     * @throws IllegalArgumentException In case an edge references an unknown node or the edges contain a cycle
+     */
+    public SystemCommandDag build() {
+        return new SystemCommandDag(nodeMap, edgeList, maxParallelism);
+    }
+}
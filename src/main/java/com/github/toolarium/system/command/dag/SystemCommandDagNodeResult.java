@@ -0,0 +1,111 @@
+/*
+ * SystemCommandDagNodeResult.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.dag;
+
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import java.time.Duration;
+import java.time.Instant;
+
+
+/**
+ * The result of a node of a {@link SystemCommandDag}.
+ *
+ * @author patrick
+ */
+public final class SystemCommandDagNodeResult {
+    private final String name;
+    private final SystemCommandDagNodeStatus status;
+    private final ISynchronousProcess process;
+    private final Instant startTime;
+    private final Duration duration;
+
+
+    /**
+     * Constructor for SystemCommandDagNodeResult
+     *
+     * @param name the name of the node
+     * @param status the status
+     * @param process the terminated process or null if the node was not executed
+     * @param startTime the start time or null if the node was not executed
+     * @param duration the duration, {@link Duration#ZERO} if the node was not executed
+     */
+    SystemCommandDagNodeResult(String name, SystemCommandDagNodeStatus status, ISynchronousProcess process, Instant startTime, Duration duration) {
+        this.name = name;
+        this.status = status;
+        this.process = process;
+        this.startTime = startTime;
+        this.duration = duration;
+    }
+
+
+    /**
+     * Get the name of the node
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+
+    /**
+     * Get the status
+     *
+     * @return the status
+     */
+    public SystemCommandDagNodeStatus getStatus() {
+        return status;
+    }
+
+
+    /**
+     * Get the terminated process with its output
+     *
+     * @return the process or null if the node was not executed
+     */
+    public ISynchronousProcess getProcess() {
+        return process;
+    }
+
+
+    /**
+     * Get the start time
+     *
+     * @return the start time or null if the node was not executed
+     */
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+
+    /**
+     * Get the duration
+     *
+     * @return the duration, {@link Duration#ZERO} if the node was not executed
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+
+    /**
+     * Check if the node was executed
+     *
+     * @return true if the node was executed
+     */
+    public boolean isExecuted() {
+        return startTime != null;
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "SystemCommandDagNodeResult [name=" + name + ", status=" + status + ", duration=" + duration + "]";
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * SystemCommandDagNodeStatus.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.dag;
+
+
+/**
+ * Defines the status of a node of a {@link SystemCommandDag}.
+ *
+ * @author patrick
+ */
+public enum SystemCommandDagNodeStatus {
+    /** The node ended with exit value 0 */
+    SUCCESS,
+
+    /** The node ended with an exit value other than 0 or could not be started */
+    FAILED,
+
+    /** The node was not executed because the condition of an incoming edge was not fulfilled */
+    SKIPPED,
+
+    /** The node was aborted or not executed because the execution of the dag was cancelled */
+    CANCELLED
+}
@@ -0,0 +1,122 @@
+/*
+ * SystemCommandDagResult.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.dag;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * The result of the execution of a {@link SystemCommandDag}.
+ *
+ * @author patrick
+ */
+public final class SystemCommandDagResult {
+    private final Map<String, SystemCommandDagNodeResult> nodeResultMap;
+    private final List<String> criticalPath;
+    private final Duration criticalPathDuration;
+    private final Duration duration;
+
+
+    /**
+     * Constructor for SystemCommandDagResult
+     *
+     * @param nodeResultList the results of the nodes in topological order
+     * @param criticalPath the names of the nodes of the critical path
+     * @param criticalPathDuration the duration of the critical path
+     * @param duration the duration of the whole execution
+     */
+    SystemCommandDagResult(List<SystemCommandDagNodeResult> nodeResultList, List<String> criticalPath, Duration criticalPathDuration, Duration duration) {
+        this.nodeResultMap = new LinkedHashMap<>();
+        for (SystemCommandDagNodeResult nodeResult : nodeResultList) {
+            nodeResultMap.put(nodeResult.getName(), nodeResult);
+        }
+
+        this.criticalPath = Collections.unmodifiableList(criticalPath);
+        this.criticalPathDuration = criticalPathDuration;
+        this.duration = duration;
+    }
+
+
+    /**
+     * Check if the execution was successful: no node failed or was cancelled
+     *
+     * @return true if the execution was successful
+     */
+    public boolean isSuccess() {
+        for (SystemCommandDagNodeResult nodeResult : nodeResultMap.values()) {
+            if (nodeResult.getStatus() == SystemCommandDagNodeStatus.FAILED || nodeResult.getStatus() == SystemCommandDagNodeStatus.CANCELLED) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Get the result of a node
+     *
+     * @param name the name of the node
+     * @return the result or null if the node does not exist
+     */
+    public SystemCommandDagNodeResult getNodeResult(String name) {
+        return nodeResultMap.get(name);
+    }
+
+
+    /**
+     * Get the results of all nodes in topological order
+     *
+     * @return the results of the nodes
+     */
+    public List<SystemCommandDagNodeResult> getNodeResults() {
+        return List.copyOf(nodeResultMap.values());
+    }
+
+
+    /**
+     * Get the critical path: the chain of executed nodes with the longest total duration. It determines the minimal
+     * duration of the execution independent of the parallelism.
+     *
+     * @return the names of the nodes of the critical path
+     */
+    public List<String> getCriticalPath() {
+        return criticalPath;
+    }
+
+
+    /**
+     * Get the total duration of the nodes of the critical path
+     *
+     * @return the duration of the critical path
+     */
+    public Duration getCriticalPathDuration() {
+        return criticalPathDuration;
+    }
+
+
+    /**
+     * Get the duration of the whole execution
+     *
+     * @return the duration
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "SystemCommandDagResult [success=" + isSuccess() + ", duration=" + duration + ", criticalPath=" + criticalPath + ", nodes=" + nodeResultMap.values() + "]";
+    }
+}
@@ -120,6 +120,17 @@ public class SystemCommand implements ISystemCommand {
     }
 
 
+    /**
+     * Set the command for display, e.g. of a deserialized command
+     *
+     * @param displayCommand the command for display
+     */
+    public void setDisplayCommand(String displayCommand) {
+        this.displayCommand.setLength(0);
+        this.displayCommand.append(displayCommand);
+    }
+
+
     /**
      * Set the command list
      *
@@ -155,7 +166,7 @@ public class SystemCommand implements ISystemCommand {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(processEnvironment, processOutputStream, errorProcessOutputStream, shell, command, commandList, displayCommand, systemCommandExecutionStatusResult);
+        return Objects.hash(processEnvironment, processOutputStream, errorProcessOutputStream, shell, command.toString(), commandList, displayCommand.toString(), systemCommandExecutionStatusResult);
     }
 
 
@@ -181,8 +192,8 @@ public class SystemCommand implements ISystemCommand {
                 && Objects.equals(processOutputStream, other.processOutputStream)
                 && Objects.equals(errorProcessOutputStream, other.errorProcessOutputStream)
                 && Objects.equals(shell, other.shell)
-                && Objects.equals(command, other.command) && Objects.equals(commandList, other.commandList)
-                && Objects.equals(displayCommand, other.displayCommand)
+                && Objects.equals(command.toString(), other.command.toString()) && Objects.equals(commandList, other.commandList)
+                && Objects.equals(displayCommand.toString(), other.displayCommand.toString())
                 && Objects.equals(systemCommandExecutionStatusResult, other.systemCommandExecutionStatusResult);
     }
 
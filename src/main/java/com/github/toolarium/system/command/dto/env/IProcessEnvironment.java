@@ -6,6 +6,7 @@
 package com.github.toolarium.system.command.dto.env;
 
 import java.util.Map;
+import java.util.Set;
 
 /**
  * The process environment. It contains all environment information.
@@ -53,6 +54,15 @@ public interface IProcessEnvironment {
      * @return the environment variable value
      */
     String getEnvironmentVariable(String key);
+
+
+    /**
+     * Get the allowlist of the environment variables which are inherited from the JVM. The environment variables which 
+     * differ from the environment of the JVM are always passed to the process.
+     *
+     * @return the allowlist or null if the whole environment of the JVM is inherited
+     */
+    Set<String> getEnvironmentAllowlist();
     
     
     /**
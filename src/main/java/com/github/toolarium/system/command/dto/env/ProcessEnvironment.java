@@ -8,8 +8,10 @@ package com.github.toolarium.system.command.dto.env;
 import java.io.File;
 import java.io.Serializable;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 
 /**
@@ -23,6 +25,7 @@ public class ProcessEnvironment implements IProcessEnvironment, Serializable {
     private Boolean isSudoUser;
     private String workingPath;
     private Map<String, String> environmentVariables;
+    private Set<String> environmentAllowlist;
     private String os;
     private String osVersion;
     private String architecture;
@@ -44,11 +47,38 @@ public class ProcessEnvironment implements IProcessEnvironment, Serializable {
 
         environmentVariables = new HashMap<>();
         environmentVariables.putAll(System.getenv());
+        environmentAllowlist = null;
 
         os = System.getProperty("os.name").trim().toLowerCase();
         osVersion = System.getProperty("os.version").trim();
         architecture = System.getProperty("os.arch").trim();
     }
+
+
+    
+    /**
+     * Constructor for ProcessEnvironment with given values, e.g. of a deserialized process environment
+     *
+     * @param user the user
+     * @param isSudoUser true if the user is a sudo user
+     * @param workingPath the working path
+     * @param environmentVariables the environment variables
+     * @param environmentAllowlist the allowlist of the inherited environment variables or null
+     * @param os the operating system
+     * @param osVersion the version of the operating system
+     * @param architecture the architecture
+     */
+    public ProcessEnvironment(String user, boolean isSudoUser, String workingPath, Map<String, String> environmentVariables, Set<String> environmentAllowlist,
+                              String os, String osVersion, String architecture) {
+        this.user = user;
+        this.isSudoUser = isSudoUser;
+        this.workingPath = workingPath;
+        this.environmentVariables = environmentVariables;
+        setEnvironmentAllowlist(environmentAllowlist);
+        this.os = os;
+        this.osVersion = osVersion;
+        this.architecture = architecture;
+    }
     
 
     /**
@@ -139,6 +169,29 @@ public class ProcessEnvironment implements IProcessEnvironment, Serializable {
     }
 
     
+    /**
+     * @see com.github.toolarium.system.command.dto.env.IProcessEnvironment#getEnvironmentAllowlist()
+     */
+    @Override
+    public Set<String> getEnvironmentAllowlist() {
+        return environmentAllowlist;
+    }
+
+
+    /**
+     * Set the allowlist of the environment variables which are inherited from the JVM
+     *
+     * @param environmentAllowlist the allowlist or null to inherit the whole environment of the JVM
+     */
+    public void setEnvironmentAllowlist(Set<String> environmentAllowlist) {
+        if (environmentAllowlist == null) {
+            this.environmentAllowlist = null;
+        } else {
+            this.environmentAllowlist = new LinkedHashSet<>(environmentAllowlist);
+        }
+    }
+
+    
     /**
      * Clear the environment variables
      */
@@ -179,7 +232,7 @@ public class ProcessEnvironment implements IProcessEnvironment, Serializable {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(user, isSudoUser, workingPath, environmentVariables);
+        return Objects.hash(user, isSudoUser, workingPath, environmentVariables, environmentAllowlist);
     }
 
 
@@ -204,7 +257,8 @@ public class ProcessEnvironment implements IProcessEnvironment, Serializable {
         return Objects.equals(user, other.user)
                 && Objects.equals(isSudoUser, other.isSudoUser)
                 && Objects.equals(workingPath, other.workingPath)
-                && Objects.equals(environmentVariables, other.environmentVariables);
+                && Objects.equals(environmentVariables, other.environmentVariables)
+                && Objects.equals(environmentAllowlist, other.environmentAllowlist);
     }
 
 
@@ -213,6 +267,6 @@ public class ProcessEnvironment implements IProcessEnvironment, Serializable {
      */
     @Override
     public String toString() {
-        return "ProcessEnvironment [user=" + user + ", isSudoUser=" + isSudoUser + ", workingPath=" + workingPath + ", environmentVariables=" + environmentVariables +  "]";
+        return "ProcessEnvironment [user=" + user + ", isSudoUser=" + isSudoUser + ", workingPath=" + workingPath + ", environmentVariables=" + environmentVariables + ", environmentAllowlist=" + environmentAllowlist + "]";
     }
 }
@@ -6,7 +6,7 @@
 package com.github.toolarium.system.command.dto.group;
 
 import com.github.toolarium.system.command.dto.ISystemCommand;
-import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
+import com.github.toolarium.system.command.process.id.RunIdFactory;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -30,7 +30,17 @@ public class SystemCommandGroup implements ISystemCommandGroup, Serializable {
      * Constructor for SystemCommandGroup
      */
     public SystemCommandGroup() {
-        this.id = ProcessStreamUtil.getInstance().getId();
+        this(RunIdFactory.getInstance().nextId());
+    }
+
+
+    /**
+     * Constructor for SystemCommandGroup with a given id, e.g. of a deserialized group
+     *
+     * @param id the id
+     */
+    public SystemCommandGroup(String id) {
+        this.id = id;
         this.systemCommandList = new ArrayList<>();
         this.runAsScript = null;
     }
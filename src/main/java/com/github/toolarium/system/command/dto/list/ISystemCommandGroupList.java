@@ -6,6 +6,7 @@
 package com.github.toolarium.system.command.dto.list;
 
 import com.github.toolarium.system.command.dto.group.ISystemCommandGroup;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Iterator;
 
@@ -50,6 +51,14 @@ public interface ISystemCommandGroupList {
     void resetLock();
 
     
+    /**
+     * Get the period of the lock in seconds
+     *
+     * @return the period of the lock in seconds
+     */
+    int getLockTimeoutInSeconds();
+
+
     /**
      * Get the lock timeout
      *
@@ -58,6 +67,67 @@ public interface ISystemCommandGroupList {
     Instant getLockTimeout();
     
     
+    /**
+     * Get the time to live of a cached result. In case it is null the result is not cached.
+     *
+     * @return the time to live of a cached result or null
+     */
+    Duration getCacheTimeToLive();
+    
+    
+    /**
+     * Check if identical concurrent executions are started only once and the result is shared between the callers.
+     *
+     * @return true if identical concurrent executions are started only once
+     */
+    boolean isSingleFlight();
+    
+    
+    /**
+     * Get the latency percentile of the recent executions after which a second copy is started. 
+     * In case it is null the execution is not hedged.
+     *
+     * @return the latency percentile or null
+     */
+    Double getHedgePercentile();
+    
+    
+    /**
+     * Check if a script is streamed into the standard input of the shell instead to write it into a file. 
+     * In this case there is no script folder and the process ids are only tracked in memory.
+     *
+     * @return true if the script is streamed into the standard input of the shell
+     */
+    boolean isDiskless();
+    
+    
+    /**
+     * Check if a script is parametrized through environment variables and stored once under its content hash. 
+     * All system command groups of the same shape use the same cached script.
+     *
+     * @return true if a cached script is used
+     */
+    boolean isScriptCache();
+    
+    
+    /**
+     * Check if the run is detached: the output is written into the script folder instead of a pipe. The processes 
+     * can outlive the JVM and the run can be reattached, see {@link com.github.toolarium.system.command.SystemCommandExecuterFactory#reattach(String)}.
+     *
+     * @return true if the run is detached
+     */
+    boolean isDetached();
+    
+    
+    /**
+     * Check if the input files of the run are kept on disk in case the script folder is RAM backed, 
+     * see {@link com.github.toolarium.system.command.SystemCommandExecuterFactory#useRamScriptFolderBasePath()}.
+     *
+     * @return true if the input files are kept on disk
+     */
+    boolean isInputOnDisk();
+    
+    
     /**
      * Start a new system command group
      */
@@ -8,8 +8,9 @@ package com.github.toolarium.system.command.dto.list;
 import com.github.toolarium.system.command.dto.ISystemCommand;
 import com.github.toolarium.system.command.dto.group.ISystemCommandGroup;
 import com.github.toolarium.system.command.dto.group.SystemCommandGroup;
-import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
+import com.github.toolarium.system.command.process.id.RunIdFactory;
 import java.io.Serializable;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -30,16 +31,59 @@ public class SystemCommandGroupList implements ISystemCommandGroupList, Serializ
     private List<SystemCommandGroup> systemCommandGroupList;
     private int lockTimeoutInSeconds;
     private Instant lockTimeout;
+    private Duration cacheTimeToLive;
+    private boolean singleFlight;
+    private Double hedgePercentile;
+    private boolean diskless;
+    private boolean scriptCache;
+    private boolean detached;
+    private boolean inputOnDisk;
 
     
     /**
      * Constructor for SystemCommandGroupList
      */
     public SystemCommandGroupList() {
-        this.id = ProcessStreamUtil.getInstance().getId();
+        this(RunIdFactory.getInstance().nextId());
+    }
+
+
+    /**
+     * Constructor for SystemCommandGroupList with a given id, e.g. of a deserialized list
+     *
+     * @param id the id
+     */
+    public SystemCommandGroupList(String id) {
+        this.id = id;
         this.systemCommandGroupList = new ArrayList<>();
         this.lockTimeoutInSeconds = ONE_HOUR;
         this.lockTimeout = null;
+        this.cacheTimeToLive = null;
+        this.singleFlight = false;
+        this.hedgePercentile = null;
+        this.diskless = false;
+        this.scriptCache = false;
+        this.detached = false;
+        this.inputOnDisk = false;
+    }
+
+    
+    /**
+     * Constructor for SystemCommandGroupList which creates a copy with a new id. The copy is not hedged.
+     *
+     * @param systemCommandGroupList the system command group list to copy
+     */
+    public SystemCommandGroupList(SystemCommandGroupList systemCommandGroupList) {
+        this();
+        this.systemCommandGroupList.addAll(systemCommandGroupList.systemCommandGroupList);
+        this.lockTimeoutInSeconds = systemCommandGroupList.lockTimeoutInSeconds;
+        this.lockTimeout = systemCommandGroupList.lockTimeout;
+        this.cacheTimeToLive = systemCommandGroupList.cacheTimeToLive;
+        this.singleFlight = systemCommandGroupList.singleFlight;
+        this.diskless = systemCommandGroupList.diskless;
+        this.scriptCache = systemCommandGroupList.scriptCache;
+        this.detached = systemCommandGroupList.detached;
+        this.inputOnDisk = systemCommandGroupList.inputOnDisk;
     }
 
     
@@ -146,6 +190,27 @@ public class SystemCommandGroupList implements ISystemCommandGroupList, Serializ
     }
 
 
+    /**
+     * Restore the lock, e.g. of a deserialized list
+     *
+     * @param lockTimeoutInSeconds the period in seconds
+     * @param lockTimeout the lock timeout or null
+     */
+    public void setLockTimeout(int lockTimeoutInSeconds, Instant lockTimeout) {
+        this.lockTimeoutInSeconds = lockTimeoutInSeconds;
+        this.lockTimeout = lockTimeout;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.dto.list.ISystemCommandGroupList#getLockTimeoutInSeconds()
+     */
+    @Override
+    public int getLockTimeoutInSeconds() {
+        return lockTimeoutInSeconds;
+    }
+
+
     /**
      * @see com.github.toolarium.system.command.dto.list.ISystemCommandGroupList#getLockTimeout()
      */
@@ -173,6 +238,139 @@ public class SystemCommandGroupList implements ISystemCommandGroupList, Serializ
     }
 
     
+    /**
+     * @see com.github.toolarium.system.command.dto.list.ISystemCommandGroupList#getCacheTimeToLive()
+     */
+    @Override
+    public Duration getCacheTimeToLive() {
+        return cacheTimeToLive;
+    }
+
+    
+    /**
+     * Set the time to live of a cached result.
+     *
+     * @param cacheTimeToLive the time to live of a cached result or null to disable the cache
+     */
+    public void setCacheTimeToLive(Duration cacheTimeToLive) {
+        this.cacheTimeToLive = cacheTimeToLive;
+    }
+
+    
+    /**
+     * @see com.github.toolarium.system.command.dto.list.ISystemCommandGroupList#isSingleFlight()
+     */
+    @Override
+    public boolean isSingleFlight() {
+        return singleFlight || cacheTimeToLive != null;
+    }
+
+    
+    /**
+     * Set single flight: identical concurrent executions are started only once.
+     *
+     * @param singleFlight true to start identical concurrent executions only once
+     */
+    public void setSingleFlight(boolean singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    
+    /**
+     * @see com.github.toolarium.system.command.dto.list.ISystemCommandGroupList#getHedgePercentile()
+     */
+    @Override
+    public Double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    
+    /**
+     * Set the latency percentile of the recent executions after which a second copy is started.
+     *
+     * @param hedgePercentile the latency percentile or null to disable hedging
+     */
+    public void setHedgePercentile(Double hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    
+    /**
+     * @see com.github.toolarium.system.command.dto.list.ISystemCommandGroupList#isDiskless()
+     */
+    @Override
+    public boolean isDiskless() {
+        return diskless;
+    }
+
+    
+    /**
+     * Set diskless: the script is streamed into the standard input of the shell instead to write it into a file.
+     *
+     * @param diskless true to stream the script into the standard input of the shell
+     */
+    public void setDiskless(boolean diskless) {
+        this.diskless = diskless;
+    }
+
+    
+    /**
+     * @see com.github.toolarium.system.command.dto.list.ISystemCommandGroupList#isScriptCache()
+     */
+    @Override
+    public boolean isScriptCache() {
+        return scriptCache;
+    }
+
+    
+    /**
+     * Set script cache: the script is parametrized through environment variables and stored once under its content hash.
+     *
+     * @param scriptCache true to use a cached script
+     */
+    public void setScriptCache(boolean scriptCache) {
+        this.scriptCache = scriptCache;
+    }
+
+    
+    /**
+     * @see com.github.toolarium.system.command.dto.list.ISystemCommandGroupList#isDetached()
+     */
+    @Override
+    public boolean isDetached() {
+        return detached;
+    }
+
+    
+    /**
+     * Set detached: the output is written into the script folder, the run can be reattached.
+     *
+     * @param detached true to detach the run
+     */
+    public void setDetached(boolean detached) {
+        this.detached = detached;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.dto.list.ISystemCommandGroupList#isInputOnDisk()
+     */
+    @Override
+    public boolean isInputOnDisk() {
+        return inputOnDisk;
+    }
+
+
+    /**
+     * Set input on disk: the input files are kept on disk in case the script folder is RAM backed.
+     *
+     * @param inputOnDisk true to keep the input files on disk
+     */
+    public void setInputOnDisk(boolean inputOnDisk) {
+        this.inputOnDisk = inputOnDisk;
+    }
+
+    
     /**
      * @see com.github.toolarium.system.command.dto.list.ISystemCommandGroupList#newGroup()
      */
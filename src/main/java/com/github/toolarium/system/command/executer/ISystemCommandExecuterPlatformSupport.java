@@ -37,6 +37,16 @@ public interface ISystemCommandExecuterPlatformSupport {
     List<String> getShellEndCommand(String id, ISystemCommand systemCommand);
 
     
+    /**
+     * Get the shell command which reads the script from the standard input
+     * 
+     * @param id the id of this command group
+     * @param systemCommand the system command
+     * @return the shell command or null in case it is not supported
+     */
+    List<String> getShellStdinCommand(String id, ISystemCommand systemCommand);
+
+    
     /**
      * Get the script file extension
      *
@@ -77,6 +87,15 @@ public interface ISystemCommandExecuterPlatformSupport {
      */
     String getNotExistEnvironmentVariableCommand(String envVariable);
 
+
+    /**
+     * Get the command which executes the command line of an environment variable
+     *
+     * @param envVariable the environment variable
+     * @return the command which executes the command line of the environment variable
+     */
+    String getEvaluateEnvironmentVariableCommand(String envVariable);
+
     
     /**
      * Get the environment set command
@@ -0,0 +1,20 @@
+/*
+ * ParallelOutputMode.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.executer;
+
+
+/**
+ * Defines how the output of parallel branches is combined, see {@link com.github.toolarium.system.command.builder.ISystemCommandExecuterBuilder#join(ParallelOutputMode)}.
+ *
+ * @author patrick
+ */
+public enum ParallelOutputMode {
+    /** The output of each branch is written as a whole in the order of the branches */
+    ORDERED,
+
+    /** The lines of the branches are written interleaved as soon as they are complete, each line is prefixed with the number of its branch, e.g. <code>[1] </code> */
+    PREFIXED
+}
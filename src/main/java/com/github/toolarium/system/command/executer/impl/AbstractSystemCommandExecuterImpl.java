@@ -8,28 +8,38 @@ package com.github.toolarium.system.command.executer.impl;
 import com.github.toolarium.system.command.SystemCommandExecuterFactory;
 import com.github.toolarium.system.command.dto.group.ISystemCommandGroup;
 import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
+import com.github.toolarium.system.command.dto.list.SystemCommandGroupList;
 import com.github.toolarium.system.command.executer.ISystemCommandExecuter;
 import com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport;
 import com.github.toolarium.system.command.process.IAsynchronousProcess;
 import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.cache.ProcessResultCache;
+import com.github.toolarium.system.command.process.cache.ProcessResultKey;
+import com.github.toolarium.system.command.process.cache.ProcessSingleFlight;
+import com.github.toolarium.system.command.process.folder.ProcessFolderRegistry;
+import com.github.toolarium.system.command.process.folder.ScriptFolderLayout;
 import com.github.toolarium.system.command.process.impl.AsynchronousProcess;
 import com.github.toolarium.system.command.process.impl.SynchronousProcess;
+import com.github.toolarium.system.command.process.journal.ProcessJournal;
+import com.github.toolarium.system.command.process.latency.ProcessLatencyTracker;
 import com.github.toolarium.system.command.process.liveness.IProcessLiveness;
 import com.github.toolarium.system.command.process.liveness.impl.ProcessLiveness;
 import com.github.toolarium.system.command.process.stream.IProcessInputStream;
 import com.github.toolarium.system.command.process.stream.IProcessOutputStream;
 import com.github.toolarium.system.command.process.stream.ProcessStreamFactory;
+import com.github.toolarium.system.command.process.stream.input.ProcessInputStreamSource;
 import com.github.toolarium.system.command.process.stream.output.ProcessBufferOutputStream;
 import com.github.toolarium.system.command.process.stream.output.ProcessOutputStream;
 import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
 import com.github.toolarium.system.command.process.thread.NameableThreadFactory;
 import com.github.toolarium.system.command.process.util.ProcessBuilderUtil;
+import com.github.toolarium.system.command.process.util.ProcessIdRegistry;
 import com.github.toolarium.system.command.process.util.ScriptUtil;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -49,6 +59,9 @@ public abstract class AbstractSystemCommandExecuterImpl implements ISystemComman
     /** The default poll timeout */
     public static final int DEFAULT_POLL_TIMEOUT = 5;
 
+    /** The poll timeout in milliseconds of hedged executions */
+    public static final int HEDGE_POLL_TIMEOUT = 10;
+
     private static final Logger LOG = LoggerFactory.getLogger(AbstractSystemCommandExecuterImpl.class);
     private static NameableThreadFactory nameableThreadFactory = new NameableThreadFactory("liveness");
 
@@ -93,49 +106,31 @@ public abstract class AbstractSystemCommandExecuterImpl implements ISystemComman
      */
     @Override
     public ISynchronousProcess runSynchronous(IProcessInputStream processInputStream, int numberOfSecondsToWait) {
-        // to capture output from the shell
-        ProcessBufferOutputStream outputstream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
-        ProcessBufferOutputStream errorOutputstream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
-        IAsynchronousProcess asynchronousProcess = runAsynchronous(processInputStream, outputstream, errorOutputstream, DEFAULT_POLL_TIMEOUT);
-        StringBuilder processInfo = new StringBuilder(" (id:" + systemCommandGroupList.getId() + ", pid:" + asynchronousProcess.getPid());
-
-        int exitValue = -1;
-        try {
-            if (numberOfSecondsToWait <= 0) {
-                exitValue = asynchronousProcess.waitFor();
-                LOG.info(new StringBuilder("Process ").append("ended").append(processInfo).append(", exit:").append(exitValue).append(", duration:").append(prepareDuration(asynchronousProcess)).append(")").toString());
-            } else {
-                if (asynchronousProcess.waitFor(numberOfSecondsToWait, TimeUnit.SECONDS)) {
-                    exitValue = asynchronousProcess.getExitValue();
-                    LOG.info(new StringBuilder("Process ").append("ended in time").append(processInfo).append(", exit:").append(exitValue).append(", duration:").append(prepareDuration(asynchronousProcess)).append(")").toString());
-                } else {
-                    StringBuilder message = new StringBuilder("Process ");
-                    asynchronousProcess.tryDestroy();
-                    if (asynchronousProcess.isAlive()) {
-                        asynchronousProcess.destroy();
-                        message.append("forced aborted");
-                    } else {
-                        message.append("aborted");
-                    }
+        ProcessResultKey processResultKey = null;
+        if (systemCommandGroupList.getCacheTimeToLive() != null || systemCommandGroupList.isSingleFlight()) {
+            processResultKey = ProcessResultKey.create(systemCommandGroupList, processInputStream);
+        }
 
-                    exitValue = asynchronousProcess.getExitValue();
-                    LOG.info(message.append(", timeout:" + numberOfSecondsToWait).append(processInfo).append(", exit:").append(exitValue).append(", duration:").append(prepareDuration(asynchronousProcess)).append(")!").toString());
-                }
-            }
-        } catch (InterruptedException ex) {
-            StringBuilder message = new StringBuilder("Process ").append("ended with error").append(processInfo).append(", duration:").append(prepareDuration(asynchronousProcess)).append("): ").append(ex.getMessage());
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(message.toString(), ex);
-            }
+        ISynchronousProcess cachedProcess = getCachedResult(processResultKey);
+        if (cachedProcess != null) {
+            return cachedProcess;
+        }
 
-            LOG.warn(message.toString());
+        if (processResultKey == null) {
+            return runProcessSynchronous(processInputStream, numberOfSecondsToWait, null);
         }
 
-        return new SynchronousProcess(systemCommandGroupList, 
-                                      asynchronousProcess.getPid(), 
-                                      asynchronousProcess.getStartTime(), asynchronousProcess.getTotalCpuDuration(),
-                                      exitValue, 
-                                      outputstream.toString(), errorOutputstream.toString());
+        // identical concurrent executions are started only once
+        final ProcessResultKey key = processResultKey;
+        return ProcessSingleFlight.getInstance().run(key, systemCommandGroupList, numberOfSecondsToWait, () -> {
+            // an identical execution could be ended in the meantime
+            ISynchronousProcess result = getCachedResult(key);
+            if (result == null) {
+                result = runProcessSynchronous(processInputStream, numberOfSecondsToWait, key);
+            }
+            
+            return result;
+        });
     }
 
     
@@ -188,14 +183,42 @@ public abstract class AbstractSystemCommandExecuterImpl implements ISystemComman
         
         try {
             Path scriptPath = null;
-            if (systemCommandGroupList.runAsScript()
-                || (processInputStream != null && (processInputStream.getProcessInputStreamSource().getFile() != null || processInputStream.getProcessInputStreamSource().getBuffer() != null))) {
-                lockFile = ScriptUtil.getInstance().createLockFile(SystemCommandExecuterFactory.getInstance().getScriptFolderBasePath(), systemCommandGroupList.getId());
-                scriptPath = Paths.get(SystemCommandExecuterFactory.getInstance().getScriptFolderBasePath() + "/" + systemCommandGroupList.getId());
+            String stdinScript = null;
+            List<ProcessBuilder> processBuilderList = null;
+            if (isDiskless(processInputStream)) {
+                ISystemCommandGroup systemCommandGroup = systemCommandGroupList.iterator().next();
+                ProcessBuilder processBuilder = ProcessBuilderUtil.getInstance().createStdinScriptProcessBuilder(systemCommandGroup, this, processOut, processErr);
+                if (processBuilder != null) {
+                    stdinScript = ProcessBuilderUtil.getInstance().createStdinScript(systemCommandGroup, this);
+                    processBuilderList = Arrays.asList(processBuilder);
+                } else {
+                    LOG.debug("Diskless execution is not supported, write script (id:" + systemCommandGroupList.getId() + ").");
+                }
             }
 
-            // create process builder list
-            List<ProcessBuilder> processBuilderList = ProcessBuilderUtil.getInstance().createProcessBuilders(systemCommandGroupList, processInputStream, processOut, processErr, this, scriptPath);
+            if (processBuilderList == null) {
+                if (systemCommandGroupList.runAsScript() || systemCommandGroupList.isDetached()
+                    || (processInputStream != null && (processInputStream.getProcessInputStreamSource().getFile() != null || processInputStream.getProcessInputStreamSource().getBuffer() != null))) {
+                    scriptPath = SystemCommandExecuterFactory.getInstance().getScriptFolderPath(systemCommandGroupList.getId());
+                    if (SystemCommandExecuterFactory.getInstance().isProcessJournalEnabled()) {
+                        Files.createDirectories(scriptPath);
+                    } else {
+                        lockFile = ScriptUtil.getInstance().createLockFile(scriptPath.getParent(), systemCommandGroupList.getId());
+                    }
+                    if (ScriptFolderLayout.HOUR != SystemCommandExecuterFactory.getInstance().getScriptFolderLayout()) {
+                        // hour buckets expire as a whole
+                        ProcessFolderRegistry.getInstance().register(scriptPath);
+                    }
+                    if (systemCommandGroupList.isInputOnDisk() && !scriptPath.equals(SystemCommandExecuterFactory.getInstance().getInputFolderPath(scriptPath))) {
+                        // the input folder on disk is kept as long as the RAM backed script folder
+                        ProcessFolderRegistry.getInstance().register(SystemCommandExecuterFactory.getInstance().getInputFolderPath(scriptPath));
+                    }
+                }
+    
+                // create process builder list
+                processBuilderList = ProcessBuilderUtil.getInstance().createProcessBuilders(systemCommandGroupList, processInputStream, processOut, processErr, this, scriptPath);
+            }
+            
             if (processBuilderList.size() == 0) {
                 throw new IllegalStateException("Invalid empty process builder list!");
             }
@@ -211,27 +234,40 @@ public abstract class AbstractSystemCommandExecuterImpl implements ISystemComman
             // restart lock from now
             systemCommandGroupList.resetLock();
 
-            // start liveness thread
-            processLiveness = new ProcessLiveness(systemCommandGroupList.getId(), processList, processOut, processErr, scriptPath, systemCommandGroupList.getLockTimeout(), pollTimeout);
-            Executors.newSingleThreadExecutor(nameableThreadFactory).execute(processLiveness);
-
             int processCount = 0;
             Iterator<ISystemCommandGroup> it = systemCommandGroupList.iterator();
             while (it.hasNext()) {
                 ISystemCommandGroup systemCommandGroup = it.next();
-                // create pid file
                 if (systemCommandGroup.runAsScript() && processList.size() > processCount) {
-                    ScriptUtil.getInstance().createPidFile(scriptPath, systemCommandGroup.getId(), processList.get(processCount++).pid());
+                    java.lang.Process process = processList.get(processCount++);
+                    Long pid = process.pid();
+                    if (scriptPath != null && SystemCommandExecuterFactory.getInstance().isProcessJournalEnabled()) {
+                        ProcessJournal.getInstance().start(systemCommandGroupList.getId(), scriptPath, pid, process.info().startInstant().orElse(null), systemCommandGroupList.getLockTimeout());
+                    } else if (scriptPath != null) {
+                        // create pid file
+                        ScriptUtil.getInstance().createPidFile(scriptPath, systemCommandGroup.getId(), pid);
+                    } else {
+                        ProcessIdRegistry.getInstance().register(systemCommandGroupList.getId(), systemCommandGroup.getId(), pid);
+                    }
                 }
             }
 
-            if (scriptPath != null) {
+            // start liveness thread
+            processLiveness = new ProcessLiveness(systemCommandGroupList.getId(), processList, processOut, processErr, scriptPath, systemCommandGroupList.getLockTimeout(), pollTimeout, 
+                                                  systemCommandGroupList.isDetached() && scriptPath != null);
+            Executors.newSingleThreadExecutor(nameableThreadFactory).execute(processLiveness);
+
+            if (stdinScript != null) {
+                writeStdinScript(processList.get(0), stdinScript);
+                LOG.info("Process successful started (id:" + systemCommandGroupList.getId() + ", pid:" + processLiveness.getProcessId() + ", diskless)");
+            } else if (scriptPath != null) {
                 LOG.info("Process successful started (id:" + systemCommandGroupList.getId() + ", pid:" + processLiveness.getProcessId() + ", script:" + scriptPath + ")");
             } else {
                 LOG.info("Process successful started (id:" + systemCommandGroupList.getId() + ", pid:" + processLiveness.getProcessId() + ")");
             }
         } catch (Exception e) {
             LOG.warn("Error occured while start executing command " + systemCommandGroupList.toString() + ": " + e.getMessage(), e);
+            ProcessIdRegistry.getInstance().unregister(systemCommandGroupList.getId());
             RuntimeException ex = new RuntimeException(e.getMessage());
             ex.setStackTrace(e.getStackTrace());
             throw ex;
@@ -262,6 +298,244 @@ public abstract class AbstractSystemCommandExecuterImpl implements ISystemComman
     }
 
     
+    /**
+     * Run the process synchronous
+     *
+     * @param processInputStream the process input stream
+     * @param numberOfSecondsToWait the number of seconds to wait
+     * @param processResultKey the process result key or null
+     * @return the terminated process
+     */
+    protected ISynchronousProcess runProcessSynchronous(IProcessInputStream processInputStream, int numberOfSecondsToWait, ProcessResultKey processResultKey) {
+        final long startTime = System.currentTimeMillis();
+        
+        // to capture output from the shell
+        ProcessBufferOutputStream outputstream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+        ProcessBufferOutputStream errorOutputstream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+        IAsynchronousProcess asynchronousProcess = runAsynchronous(processInputStream, outputstream, errorOutputstream, DEFAULT_POLL_TIMEOUT);
+        StringBuilder processInfo = new StringBuilder(" (id:" + systemCommandGroupList.getId() + ", pid:" + asynchronousProcess.getPid());
+
+        int exitValue = -1;
+        boolean isCompleted = false;
+        int secondsToWait = numberOfSecondsToWait;
+        long processStartTime = startTime;
+        try {
+            Long hedgeDelay = getHedgeDelay(processInputStream);
+            if (hedgeDelay != null && !waitForEnd(asynchronousProcess, hedgeDelay)) {
+                // start a second copy, the first successful process wins
+                ProcessBufferOutputStream hedgeOutputstream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+                ProcessBufferOutputStream hedgeErrorOutputstream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+                SystemCommandGroupList hedgeSystemCommandGroupList = new SystemCommandGroupList((SystemCommandGroupList)systemCommandGroupList);
+                final long hedgeStartTime = System.currentTimeMillis();
+                IAsynchronousProcess hedgeProcess = SystemCommandExecuterFactory.getInstance().createSystemCommandExecuter(hedgeSystemCommandGroupList)
+                        .runAsynchronous(processInputStream, hedgeOutputstream, hedgeErrorOutputstream, DEFAULT_POLL_TIMEOUT);
+                LOG.info(new StringBuilder("Process ").append("hedged after ").append(hedgeDelay).append("ms").append(processInfo).append(", hedge-id:").append(hedgeSystemCommandGroupList.getId()).append(", hedge-pid:").append(hedgeProcess.getPid()).append(")").toString());
+
+                long deadline = 0;
+                if (numberOfSecondsToWait > 0) {
+                    deadline = startTime + (numberOfSecondsToWait * 1000L);
+                }
+
+                if (waitForFirstSuccess(asynchronousProcess, hedgeProcess, deadline) == hedgeProcess) {
+                    asynchronousProcess.destroyTree();
+                    asynchronousProcess = hedgeProcess;
+                    processStartTime = hedgeStartTime;
+                    outputstream = hedgeOutputstream;
+                    errorOutputstream = hedgeErrorOutputstream;
+                    processInfo = new StringBuilder(" (id:" + hedgeSystemCommandGroupList.getId() + ", pid:" + hedgeProcess.getPid() + ", hedged");
+                } else {
+                    hedgeProcess.destroyTree();
+                }
+
+                if (numberOfSecondsToWait > 0) {
+                    secondsToWait = (int)Math.max(1, numberOfSecondsToWait - ((System.currentTimeMillis() - startTime) / 1000));
+                }
+            }
+
+            if (numberOfSecondsToWait <= 0) {
+                exitValue = asynchronousProcess.waitFor();
+                isCompleted = true;
+                LOG.info(new StringBuilder("Process ").append("ended").append(processInfo).append(", exit:").append(exitValue).append(", duration:").append(prepareDuration(asynchronousProcess)).append(")").toString());
+            } else {
+                if (asynchronousProcess.waitFor(secondsToWait, TimeUnit.SECONDS)) {
+                    exitValue = asynchronousProcess.getExitValue();
+                    isCompleted = true;
+                    LOG.info(new StringBuilder("Process ").append("ended in time").append(processInfo).append(", exit:").append(exitValue).append(", duration:").append(prepareDuration(asynchronousProcess)).append(")").toString());
+                } else {
+                    StringBuilder message = new StringBuilder("Process ");
+                    asynchronousProcess.tryDestroy();
+                    if (asynchronousProcess.isAlive()) {
+                        asynchronousProcess.destroy();
+                        message.append("forced aborted");
+                    } else {
+                        message.append("aborted");
+                    }
+
+                    exitValue = asynchronousProcess.getExitValue();
+                    LOG.info(message.append(", timeout:" + numberOfSecondsToWait).append(processInfo).append(", exit:").append(exitValue).append(", duration:").append(prepareDuration(asynchronousProcess)).append(")!").toString());
+                }
+            }
+        } catch (InterruptedException ex) {
+            StringBuilder message = new StringBuilder("Process ").append("ended with error").append(processInfo).append(", duration:").append(prepareDuration(asynchronousProcess)).append("): ").append(ex.getMessage());
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(message.toString(), ex);
+            }
+
+            LOG.warn(message.toString());
+        }
+
+        ISynchronousProcess synchronousProcess = new SynchronousProcess(systemCommandGroupList, 
+                                                                        asynchronousProcess.getPid(), 
+                                                                        asynchronousProcess.getStartTime(), asynchronousProcess.getTotalCpuDuration(),
+                                                                        exitValue, 
+                                                                        outputstream.toString(), errorOutputstream.toString());
+        if (processResultKey != null && !isCompleted) {
+            // the result of an aborted process is not shared with the waiting callers
+            ProcessSingleFlight.getInstance().abort(processResultKey);
+        }
+
+        if (processResultKey != null && isCompleted && systemCommandGroupList.getCacheTimeToLive() != null) {
+            ProcessResultCache.getInstance().put(processResultKey, systemCommandGroupList.getCacheTimeToLive(), synchronousProcess);
+        }
+
+        if (systemCommandGroupList.getHedgePercentile() != null && isCompleted && exitValue == 0) {
+            // the run time of the winning process, the hedge delay is not part of the latency
+            ProcessLatencyTracker.getInstance().record(systemCommandGroupList.toString(false), System.currentTimeMillis() - processStartTime);
+        }
+
+        return synchronousProcess;
+    }
+
+
+    /**
+     * Get the delay after which a hedged execution starts a second copy
+     *
+     * @param processInputStream the process input stream
+     * @return the delay in milliseconds or null if the execution is not hedged
+     */
+    protected Long getHedgeDelay(IProcessInputStream processInputStream) {
+        if (systemCommandGroupList.getHedgePercentile() == null || !(systemCommandGroupList instanceof SystemCommandGroupList)) {
+            return null;
+        }
+
+        // the input can not be shared
+        if (processInputStream != null && processInputStream.getProcessInputStreamSource() == ProcessInputStreamSource.PIPE) {
+            return null;
+        }
+
+        return ProcessLatencyTracker.getInstance().getPercentile(systemCommandGroupList.toString(false), systemCommandGroupList.getHedgePercentile());
+    }
+
+
+    /**
+     * Wait until a process has ended
+     *
+     * @param process the process
+     * @param timeoutInMilliseconds the timeout in milliseconds
+     * @return true if the process has ended
+     * @throws InterruptedException In case of an interrupt
+     */
+    protected boolean waitForEnd(IAsynchronousProcess process, long timeoutInMilliseconds) throws InterruptedException {
+        final long end = System.currentTimeMillis() + timeoutInMilliseconds;
+        while (process.isAlive() && System.currentTimeMillis() < end) {
+            Thread.sleep(HEDGE_POLL_TIMEOUT);
+        }
+
+        return !process.isAlive();
+    }
+
+
+    /**
+     * Wait for the first successful process
+     *
+     * @param process the process
+     * @param hedgeProcess the hedge process
+     * @param deadline the deadline in milliseconds or 0 to wait until both processes are ended
+     * @return the first successful process or the process in case both failed or the deadline is reached
+     * @throws InterruptedException In case of an interrupt
+     */
+    protected IAsynchronousProcess waitForFirstSuccess(IAsynchronousProcess process, IAsynchronousProcess hedgeProcess, long deadline) throws InterruptedException {
+        while (true) {
+            boolean isProcessAlive = process.isAlive();
+            boolean isHedgeProcessAlive = hedgeProcess.isAlive();
+            if (!isProcessAlive && Integer.valueOf(0).equals(process.getExitValue())) {
+                return process;
+            }
+
+            if (!isHedgeProcessAlive && Integer.valueOf(0).equals(hedgeProcess.getExitValue())) {
+                return hedgeProcess;
+            }
+
+            if ((!isProcessAlive && !isHedgeProcessAlive) || (deadline > 0 && System.currentTimeMillis() >= deadline)) {
+                return process;
+            }
+
+            Thread.sleep(HEDGE_POLL_TIMEOUT);
+        }
+    }
+
+
+    
+    /**
+     * Get a cached result
+     *
+     * @param processResultKey the process result key or null
+     * @return the cached result or null
+     */
+    protected ISynchronousProcess getCachedResult(ProcessResultKey processResultKey) {
+        if (processResultKey == null || systemCommandGroupList.getCacheTimeToLive() == null) {
+            return null;
+        }
+
+        ISynchronousProcess cachedProcess = ProcessResultCache.getInstance().get(systemCommandGroupList, processResultKey);
+        if (cachedProcess != null) {
+            LOG.info("Process result taken from cache (id:" + systemCommandGroupList.getId() + ", key:" + processResultKey + ", exit:" + cachedProcess.getExitValue() + ")");
+        }
+        
+        return cachedProcess;
+    }
+
+    
+    /**
+     * Check if the execution runs diskless: the script is streamed into the standard input of the shell. This is only 
+     * possible for one script without any input from a file, a buffer or a pipe.
+     * 
+     * @param processInputStream the process input stream
+     * @return true if it runs diskless
+     */
+    protected boolean isDiskless(IProcessInputStream processInputStream) {
+        if (!systemCommandGroupList.isDiskless() || systemCommandGroupList.isDetached() || systemCommandGroupList.size() != 1 || !systemCommandGroupList.runAsScript()) {
+            return false;
+        }
+        
+        if (processInputStream != null) {
+            ProcessInputStreamSource source = processInputStream.getProcessInputStreamSource();
+            if (source == ProcessInputStreamSource.PIPE || source.getFile() != null || source.getBuffer() != null) {
+                LOG.debug("Diskless execution is not supported with input " + source + " (id:" + systemCommandGroupList.getId() + ").");
+                return false;
+            }
+        }
+        
+        return true;
+    }
+
+
+    /**
+     * Write the script into the standard input of the process and close it
+     * 
+     * @param process the process
+     * @param script the script
+     */
+    protected void writeStdinScript(java.lang.Process process, String script) {
+        try (OutputStream outputStream = process.getOutputStream()) {
+            outputStream.write(script.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // the process result reflects the issue e.g. in case the shell ended before
+            LOG.warn("Could not write script to the standard input (id:" + systemCommandGroupList.getId() + ", pid:" + process.pid() + "): " + e.getMessage());
+        }
+    }
+
+
     /**
      * Prepare duration
      * 
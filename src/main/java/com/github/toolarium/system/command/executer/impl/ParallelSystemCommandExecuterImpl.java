@@ -0,0 +1,249 @@
+/*
+ * ParallelSystemCommandExecuterImpl.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.executer.impl;
+
+import com.github.toolarium.system.command.executer.ISystemCommandExecuter;
+import com.github.toolarium.system.command.executer.ParallelOutputMode;
+import com.github.toolarium.system.command.process.IAsynchronousProcess;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.impl.ParallelAsynchronousProcess;
+import com.github.toolarium.system.command.process.impl.ParallelSynchronousProcess;
+import com.github.toolarium.system.command.process.impl.SynchronousProcess;
+import com.github.toolarium.system.command.process.stream.IProcessInputStream;
+import com.github.toolarium.system.command.process.stream.IProcessOutputStream;
+import com.github.toolarium.system.command.process.stream.ProcessStreamFactory;
+import com.github.toolarium.system.command.process.stream.output.LinePrefixOutputStream;
+import com.github.toolarium.system.command.process.stream.output.ProcessBufferOutputStream;
+import com.github.toolarium.system.command.process.stream.output.ProcessOutputStream;
+import com.github.toolarium.system.command.process.stream.output.TeeProcessOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Implements the {@link ISystemCommandExecuter} of parallel branches which are started concurrently and joined: the
+ * exit value is 0 if all branches were successful, otherwise the exit value of the first failed branch. The output
+ * of the branches is combined as defined by the {@link ParallelOutputMode}.
+ *
+ * @author patrick
+ */
+public class ParallelSystemCommandExecuterImpl implements ISystemCommandExecuter {
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelSystemCommandExecuterImpl.class);
+    private final List<ISystemCommandExecuter> branchList;
+    private final ParallelOutputMode parallelOutputMode;
+
+
+    /**
+     * Constructor for ParallelSystemCommandExecuterImpl
+     *
+     * @param branchList the executers of the branches
+     * @param parallelOutputMode the parallel output mode
+     * @throws IllegalArgumentException In case of less than two branches
+     */
+    public ParallelSystemCommandExecuterImpl(List<ISystemCommandExecuter> branchList, ParallelOutputMode parallelOutputMode) {
+        if (branchList == null || branchList.size() < 2) {
+            throw new IllegalArgumentException("At least two parallel branches are required!");
+        }
+
+        this.branchList = List.copyOf(branchList);
+        if (parallelOutputMode == null) {
+            this.parallelOutputMode = ParallelOutputMode.ORDERED;
+        } else {
+            this.parallelOutputMode = parallelOutputMode;
+        }
+    }
+
+
+    /**
+     * Get the executers of the branches
+     *
+     * @return the executers of the branches
+     */
+    public List<ISystemCommandExecuter> getBranches() {
+        return branchList;
+    }
+
+
+    /**
+     * Get the parallel output mode
+     *
+     * @return the parallel output mode
+     */
+    public ParallelOutputMode getParallelOutputMode() {
+        return parallelOutputMode;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runSynchronous()
+     */
+    @Override
+    public ISynchronousProcess runSynchronous() {
+        return runSynchronous(0);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runSynchronous(int)
+     */
+    @Override
+    public ISynchronousProcess runSynchronous(int numberOfSecondsToWait) {
+        return runSynchronous(null, numberOfSecondsToWait);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runSynchronous(com.github.toolarium.system.command.process.stream.IProcessInputStream, int)
+     */
+    @Override
+    public ISynchronousProcess runSynchronous(IProcessInputStream processInputStream, int numberOfSecondsToWait) {
+        ProcessBufferOutputStream outputstream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+        ProcessBufferOutputStream errorOutputstream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+        ParallelAsynchronousProcess process = (ParallelAsynchronousProcess)runAsynchronous(processInputStream, outputstream, errorOutputstream, AbstractSystemCommandExecuterImpl.DEFAULT_POLL_TIMEOUT);
+
+        try {
+            if (numberOfSecondsToWait <= 0) {
+                process.waitFor();
+            } else if (!process.waitFor(numberOfSecondsToWait, TimeUnit.SECONDS)) {
+                LOG.info("Parallel branches aborted, timeout:" + numberOfSecondsToWait + " (branches:" + branchList.size() + ")!");
+                process.destroyTree();
+                process.waitFor();
+            }
+
+            return new ParallelSynchronousProcess(process.getBranchResults(), process.getStartTime(), process.getTotalCpuDuration(),
+                                                  process.getExitValue(), outputstream.toString(), errorOutputstream.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyTree();
+            LOG.warn("Parallel branches ended with error (branches:" + branchList.size() + "): " + e.getMessage());
+
+            List<ISynchronousProcess> branchResultList = new ArrayList<>();
+            for (IAsynchronousProcess branchProcess : process.getBranchProcesses()) {
+                branchResultList.add(new SynchronousProcess(branchProcess.getSystemCommandGroupList(), branchProcess.getPid(), branchProcess.getStartTime(), branchProcess.getTotalCpuDuration(), -1, "", ""));
+            }
+
+            return new ParallelSynchronousProcess(branchResultList, process.getStartTime(), process.getTotalCpuDuration(), -1, outputstream.toString(), errorOutputstream.toString());
+        }
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runAsynchronous()
+     */
+    @Override
+    public IAsynchronousProcess runAsynchronous() {
+        return runAsynchronous(null, new ProcessOutputStream(System.out), new ProcessOutputStream(System.err));
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runAsynchronous(com.github.toolarium.system.command.process.stream.IProcessOutputStream)
+     */
+    @Override
+    public IAsynchronousProcess runAsynchronous(IProcessOutputStream processOutAndErr) {
+        return runAsynchronous(null, processOutAndErr, processOutAndErr, AbstractSystemCommandExecuterImpl.DEFAULT_POLL_TIMEOUT);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runAsynchronous(com.github.toolarium.system.command.process.stream.IProcessOutputStream, com.github.toolarium.system.command.process.stream.IProcessOutputStream)
+     */
+    @Override
+    public IAsynchronousProcess runAsynchronous(IProcessOutputStream processOut, IProcessOutputStream processErr) {
+        return runAsynchronous(null, processOut, processErr, AbstractSystemCommandExecuterImpl.DEFAULT_POLL_TIMEOUT);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runAsynchronous(com.github.toolarium.system.command.process.stream.IProcessInputStream,
+     *      com.github.toolarium.system.command.process.stream.IProcessOutputStream, com.github.toolarium.system.command.process.stream.IProcessOutputStream)
+     */
+    @Override
+    public IAsynchronousProcess runAsynchronous(IProcessInputStream processInputStream, IProcessOutputStream processOut, IProcessOutputStream processErr) {
+        return runAsynchronous(processInputStream, processOut, processErr, AbstractSystemCommandExecuterImpl.DEFAULT_POLL_TIMEOUT);
+    }
+
+
+    /**
+     * Start all branches: each branch writes its output into its own buffer. In prefixed mode the complete lines are
+     * written in addition with the number of the branch as prefix. In case a branch can not be started, the already
+     * started branches are destroyed.
+     *
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runAsynchronous(com.github.toolarium.system.command.process.stream.IProcessInputStream,
+     *      com.github.toolarium.system.command.process.stream.IProcessOutputStream, com.github.toolarium.system.command.process.stream.IProcessOutputStream, long)
+     */
+    @Override
+    public IAsynchronousProcess runAsynchronous(IProcessInputStream processInputStream, IProcessOutputStream processOut, IProcessOutputStream processErr, long pollTimeout) {
+        List<IAsynchronousProcess> branchProcessList = new ArrayList<>();
+        List<ProcessBufferOutputStream> branchOutputList = new ArrayList<>();
+        List<ProcessBufferOutputStream> branchErrorOutputList = new ArrayList<>();
+        List<OutputStream> branchLineOutputList = new ArrayList<>();
+        List<OutputStream> branchErrorLineOutputList = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < branchList.size(); i++) {
+                ProcessBufferOutputStream branchOutput = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+                ProcessBufferOutputStream branchErrorOutput = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+                branchOutputList.add(branchOutput);
+                branchErrorOutputList.add(branchErrorOutput);
+
+                IProcessOutputStream out = branchOutput;
+                IProcessOutputStream err = branchErrorOutput;
+                if (parallelOutputMode == ParallelOutputMode.PREFIXED) {
+                    byte[] prefix = ("[" + (i + 1) + "] ").getBytes(StandardCharsets.UTF_8);
+                    out = createLineOutput(branchOutput, processOut, prefix, branchLineOutputList);
+                    err = createLineOutput(branchErrorOutput, processErr, prefix, branchErrorLineOutputList);
+                }
+
+                branchProcessList.add(branchList.get(i).runAsynchronous(processInputStream, out, err, pollTimeout));
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Could not start parallel branch " + (branchProcessList.size() + 1) + " of " + branchList.size() + ": " + e.getMessage());
+            for (IAsynchronousProcess branchProcess : branchProcessList) {
+                branchProcess.destroyTree();
+            }
+
+            throw e;
+        }
+
+        return new ParallelAsynchronousProcess(branchProcessList, branchOutputList, branchErrorOutputList, branchLineOutputList, branchErrorLineOutputList, processOut, processErr, parallelOutputMode);
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "ParallelSystemCommandExecuterImpl [branches=" + branchList + ", parallelOutputMode=" + parallelOutputMode + "]";
+    }
+
+
+    /**
+     * Create the output of a branch in prefixed mode: the buffer and the complete lines with prefix
+     *
+     * @param branchOutput the buffered output of the branch
+     * @param processOutputStream the combined output or null
+     * @param prefix the prefix of the lines
+     * @param lineOutputList the line prefix output list to add to
+     * @return the output of the branch
+     */
+    private IProcessOutputStream createLineOutput(ProcessBufferOutputStream branchOutput, IProcessOutputStream processOutputStream, byte[] prefix, List<OutputStream> lineOutputList) {
+        if (processOutputStream == null) {
+            lineOutputList.add(null);
+            return branchOutput;
+        }
+
+        LinePrefixOutputStream lineOutput = new LinePrefixOutputStream(processOutputStream, prefix);
+        lineOutputList.add(lineOutput);
+        return new TeeProcessOutputStream(branchOutput, ProcessStreamFactory.getInstance().getProcessOutputStream(lineOutput));
+    }
+}
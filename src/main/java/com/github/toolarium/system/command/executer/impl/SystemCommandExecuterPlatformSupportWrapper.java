@@ -70,6 +70,15 @@ public class SystemCommandExecuterPlatformSupportWrapper implements ISystemComma
     }
 
 
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport#getShellStdinCommand(java.lang.String, com.github.toolarium.system.command.dto.ISystemCommand)
+     */
+    @Override
+    public List<String> getShellStdinCommand(String id, ISystemCommand systemCommand) {
+        return handleNull(systemCommandExecuterPlatformSupport.getShellStdinCommand(id, systemCommand));
+    }
+
+
     /**
      * @see com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport#getScriptFileHeader()
      */
@@ -123,6 +132,15 @@ public class SystemCommandExecuterPlatformSupportWrapper implements ISystemComma
         return handleNull(systemCommandExecuterPlatformSupport.getNotExistEnvironmentVariableCommand(envVariable));
     }
 
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport#getEvaluateEnvironmentVariableCommand(java.lang.String)
+     */
+    @Override
+    public String getEvaluateEnvironmentVariableCommand(String envVariable) {
+        return handleNull(systemCommandExecuterPlatformSupport.getEvaluateEnvironmentVariableCommand(envVariable));
+    }
+
     
     /**
      * @see com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport#getEnvironmentSetCommand()
@@ -60,6 +60,32 @@ public class UnixSystemCommandExecuterImpl extends AbstractSystemCommandExecuter
     }
 
 
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport#getShellStdinCommand(java.lang.String, com.github.toolarium.system.command.dto.ISystemCommand)
+     */
+    @Override
+    public List<String> getShellStdinCommand(String id, ISystemCommand systemCommand) {
+        if (systemCommand.getProcessEnvironment().isSudoUser() && systemCommand.getProcessEnvironment().getUser() != null && !systemCommand.getProcessEnvironment().getUser().isBlank()) {
+            // the substitute user reads itself from the standard input
+            return null;
+        }
+
+        List<String> cmdList = new ArrayList<>();
+        if (systemCommand.getShell() == null || systemCommand.getShell().isEmpty()) {
+            cmdList.addAll(Arrays.asList("sh", "-s"));           
+        } else {
+            cmdList.addAll(systemCommand.getShell());
+            if ("-c".equals(cmdList.get(cmdList.size() - 1))) {
+                cmdList.remove(cmdList.size() - 1);
+            }
+            
+            cmdList.add("-s");
+        }
+
+        return cmdList;
+    }
+
+
     /**
      * @see com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport#getScriptFileExtension()
      */
@@ -105,6 +131,15 @@ public class UnixSystemCommandExecuterImpl extends AbstractSystemCommandExecuter
     }
 
 
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport#getEvaluateEnvironmentVariableCommand(java.lang.String)
+     */
+    @Override
+    public String getEvaluateEnvironmentVariableCommand(String envVariable) {
+        return "eval \"${" + envVariable + "}\"";
+    }
+
+
     /**
      * @see com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport#getEnvironmentSetCommand()
      */
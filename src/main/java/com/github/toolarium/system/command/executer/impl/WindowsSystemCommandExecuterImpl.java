@@ -73,6 +73,16 @@ public class WindowsSystemCommandExecuterImpl extends AbstractSystemCommandExecu
         return null;
     }
 
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport#getShellStdinCommand(java.lang.String, com.github.toolarium.system.command.dto.ISystemCommand)
+     */
+    @Override
+    public List<String> getShellStdinCommand(String id, ISystemCommand systemCommand) {
+        // the cmd.exe don't support to read a batch from the standard input
+        return null;
+    }
+
     
     /**
      * @see com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport#getScriptFileExtension()
@@ -119,6 +129,15 @@ public class WindowsSystemCommandExecuterImpl extends AbstractSystemCommandExecu
     }
 
 
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport#getEvaluateEnvironmentVariableCommand(java.lang.String)
+     */
+    @Override
+    public String getEvaluateEnvironmentVariableCommand(String envVariable) {
+        return "%" + envVariable + "%";
+    }
+
+
     /**
      * @see com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport#getEnvironmentSetCommand()
      */
@@ -67,6 +67,12 @@ public interface IAsynchronousProcess extends IProcess {
     void destroy();
 
     
+    /**
+     * Destroy the process and all its descendants immediate. If the process is not alive, no action is taken.
+     */
+    void destroyTree();
+
+    
     /**
      * Returns the output stream connected to the process input stream. 
      * If the standard input of the process has been redirected, the stream is not available.
@@ -0,0 +1,624 @@
+/*
+ * ProcessResultCache.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.cache;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.impl.SynchronousProcess;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Caches the result of synchronous executions. The results are kept in memory with a least recently used eviction
+ * and optional in a disk store under the script folder base path.
+ *
+ * @author patrick
+ */
+public final class ProcessResultCache {
+    /** The cache folder name, it is located in the script folder base path */
+    public static final String CACHE_FOLDER_NAME = ".cache";
+
+    /** The default maximum number of entries in memory */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProcessResultCache.class);
+    private static final String FILE_EXTENSION = ".result";
+    private static final int VERSION = 1;
+    private static final long NONE = -1;
+    private LinkedHashMap<ProcessResultKey, ProcessResultEntry> cache;
+    private volatile int maxEntries;
+    private volatile boolean diskStore;
+
+
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final ProcessResultCache INSTANCE = new ProcessResultCache();
+    }
+
+
+    /**
+     * Constructor
+     */
+    private ProcessResultCache() {
+        cache = new LinkedHashMap<ProcessResultKey, ProcessResultEntry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            /**
+             * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+             */
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ProcessResultKey, ProcessResultEntry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        maxEntries = DEFAULT_MAX_ENTRIES;
+        diskStore = false;
+    }
+
+
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static ProcessResultCache getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+
+    /**
+     * Get a cached result
+     *
+     * @param systemCommandGroupList the system command group list of the caller
+     * @param key the key
+     * @return the cached result or null, the pid and the total cpu duration of a cached result are null
+     */
+    public ISynchronousProcess get(ISystemCommandGroupList systemCommandGroupList, ProcessResultKey key) {
+        if (key == null) {
+            return null;
+        }
+
+        ProcessResultEntry entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+            if (entry != null && entry.isExpired()) {
+                cache.remove(key);
+                entry = null;
+            }
+        }
+
+        if (entry == null && diskStore) {
+            entry = read(key);
+            if (entry != null) {
+                synchronized (cache) {
+                    cache.put(key, entry);
+                }
+            }
+        }
+
+        if (entry == null) {
+            return null;
+        }
+
+        return entry.toSynchronousProcess(systemCommandGroupList);
+    }
+
+
+    /**
+     * Put a result into the cache
+     *
+     * @param key the key
+     * @param timeToLive the time to live
+     * @param process the process
+     */
+    public void put(ProcessResultKey key, Duration timeToLive, ISynchronousProcess process) {
+        if (key == null || timeToLive == null || timeToLive.isNegative() || timeToLive.isZero() || process == null || process.getExitValue() == null) {
+            return;
+        }
+
+        ProcessResultEntry entry = new ProcessResultEntry(process, System.currentTimeMillis() + timeToLive.toMillis());
+        synchronized (cache) {
+            cache.put(key, entry);
+        }
+
+        if (diskStore) {
+            write(key, entry);
+        }
+    }
+
+
+    /**
+     * Remove all expired entries from memory and from the disk store
+     *
+     * @return the number of removed entries
+     */
+    public int evictExpired() {
+        int counter = 0;
+        synchronized (cache) {
+            for (Iterator<ProcessResultEntry> it = cache.values().iterator(); it.hasNext();) {
+                if (it.next().isExpired()) {
+                    it.remove();
+                    counter++;
+                }
+            }
+        }
+
+        File[] files = getCachePath().toFile().listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        if (files != null) {
+            for (File file : files) {
+                ProcessResultEntry entry = read(file.toPath());
+                if (entry == null || entry.isExpired()) {
+                    if (file.delete()) {
+                        counter++;
+                    }
+                }
+            }
+        }
+
+        return counter;
+    }
+
+
+    /**
+     * Invalidate the cache in memory and on disk
+     */
+    public void invalidate() {
+        synchronized (cache) {
+            cache.clear();
+        }
+
+        File[] files = getCachePath().toFile().listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+
+    /**
+     * Get the number of entries in memory
+     *
+     * @return the number of entries in memory
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+
+    /**
+     * Get the maximum number of entries in memory
+     *
+     * @return the maximum number of entries in memory
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+
+    /**
+     * Set the maximum number of entries in memory
+     *
+     * @param maxEntries the maximum number of entries in memory
+     * @throws IllegalArgumentException In case of an invalid number
+     */
+    public void setMaxEntries(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Invalid max entries [" + maxEntries + "]!");
+        }
+
+        this.maxEntries = maxEntries;
+        synchronized (cache) {
+            Iterator<ProcessResultKey> it = cache.keySet().iterator();
+            while (cache.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+
+    /**
+     * Check if the disk store is enabled
+     *
+     * @return true if the disk store is enabled
+     */
+    public boolean isDiskStore() {
+        return diskStore;
+    }
+
+
+    /**
+     * Enable or disable the disk store
+     *
+     * @param diskStore true to store the results under the script folder base path
+     */
+    public void setDiskStore(boolean diskStore) {
+        this.diskStore = diskStore;
+    }
+
+
+    /**
+     * Get the cache path
+     *
+     * @return the cache path
+     */
+    public Path getCachePath() {
+        return SystemCommandExecuterFactory.getInstance().getScriptFolderBasePath().resolve(CACHE_FOLDER_NAME);
+    }
+
+
+    /**
+     * Read an entry from the disk store
+     *
+     * @param key the key
+     * @return the entry or null
+     */
+    private ProcessResultEntry read(ProcessResultKey key) {
+        Path file = getCachePath().resolve(key.getDigest() + FILE_EXTENSION);
+        if (!file.toFile().exists()) {
+            return null;
+        }
+
+        ProcessResultEntry entry = read(file);
+        if (entry == null || entry.isExpired()) {
+            file.toFile().delete();
+            return null;
+        }
+
+        return entry;
+    }
+
+
+    /**
+     * Read an entry from a file
+     *
+     * @param file the file
+     * @return the entry or null
+     */
+    private ProcessResultEntry read(Path file) {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != VERSION) {
+                return null;
+            }
+
+            long expiry = in.readLong();
+            long pid = in.readLong();
+            long startTime = in.readLong();
+            long totalCpuDuration = in.readLong();
+            int exitValue = in.readInt();
+            String out = readString(in);
+            String errorOut = readString(in);
+            return new ProcessResultEntry(toValue(pid), toInstant(startTime), toDuration(totalCpuDuration), exitValue, out, errorOut, expiry);
+        } catch (IOException e) {
+            LOG.debug("Could not read cached result [" + file + "]: " + e.getMessage());
+            return null;
+        }
+    }
+
+
+    /**
+     * Write an entry into the disk store
+     *
+     * @param key the key
+     * @param entry the entry
+     */
+    private void write(ProcessResultKey key, ProcessResultEntry entry) {
+        Path cachePath = getCachePath();
+        Path tempFile = null;
+        try {
+            Files.createDirectories(cachePath);
+            tempFile = Files.createTempFile(cachePath, key.getDigest(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tempFile))) {
+                out.writeInt(VERSION);
+                out.writeLong(entry.getExpiry());
+                out.writeLong(toLong(entry.getPid()));
+                out.writeLong(toLong(entry.getStartTime()));
+                out.writeLong(toLong(entry.getTotalCpuDuration()));
+                out.writeInt(entry.getExitValue());
+                writeString(out, entry.getOutput());
+                writeString(out, entry.getErrorOutput());
+            }
+
+            Files.move(tempFile, cachePath.resolve(key.getDigest() + FILE_EXTENSION), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Could not store cached result in [" + cachePath + "]: " + e.getMessage());
+            if (tempFile != null) {
+                tempFile.toFile().delete();
+            }
+        }
+    }
+
+
+    /**
+     * Read a string
+     *
+     * @param in the input
+     * @return the string
+     * @throws IOException In case of an I/O error
+     */
+    private String readString(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0) {
+            return null;
+        }
+
+        byte[] content = new byte[len];
+        in.readFully(content);
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Write a string
+     *
+     * @param out the output
+     * @param value the value
+     * @throws IOException In case of an I/O error
+     */
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] content = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(content.length);
+        out.write(content);
+    }
+
+
+    /**
+     * Convert a long value
+     *
+     * @param value the value
+     * @return the value or null
+     */
+    private Long toValue(long value) {
+        if (value == NONE) {
+            return null;
+        }
+
+        return value;
+    }
+
+
+    /**
+     * Convert an instant
+     *
+     * @param value the value
+     * @return the instant or null
+     */
+    private Instant toInstant(long value) {
+        if (value == NONE) {
+            return null;
+        }
+
+        return Instant.ofEpochMilli(value);
+    }
+
+
+    /**
+     * Convert a duration
+     *
+     * @param value the value
+     * @return the duration or null
+     */
+    private Duration toDuration(long value) {
+        if (value == NONE) {
+            return null;
+        }
+
+        return Duration.ofNanos(value);
+    }
+
+
+    /**
+     * Convert to long
+     *
+     * @param value the value
+     * @return the long value
+     */
+    private long toLong(Long value) {
+        if (value == null) {
+            return NONE;
+        }
+
+        return value;
+    }
+
+
+    /**
+     * Convert to long
+     *
+     * @param value the value
+     * @return the long value
+     */
+    private long toLong(Instant value) {
+        if (value == null) {
+            return NONE;
+        }
+
+        return value.toEpochMilli();
+    }
+
+
+    /**
+     * Convert to long
+     *
+     * @param value the value
+     * @return the long value
+     */
+    private long toLong(Duration value) {
+        if (value == null) {
+            return NONE;
+        }
+
+        return value.toNanos();
+    }
+
+
+    /**
+     * The cached result
+     *
+     * @author patrick
+     */
+    private static class ProcessResultEntry {
+        private final Long pid;
+        private final Instant startTime;
+        private final Duration totalCpuDuration;
+        private final int exitValue;
+        private final String out;
+        private final String errorOut;
+        private final long expiry;
+
+
+        /**
+         * Constructor for ProcessResultEntry
+         *
+         * @param process the process
+         * @param expiry the expiry time in milliseconds
+         */
+        ProcessResultEntry(ISynchronousProcess process, long expiry) {
+            this(process.getPid(), process.getStartTime(), process.getTotalCpuDuration(), process.getExitValue(), process.getOutput(), process.getErrorOutput(), expiry);
+        }
+
+
+        /**
+         * Constructor for ProcessResultEntry
+         *
+         * @param pid the pid
+         * @param startTime the start time
+         * @param totalCpuDuration the total cpu duration
+         * @param exitValue the exit value
+         * @param out the output
+         * @param errorOut the error output
+         * @param expiry the expiry time in milliseconds
+         */
+        ProcessResultEntry(Long pid, Instant startTime, Duration totalCpuDuration, Integer exitValue, String out, String errorOut, long expiry) {
+            this.pid = pid;
+            this.startTime = startTime;
+            this.totalCpuDuration = totalCpuDuration;
+            this.exitValue = exitValue;
+            this.out = out;
+            this.errorOut = errorOut;
+            this.expiry = expiry;
+        }
+
+
+        /**
+         * Get the pid
+         *
+         * @return the pid
+         */
+        public Long getPid() {
+            return pid;
+        }
+
+
+        /**
+         * Get the start time
+         *
+         * @return the start time
+         */
+        public Instant getStartTime() {
+            return startTime;
+        }
+
+
+        /**
+         * Get the total cpu duration
+         *
+         * @return the total cpu duration
+         */
+        public Duration getTotalCpuDuration() {
+            return totalCpuDuration;
+        }
+
+
+        /**
+         * Get the exit value
+         *
+         * @return the exit value
+         */
+        public int getExitValue() {
+            return exitValue;
+        }
+
+
+        /**
+         * Get the output
+         *
+         * @return the output
+         */
+        public String getOutput() {
+            return out;
+        }
+
+
+        /**
+         * Get the error output
+         *
+         * @return the error output
+         */
+        public String getErrorOutput() {
+            return errorOut;
+        }
+
+
+        /**
+         * Get the expiry
+         *
+         * @return the expiry time in milliseconds
+         */
+        public long getExpiry() {
+            return expiry;
+        }
+
+
+        /**
+         * Check if the entry is expired
+         *
+         * @return true if it is expired
+         */
+        public boolean isExpired() {
+            return System.currentTimeMillis() >= expiry;
+        }
+
+
+        /**
+         * Create a synchronous process of this result. No process ran for a cache hit: the pid and the total cpu duration
+         * are null, the start time is the start of the execution which produced the result.
+         *
+         * @param systemCommandGroupList the system command group list
+         * @return the synchronous process
+         */
+        public ISynchronousProcess toSynchronousProcess(ISystemCommandGroupList systemCommandGroupList) {
+            return new SynchronousProcess(systemCommandGroupList, null, startTime, null, exitValue, out, errorOut);
+        }
+    }
+}
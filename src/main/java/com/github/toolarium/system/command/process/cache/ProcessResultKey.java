@@ -0,0 +1,281 @@
+/*
+ * ProcessResultKey.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.cache;
+
+import com.github.toolarium.system.command.dto.ISystemCommand;
+import com.github.toolarium.system.command.dto.env.IProcessEnvironment;
+import com.github.toolarium.system.command.dto.group.ISystemCommandGroup;
+import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
+import com.github.toolarium.system.command.process.stream.IProcessInputStream;
+import com.github.toolarium.system.command.process.stream.input.ProcessInputStreamSource;
+import com.github.toolarium.system.command.process.util.ProcessBuilderUtil;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+
+/**
+ * The content based key of a system command group list execution. It considers the full command list, the shell, 
+ * the environment, the working path, the user and the content of the input. 
+ *
+ * @author patrick
+ */
+public final class ProcessResultKey {
+    private static final char SEPARATOR = ':';
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private final String digest;
+
+
+    /**
+     * Constructor for ProcessResultKey
+     *
+     * @param digest the digest
+     */
+    private ProcessResultKey(String digest) {
+        this.digest = digest;
+    }
+
+
+    /**
+     * Create the key of a system command group list execution
+     *
+     * @param systemCommandGroupList the system command group list
+     * @param processInputStream the process input stream or null
+     * @return the key or null in case the execution can not be identified by its content, e.g. input is piped
+     * @throws IllegalStateException In case the input file can not be read
+     */
+    public static ProcessResultKey create(ISystemCommandGroupList systemCommandGroupList, IProcessInputStream processInputStream) {
+        if (systemCommandGroupList == null) {
+            return null;
+        }
+
+        ProcessInputStreamSource source = null;
+        if (processInputStream != null) {
+            source = processInputStream.getProcessInputStreamSource();
+            if (source == ProcessInputStreamSource.PIPE) {
+                return null;
+            }
+        }
+
+        final MessageDigest messageDigest = createMessageDigest();
+        update(messageDigest, "" + systemCommandGroupList.size());
+        Iterator<ISystemCommandGroup> it = systemCommandGroupList.iterator();
+        while (it.hasNext()) {
+            ISystemCommandGroup systemCommandGroup = it.next();
+            update(messageDigest, "group");
+            update(messageDigest, "" + systemCommandGroup.runAsScript());
+            Iterator<ISystemCommand> commandIterator = systemCommandGroup.iterator();
+            while (commandIterator.hasNext()) {
+                update(messageDigest, commandIterator.next());
+            }
+        }
+
+        update(messageDigest, "input");
+        if (source != null) {
+            update(messageDigest, source.name());
+            if (source == ProcessInputStreamSource.BUFFER) {
+                update(messageDigest, source.getBuffer());
+            } else if (source == ProcessInputStreamSource.FILE) {
+                update(messageDigest, source.getFile());
+            }
+        }
+
+        return new ProcessResultKey(toHex(messageDigest.digest()));
+    }
+
+
+    /**
+     * Get the digest
+     *
+     * @return the digest
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return digest.hashCode();
+    }
+
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (obj == null) {
+            return false;
+        }
+
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+
+        ProcessResultKey other = (ProcessResultKey) obj;
+        return digest.equals(other.digest);
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return digest;
+    }
+
+
+    /**
+     * Update the digest with a system command
+     *
+     * @param messageDigest the message digest
+     * @param systemCommand the system command
+     */
+    private static void update(MessageDigest messageDigest, ISystemCommand systemCommand) {
+        update(messageDigest, "command");
+        update(messageDigest, "" + systemCommand.getSystemCommandExecutionStatusResult());
+        update(messageDigest, systemCommand.getShell());
+        update(messageDigest, systemCommand.getCommandList());
+
+        IProcessEnvironment processEnvironment = systemCommand.getProcessEnvironment();
+        if (processEnvironment != null) {
+            update(messageDigest, processEnvironment.getUser());
+            update(messageDigest, "" + processEnvironment.isSudoUser());
+            update(messageDigest, processEnvironment.getWorkingPath());
+
+            if (processEnvironment.getEnvironmentVariables() != null) {
+                Map<String, String> environmentVariables = new TreeMap<>(processEnvironment.getEnvironmentVariables());
+                environmentVariables.remove(ProcessBuilderUtil.TEMP);
+                update(messageDigest, "" + environmentVariables.size());
+                for (Map.Entry<String, String> e : environmentVariables.entrySet()) {
+                    update(messageDigest, e.getKey());
+                    update(messageDigest, e.getValue());
+                }
+            }
+
+            // a minimal environment inherits only the variables of the allowlist
+            if (processEnvironment.getEnvironmentAllowlist() == null) {
+                update(messageDigest, (List<String>)null);
+            } else {
+                update(messageDigest, new ArrayList<>(new TreeSet<>(processEnvironment.getEnvironmentAllowlist())));
+            }
+        }
+    }
+
+
+    /**
+     * Update the digest with a list
+     *
+     * @param messageDigest the message digest
+     * @param list the list
+     */
+    private static void update(MessageDigest messageDigest, List<String> list) {
+        if (list == null) {
+            update(messageDigest, (String)null);
+            return;
+        }
+
+        update(messageDigest, "" + list.size());
+        for (String entry : list) {
+            update(messageDigest, entry);
+        }
+    }
+
+
+    /**
+     * Update the digest with the content of a file
+     *
+     * @param messageDigest the message digest
+     * @param file the file
+     * @throws IllegalStateException In case the file can not be read
+     */
+    private static void update(MessageDigest messageDigest, File file) {
+        if (file == null) {
+            update(messageDigest, (String)null);
+            return;
+        }
+
+        update(messageDigest, "" + file.length());
+        byte[] buffer = new byte[8192];
+        try (InputStream is = Files.newInputStream(file.toPath())) {
+            int len;
+            while ((len = is.read(buffer)) >= 0) {
+                messageDigest.update(buffer, 0, len);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read input file [" + file + "]: " + e.getMessage(), e);
+        }
+    }
+
+
+    /**
+     * Update the digest with a length prefixed string
+     *
+     * @param messageDigest the message digest
+     * @param value the value
+     */
+    private static void update(MessageDigest messageDigest, String value) {
+        if (value == null) {
+            messageDigest.update((byte)0);
+            return;
+        }
+
+        byte[] content = value.getBytes(StandardCharsets.UTF_8);
+        messageDigest.update((content.length + "" + SEPARATOR).getBytes(StandardCharsets.UTF_8));
+        messageDigest.update(content);
+    }
+
+
+    /**
+     * Create the message digest
+     *
+     * @return the message digest
+     * @throws IllegalStateException In case the algorithm is not supported
+     */
+    private static MessageDigest createMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not create message digest: " + e.getMessage(), e);
+        }
+    }
+
+
+    /**
+     * Convert to hex
+     *
+     * @param data the data
+     * @return the hex string
+     */
+    private static String toHex(byte[] data) {
+        char[] result = new char[data.length * 2];
+        for (int i = 0; i < data.length; i++) {
+            result[i * 2] = HEX[(data[i] >> 4) & 0x0f];
+            result[i * 2 + 1] = HEX[data[i] & 0x0f];
+        }
+
+        return new String(result);
+    }
+}
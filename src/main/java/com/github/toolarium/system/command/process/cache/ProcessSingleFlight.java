@@ -0,0 +1,177 @@
+/*
+ * ProcessSingleFlight.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.cache;
+
+import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.impl.SynchronousProcess;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Runs concurrent identical executions only once. The first caller runs the process, all other callers with the
+ * same {@link ProcessResultKey} wait for its result. The result of an aborted execution is not shared, the waiting
+ * callers run again.
+ *
+ * @author patrick
+ */
+public final class ProcessSingleFlight {
+    private static final Logger LOG = LoggerFactory.getLogger(ProcessSingleFlight.class);
+    private Map<ProcessResultKey, CompletableFuture<ISynchronousProcess>> inFlightMap;
+
+
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final ProcessSingleFlight INSTANCE = new ProcessSingleFlight();
+    }
+
+
+    /**
+     * Constructor
+     */
+    private ProcessSingleFlight() {
+        inFlightMap = new ConcurrentHashMap<>();
+    }
+
+
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static ProcessSingleFlight getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+
+    /**
+     * Run the execution or wait for the result of an identical execution which is already running
+     *
+     * @param key the key
+     * @param systemCommandGroupList the system command group list of the caller
+     * @param numberOfSecondsToWait the number of seconds to wait for a running execution, 0 to wait until it ends
+     * @param execution the execution
+     * @return the result
+     */
+    public ISynchronousProcess run(ProcessResultKey key, ISystemCommandGroupList systemCommandGroupList, int numberOfSecondsToWait, Supplier<ISynchronousProcess> execution) {
+        if (key == null) {
+            return execution.get();
+        }
+
+        final long startTime = System.currentTimeMillis();
+        CompletableFuture<ISynchronousProcess> future = new CompletableFuture<>();
+        CompletableFuture<ISynchronousProcess> inFlight = inFlightMap.putIfAbsent(key, future);
+        while (inFlight != null) {
+            int secondsToWait = numberOfSecondsToWait;
+            if (numberOfSecondsToWait > 0) {
+                secondsToWait = (int)Math.max(1, numberOfSecondsToWait - ((System.currentTimeMillis() - startTime) / 1000));
+            }
+
+            ISynchronousProcess result = await(inFlight, key, systemCommandGroupList, secondsToWait);
+            if (result != null) {
+                return result;
+            }
+
+            // the running execution was aborted, run again
+            inFlight = inFlightMap.putIfAbsent(key, future);
+        }
+
+        try {
+            ISynchronousProcess result = execution.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightMap.remove(key, future);
+        }
+    }
+
+
+    /**
+     * Abort the running execution of a key: the waiting callers do not get its result, they run again.
+     * It is called by the running execution in case it was aborted by a timeout or an interrupt.
+     *
+     * @param key the key
+     */
+    public void abort(ProcessResultKey key) {
+        if (key == null) {
+            return;
+        }
+
+        CompletableFuture<ISynchronousProcess> future = inFlightMap.remove(key);
+        if (future != null) {
+            future.complete(null);
+        }
+    }
+
+
+    /**
+     * Get the number of running executions
+     *
+     * @return the number of running executions
+     */
+    public int size() {
+        return inFlightMap.size();
+    }
+
+
+    /**
+     * Wait for the result of a running execution
+     *
+     * @param inFlight the running execution
+     * @param key the key
+     * @param systemCommandGroupList the system command group list of the caller
+     * @param numberOfSecondsToWait the number of seconds to wait, 0 to wait until it ends
+     * @return the result or null if the running execution was aborted
+     */
+    private ISynchronousProcess await(CompletableFuture<ISynchronousProcess> inFlight, ProcessResultKey key, ISystemCommandGroupList systemCommandGroupList, int numberOfSecondsToWait) {
+        LOG.debug("Wait for identical running process (id:" + systemCommandGroupList.getId() + ", key:" + key + ")...");
+
+        ISynchronousProcess result;
+        try {
+            if (numberOfSecondsToWait <= 0) {
+                result = inFlight.get();
+            } else {
+                result = inFlight.get(numberOfSecondsToWait, TimeUnit.SECONDS);
+            }
+        } catch (TimeoutException e) {
+            LOG.info("Process aborted, timeout:" + numberOfSecondsToWait + " (id:" + systemCommandGroupList.getId() + ", key:" + key + ")!");
+            return new SynchronousProcess(systemCommandGroupList, null, null, null, -1, "", "");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Process ended with error (id:" + systemCommandGroupList.getId() + ", key:" + key + "): " + e.getMessage());
+            return new SynchronousProcess(systemCommandGroupList, null, null, null, -1, "", "");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+
+            throw new RuntimeException(e.getCause());
+        }
+
+        if (result == null) {
+            LOG.debug("Identical running process aborted, run again (id:" + systemCommandGroupList.getId() + ", key:" + key + ").");
+            return null;
+        }
+
+        LOG.info("Process result shared (id:" + systemCommandGroupList.getId() + ", pid:" + result.getPid() + ", exit:" + result.getExitValue() + ")");
+        return new SynchronousProcess(systemCommandGroupList, result.getPid(), result.getStartTime(), result.getTotalCpuDuration(), result.getExitValue(), result.getOutput(), result.getErrorOutput());
+    }
+}
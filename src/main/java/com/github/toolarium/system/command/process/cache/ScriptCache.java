@@ -0,0 +1,450 @@
+/*
+ * ScriptCache.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.cache;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.dto.ISystemCommand;
+import com.github.toolarium.system.command.dto.env.IProcessEnvironment;
+import com.github.toolarium.system.command.dto.group.ISystemCommandGroup;
+import com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport;
+import com.github.toolarium.system.command.process.util.ScriptUtil;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Caches generated scripts which are parametrized through environment variables. A script is stored once under the
+ * hash of its content in the script folder base path and reused by all system command groups with the same shape
+ * (the same sequence of command states, environment and working paths), the command lines themselves are passed as
+ * environment variables. The number of scripts is bounded by a least recently used eviction. An evicted script is
+ * deleted after a grace period, a concurrent launch which just got the script can still execute it.
+ *
+ * @author patrick
+ */
+public final class ScriptCache {
+    /** The cache folder name, it is located in the script folder base path */
+    public static final String CACHE_FOLDER_NAME = ".scripts";
+
+    /** The default maximum number of scripts */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    /** The grace period in milliseconds after which an evicted script is deleted */
+    public static final long DELETE_GRACE_PERIOD = 60 * 1000L; // 1 minute
+
+    /** The timeout in milliseconds after which a script which is not used by any process is deleted */
+    public static final long ORPHAN_TIMEOUT = 24 * 60 * 60 * 1000L; // 1 day
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScriptCache.class);
+    private static final long TOUCH_PERIOD = 60 * 60 * 1000L; // 1 hour
+    private static final int VERSION = 1;
+    private static final char SEPARATOR = ':';
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private LinkedHashMap<String, String> shapeMap;
+    private LinkedHashMap<String, ScriptEntry> scriptMap;
+    private Map<Path, Long> deletionMap;
+    private volatile int maxEntries;
+
+
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final ScriptCache INSTANCE = new ScriptCache();
+    }
+
+
+    /**
+     * Constructor
+     */
+    private ScriptCache() {
+        shapeMap = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            /**
+             * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+             */
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        scriptMap = new LinkedHashMap<String, ScriptEntry>(16, 0.75f, true);
+        deletionMap = new LinkedHashMap<>();
+        maxEntries = DEFAULT_MAX_ENTRIES;
+    }
+
+
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static ScriptCache getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+
+    /**
+     * Get the cached script of a system command group. In case there is no cached script, the script will be created
+     * by the given supplier and stored under the hash of its content.
+     *
+     * @param systemCommandGroup the system command group
+     * @param systemCommandExecuterPlatformSupport the system command executer platform support
+     * @param scriptSupplier the supplier which creates the parametrized script
+     * @return the path of the executable script
+     * @throws IOException In case the script could not be written
+     */
+    public Path getScript(ISystemCommandGroup systemCommandGroup, ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport, Supplier<String> scriptSupplier) throws IOException {
+        final String shapeKey = createShapeKey(systemCommandGroup, systemCommandExecuterPlatformSupport);
+        synchronized (this) {
+            String digest = shapeMap.get(shapeKey);
+            if (digest != null) {
+                ScriptEntry entry = scriptMap.get(digest);
+                if (entry != null) {
+                    touch(entry);
+                    return entry.getPath();
+                }
+            }
+        }
+
+        // create the script outside of the lock, concurrent launches of the same script write the same content
+        final String script = scriptSupplier.get();
+        final String digest = toHex(createMessageDigest().digest(script.getBytes(StandardCharsets.UTF_8)));
+        final Path path = ScriptUtil.getInstance().getScriptFile(getCachePath(), digest, systemCommandExecuterPlatformSupport);
+
+        synchronized (this) {
+            ScriptEntry entry = scriptMap.get(digest);
+            if (entry != null) {
+                shapeMap.put(shapeKey, digest);
+                touch(entry);
+                return entry.getPath();
+            }
+
+            // in case the script was evicted but it is not yet deleted, it can be used again
+            deletionMap.remove(path);
+        }
+
+        if (Files.isExecutable(path)) {
+            LOG.debug("Reuse cached script [" + path + "].");
+        } else {
+            LOG.debug("Write cached script [" + path + "].");
+            ScriptUtil.getInstance().writeScriptFile(getCachePath(), digest, systemCommandExecuterPlatformSupport, script);
+        }
+
+        synchronized (this) {
+            ScriptEntry entry = new ScriptEntry(path);
+            touch(entry);
+            scriptMap.put(digest, entry);
+            shapeMap.put(shapeKey, digest);
+
+            // evict the least recently used scripts
+            Iterator<Map.Entry<String, ScriptEntry>> it = scriptMap.entrySet().iterator();
+            while (scriptMap.size() > maxEntries && it.hasNext()) {
+                Map.Entry<String, ScriptEntry> eldest = it.next();
+                LOG.debug("Evict cached script [" + eldest.getValue().getPath() + "].");
+                deletionMap.put(eldest.getValue().getPath(), System.currentTimeMillis());
+                it.remove();
+            }
+        }
+
+        evictExpired();
+        return path;
+    }
+
+
+    /**
+     * Delete the evicted scripts after the grace period and the scripts which are not used anymore after the orphan timeout
+     *
+     * @return the number of deleted scripts
+     */
+    public int evictExpired() {
+        int counter = 0;
+        final long now = System.currentTimeMillis();
+        synchronized (this) {
+            for (Iterator<Map.Entry<Path, Long>> it = deletionMap.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<Path, Long> e = it.next();
+                if ((now - e.getValue()) >= DELETE_GRACE_PERIOD) {
+                    it.remove();
+                    if (e.getKey().toFile().delete()) {
+                        counter++;
+                    }
+                }
+            }
+        }
+
+        // scripts of other processes which are not touched anymore
+        File[] files = getCachePath().toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if ((now - file.lastModified()) >= ORPHAN_TIMEOUT && !isCached(file.toPath())) {
+                    LOG.debug("Delete orphan cached script [" + file + "].");
+                    if (file.delete()) {
+                        counter++;
+                    }
+                }
+            }
+        }
+
+        return counter;
+    }
+
+
+    /**
+     * Invalidate the cache. The scripts are deleted after the grace period.
+     */
+    public void invalidate() {
+        synchronized (this) {
+            final long now = System.currentTimeMillis();
+            for (ScriptEntry entry : scriptMap.values()) {
+                deletionMap.put(entry.getPath(), now);
+            }
+
+            scriptMap.clear();
+            shapeMap.clear();
+        }
+    }
+
+
+    /**
+     * Get the number of cached scripts
+     *
+     * @return the number of cached scripts
+     */
+    public synchronized int size() {
+        return scriptMap.size();
+    }
+
+
+    /**
+     * Get the maximum number of cached scripts
+     *
+     * @return the maximum number of cached scripts
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+
+    /**
+     * Set the maximum number of cached scripts
+     *
+     * @param maxEntries the maximum number of cached scripts
+     * @throws IllegalArgumentException In case of an invalid number
+     */
+    public void setMaxEntries(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Invalid max entries [" + maxEntries + "]!");
+        }
+
+        this.maxEntries = maxEntries;
+    }
+
+
+    /**
+     * Get the cache path
+     *
+     * @return the cache path
+     */
+    public Path getCachePath() {
+        return SystemCommandExecuterFactory.getInstance().getScriptFolderBasePath().resolve(CACHE_FOLDER_NAME);
+    }
+
+
+    /**
+     * Check if a script is cached or waits for its deletion
+     *
+     * @param path the path
+     * @return true if it is cached
+     */
+    private synchronized boolean isCached(Path path) {
+        if (deletionMap.containsKey(path)) {
+            return true;
+        }
+
+        for (ScriptEntry entry : scriptMap.values()) {
+            if (entry.getPath().equals(path)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Touch the script file from time to time, other processes don't delete it as orphan
+     *
+     * @param entry the entry
+     */
+    private void touch(ScriptEntry entry) {
+        final long now = System.currentTimeMillis();
+        if ((now - entry.getLastTouch()) < TOUCH_PERIOD) {
+            return;
+        }
+
+        try {
+            Files.setLastModifiedTime(entry.getPath(), FileTime.fromMillis(now));
+        } catch (IOException e) {
+            LOG.debug("Could not touch cached script [" + entry.getPath() + "]: " + e.getMessage());
+        }
+
+        entry.setLastTouch(now);
+    }
+
+
+    /**
+     * Create the shape key of a system command group. It considers all parts of the script but not the command lines.
+     *
+     * @param systemCommandGroup the system command group
+     * @param systemCommandExecuterPlatformSupport the system command executer platform support
+     * @return the shape key
+     */
+    private String createShapeKey(ISystemCommandGroup systemCommandGroup, ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport) {
+        final MessageDigest messageDigest = createMessageDigest();
+        update(messageDigest, "" + VERSION);
+        update(messageDigest, systemCommandExecuterPlatformSupport.getClass().getName());
+        update(messageDigest, "" + systemCommandGroup.size());
+
+        Iterator<ISystemCommand> it = systemCommandGroup.iterator();
+        while (it.hasNext()) {
+            ISystemCommand systemCommand = it.next();
+            update(messageDigest, "command");
+            update(messageDigest, "" + systemCommand.getSystemCommandExecutionStatusResult());
+
+            IProcessEnvironment processEnvironment = systemCommand.getProcessEnvironment();
+            if (processEnvironment != null) {
+                update(messageDigest, processEnvironment.getWorkingPath());
+
+                // the order of the environment variables is kept, it is the order in the script
+                if (processEnvironment.getEnvironmentVariables() != null) {
+                    update(messageDigest, "" + processEnvironment.getEnvironmentVariables().size());
+                    for (Map.Entry<String, String> e : processEnvironment.getEnvironmentVariables().entrySet()) {
+                        update(messageDigest, e.getKey());
+                        update(messageDigest, e.getValue());
+                    }
+                }
+            }
+        }
+
+        return toHex(messageDigest.digest());
+    }
+
+
+    /**
+     * Update the digest with a length prefixed string
+     *
+     * @param messageDigest the message digest
+     * @param value the value
+     */
+    private void update(MessageDigest messageDigest, String value) {
+        if (value == null) {
+            messageDigest.update((byte)0);
+            return;
+        }
+
+        byte[] content = value.getBytes(StandardCharsets.UTF_8);
+        messageDigest.update((content.length + "" + SEPARATOR).getBytes(StandardCharsets.UTF_8));
+        messageDigest.update(content);
+    }
+
+
+    /**
+     * Create the message digest
+     *
+     * @return the message digest
+     * @throws IllegalStateException In case the algorithm is not supported
+     */
+    private MessageDigest createMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not create message digest: " + e.getMessage(), e);
+        }
+    }
+
+
+    /**
+     * Convert to hex
+     *
+     * @param data the data
+     * @return the hex string
+     */
+    private String toHex(byte[] data) {
+        char[] result = new char[data.length * 2];
+        for (int i = 0; i < data.length; i++) {
+            result[i * 2] = HEX[(data[i] >> 4) & 0xF];
+            result[i * 2 + 1] = HEX[data[i] & 0xF];
+        }
+
+        return new String(result);
+    }
+
+
+    /**
+     * The cached script
+     *
+     * @author patrick
+     */
+    private static class ScriptEntry {
+        private final Path path;
+        private long lastTouch;
+
+
+        /**
+         * Constructor for ScriptEntry
+         *
+         * @param path the path
+         */
+        ScriptEntry(Path path) {
+            this.path = path;
+            this.lastTouch = 0;
+        }
+
+
+        /**
+         * Get the path
+         *
+         * @return the path
+         */
+        public Path getPath() {
+            return path;
+        }
+
+
+        /**
+         * Get the last touch time
+         *
+         * @return the last touch time in milliseconds
+         */
+        public long getLastTouch() {
+            return lastTouch;
+        }
+
+
+        /**
+         * Set the last touch time
+         *
+         * @param lastTouch the last touch time in milliseconds
+         */
+        public void setLastTouch(long lastTouch) {
+            this.lastTouch = lastTouch;
+        }
+    }
+}
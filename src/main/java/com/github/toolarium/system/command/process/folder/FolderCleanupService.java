@@ -5,27 +5,48 @@
  */
 package com.github.toolarium.system.command.process.folder;
 
-import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.process.cache.ProcessResultCache;
+import com.github.toolarium.system.command.process.cache.ScriptCache;
+import com.github.toolarium.system.command.process.journal.ProcessJournal;
+import com.github.toolarium.system.command.process.util.ProcessLivenessSnapshot;
 import com.github.toolarium.system.command.process.util.ScriptUtil;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.Closeable;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
 /**
- * Implements a folder cleanip servivce
- *  
+ * Implements a folder cleanip servivce. The known process folders are kept in the {@link ProcessFolderRegistry}, the
+ * base path is only listed once at startup and changes from outside are received by a {@link WatchService}. A run
+ * only verifies the folders which are due. Folders of a {@link ScriptFolderLayout#HASH} bucket are tracked like flat
+ * folders, an {@link ScriptFolderLayout#HOUR} bucket is tracked as a whole and deleted at once when it is expired.
+ * The disk base path of a RAM backed base path and its input folder are tracked the same way.
+ *
  * @author patrick
  */
-public class FolderCleanupService implements Runnable {
+public class FolderCleanupService implements Runnable, Closeable {
     private static final Logger LOG = LoggerFactory.getLogger(FolderCleanupService.class);
     private long newFolderThreshold;
     private long lockFolderThreshold;
     private Path basePath;
- 
-    
+    private List<Path> rootPathList;
+    private WatchService watchService;
+    private boolean initialized;
+
+
     /**
      * Constructor for FolderCleanupService
      *
@@ -33,12 +54,50 @@ public class FolderCleanupService implements Runnable {
      * @param lockFolderThreshold the lock folder threshold
      */
     public FolderCleanupService(Path basePath, long lockFolderThreshold) {
+        this(basePath, ProcessFolderRegistry.NEW_FOLDER_THRESHOLD, lockFolderThreshold);
+    }
+
+
+    /**
+     * Constructor for FolderCleanupService
+     *
+     * @param basePath the base path
+     * @param newFolderThreshold the new folder threshold
+     * @param lockFolderThreshold the lock folder threshold
+     */
+    public FolderCleanupService(Path basePath, long newFolderThreshold, long lockFolderThreshold) {
+        this(basePath, null, newFolderThreshold, lockFolderThreshold);
+    }
+
+
+    /**
+     * Constructor for FolderCleanupService
+     *
+     * @param basePath the base path
+     * @param diskBasePath the disk base path of a RAM backed base path or null
+     * @param newFolderThreshold the new folder threshold
+     * @param lockFolderThreshold the lock folder threshold
+     */
+    public FolderCleanupService(Path basePath, Path diskBasePath, long newFolderThreshold, long lockFolderThreshold) {
         this.basePath = basePath;
-        this.newFolderThreshold  = 10 * 60 * 1000; // 10 minutes
+        this.rootPathList = new ArrayList<>();
+        if (basePath != null) {
+            rootPathList.add(basePath);
+        }
+
+        if (diskBasePath != null && !diskBasePath.equals(basePath)) {
+            // the script folders fall back to the disk base path, the input folders are kept on disk
+            rootPathList.add(diskBasePath);
+            rootPathList.add(diskBasePath.resolve(ScriptUtil.INPUT_FOLDER_NAME));
+        }
+
+        this.newFolderThreshold  = newFolderThreshold;
         this.lockFolderThreshold = lockFolderThreshold; // 1 * 60 * 60 * 1000; // one day
+        this.watchService = null;
+        this.initialized = false;
     }
 
-    
+
     /**
      * @see java.lang.Runnable#run()
      */
@@ -46,12 +105,16 @@ public class FolderCleanupService implements Runnable {
     public void run() {
         try {
             try {
-                List<Path> directoriesToDelete = ScriptUtil.getInstance().selectInvalidProcessDirectories(basePath, newFolderThreshold, lockFolderThreshold);
-                if (directoriesToDelete != null && !directoriesToDelete.isEmpty()) {
-                    for (Path direcotry : directoriesToDelete) {
-                        ProcessStreamUtil.getInstance().deleteDirectory(direcotry);
-                    }
+                if (!initialized) {
+                    initialize();
+                } else {
+                    processWatchEvents();
                 }
+
+                deleteDueDirectories();
+                ProcessResultCache.getInstance().evictExpired();
+                ScriptCache.getInstance().evictExpired();
+                ProcessJournal.getInstance().maintain();
             } catch (IOException e) {
                 LOG.warn("Error occured: " + e.getMessage(), e);
             }
@@ -60,4 +123,294 @@ public class FolderCleanupService implements Runnable {
             Thread.currentThread().interrupt();
         }
     }
+
+
+    /**
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOG.debug("Could not close watch service: " + e.getMessage(), e);
+            }
+
+            watchService = null;
+        }
+    }
+
+
+    /**
+     * Initialize the watch service and register the existing process folders
+     *
+     * @throws IOException In case of an I/O error
+     */
+    protected synchronized void initialize() throws IOException {
+        if (basePath == null || !Files.isDirectory(basePath)) {
+            return;
+        }
+
+        initialized = true;
+        try {
+            // register the watch service before the scan, otherwise a new folder can be missed
+            watchService = basePath.getFileSystem().newWatchService();
+            basePath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException e) {
+            LOG.info("Watch service is not available, the base path [" + basePath + "] is listed on every run: " + e.getMessage());
+            close();
+        }
+
+        for (Path rootPath : rootPathList) {
+            if (!rootPath.equals(basePath)) {
+                watch(rootPath);
+            }
+        }
+
+        scan();
+    }
+
+
+    /**
+     * Register all process folders of the base path and of the disk base path
+     *
+     * @throws IOException In case of an I/O error
+     */
+    protected void scan() throws IOException {
+        if (basePath == null || !Files.isDirectory(basePath)) {
+            return;
+        }
+
+        for (Path rootPath : rootPathList) {
+            scan(rootPath);
+        }
+    }
+
+
+    /**
+     * Register all process folders of a root path
+     *
+     * @param rootPath the root path
+     * @throws IOException In case of an I/O error
+     */
+    protected void scan(Path rootPath) throws IOException {
+        if (!Files.isDirectory(rootPath)) {
+            return;
+        }
+
+        try (Stream<Path> stream = Files.list(rootPath)) {
+            stream.filter(p -> Files.isDirectory(p) && !ProcessFolderRegistry.getInstance().contains(p) && !ScriptUtil.getInstance().isReservedDirectory(rootPath, p))
+                  .forEach(p -> register(p, OSUtil.getInstance().getCreationTimestamp(p)));
+        }
+    }
+
+
+    /**
+     * Register a direct sub folder of a root path: a process folder or a bucket
+     *
+     * @param directory the directory
+     * @param creationTimestamp the creation timestamp
+     */
+    protected void register(Path directory, long creationTimestamp) {
+        ProcessFolderRegistry registry = ProcessFolderRegistry.getInstance();
+        ScriptFolderLayout layout = ofBucket(directory);
+        if (layout == null) {
+            registry.register(directory, creationTimestamp + newFolderThreshold);
+        } else if (layout == ScriptFolderLayout.HOUR) {
+            long bucketEnd = ScriptFolderLayout.getBucketEnd(directory);
+            if (bucketEnd < 0) {
+                bucketEnd = creationTimestamp;
+            }
+
+            registry.register(directory, bucketEnd + newFolderThreshold);
+        } else {
+            // watch the bucket before it is listed, otherwise a new folder can be missed
+            watch(directory);
+
+            try (Stream<Path> stream = Files.list(directory)) {
+                stream.filter(p -> Files.isDirectory(p) && !registry.contains(p)).forEach(p -> registry.register(p, OSUtil.getInstance().getCreationTimestamp(p) + newFolderThreshold));
+            } catch (IOException e) {
+                LOG.debug("Could not list bucket [" + directory + "]: " + e.getMessage());
+            }
+        }
+    }
+
+
+    /**
+     * Process the events of the watch service
+     *
+     * @throws IOException In case of an I/O error
+     */
+    protected synchronized void processWatchEvents() throws IOException {
+        if (watchService == null) {
+            scan();
+            return;
+        }
+
+        boolean overflow = false;
+        WatchKey key;
+        while ((key = watchService.poll()) != null) {
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    overflow = true;
+                } else {
+                    Path parent = (Path)key.watchable();
+                    Path directory = parent.resolve((Path)event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        ProcessFolderRegistry.getInstance().unregister(directory);
+                    } else if (rootPathList.contains(directory)) {
+                        // the input folder is created with the first input file on disk
+                        watch(directory);
+                        scan(directory);
+                    } else if (Files.isDirectory(directory) && !ScriptUtil.getInstance().isReservedDirectory(parent, directory)) {
+                        if (rootPathList.contains(parent)) {
+                            register(directory, System.currentTimeMillis());
+                        } else {
+                            // a process folder in a hash bucket
+                            ProcessFolderRegistry.getInstance().register(directory, System.currentTimeMillis() + newFolderThreshold);
+                        }
+                    }
+                }
+            }
+
+            if (!key.reset() && basePath.equals(key.watchable())) {
+                // the base path is no more accessible, initialize again on the next run
+                LOG.debug("Base path [" + basePath + "] is no more watched.");
+                close();
+                initialized = false;
+                return;
+            }
+        }
+
+        if (overflow) {
+            LOG.debug("Lost events of the watch service, list the base path [" + basePath + "].");
+            scan();
+        }
+    }
+
+
+    /**
+     * Delete the due process folders which are invalid and schedule the others again. The folders are deleted in the background by the {@link FolderDeleteService}.
+     */
+    protected void deleteDueDirectories() {
+        long now = System.currentTimeMillis();
+        List<Path> dueDirectoryList = ProcessFolderRegistry.getInstance().pollDue(now);
+        if (dueDirectoryList.isEmpty()) {
+            return;
+        }
+
+        // all process folders of this run are verified against one snapshot of the living processes
+        ProcessLivenessSnapshot snapshot = ProcessLivenessSnapshot.create();
+        List<Path> invalidDirectoryList = new ArrayList<>();
+        for (Path directory : dueDirectoryList) {
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+
+            if (ofBucket(directory) == ScriptFolderLayout.HOUR) {
+                deleteBucket(directory, now, snapshot);
+            } else if (isInvalidProcessDirectory(directory, snapshot)) {
+                invalidDirectoryList.add(directory);
+            } else {
+                long dueTimestamp = now + ProcessFolderRegistry.RECHECK_PERIOD;
+                Path lockFile = directory.resolve(ScriptUtil.PROCESS_LOCK_FILENAME);
+                if (Files.exists(lockFile)) {
+                    dueTimestamp = Math.min(dueTimestamp, OSUtil.getInstance().getCreationTimestamp(lockFile) + lockFolderThreshold);
+                }
+
+                ProcessFolderRegistry.getInstance().schedule(directory, dueTimestamp);
+            }
+        }
+
+        if (!invalidDirectoryList.isEmpty()) {
+            FolderDeleteService.getInstance().delete(invalidDirectoryList);
+        }
+    }
+
+
+    /**
+     * Delete an expired hour bucket. In case all process folders of the bucket are invalid the bucket is deleted at once,
+     * otherwise the invalid process folders are deleted and the bucket is verified again later.
+     *
+     * @param bucket the bucket
+     * @param now the current time
+     * @param snapshot the snapshot of the living processes
+     */
+    protected void deleteBucket(Path bucket, long now, ProcessLivenessSnapshot snapshot) {
+        List<Path> directoryList;
+        try (Stream<Path> stream = Files.list(bucket)) {
+            directoryList = stream.collect(Collectors.toList());
+        } catch (IOException e) {
+            LOG.debug("Could not list bucket [" + bucket + "]: " + e.getMessage());
+            ProcessFolderRegistry.getInstance().schedule(bucket, now + ProcessFolderRegistry.RECHECK_PERIOD);
+            return;
+        }
+
+        List<Path> invalidDirectoryList = directoryList.stream().filter(p -> !Files.isDirectory(p) || isInvalidProcessDirectory(p, snapshot)).collect(Collectors.toList());
+        if (invalidDirectoryList.size() == directoryList.size()) {
+            LOG.debug("Delete expired bucket [" + bucket + "] with " + directoryList.size() + " folders.");
+            FolderDeleteService.getInstance().delete(directoryList, bucket);
+            return;
+        }
+
+        FolderDeleteService.getInstance().delete(invalidDirectoryList);
+        ProcessFolderRegistry.getInstance().schedule(bucket, now + ProcessFolderRegistry.RECHECK_PERIOD);
+    }
+
+
+    /**
+     * Verify if a process directory is invalid. An input folder on disk is valid as long as its script folder exists. The process journal is asked first, the pid and lock files are only read for runs which are not known by the journal.
+     *
+     * @param directory the process directory
+     * @param snapshot the snapshot of the living processes
+     * @return true if the directory can be deleted
+     */
+    protected boolean isInvalidProcessDirectory(Path directory, ProcessLivenessSnapshot snapshot) {
+        Path scriptPath = SystemCommandExecuterFactory.getInstance().getScriptFolderPathOfInputFolder(directory);
+        if (scriptPath != null) {
+            // the input folder on disk is kept as long as its RAM backed script folder
+            return !Files.isDirectory(scriptPath);
+        }
+
+        Boolean valid = ProcessJournal.getInstance().isValid(directory.getFileName().toString(), snapshot);
+        if (valid != null) {
+            return !valid.booleanValue();
+        }
+
+        return ScriptUtil.getInstance().isInvalidProcessDirectory(directory, lockFolderThreshold, snapshot);
+    }
+
+
+    /**
+     * Get the layout of a bucket of a root path
+     *
+     * @param directory the directory
+     * @return the layout of the bucket or null if the directory is not a bucket
+     */
+    protected ScriptFolderLayout ofBucket(Path directory) {
+        if (directory == null || directory.getParent() == null || !rootPathList.contains(directory.getParent())) {
+            return null;
+        }
+
+        return ScriptFolderLayout.ofBucket(directory.getParent(), directory);
+    }
+
+
+    /**
+     * Watch a directory in case the watch service is available
+     *
+     * @param directory the directory
+     */
+    protected void watch(Path directory) {
+        if (watchService == null || !Files.isDirectory(directory)) {
+            return;
+        }
+
+        try {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            LOG.debug("Could not watch [" + directory + "]: " + e.getMessage());
+        }
+    }
 }
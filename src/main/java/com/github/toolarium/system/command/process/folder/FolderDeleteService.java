@@ -0,0 +1,245 @@
+/*
+ * FolderDeleteService.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.folder;
+
+import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Deletes folders in bulk on a bounded fork join pool. The folders are split in batches, every folder is deleted by a
+ * streaming post-order walk and the number of deletes per second can be limited to protect the I/O of the host.
+ *
+ * @author patrick
+ */
+public final class FolderDeleteService {
+    /** The default parallelism: the number of processors, at most 4 */
+    public static final int DEFAULT_PARALLELISM = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /** The number of folders which are deleted by one task */
+    public static final int BATCH_SIZE = 32;
+
+    /** The default delete rate limit in deleted files and directories per second */
+    public static final int DEFAULT_DELETE_RATE_LIMIT = 5000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(FolderDeleteService.class);
+    private ForkJoinPool pool;
+    private volatile long deleteIntervalNanos;
+    private long nextDeleteTimestamp;
+
+
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final FolderDeleteService INSTANCE = new FolderDeleteService();
+    }
+
+
+    /**
+     * Constructor
+     */
+    private FolderDeleteService() {
+        pool = new ForkJoinPool(DEFAULT_PARALLELISM, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("delete-" + thread.getPoolIndex());
+            return thread;
+        }, null, true);
+        nextDeleteTimestamp = System.nanoTime();
+        setDeleteRateLimit(DEFAULT_DELETE_RATE_LIMIT);
+    }
+
+
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static FolderDeleteService getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+
+    /**
+     * Delete folders asynchronous
+     *
+     * @param folderList the folders to delete
+     * @return the task which returns the number of deleted files and directories
+     */
+    public ForkJoinTask<Long> delete(List<Path> folderList) {
+        return delete(folderList, null);
+    }
+
+
+    /**
+     * Delete folders asynchronous and afterwards their parent, e.g. a bucket
+     *
+     * @param folderList the folders to delete
+     * @param parent the parent folder which is deleted after all folders or null
+     * @return the task which returns the number of deleted files and directories
+     */
+    public ForkJoinTask<Long> delete(List<Path> folderList, Path parent) {
+        List<Path> list = folderList;
+        if (list == null) {
+            list = Collections.emptyList();
+        }
+
+        if (parent != null) {
+            LOG.debug("Delete " + list.size() + " folders of [" + parent + "]...");
+        } else {
+            LOG.debug("Delete " + list.size() + " folders...");
+        }
+
+        return pool.submit(new DeleteTask(list, 0, list.size(), parent));
+    }
+
+
+    /**
+     * Delete a folder with the delete rate limit in the current thread
+     *
+     * @param folder the folder
+     * @return the number of deleted files and directories
+     */
+    public long deleteFolder(Path folder) {
+        return ProcessStreamUtil.getInstance().deleteDirectory(folder, this::acquire);
+    }
+
+
+    /**
+     * Wait until all submitted deletes are done
+     *
+     * @param timeout the maximum time to wait
+     * @param timeUnit the time unit of the timeout
+     * @return true if all deletes are done
+     */
+    public boolean awaitQuiescence(long timeout, TimeUnit timeUnit) {
+        return pool.awaitQuiescence(timeout, timeUnit);
+    }
+
+
+    /**
+     * Get the delete rate limit
+     *
+     * @return the maximum number of deleted files and directories per second, 0 for unlimited
+     */
+    public int getDeleteRateLimit() {
+        long interval = deleteIntervalNanos;
+        if (interval <= 0) {
+            return 0;
+        }
+
+        return (int)(TimeUnit.SECONDS.toNanos(1) / interval);
+    }
+
+
+    /**
+     * Set the delete rate limit
+     *
+     * @param deleteRateLimit the maximum number of deleted files and directories per second, 0 or less for unlimited
+     */
+    public void setDeleteRateLimit(int deleteRateLimit) {
+        if (deleteRateLimit <= 0) {
+            deleteIntervalNanos = 0;
+        } else {
+            deleteIntervalNanos = Math.max(1, TimeUnit.SECONDS.toNanos(1) / deleteRateLimit);
+        }
+    }
+
+
+    /**
+     * Wait for the permission of the next delete
+     */
+    private void acquire() {
+        long interval = deleteIntervalNanos;
+        if (interval <= 0) {
+            return;
+        }
+
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (nextDeleteTimestamp - now < 0) {
+                // no burst after an idle time
+                nextDeleteTimestamp = now;
+            }
+
+            waitNanos = nextDeleteTimestamp - now;
+            nextDeleteTimestamp += interval;
+        }
+
+        if (waitNanos > 0) {
+            LockSupport.parkNanos(waitNanos);
+        }
+    }
+
+
+    /**
+     * Deletes a range of folders: a range bigger than the batch size is split.
+     *
+     * @author patrick
+     */
+    private class DeleteTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        private final transient List<Path> folderList;
+        private final int from;
+        private final int to;
+        private final transient Path parent;
+
+
+        /**
+         * Constructor for DeleteTask
+         *
+         * @param folderList the folders
+         * @param from the first index (inclusive)
+         * @param to the last index (exclusive)
+         * @param parent the parent to delete at the end or null
+         */
+        DeleteTask(List<Path> folderList, int from, int to, Path parent) {
+            this.folderList = folderList;
+            this.from = from;
+            this.to = to;
+            this.parent = parent;
+        }
+
+
+        /**
+         * @see java.util.concurrent.RecursiveTask#compute()
+         */
+        @Override
+        protected Long compute() {
+            long result = 0;
+            if (to - from <= BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    result += deleteFolder(folderList.get(i));
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                DeleteTask left = new DeleteTask(folderList, from, middle, null);
+                left.fork();
+                result = new DeleteTask(folderList, middle, to, null).compute() + left.join();
+            }
+
+            if (parent != null) {
+                // the remaining entries of the parent, e.g. files
+                result += deleteFolder(parent);
+            }
+
+            return result;
+        }
+    }
+}
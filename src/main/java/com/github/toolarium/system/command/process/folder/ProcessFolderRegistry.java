@@ -0,0 +1,228 @@
+/*
+ * ProcessFolderRegistry.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.folder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Keeps the known process folders in memory, ordered by the time they have to be verified next. The folder cleanup service
+ * only touches the folders which are due, independent of the total number of folders.
+ *
+ * @author patrick
+ */
+public final class ProcessFolderRegistry {
+    /** The time after which a new folder is verified the first time: 10 minutes */
+    public static final long NEW_FOLDER_THRESHOLD = 10 * 60 * 1000L;
+
+    /** The time after which a folder with a running process or a valid lock is verified again: 1 minute */
+    public static final long RECHECK_PERIOD = 60 * 1000L;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProcessFolderRegistry.class);
+    private Map<Path, Long> folderMap;
+    private PriorityQueue<FolderEntry> dueQueue;
+
+
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final ProcessFolderRegistry INSTANCE = new ProcessFolderRegistry();
+    }
+
+
+    /**
+     * Constructor
+     */
+    private ProcessFolderRegistry() {
+        folderMap = new HashMap<>();
+        dueQueue = new PriorityQueue<>((a, b) -> Long.compare(a.getDueTimestamp(), b.getDueTimestamp()));
+    }
+
+
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static ProcessFolderRegistry getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+
+    /**
+     * Register a new process folder. In case the folder is already known it keeps its due time.
+     *
+     * @param folder the process folder
+     */
+    public void register(Path folder) {
+        register(folder, System.currentTimeMillis() + NEW_FOLDER_THRESHOLD);
+    }
+
+
+    /**
+     * Register a process folder. In case the folder is already known it keeps its due time.
+     *
+     * @param folder the process folder
+     * @param dueTimestamp the time when the folder has to be verified
+     */
+    public synchronized void register(Path folder, long dueTimestamp) {
+        if (folder == null || folderMap.containsKey(folder)) {
+            return;
+        }
+
+        schedule(folder, dueTimestamp);
+    }
+
+
+    /**
+     * Schedule the next verification of a process folder
+     *
+     * @param folder the process folder
+     * @param dueTimestamp the time when the folder has to be verified
+     */
+    public synchronized void schedule(Path folder, long dueTimestamp) {
+        if (folder == null) {
+            return;
+        }
+
+        folderMap.put(folder, dueTimestamp);
+        dueQueue.add(new FolderEntry(folder, dueTimestamp));
+        compact();
+    }
+
+
+    /**
+     * Unregister a process folder, e.g. after it was deleted
+     *
+     * @param folder the process folder
+     */
+    public synchronized void unregister(Path folder) {
+        if (folder != null && folderMap.remove(folder) != null) {
+            LOG.debug("Unregister process folder [" + folder + "].");
+            compact();
+        }
+    }
+
+
+    /**
+     * Remove and return all process folders which are due. The returned folders are no more registered, a folder
+     * which is still valid has to be scheduled again.
+     *
+     * @param timestamp the current time
+     * @return the process folders which are due
+     */
+    public synchronized List<Path> pollDue(long timestamp) {
+        List<Path> result = new ArrayList<>();
+        while (!dueQueue.isEmpty() && dueQueue.peek().getDueTimestamp() <= timestamp) {
+            FolderEntry entry = dueQueue.poll();
+
+            // ignore entries which were unregistered or scheduled again
+            Long dueTimestamp = folderMap.get(entry.getFolder());
+            if (dueTimestamp != null && dueTimestamp.longValue() == entry.getDueTimestamp()) {
+                folderMap.remove(entry.getFolder());
+                result.add(entry.getFolder());
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Check if a process folder is registered
+     *
+     * @param folder the process folder
+     * @return true if it is registered
+     */
+    public synchronized boolean contains(Path folder) {
+        return folderMap.containsKey(folder);
+    }
+
+
+    /**
+     * Get the number of registered process folders
+     *
+     * @return the number of registered process folders
+     */
+    public synchronized int size() {
+        return folderMap.size();
+    }
+
+
+    /**
+     * Remove all registered process folders
+     */
+    public synchronized void clear() {
+        folderMap.clear();
+        dueQueue.clear();
+    }
+
+
+    /**
+     * Drop the stale queue entries in case they dominate the queue
+     */
+    private void compact() {
+        if (dueQueue.size() > 2 * folderMap.size() + 64) {
+            dueQueue.removeIf(e -> {
+                Long dueTimestamp = folderMap.get(e.getFolder());
+                return dueTimestamp == null || dueTimestamp.longValue() != e.getDueTimestamp();
+            });
+        }
+    }
+
+
+    /**
+     * The due time of a process folder
+     *
+     * @author patrick
+     */
+    private static class FolderEntry {
+        private final Path folder;
+        private final long dueTimestamp;
+
+
+        /**
+         * Constructor for FolderEntry
+         *
+         * @param folder the process folder
+         * @param dueTimestamp the due timestamp
+         */
+        FolderEntry(Path folder, long dueTimestamp) {
+            this.folder = folder;
+            this.dueTimestamp = dueTimestamp;
+        }
+
+
+        /**
+         * Get the process folder
+         *
+         * @return the process folder
+         */
+        Path getFolder() {
+            return folder;
+        }
+
+
+        /**
+         * Get the due timestamp
+         *
+         * @return the due timestamp
+         */
+        long getDueTimestamp() {
+            return dueTimestamp;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * RamFolderUtil.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.folder;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Locates a RAM backed folder (tmpfs) for the script folders, e.g. <code>/dev/shm</code> or <code>XDG_RUNTIME_DIR</code>.
+ *
+ * @author patrick
+ */
+public final class RamFolderUtil {
+    /** The environment variable of the runtime directory of the user */
+    public static final String XDG_RUNTIME_DIR = "XDG_RUNTIME_DIR";
+
+    /** The shared memory folder */
+    public static final String SHARED_MEMORY_FOLDER = "/dev/shm";
+
+    private static final Logger LOG = LoggerFactory.getLogger(RamFolderUtil.class);
+    private static final Set<String> RAM_FILE_STORE_TYPES = Set.of("tmpfs", "ramfs");
+
+
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final RamFolderUtil INSTANCE = new RamFolderUtil();
+    }
+
+
+    /**
+     * Constructor
+     */
+    private RamFolderUtil() {
+        // NOP
+    }
+
+
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static RamFolderUtil getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+
+    /**
+     * Get the candidates of RAM backed folders in the order of preference: the shared memory folder and the runtime directory of the user
+     *
+     * @return the candidates
+     */
+    public List<Path> getCandidates() {
+        List<Path> result = new ArrayList<>();
+        result.add(Paths.get(SHARED_MEMORY_FOLDER));
+
+        String runtimeDirectory = System.getenv(XDG_RUNTIME_DIR);
+        if (runtimeDirectory != null && !runtimeDirectory.isBlank()) {
+            result.add(Paths.get(runtimeDirectory.trim()));
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Select the first RAM backed, writable candidate with enough free space
+     *
+     * @param candidates the candidates
+     * @param minimumFreeSpace the minimum free space in bytes
+     * @return the selected folder or null if there is none
+     */
+    public Path select(List<Path> candidates, long minimumFreeSpace) {
+        for (Path candidate : candidates) {
+            if (Files.isDirectory(candidate) && Files.isWritable(candidate) && isRamBacked(candidate) && hasFreeSpace(candidate, minimumFreeSpace)) {
+                return candidate;
+            }
+
+            LOG.debug("RAM folder [" + candidate + "] is not available.");
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Check if a path is on a RAM backed file store
+     *
+     * @param path the path, it must not exist
+     * @return true if the file store of the path is RAM backed
+     */
+    public boolean isRamBacked(Path path) {
+        FileStore fileStore = getFileStore(path);
+        return fileStore != null && RAM_FILE_STORE_TYPES.contains(fileStore.type());
+    }
+
+
+    /**
+     * Check if the file store of a path has enough free space
+     *
+     * @param path the path, it must not exist
+     * @param minimumFreeSpace the minimum free space in bytes
+     * @return true if the usable space is at least the minimum free space
+     */
+    public boolean hasFreeSpace(Path path, long minimumFreeSpace) {
+        return hasFreeSpace(getFileStore(path), minimumFreeSpace);
+    }
+
+
+    /**
+     * Check if a file store has enough free space. The file store can be resolved once with {@link #getFileStore(Path)},
+     * this check only reads the usable space.
+     *
+     * @param fileStore the file store or null
+     * @param minimumFreeSpace the minimum free space in bytes
+     * @return true if the usable space is at least the minimum free space
+     */
+    public boolean hasFreeSpace(FileStore fileStore, long minimumFreeSpace) {
+        if (fileStore == null) {
+            return false;
+        }
+
+        try {
+            return fileStore.getUsableSpace() >= minimumFreeSpace;
+        } catch (IOException e) {
+            LOG.debug("Could not read the usable space of [" + fileStore + "]: " + e.getMessage());
+            return false;
+        }
+    }
+
+
+    /**
+     * Get the file store of a path or of its nearest existing parent
+     *
+     * @param path the path
+     * @return the file store or null
+     */
+    public FileStore getFileStore(Path path) {
+        Path existingPath = path.toAbsolutePath();
+        while (existingPath != null && !Files.exists(existingPath)) {
+            existingPath = existingPath.getParent();
+        }
+
+        if (existingPath == null) {
+            return null;
+        }
+
+        try {
+            return Files.getFileStore(existingPath);
+        } catch (IOException e) {
+            LOG.debug("Could not read the file store of [" + path + "]: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * ScriptFolderLayout.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.folder;
+
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+
+/**
+ * Defines the layout of the process folders in the script folder base path. Bucket folders are direct sub folders of
+ * the base path which starts with the {@link #BUCKET_PREFIX}.
+ *
+ * @author patrick
+ */
+public enum ScriptFolderLayout {
+    /** All process folders are direct sub folders of the base path: &lt;base&gt;/&lt;id&gt; */
+    FLAT,
+
+    /** The process folders are spread over 256 buckets by the hash of the id: &lt;base&gt;/@&lt;2 hex digits&gt;/&lt;id&gt; */
+    HASH,
+
+    /** The process folders are grouped by the hour (UTC) of their creation: &lt;base&gt;/@&lt;yyyyMMddHH&gt;/&lt;id&gt;. An hour bucket expires as a whole. */
+    HOUR;
+
+    /** The prefix of the bucket folders */
+    public static final String BUCKET_PREFIX = "@";
+
+    private static final DateTimeFormatter HOUR_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHH").withZone(ZoneOffset.UTC);
+    private static final int HASH_BUCKET_LENGTH = 2;
+    private static final int HOUR_BUCKET_LENGTH = 10;
+
+
+    /**
+     * Resolve the process folder
+     *
+     * @param basePath the base path
+     * @param id the id of the system command group list
+     * @param timestamp the creation time
+     * @return the process folder
+     */
+    public Path resolve(Path basePath, String id, Instant timestamp) {
+        switch (this) {
+            case HASH:
+                return basePath.resolve(BUCKET_PREFIX + String.format("%02x", id.hashCode() & 0xff)).resolve(id);
+            case HOUR:
+                return basePath.resolve(BUCKET_PREFIX + HOUR_FORMATTER.format(timestamp)).resolve(id);
+            default:
+                return basePath.resolve(id);
+        }
+    }
+
+
+    /**
+     * Get the layout of a bucket folder
+     *
+     * @param basePath the base path
+     * @param directory the directory
+     * @return the layout which created the bucket or null if the directory is not a bucket
+     */
+    public static ScriptFolderLayout ofBucket(Path basePath, Path directory) {
+        if (directory == null || directory.getParent() == null || !directory.getParent().equals(basePath)) {
+            return null;
+        }
+
+        String name = directory.getFileName().toString();
+        if (!name.startsWith(BUCKET_PREFIX)) {
+            return null;
+        }
+
+        String bucket = name.substring(BUCKET_PREFIX.length());
+        if (bucket.length() == HASH_BUCKET_LENGTH && bucket.chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+            return HASH;
+        } else if (bucket.length() == HOUR_BUCKET_LENGTH && bucket.chars().allMatch(Character::isDigit)) {
+            return HOUR;
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Get the end of an hour bucket
+     *
+     * @param bucket the bucket folder
+     * @return the end of the hour in milliseconds or -1 if it is not an hour bucket
+     */
+    public static long getBucketEnd(Path bucket) {
+        String name = bucket.getFileName().toString();
+        if (!name.startsWith(BUCKET_PREFIX) || name.length() != BUCKET_PREFIX.length() + HOUR_BUCKET_LENGTH) {
+            return -1;
+        }
+
+        try {
+            String hour = name.substring(BUCKET_PREFIX.length());
+            LocalDateTime start = LocalDateTime.of(Integer.parseInt(hour.substring(0, 4)), Integer.parseInt(hour.substring(4, 6)), Integer.parseInt(hour.substring(6, 8)), Integer.parseInt(hour.substring(8, 10)), 0);
+            return start.plusHours(1).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (NumberFormatException | DateTimeException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * IRunIdGenerator.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.id;
+
+
+/**
+ * Defines the strategy to generate the run ids of the system command group lists, groups and streams. The ids are used
+ * as name of the script folders and pid files, an implementation must be thread safe and must not return the same id twice.
+ *
+ * @author patrick
+ */
+public interface IRunIdGenerator {
+
+    /**
+     * Create a new unique id
+     *
+     * @return the id
+     */
+    String nextId();
+}
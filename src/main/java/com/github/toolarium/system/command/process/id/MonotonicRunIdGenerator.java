@@ -0,0 +1,176 @@
+/*
+ * MonotonicRunIdGenerator.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.id;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+
+/**
+ * The default {@link IRunIdGenerator}: the id consists of the UTC timestamp in seconds (<code>yyyyMMddHHmmss</code>), an
+ * atomic counter and the node component. The timestamp and the counter share one {@link AtomicLong} which is updated
+ * lock-free. In case the counter of a second is exhausted the timestamp moves on to the next second, therefore the ids of
+ * a generator are unique and strictly increasing in their lexical order. The node component distinguishes the JVMs which
+ * share a script folder, by default it is the process id.
+ *
+ * @author patrick
+ */
+public final class MonotonicRunIdGenerator implements IRunIdGenerator {
+    /** The number of bits of the counter per second */
+    public static final int COUNTER_BITS = 20;
+
+    /** The length of the counter */
+    public static final int COUNTER_LENGTH = 5;
+
+    /** The length of the node component */
+    public static final int NODE_LENGTH = 6;
+
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneOffset.UTC);
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private final AtomicLong state;
+    private final String node;
+    private final LongSupplier secondSupplier;
+    private volatile Timestamp timestamp;
+
+
+    /**
+     * Constructor for MonotonicRunIdGenerator
+     */
+    public MonotonicRunIdGenerator() {
+        this(ProcessHandle.current().pid());
+    }
+
+
+    /**
+     * Constructor for MonotonicRunIdGenerator
+     *
+     * @param node the node component, only the lower 24 bits are used
+     */
+    public MonotonicRunIdGenerator(long node) {
+        this(node, () -> System.currentTimeMillis() / 1000L);
+    }
+
+
+    /**
+     * Constructor for MonotonicRunIdGenerator
+     *
+     * @param node the node component, only the lower 24 bits are used
+     * @param secondSupplier the supplier of the current epoch second
+     */
+    MonotonicRunIdGenerator(long node, LongSupplier secondSupplier) {
+        this.state = new AtomicLong(0);
+        this.node = toHex(node, NODE_LENGTH);
+        this.secondSupplier = secondSupplier;
+        this.timestamp = new Timestamp(0, TIMESTAMP_FORMATTER.format(Instant.ofEpochSecond(0)));
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.id.IRunIdGenerator#nextId()
+     */
+    @Override
+    public String nextId() {
+        long now = secondSupplier.getAsLong();
+        long current;
+        long next;
+        do {
+            current = state.get();
+            long second = current >>> COUNTER_BITS;
+            if (now > second) {
+                next = now << COUNTER_BITS;
+            } else if ((current & COUNTER_MASK) < COUNTER_MASK) {
+                next = current + 1;
+            } else {
+                // the counter of the second is exhausted or the clock went backwards: borrow the next second
+                next = (second + 1) << COUNTER_BITS;
+            }
+        } while (!state.compareAndSet(current, next));
+
+        return getTimestamp(next >>> COUNTER_BITS) + toHex(next & COUNTER_MASK, COUNTER_LENGTH) + node;
+    }
+
+
+    /**
+     * Get the node component
+     *
+     * @return the node component
+     */
+    public String getNode() {
+        return node;
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "MonotonicRunIdGenerator [node=" + node + "]";
+    }
+
+
+    /**
+     * Get the formatted timestamp of a second, it is formatted once per second
+     *
+     * @param second the epoch second
+     * @return the formatted timestamp
+     */
+    private String getTimestamp(long second) {
+        Timestamp result = timestamp;
+        if (result.second != second) {
+            result = new Timestamp(second, TIMESTAMP_FORMATTER.format(Instant.ofEpochSecond(second)));
+            timestamp = result;
+        }
+
+        return result.formatted;
+    }
+
+
+    /**
+     * Format a value as fixed length upper case hex string
+     *
+     * @param value the value
+     * @param length the length
+     * @return the hex string
+     */
+    private static String toHex(long value, int length) {
+        char[] result = new char[length];
+        long v = value;
+        for (int i = length - 1; i >= 0; i--) {
+            result[i] = HEX[(int) (v & 0xF)];
+            v >>>= 4;
+        }
+
+        return new String(result);
+    }
+
+
+    /**
+     * The formatted timestamp of a second
+     *
+     * @author patrick
+     */
+    private static final class Timestamp {
+        private final long second;
+        private final String formatted;
+
+
+        /**
+         * Constructor for Timestamp
+         *
+         * @param second the epoch second
+         * @param formatted the formatted timestamp
+         */
+        Timestamp(long second, String formatted) {
+            this.second = second;
+            this.formatted = formatted;
+        }
+    }
+}
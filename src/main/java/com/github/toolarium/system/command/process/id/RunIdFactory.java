@@ -0,0 +1,88 @@
+/*
+ * RunIdFactory.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.id;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The run id factory: it creates the ids of the system command group lists, groups and streams by the configured
+ * {@link IRunIdGenerator}. By default the {@link MonotonicRunIdGenerator} is used.
+ *
+ * @author patrick
+ */
+public final class RunIdFactory {
+    private static final Logger LOG = LoggerFactory.getLogger(RunIdFactory.class);
+    private final IRunIdGenerator defaultRunIdGenerator;
+    private volatile IRunIdGenerator runIdGenerator;
+
+
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final RunIdFactory INSTANCE = new RunIdFactory();
+    }
+
+
+    /**
+     * Constructor
+     */
+    private RunIdFactory() {
+        defaultRunIdGenerator = new MonotonicRunIdGenerator();
+        runIdGenerator = defaultRunIdGenerator;
+    }
+
+
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static RunIdFactory getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+
+    /**
+     * Create a new unique id
+     *
+     * @return the id
+     */
+    public String nextId() {
+        return runIdGenerator.nextId();
+    }
+
+
+    /**
+     * Get the run id generator
+     *
+     * @return the run id generator
+     */
+    public IRunIdGenerator getRunIdGenerator() {
+        return runIdGenerator;
+    }
+
+
+    /**
+     * Set the run id generator
+     *
+     * @param runIdGenerator the run id generator or null to use the default {@link MonotonicRunIdGenerator}
+     */
+    public void setRunIdGenerator(IRunIdGenerator runIdGenerator) {
+        if (runIdGenerator == null) {
+            // the default generator keeps its state, the ids are not repeated
+            this.runIdGenerator = defaultRunIdGenerator;
+        } else {
+            this.runIdGenerator = runIdGenerator;
+        }
+
+        LOG.debug("Set run id generator: " + this.runIdGenerator);
+    }
+}
@@ -5,15 +5,19 @@
  */
 package com.github.toolarium.system.command.process.impl;
 
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
 import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
 import com.github.toolarium.system.command.process.IAsynchronousProcess;
+import com.github.toolarium.system.command.process.folder.ProcessFolderRegistry;
 import com.github.toolarium.system.command.process.liveness.IProcessLiveness;
 import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
 import java.io.OutputStream;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -186,6 +190,22 @@ public class AsynchronousProcess extends AbstractProcess implements IAsynchronou
     }
 
 
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#destroyTree()
+     */
+    @Override
+    public void destroyTree() {
+        if (getProcess() == null) {
+            return;
+        }
+
+        // the parent is destroyed first, otherwise it continues after a killed child
+        List<ProcessHandle> descendants = getProcess().descendants().collect(Collectors.toList());
+        getProcess().destroyForcibly();
+        descendants.forEach(ProcessHandle::destroyForcibly);
+    }
+
+
     /**
      * @see com.github.toolarium.system.command.process.IAsynchronousProcess#getInputStream()
      */
@@ -226,6 +246,14 @@ public class AsynchronousProcess extends AbstractProcess implements IAsynchronou
             if (scriptPath != null && scriptPath.toFile().exists()) {
                 LOG.debug("Delete script path [" + scriptPath + "]...");
                 ProcessStreamUtil.getInstance().deleteDirectory(scriptPath);
+                ProcessFolderRegistry.getInstance().unregister(scriptPath);
+
+                Path inputPath = SystemCommandExecuterFactory.getInstance().getInputFolderPath(scriptPath);
+                if (!scriptPath.equals(inputPath) && inputPath.toFile().exists()) {
+                    LOG.debug("Delete input path [" + inputPath + "]...");
+                    ProcessStreamUtil.getInstance().deleteDirectory(inputPath);
+                    ProcessFolderRegistry.getInstance().unregister(inputPath);
+                }
             }
         }
     }
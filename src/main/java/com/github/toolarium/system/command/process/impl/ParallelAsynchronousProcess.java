@@ -0,0 +1,434 @@
+/*
+ * ParallelAsynchronousProcess.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.impl;
+
+import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
+import com.github.toolarium.system.command.executer.ParallelOutputMode;
+import com.github.toolarium.system.command.process.IAsynchronousProcess;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.stream.IProcessOutputStream;
+import com.github.toolarium.system.command.process.stream.output.ProcessBufferOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Implements the {@link IAsynchronousProcess} of parallel branches which are joined: the process ends when all branches
+ * ended. The exit value is 0 if all branches were successful, otherwise the exit value of the first failed branch in
+ * the order of the branches. The destroy methods are applied to all branches.
+ *
+ * @author patrick
+ */
+public class ParallelAsynchronousProcess implements IAsynchronousProcess {
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelAsynchronousProcess.class);
+    private final List<IAsynchronousProcess> branchProcessList;
+    private final List<ProcessBufferOutputStream> branchOutputList;
+    private final List<ProcessBufferOutputStream> branchErrorOutputList;
+    private final List<OutputStream> branchLineOutputList;
+    private final List<OutputStream> branchErrorLineOutputList;
+    private final IProcessOutputStream processOut;
+    private final IProcessOutputStream processErr;
+    private final ParallelOutputMode parallelOutputMode;
+    private final CountDownLatch endLatch;
+    private volatile Integer exitValue;
+
+
+    /**
+     * Constructor for ParallelAsynchronousProcess
+     *
+     * @param branchProcessList the started branches
+     * @param branchOutputList the buffered output of the branches
+     * @param branchErrorOutputList the buffered error output of the branches
+     * @param branchLineOutputList the line prefix output of the branches, empty in ordered mode
+     * @param branchErrorLineOutputList the line prefix error output of the branches, empty in ordered mode
+     * @param processOut the combined output or null
+     * @param processErr the combined error output or null
+     * @param parallelOutputMode the parallel output mode
+     */
+    public ParallelAsynchronousProcess(List<IAsynchronousProcess> branchProcessList,
+                                       List<ProcessBufferOutputStream> branchOutputList,
+                                       List<ProcessBufferOutputStream> branchErrorOutputList,
+                                       List<OutputStream> branchLineOutputList,
+                                       List<OutputStream> branchErrorLineOutputList,
+                                       IProcessOutputStream processOut,
+                                       IProcessOutputStream processErr,
+                                       ParallelOutputMode parallelOutputMode) {
+        this.branchProcessList = List.copyOf(branchProcessList);
+        this.branchOutputList = List.copyOf(branchOutputList);
+        this.branchErrorOutputList = List.copyOf(branchErrorOutputList);
+        this.branchLineOutputList = new ArrayList<>(branchLineOutputList);
+        this.branchErrorLineOutputList = new ArrayList<>(branchErrorLineOutputList);
+        this.processOut = processOut;
+        this.processErr = processErr;
+        this.parallelOutputMode = parallelOutputMode;
+        this.endLatch = new CountDownLatch(1);
+        this.exitValue = null;
+
+        Thread joinThread = new Thread(this::join, "join-" + getSystemCommandGroupList().getId());
+        joinThread.setDaemon(true);
+        joinThread.start();
+    }
+
+
+    /**
+     * Get the branches in the order they were defined
+     *
+     * @return the branches
+     */
+    public List<IAsynchronousProcess> getBranchProcesses() {
+        return branchProcessList;
+    }
+
+
+    /**
+     * Get the terminated branches with their own output. It waits until all branches are terminated.
+     *
+     * @return the terminated branches
+     * @throws InterruptedException in case of thread interrupt
+     */
+    public List<ISynchronousProcess> getBranchResults() throws InterruptedException {
+        waitFor();
+        List<ISynchronousProcess> result = new ArrayList<>();
+        for (int i = 0; i < branchProcessList.size(); i++) {
+            IAsynchronousProcess branchProcess = branchProcessList.get(i);
+            result.add(new SynchronousProcess(branchProcess.getSystemCommandGroupList(), branchProcess.getPid(), branchProcess.getStartTime(), branchProcess.getTotalCpuDuration(),
+                                              branchProcess.getExitValue(), branchOutputList.get(i).toString(), branchErrorOutputList.get(i).toString()));
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Get the system command group list of the first branch
+     *
+     * @see com.github.toolarium.system.command.process.IProcess#getSystemCommandGroupList()
+     */
+    @Override
+    public ISystemCommandGroupList getSystemCommandGroupList() {
+        return branchProcessList.get(0).getSystemCommandGroupList();
+    }
+
+
+    /**
+     * The branches have their own pid, see {@link #getBranchProcesses()}.
+     *
+     * @see com.github.toolarium.system.command.process.IProcess#getPid()
+     */
+    @Override
+    public Long getPid() {
+        return null;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IProcess#getStartTime()
+     */
+    @Override
+    public Instant getStartTime() {
+        Instant result = null;
+        for (IAsynchronousProcess branchProcess : branchProcessList) {
+            Instant startTime = branchProcess.getStartTime();
+            if (startTime != null && (result == null || startTime.isBefore(result))) {
+                result = startTime;
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IProcess#getTotalCpuDuration()
+     */
+    @Override
+    public Duration getTotalCpuDuration() {
+        Duration result = null;
+        for (IAsynchronousProcess branchProcess : branchProcessList) {
+            Duration totalCpuDuration = branchProcess.getTotalCpuDuration();
+            if (totalCpuDuration != null) {
+                if (result == null) {
+                    result = totalCpuDuration;
+                } else {
+                    result = result.plus(totalCpuDuration);
+                }
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IProcess#getExitValue()
+     */
+    @Override
+    public Integer getExitValue() {
+        return exitValue;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#waitFor()
+     */
+    @Override
+    public int waitFor() throws InterruptedException {
+        endLatch.await();
+        return exitValue;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#waitFor(long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+        return endLatch.await(timeout, unit);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#isAlive()
+     */
+    @Override
+    public boolean isAlive() {
+        return endLatch.getCount() > 0;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#tryDestroy()
+     */
+    @Override
+    public void tryDestroy() {
+        for (IAsynchronousProcess branchProcess : branchProcessList) {
+            branchProcess.tryDestroy();
+        }
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#destroy()
+     */
+    @Override
+    public void destroy() {
+        for (IAsynchronousProcess branchProcess : branchProcessList) {
+            branchProcess.destroy();
+        }
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#destroyTree()
+     */
+    @Override
+    public void destroyTree() {
+        for (IAsynchronousProcess branchProcess : branchProcessList) {
+            branchProcess.destroyTree();
+        }
+    }
+
+
+    /**
+     * Returns an output stream which writes to the input of all branches with a piped input.
+     *
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#getInputStream()
+     */
+    @Override
+    public OutputStream getInputStream() {
+        List<OutputStream> inputStreamList = new ArrayList<>();
+        for (IAsynchronousProcess branchProcess : branchProcessList) {
+            if (branchProcess.getInputStream() != null) {
+                inputStreamList.add(branchProcess.getInputStream());
+            }
+        }
+
+        if (inputStreamList.isEmpty()) {
+            return null;
+        }
+
+        return new BranchInputStream(inputStreamList);
+    }
+
+
+    /**
+     * The branches have their own process handle, see {@link #getBranchProcesses()}.
+     *
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#getProcessHandle()
+     */
+    @Override
+    public ProcessHandle getProcessHandle() {
+        return null;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#close()
+     */
+    @Override
+    public void close() {
+        try {
+            waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (IAsynchronousProcess branchProcess : branchProcessList) {
+            branchProcess.close();
+        }
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "ParallelAsynchronousProcess [branches=" + branchProcessList.size() + ", parallelOutputMode=" + parallelOutputMode + ", exitValue=" + exitValue + "]";
+    }
+
+
+    /**
+     * Wait for the branches in their order and combine the exit values and in ordered mode the output
+     */
+    private void join() {
+        int result = 0;
+        try {
+            for (int i = 0; i < branchProcessList.size(); i++) {
+                int branchExitValue = branchProcessList.get(i).waitFor();
+                if (result == 0 && branchExitValue != 0) {
+                    result = branchExitValue;
+                }
+
+                if (parallelOutputMode == ParallelOutputMode.ORDERED) {
+                    write(processOut, branchOutputList.get(i));
+                    write(processErr, branchErrorOutputList.get(i));
+                } else {
+                    writeIncompleteLine(branchLineOutputList.get(i));
+                    writeIncompleteLine(branchErrorLineOutputList.get(i));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            destroyTree();
+            result = -1;
+        } finally {
+            exitValue = result;
+            endLatch.countDown();
+        }
+    }
+
+
+    /**
+     * Write the buffered output of a branch
+     *
+     * @param processOutputStream the combined output or null
+     * @param branchOutput the buffered output of the branch
+     */
+    private void write(IProcessOutputStream processOutputStream, ProcessBufferOutputStream branchOutput) {
+        byte[] data = branchOutput.getBuffer();
+        if (processOutputStream == null || data.length == 0) {
+            return;
+        }
+
+        try {
+            processOutputStream.write(data);
+            processOutputStream.flush();
+        } catch (IOException e) {
+            LOG.debug("Could not write output of branch: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * Write the incomplete last line of a branch by closing its line prefix output
+     *
+     * @param lineOutputStream the line prefix output or null
+     */
+    private void writeIncompleteLine(OutputStream lineOutputStream) {
+        if (lineOutputStream == null) {
+            return;
+        }
+
+        try {
+            lineOutputStream.close();
+        } catch (IOException e) {
+            LOG.debug("Could not write output of branch: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * The input stream of all branches
+     *
+     * @author patrick
+     */
+    private static final class BranchInputStream extends OutputStream {
+        private final List<OutputStream> inputStreamList;
+
+
+        /**
+         * Constructor for BranchInputStream
+         *
+         * @param inputStreamList the input streams of the branches
+         */
+        BranchInputStream(List<OutputStream> inputStreamList) {
+            this.inputStreamList = inputStreamList;
+        }
+
+
+        /**
+         * @see java.io.OutputStream#write(int)
+         */
+        @Override
+        public void write(int b) throws IOException {
+            for (OutputStream inputStream : inputStreamList) {
+                inputStream.write(b);
+            }
+        }
+
+
+        /**
+         * @see java.io.OutputStream#write(byte[], int, int)
+         */
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            for (OutputStream inputStream : inputStreamList) {
+                inputStream.write(b, off, len);
+            }
+        }
+
+
+        /**
+         * @see java.io.OutputStream#flush()
+         */
+        @Override
+        public void flush() throws IOException {
+            for (OutputStream inputStream : inputStreamList) {
+                inputStream.flush();
+            }
+        }
+
+
+        /**
+         * @see java.io.OutputStream#close()
+         */
+        @Override
+        public void close() throws IOException {
+            for (OutputStream inputStream : inputStreamList) {
+                inputStream.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * ParallelSynchronousProcess.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.impl;
+
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+
+/**
+ * The terminated parallel branches of a join: the exit value is 0 if all branches were successful, otherwise the exit
+ * value of the first failed branch. The results of the branches are available by {@link #getBranchProcesses()}.
+ *
+ * @author patrick
+ */
+public class ParallelSynchronousProcess extends SynchronousProcess {
+    private final List<ISynchronousProcess> branchProcessList;
+
+
+    /**
+     * Constructor for ParallelSynchronousProcess
+     *
+     * @param branchProcessList the terminated branches
+     * @param startTime the start time
+     * @param totalCpuDuration the total cpu duration
+     * @param exitValue the combined exit value
+     * @param out the combined output
+     * @param errorOut the combined error output
+     */
+    public ParallelSynchronousProcess(final List<ISynchronousProcess> branchProcessList,
+                                      final Instant startTime,
+                                      final Duration totalCpuDuration,
+                                      final Integer exitValue,
+                                      final String out,
+                                      final String errorOut) {
+        super(branchProcessList.get(0).getSystemCommandGroupList(), null, startTime, totalCpuDuration, exitValue, out, errorOut);
+        this.branchProcessList = List.copyOf(branchProcessList);
+    }
+
+
+    /**
+     * Get the terminated branches in the order they were defined
+     *
+     * @return the branches
+     */
+    public List<ISynchronousProcess> getBranchProcesses() {
+        return branchProcessList;
+    }
+}
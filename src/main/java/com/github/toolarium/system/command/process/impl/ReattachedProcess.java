@@ -0,0 +1,328 @@
+/*
+ * ReattachedProcess.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.impl;
+
+import com.github.toolarium.system.command.process.IAsynchronousProcess;
+import com.github.toolarium.system.command.process.journal.ProcessJournal;
+import com.github.toolarium.system.command.process.liveness.impl.ProcessStreamConsumer;
+import com.github.toolarium.system.command.process.reattach.PersistedRun;
+import com.github.toolarium.system.command.process.reattach.PersistedRunLocator;
+import com.github.toolarium.system.command.process.stream.IProcessOutputStream;
+import com.github.toolarium.system.command.process.thread.NameableThreadFactory;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Implements the {@link IAsynchronousProcess} of a {@link PersistedRun} which was started by another JVM. The persisted
+ * output is followed from the start of the files until the process ends. The system command group list and the standard
+ * input are not available, the exit value is only known if the run is recorded in the process journal.
+ *
+ * @author patrick
+ */
+public class ReattachedProcess extends AbstractProcess implements IAsynchronousProcess, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(ReattachedProcess.class);
+    private static final long EXIT_VALUE_TIMEOUT = 10000;
+    private static NameableThreadFactory nameableThreadFactory = new NameableThreadFactory("reattach");
+    private final PersistedRun persistedRun;
+    private final ProcessHandle processHandle;
+    private final long pollTimeout;
+    private ProcessStreamConsumer outputStream;
+    private ProcessStreamConsumer errorStream;
+    private volatile boolean isAlive;
+    private volatile Integer exitValue;
+
+
+    /**
+     * Constructor for ReattachedProcess
+     *
+     * @param persistedRun the persisted run
+     * @param processOut the process output stream or null
+     * @param processErr the process error stream or null
+     * @param pollTimeout the poll timeout
+     */
+    public ReattachedProcess(PersistedRun persistedRun, IProcessOutputStream processOut, IProcessOutputStream processErr, long pollTimeout) {
+        super(null, null, null, null, null);
+        this.persistedRun = persistedRun;
+        this.processHandle = persistedRun.getProcessHandle().orElse(null);
+        this.pollTimeout = pollTimeout;
+        this.exitValue = null;
+
+        if (processOut != null) {
+            this.outputStream = new ProcessStreamConsumer(null, processOut, persistedRun.getOutputFile().toFile(), processHandle);
+        }
+
+        if (processErr != null) {
+            this.errorStream = new ProcessStreamConsumer(null, processErr, persistedRun.getErrorFile().toFile(), processHandle);
+        }
+
+        this.isAlive = true;
+        nameableThreadFactory.newThread(this::follow).start();
+        LOG.info("Process reattached (id:" + persistedRun.getId() + ", pid:" + getPid() + ", script:" + persistedRun.getScriptPath() + ")");
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.impl.AbstractProcess#getPid()
+     */
+    @Override
+    public Long getPid() {
+        if (processHandle != null) {
+            return processHandle.pid();
+        }
+
+        if (persistedRun.getProcessIds().isEmpty()) {
+            return null;
+        }
+
+        return persistedRun.getProcessIds().get(persistedRun.getProcessIds().size() - 1);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.impl.AbstractProcess#getStartTime()
+     */
+    @Override
+    public Instant getStartTime() {
+        if (processHandle != null && processHandle.info().startInstant().isPresent()) {
+            return processHandle.info().startInstant().get();
+        }
+
+        return super.getStartTime();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.impl.AbstractProcess#getTotalCpuDuration()
+     */
+    @Override
+    public Duration getTotalCpuDuration() {
+        if (processHandle == null || processHandle.info().totalCpuDuration().isEmpty()) {
+            return null;
+        }
+
+        return processHandle.info().totalCpuDuration().get();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.impl.AbstractProcess#getExitValue()
+     */
+    @Override
+    public Integer getExitValue() {
+        return exitValue;
+    }
+
+
+    /**
+     * Get the persisted run
+     *
+     * @return the persisted run
+     */
+    public PersistedRun getPersistedRun() {
+        return persistedRun;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#waitFor()
+     */
+    @Override
+    public int waitFor() throws InterruptedException {
+        while (isAlive()) {
+            Thread.sleep(pollTimeout);
+        }
+
+        if (exitValue == null) {
+            return -1;
+        }
+
+        return exitValue;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#waitFor(long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (isAlive()) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+
+            Thread.sleep(pollTimeout);
+        }
+
+        return true;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#isAlive()
+     */
+    @Override
+    public boolean isAlive() {
+        return isAlive;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#tryDestroy()
+     */
+    @Override
+    public void tryDestroy() {
+        if (processHandle == null) {
+            return;
+        }
+
+        processHandle.destroy();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#destroy()
+     */
+    @Override
+    public void destroy() {
+        if (processHandle == null) {
+            return;
+        }
+
+        processHandle.destroyForcibly();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#destroyTree()
+     */
+    @Override
+    public void destroyTree() {
+        if (processHandle == null) {
+            return;
+        }
+
+        // the parent is destroyed first, otherwise it continues after a killed child
+        List<ProcessHandle> descendants = processHandle.descendants().collect(Collectors.toList());
+        processHandle.destroyForcibly();
+        descendants.forEach(ProcessHandle::destroyForcibly);
+    }
+
+
+    /**
+     * The standard input of a reattached process is not available.
+     *
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#getInputStream()
+     */
+    @Override
+    public OutputStream getInputStream() {
+        return null;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#getProcessHandle()
+     */
+    @Override
+    public ProcessHandle getProcessHandle() {
+        return processHandle;
+    }
+
+
+    /**
+     * The script folder is not deleted, it is removed by the folder cleanup service.
+     *
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#close()
+     */
+    @Override
+    public void close() {
+        try {
+            waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.impl.AbstractProcess#toString()
+     */
+    @Override
+    public String toString() {
+        return "ReattachedProcess [persistedRun=" + persistedRun + ", isAlive=" + isAlive + ", exitValue=" + exitValue + "]";
+    }
+
+
+    /**
+     * Follow the persisted output until the process has ended
+     */
+    private void follow() {
+        boolean isFollowing;
+        do {
+            outputStream = pipeAvailableBytes(outputStream);
+            errorStream = pipeAvailableBytes(errorStream);
+
+            isFollowing = (processHandle != null && processHandle.isAlive()) || (outputStream != null) || (errorStream != null);
+            if (isFollowing) {
+                try {
+                    Thread.sleep(pollTimeout);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } while (isFollowing);
+
+        // the exit value of a process which is not a child is only known by the process journal: another JVM records
+        // the end after the process has ended and its journal is read periodically
+        long deadline = System.currentTimeMillis() + EXIT_VALUE_TIMEOUT;
+        PersistedRun endedRun = PersistedRunLocator.getInstance().get(persistedRun.getId());
+        while (endedRun != null && endedRun.getExitValue() == null && ProcessJournal.getInstance().isValid(persistedRun.getId()) != null
+                && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(pollTimeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            endedRun = PersistedRunLocator.getInstance().get(persistedRun.getId());
+        }
+
+        if (endedRun != null) {
+            exitValue = endedRun.getExitValue();
+        }
+
+        isAlive = false;
+        LOG.info("Reattached process ended (id:" + persistedRun.getId() + ", pid:" + getPid() + ")");
+    }
+
+
+    /**
+     * Read available bytes
+     *
+     * @param processStreamConsumer the process consumer
+     * @return the process consumer
+     */
+    private ProcessStreamConsumer pipeAvailableBytes(ProcessStreamConsumer processStreamConsumer) {
+        if (processStreamConsumer == null) {
+            return processStreamConsumer;
+        }
+
+        if (processStreamConsumer.pipeAvailableBytes() >= 0) {
+            return processStreamConsumer;
+        }
+
+        processStreamConsumer.close();
+        return null;
+    }
+}
@@ -0,0 +1,665 @@
+/*
+ * ProcessJournal.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.journal;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.process.folder.FolderDeleteService;
+import com.github.toolarium.system.command.process.util.ProcessLivenessSnapshot;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The process journal records the runs of this JVM in an append-only, memory mapped journal file instead of pid and lock
+ * files in the script folder: the run id, the process ids with their start time, the lock timeout and the exit value.
+ * The live runs are kept in memory for a lookup by id, an ended run is kept with its exit value until its script folder
+ * is reaped. Every JVM writes its own journal in the folder
+ * &lt;script folder base path&gt;/.journal and holds a file lock while it is alive. A JVM which finds the journal of a
+ * crashed JVM takes over the runs which are still running or locked and deletes the script folders of the others.
+ *
+ * @author patrick
+ */
+public final class ProcessJournal {
+    /** The name of the journal folder in the script folder base path */
+    public static final String JOURNAL_FOLDER_NAME = ".journal";
+
+    /** The extension of a journal file */
+    public static final String JOURNAL_FILE_EXTENSION = ".journal";
+
+    /** The extension of the lock file of a journal */
+    public static final String LOCK_FILE_EXTENSION = ".lock";
+
+    /** The initial capacity of a journal file */
+    public static final int INITIAL_CAPACITY = 256 * 1024;
+
+    /** The number of records which are accepted beside the live runs before the journal is compacted */
+    public static final int COMPACTION_THRESHOLD = 1024;
+
+    /** The exit value of a run which is taken over from a crashed JVM and has ended: the exit value is not known */
+    public static final int UNKNOWN_EXIT_VALUE = -1;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProcessJournal.class);
+    private static final long FOREIGN_REFRESH_PERIOD = 5000;
+    private static final byte START = 1;
+    private static final byte END = 2;
+    private Map<String, ProcessJournalEntry> entryMap;
+    private Set<String> recoveredIdSet;
+    private volatile Map<String, ProcessJournalEntry> foreignEntryMap;
+    private volatile long foreignRefreshTimestamp;
+    private Path journalPath;
+    private String name;
+    private ProcessJournalFile journalFile;
+    private FileChannel lockChannel;
+    private FileLock lock;
+
+
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final ProcessJournal INSTANCE = new ProcessJournal();
+    }
+
+
+    /**
+     * Constructor
+     */
+    private ProcessJournal() {
+        entryMap = new ConcurrentHashMap<>();
+        recoveredIdSet = new HashSet<>();
+        foreignEntryMap = Collections.emptyMap();
+        foreignRefreshTimestamp = 0;
+    }
+
+
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static ProcessJournal getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+
+    /**
+     * Record the start of a process
+     *
+     * @param id the id of the system command group list
+     * @param scriptPath the script path or null
+     * @param pid the process id
+     * @param startTime the start time of the process or null
+     * @param lockTimeout the lock timeout or null
+     * @throws IOException In case of an I/O error
+     */
+    public synchronized void start(String id, Path scriptPath, long pid, Instant startTime, Instant lockTimeout) throws IOException {
+        open();
+
+        long start = 0;
+        if (startTime != null) {
+            start = startTime.toEpochMilli();
+        }
+
+        journalFile.append(encodeStart(id, scriptPath, pid, start, lockTimeout));
+        ProcessJournalEntry entry = entryMap.get(id);
+        if (entry == null) {
+            entry = new ProcessJournalEntry(id, scriptPath, Collections.emptyList(), Collections.emptyList(), lockTimeout, null);
+        }
+
+        entryMap.put(id, entry.addProcess(pid, start, scriptPath, lockTimeout));
+    }
+
+
+    /**
+     * Record the end of a run. The exit value is kept until the script folder of the run is reaped, a run without
+     * script folder which is not locked is removed from memory.
+     *
+     * @param id the id of the system command group list
+     * @param exitValue the exit value
+     */
+    public synchronized void end(String id, int exitValue) {
+        ProcessJournalEntry entry = entryMap.get(id);
+        if (entry == null || journalFile == null) {
+            return;
+        }
+
+        try {
+            journalFile.append(encodeEnd(id, exitValue));
+        } catch (IOException e) {
+            LOG.warn("Could not write end of run (id:" + id + ") to journal: " + e.getMessage(), e);
+        }
+
+        entry = entry.end(exitValue);
+        if (isExpired(entry)) {
+            entryMap.remove(id);
+        } else {
+            entryMap.put(id, entry);
+        }
+    }
+
+
+    /**
+     * Get a run of this JVM
+     *
+     * @param id the id of the system command group list
+     * @return the run or null if it is not known
+     */
+    public ProcessJournalEntry get(String id) {
+        if (id == null) {
+            return null;
+        }
+
+        return entryMap.get(id);
+    }
+
+
+    /**
+     * Get the runs of this JVM which have not ended
+     *
+     * @return the runs which have not ended
+     */
+    public List<ProcessJournalEntry> getRunningEntries() {
+        return entryMap.values().stream().filter(e -> !e.isEnded()).collect(Collectors.toList());
+    }
+
+
+    /**
+     * Get the runs of all journals: the runs of this JVM and the running or locked runs of other JVMs.
+     *
+     * @return the runs
+     */
+    public List<ProcessJournalEntry> getEntries() {
+        Map<String, ProcessJournalEntry> result = new LinkedHashMap<>(getForeignEntries());
+        result.putAll(entryMap);
+        return new ArrayList<>(result.values());
+    }
+
+
+    /**
+     * Verify if the run of a script folder is valid: at least one process is running or the run is locked.
+     * The runs of other living JVMs are considered as well.
+     *
+     * @param id the id of the system command group list
+     * @return true if the run is valid, false if it is not valid and null if the run is not known by any journal
+     */
+    public Boolean isValid(String id) {
+        return isValid(id, null);
+    }
+
+
+    /**
+     * Verify if the run of a script folder is valid: at least one process is running or the run is locked.
+     * The runs of other living JVMs are considered as well.
+     *
+     * @param id the id of the system command group list
+     * @param snapshot the snapshot of the living processes or null to check every process on its own
+     * @return true if the run is valid, false if it is not valid and null if the run is not known by any journal
+     */
+    public Boolean isValid(String id, ProcessLivenessSnapshot snapshot) {
+        ProcessJournalEntry entry = get(id);
+        if (entry == null && id != null) {
+            entry = getForeignEntries().get(id);
+        }
+
+        if (entry == null) {
+            return null;
+        }
+
+        return entry.isValid(snapshot);
+    }
+
+
+    /**
+     * Maintain the journal: drop ended runs whose lock expired and whose script folder is reaped, end the runs taken over from crashed JVMs which are not
+     * valid anymore, take over the journals of crashed JVMs and compact the journal file.
+     */
+    public synchronized void maintain() {
+        if (journalFile == null) {
+            return;
+        }
+
+        entryMap.values().removeIf(ProcessJournal::isExpired);
+        endRecoveredRuns();
+        recover();
+
+        if (journalFile.getRecordCount() > 2 * entryMap.size() + COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+
+
+    /**
+     * Compact the journal file: it only keeps the records of the runs in memory
+     */
+    public synchronized void compact() {
+        if (journalFile == null) {
+            return;
+        }
+
+        List<byte[]> payloadList = new ArrayList<>();
+        for (ProcessJournalEntry entry : entryMap.values()) {
+            payloadList.addAll(encode(entry));
+        }
+
+        try {
+            int recordCount = journalFile.getRecordCount();
+            journalFile.replace(payloadList);
+            LOG.debug("Compacted journal [" + journalFile.getFile() + "] from " + recordCount + " to " + payloadList.size() + " records.");
+        } catch (IOException e) {
+            LOG.info("Could not compact journal [" + journalFile.getFile() + "]: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * Get the journal file of this JVM
+     *
+     * @return the journal file or null if it is not open
+     */
+    public synchronized Path getJournalFile() {
+        if (journalFile == null) {
+            return null;
+        }
+
+        return journalFile.getFile();
+    }
+
+
+    /**
+     * Get the number of runs of this JVM in memory
+     *
+     * @return the number of runs
+     */
+    public int size() {
+        return entryMap.size();
+    }
+
+
+    /**
+     * Close the journal. In case there are no more running or locked runs the journal is deleted, otherwise it is kept for the next JVM.
+     */
+    public synchronized void close() {
+        if (journalFile == null) {
+            return;
+        }
+
+        try {
+            entryMap.values().removeIf(e -> e.isEnded() && !e.isLocked());
+            journalFile.close();
+            if (entryMap.isEmpty()) {
+                Files.deleteIfExists(journalFile.getFile());
+            }
+
+            lock.release();
+            lockChannel.close();
+            if (entryMap.isEmpty()) {
+                Files.deleteIfExists(journalPath.resolve(name + LOCK_FILE_EXTENSION));
+            }
+        } catch (IOException e) {
+            LOG.debug("Could not close journal: " + e.getMessage(), e);
+        } finally {
+            journalFile = null;
+            lockChannel = null;
+            lock = null;
+            entryMap.clear();
+            recoveredIdSet.clear();
+        }
+    }
+
+
+    /**
+     * Load the runs of a journal file
+     *
+     * @param file the journal file
+     * @return the runs which have not ended, are locked or have a script folder
+     * @throws IOException In case of an I/O error
+     */
+    public static Map<String, ProcessJournalEntry> load(Path file) throws IOException {
+        Map<String, ProcessJournalEntry> result = new LinkedHashMap<>();
+        for (ByteBuffer payload : ProcessJournalFile.read(file)) {
+            byte type = payload.get();
+            String id = readString(payload);
+            if (type == START) {
+                long pid = payload.getLong();
+                long start = payload.getLong();
+                long lockTimeoutMillis = payload.getLong();
+                String scriptPathName = readString(payload);
+
+                Instant lockTimeout = null;
+                if (lockTimeoutMillis >= 0) {
+                    lockTimeout = Instant.ofEpochMilli(lockTimeoutMillis);
+                }
+
+                Path scriptPath = null;
+                if (!scriptPathName.isEmpty()) {
+                    scriptPath = Paths.get(scriptPathName);
+                }
+
+                ProcessJournalEntry entry = result.get(id);
+                if (entry == null) {
+                    entry = new ProcessJournalEntry(id, scriptPath, Collections.emptyList(), Collections.emptyList(), lockTimeout, null);
+                }
+
+                result.put(id, entry.addProcess(pid, start, scriptPath, lockTimeout));
+            } else if (type == END) {
+                int exitValue = payload.getInt();
+                ProcessJournalEntry entry = result.get(id);
+                if (entry != null) {
+                    result.put(id, entry.end(exitValue));
+                }
+            }
+        }
+
+        result.values().removeIf(ProcessJournal::isExpired);
+        return result;
+    }
+
+
+    /**
+     * Open the journal of this JVM in the journal folder of the current script folder base path
+     *
+     * @throws IOException In case of an I/O error
+     */
+    private void open() throws IOException {
+        Path path = SystemCommandExecuterFactory.getInstance().getScriptFolderBasePath().resolve(JOURNAL_FOLDER_NAME);
+        if (journalFile != null) {
+            if (path.equals(journalPath)) {
+                return;
+            }
+
+            close();
+        }
+
+        Files.createDirectories(path);
+        journalPath = path;
+        name = ProcessHandle.current().pid() + "-" + System.currentTimeMillis();
+        lockChannel = FileChannel.open(journalPath.resolve(name + LOCK_FILE_EXTENSION), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        lock = lockChannel.lock();
+        journalFile = new ProcessJournalFile(journalPath.resolve(name + JOURNAL_FILE_EXTENSION), INITIAL_CAPACITY);
+        LOG.info("Open process journal [" + journalFile.getFile() + "].");
+        recover();
+    }
+
+
+    /**
+     * Take over the journals of crashed JVMs: the lock file of their journal is not locked anymore.
+     */
+    private void recover() {
+        for (Path lockFile : listJournalFolder(LOCK_FILE_EXTENSION)) {
+            String lockFileName = lockFile.getFileName().toString();
+            String foreignName = lockFileName.substring(0, lockFileName.length() - LOCK_FILE_EXTENSION.length());
+            if (foreignName.equals(name)) {
+                continue;
+            }
+
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.WRITE)) {
+                FileLock foreignLock = channel.tryLock();
+                if (foreignLock == null) {
+                    // the JVM is alive
+                    continue;
+                }
+
+                try {
+                    Path foreignJournal = journalPath.resolve(foreignName + JOURNAL_FILE_EXTENSION);
+                    recover(foreignJournal);
+                    Files.deleteIfExists(foreignJournal);
+                } finally {
+                    foreignLock.release();
+                }
+            } catch (OverlappingFileLockException e) {
+                // locked by this JVM
+                continue;
+            } catch (IOException e) {
+                LOG.debug("Could not recover journal [" + lockFile + "]: " + e.getMessage());
+                continue;
+            }
+
+            try {
+                Files.deleteIfExists(lockFile);
+            } catch (IOException e) {
+                LOG.debug("Could not delete [" + lockFile + "]: " + e.getMessage());
+            }
+        }
+    }
+
+
+    /**
+     * Take over the journal of a crashed JVM
+     *
+     * @param foreignJournal the journal file
+     * @throws IOException In case of an I/O error
+     */
+    private void recover(Path foreignJournal) throws IOException {
+        List<Path> scriptPathList = new ArrayList<>();
+        for (ProcessJournalEntry entry : load(foreignJournal).values()) {
+            if (entry.isValid()) {
+                LOG.info("Take over run of a crashed JVM (id:" + entry.getId() + ", pid:" + entry.getProcessIds() + ").");
+                for (byte[] payload : encode(entry)) {
+                    journalFile.append(payload);
+                }
+
+                entryMap.put(entry.getId(), entry);
+                recoveredIdSet.add(entry.getId());
+            } else if (entry.getScriptPath() != null) {
+                LOG.info("Reap run of a crashed JVM (id:" + entry.getId() + ", script:" + entry.getScriptPath() + ").");
+                scriptPathList.add(entry.getScriptPath());
+            }
+        }
+
+        if (!scriptPathList.isEmpty()) {
+            FolderDeleteService.getInstance().delete(scriptPathList);
+        }
+    }
+
+
+    /**
+     * End the runs which are taken over from crashed JVMs and are not valid anymore: there is no process of this JVM
+     * which records their end. The exit value is not known and their script folders are reaped.
+     */
+    private void endRecoveredRuns() {
+        if (recoveredIdSet.isEmpty()) {
+            return;
+        }
+
+        ProcessLivenessSnapshot snapshot = ProcessLivenessSnapshot.create();
+        List<Path> scriptPathList = new ArrayList<>();
+        Iterator<String> it = recoveredIdSet.iterator();
+        while (it.hasNext()) {
+            ProcessJournalEntry entry = entryMap.get(it.next());
+            if (entry == null || entry.isEnded()) {
+                it.remove();
+            } else if (!entry.isValid(snapshot)) {
+                LOG.info("End run of a crashed JVM (id:" + entry.getId() + ", pid:" + entry.getProcessIds() + ").");
+                it.remove();
+                end(entry.getId(), UNKNOWN_EXIT_VALUE);
+                if (entry.getScriptPath() != null) {
+                    scriptPathList.add(entry.getScriptPath());
+                }
+            }
+        }
+
+        if (!scriptPathList.isEmpty()) {
+            FolderDeleteService.getInstance().delete(scriptPathList);
+        }
+    }
+
+
+    /**
+     * Get the runs of the journals of other JVMs. They are read at most every 5 seconds.
+     *
+     * @return the runs of other JVMs
+     */
+    private Map<String, ProcessJournalEntry> getForeignEntries() {
+        long now = System.currentTimeMillis();
+        if (now - foreignRefreshTimestamp < FOREIGN_REFRESH_PERIOD) {
+            return foreignEntryMap;
+        }
+
+        Map<String, ProcessJournalEntry> result = new HashMap<>();
+        String ownJournalName = null;
+        synchronized (this) {
+            if (journalFile != null) {
+                ownJournalName = journalFile.getFile().getFileName().toString();
+            }
+        }
+
+        for (Path file : listJournalFolder(JOURNAL_FILE_EXTENSION)) {
+            if (!file.getFileName().toString().equals(ownJournalName)) {
+                try {
+                    result.putAll(load(file));
+                } catch (IOException e) {
+                    LOG.debug("Could not read journal [" + file + "]: " + e.getMessage());
+                }
+            }
+        }
+
+        foreignEntryMap = result;
+        foreignRefreshTimestamp = now;
+        return result;
+    }
+
+
+    /**
+     * List the files of the journal folder
+     *
+     * @param extension the file extension
+     * @return the files
+     */
+    private List<Path> listJournalFolder(String extension) {
+        Path path = journalPath;
+        if (path == null) {
+            path = SystemCommandExecuterFactory.getInstance().getScriptFolderBasePath().resolve(JOURNAL_FOLDER_NAME);
+        }
+
+        if (!Files.isDirectory(path)) {
+            return Collections.emptyList();
+        }
+
+        try (Stream<Path> stream = Files.list(path)) {
+            return stream.filter(p -> p.getFileName().toString().endsWith(extension)).collect(Collectors.toList());
+        } catch (IOException e) {
+            LOG.debug("Could not list journal folder [" + path + "]: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+
+    /**
+     * Check if a run can be dropped: it has ended, it is not locked and its script folder is reaped
+     *
+     * @param entry the run
+     * @return true if the run can be dropped
+     */
+    private static boolean isExpired(ProcessJournalEntry entry) {
+        return entry.isEnded() && !entry.isLocked() && (entry.getScriptPath() == null || !Files.isDirectory(entry.getScriptPath()));
+    }
+
+
+    /**
+     * Encode a run
+     *
+     * @param entry the run
+     * @return the records
+     */
+    private static List<byte[]> encode(ProcessJournalEntry entry) {
+        List<byte[]> result = new ArrayList<>();
+        for (int i = 0; i < entry.getProcessIds().size(); i++) {
+            result.add(encodeStart(entry.getId(), entry.getScriptPath(), entry.getProcessIds().get(i), entry.getStartTimes().get(i), entry.getLockTimeout()));
+        }
+
+        if (entry.isEnded()) {
+            result.add(encodeEnd(entry.getId(), entry.getExitValue()));
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Encode a start record
+     *
+     * @param id the id
+     * @param scriptPath the script path or null
+     * @param pid the process id
+     * @param start the start time in milliseconds
+     * @param lockTimeout the lock timeout or null
+     * @return the record
+     */
+    static byte[] encodeStart(String id, Path scriptPath, long pid, long start, Instant lockTimeout) {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        byte[] scriptPathBytes = new byte[0];
+        if (scriptPath != null) {
+            scriptPathBytes = scriptPath.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        long lockTimeoutMillis = -1;
+        if (lockTimeout != null) {
+            lockTimeoutMillis = lockTimeout.toEpochMilli();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + idBytes.length + 8 + 8 + 8 + 2 + scriptPathBytes.length);
+        buffer.put(START);
+        buffer.putShort((short)idBytes.length).put(idBytes);
+        buffer.putLong(pid).putLong(start).putLong(lockTimeoutMillis);
+        buffer.putShort((short)scriptPathBytes.length).put(scriptPathBytes);
+        return buffer.array();
+    }
+
+
+    /**
+     * Encode an end record
+     *
+     * @param id the id
+     * @param exitValue the exit value
+     * @return the record
+     */
+    static byte[] encodeEnd(String id, int exitValue) {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + idBytes.length + 4);
+        buffer.put(END);
+        buffer.putShort((short)idBytes.length).put(idBytes);
+        buffer.putInt(exitValue);
+        return buffer.array();
+    }
+
+
+    /**
+     * Read a string
+     *
+     * @param buffer the buffer
+     * @return the string
+     */
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
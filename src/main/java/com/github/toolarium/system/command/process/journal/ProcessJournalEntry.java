@@ -0,0 +1,255 @@
+/*
+ * ProcessJournalEntry.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.journal;
+
+import com.github.toolarium.system.command.process.util.ProcessLivenessSnapshot;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * An immutable run of the {@link ProcessJournal}: the run id, the process ids with their start time, the lock timeout and the exit value.
+ *
+ * @author patrick
+ */
+public final class ProcessJournalEntry {
+    private final String id;
+    private final Path scriptPath;
+    private final List<Long> pidList;
+    private final List<Long> startTimeList;
+    private final Instant lockTimeout;
+    private final Integer exitValue;
+
+
+    /**
+     * Constructor for ProcessJournalEntry
+     *
+     * @param id the id of the system command group list
+     * @param scriptPath the script path or null
+     * @param pidList the process ids
+     * @param startTimeList the start time of the processes in milliseconds, 0 if it is unknown
+     * @param lockTimeout the lock timeout or null
+     * @param exitValue the exit value or null if the run has not ended
+     */
+    ProcessJournalEntry(String id, Path scriptPath, List<Long> pidList, List<Long> startTimeList, Instant lockTimeout, Integer exitValue) {
+        this.id = id;
+        this.scriptPath = scriptPath;
+        this.pidList = Collections.unmodifiableList(pidList);
+        this.startTimeList = Collections.unmodifiableList(startTimeList);
+        this.lockTimeout = lockTimeout;
+        this.exitValue = exitValue;
+    }
+
+
+    /**
+     * Get the id of the system command group list
+     *
+     * @return the id
+     */
+    public String getId() {
+        return id;
+    }
+
+
+    /**
+     * Get the script path
+     *
+     * @return the script path or null
+     */
+    public Path getScriptPath() {
+        return scriptPath;
+    }
+
+
+    /**
+     * Get the process ids
+     *
+     * @return the process ids
+     */
+    public List<Long> getProcessIds() {
+        return pidList;
+    }
+
+
+    /**
+     * Get the start time of the processes
+     *
+     * @return the start time of the processes in milliseconds, 0 if it is unknown
+     */
+    public List<Long> getStartTimes() {
+        return startTimeList;
+    }
+
+
+    /**
+     * Get the lock timeout
+     *
+     * @return the lock timeout or null
+     */
+    public Instant getLockTimeout() {
+        return lockTimeout;
+    }
+
+
+    /**
+     * Get the exit value
+     *
+     * @return the exit value or null if the run has not ended
+     */
+    public Integer getExitValue() {
+        return exitValue;
+    }
+
+
+    /**
+     * Check if the run has ended
+     *
+     * @return true if the run has ended
+     */
+    public boolean isEnded() {
+        return exitValue != null;
+    }
+
+
+    /**
+     * Check if the lock of the run is valid
+     *
+     * @return true if the lock timeout is in the future
+     */
+    public boolean isLocked() {
+        return lockTimeout != null && Instant.now().isBefore(lockTimeout);
+    }
+
+
+    /**
+     * Check if at least one process of the run is running. A reused process id is detected by the start time.
+     *
+     * @return true if at least one process is running
+     */
+    public boolean isRunning() {
+        return isRunning(null);
+    }
+
+
+    /**
+     * Check if at least one process of the run is running. A reused process id is detected by the start time.
+     *
+     * @param snapshot the snapshot of the living processes or null to check every process on its own
+     * @return true if at least one process is running
+     */
+    public boolean isRunning(ProcessLivenessSnapshot snapshot) {
+        if (isEnded()) {
+            return false;
+        }
+
+        for (int i = 0; i < pidList.size(); i++) {
+            boolean isRunning;
+            if (snapshot == null) {
+                isRunning = isRunning(pidList.get(i), startTimeList.get(i));
+            } else {
+                isRunning = snapshot.isRunning(pidList.get(i), startTimeList.get(i));
+            }
+
+            if (isRunning) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Check if the run is valid: it is running or locked
+     *
+     * @return true if the run is valid
+     */
+    public boolean isValid() {
+        return isValid(null);
+    }
+
+
+    /**
+     * Check if the run is valid: it is running or locked
+     *
+     * @param snapshot the snapshot of the living processes or null to check every process on its own
+     * @return true if the run is valid
+     */
+    public boolean isValid(ProcessLivenessSnapshot snapshot) {
+        return isLocked() || isRunning(snapshot);
+    }
+
+
+    /**
+     * Add a process
+     *
+     * @param pid the process id
+     * @param startTime the start time in milliseconds or 0
+     * @param inputScriptPath the script path or null
+     * @param inputLockTimeout the lock timeout or null
+     * @return the new entry
+     */
+    ProcessJournalEntry addProcess(long pid, long startTime, Path inputScriptPath, Instant inputLockTimeout) {
+        List<Long> newPidList = new ArrayList<>(pidList);
+        newPidList.add(pid);
+        List<Long> newStartTimeList = new ArrayList<>(startTimeList);
+        newStartTimeList.add(startTime);
+
+        Path newScriptPath = scriptPath;
+        if (newScriptPath == null) {
+            newScriptPath = inputScriptPath;
+        }
+
+        return new ProcessJournalEntry(id, newScriptPath, newPidList, newStartTimeList, inputLockTimeout, exitValue);
+    }
+
+
+    /**
+     * End the run
+     *
+     * @param inputExitValue the exit value
+     * @return the new entry
+     */
+    ProcessJournalEntry end(int inputExitValue) {
+        return new ProcessJournalEntry(id, scriptPath, pidList, startTimeList, lockTimeout, inputExitValue);
+    }
+
+
+    /**
+     * Check if a process is running
+     *
+     * @param pid the process id
+     * @param startTime the start time in milliseconds or 0
+     * @return true if it is running
+     */
+    public static boolean isRunning(long pid, long startTime) {
+        Optional<ProcessHandle> processHandle = ProcessHandle.of(pid);
+        if (processHandle.isEmpty() || !processHandle.get().isAlive()) {
+            return false;
+        }
+
+        if (startTime <= 0) {
+            return true;
+        }
+
+        // the process id can be reused by the operating system
+        Optional<Instant> startInstant = processHandle.get().info().startInstant();
+        return startInstant.isEmpty() || Math.abs(startInstant.get().toEpochMilli() - startTime) <= ProcessLivenessSnapshot.START_TIME_TOLERANCE;
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "ProcessJournalEntry [id=" + id + ", scriptPath=" + scriptPath + ", pidList=" + pidList + ", lockTimeout=" + lockTimeout + ", exitValue=" + exitValue + "]";
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * ProcessJournalFile.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * An append-only, memory mapped journal file. Every record is framed by its length and a CRC32 checksum of the payload;
+ * the length is written last, a record which is not completely written is ignored on read.
+ *
+ * @author patrick
+ */
+public final class ProcessJournalFile implements Closeable {
+    /** The size of the frame header: the length and the checksum */
+    public static final int FRAME_HEADER_SIZE = 8;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProcessJournalFile.class);
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private int recordCount;
+
+
+    /**
+     * Constructor for ProcessJournalFile: creates a new empty journal file
+     *
+     * @param file the file
+     * @param capacity the initial capacity in bytes
+     * @throws IOException In case of an I/O error
+     */
+    public ProcessJournalFile(Path file, int capacity) throws IOException {
+        this.file = file;
+        Files.deleteIfExists(file);
+        map(capacity);
+        this.position = 0;
+        this.recordCount = 0;
+    }
+
+
+    /**
+     * Append a record
+     *
+     * @param payload the payload
+     * @throws IOException In case of an I/O error
+     */
+    public synchronized void append(byte[] payload) throws IOException {
+        if (channel == null) {
+            throw new IllegalStateException("Journal file [" + file + "] is closed!");
+        }
+
+        int required = position + FRAME_HEADER_SIZE + payload.length + FRAME_HEADER_SIZE;
+        if (required > buffer.capacity()) {
+            int capacity = buffer.capacity();
+            while (capacity < required) {
+                capacity *= 2;
+            }
+
+            LOG.debug("Grow journal file [" + file + "] to " + capacity + " bytes.");
+            map(capacity);
+        }
+
+        buffer.position(position + FRAME_HEADER_SIZE);
+        buffer.put(payload);
+        buffer.putInt(position + 4, checksum(payload, 0, payload.length));
+        buffer.putInt(position, payload.length);
+        position += FRAME_HEADER_SIZE + payload.length;
+        recordCount++;
+    }
+
+
+    /**
+     * Replace the content of the journal by the given records. The records are written into a temporary file which replaces the journal atomically.
+     *
+     * @param payloadList the records
+     * @throws IOException In case of an I/O error
+     */
+    public synchronized void replace(List<byte[]> payloadList) throws IOException {
+        int size = FRAME_HEADER_SIZE;
+        for (byte[] payload : payloadList) {
+            size += FRAME_HEADER_SIZE + payload.length;
+        }
+
+        int capacity = Math.max(buffer.capacity() / 2, 4096);
+        while (capacity < size) {
+            capacity *= 2;
+        }
+
+        ByteBuffer content = ByteBuffer.allocate(capacity);
+        for (byte[] payload : payloadList) {
+            content.putInt(payload.length);
+            content.putInt(checksum(payload, 0, payload.length));
+            content.put(payload);
+        }
+
+        int newPosition = content.position();
+        content.clear();
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel tempChannel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (content.hasRemaining()) {
+                tempChannel.write(content);
+            }
+
+            tempChannel.force(true);
+        }
+
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+
+        channel.close();
+        channel = null;
+        map(capacity);
+        position = newPosition;
+        recordCount = payloadList.size();
+    }
+
+
+    /**
+     * Get the file
+     *
+     * @return the file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+
+    /**
+     * Get the number of records
+     *
+     * @return the number of records
+     */
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+
+    /**
+     * Get the size of the written records in bytes
+     *
+     * @return the size in bytes
+     */
+    public synchronized int getSize() {
+        return position;
+    }
+
+
+    /**
+     * Get the capacity of the file
+     *
+     * @return the capacity in bytes
+     */
+    public synchronized int getCapacity() {
+        return buffer.capacity();
+    }
+
+
+    /**
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            buffer.force();
+            channel.close();
+            channel = null;
+        }
+    }
+
+
+    /**
+     * Read all complete records of a journal file
+     *
+     * @param file the file
+     * @return the payload of the records
+     * @throws IOException In case of an I/O error
+     */
+    public static List<ByteBuffer> read(Path file) throws IOException {
+        List<ByteBuffer> result = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return result;
+        }
+
+        byte[] content = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        while (buffer.remaining() >= FRAME_HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining() || checksum != checksum(content, start + FRAME_HEADER_SIZE, length)) {
+                // end of the journal or a record which is not completely written
+                break;
+            }
+
+            result.add(ByteBuffer.wrap(content, start + FRAME_HEADER_SIZE, length).slice());
+            buffer.position(start + FRAME_HEADER_SIZE + length);
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Map the file
+     *
+     * @param capacity the capacity
+     * @throws IOException In case of an I/O error
+     */
+    private void map(int capacity) throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+
+    /**
+     * Calculate the checksum
+     *
+     * @param content the content
+     * @param offset the offset
+     * @param length the length
+     * @return the checksum
+     */
+    private static int checksum(byte[] content, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(content, offset, length);
+        return (int)crc.getValue();
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * ProcessLatencyTracker.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.latency;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Tracks the latency of the recent successful executions per command template. The command template is the
+ * command as string without the process environment.
+ *
+ * @author patrick
+ */
+public final class ProcessLatencyTracker {
+    /** The number of latencies which are kept per command template */
+    public static final int HISTORY_SIZE = 100;
+
+    /** The minimal number of latencies which are needed to calculate a percentile */
+    public static final int MIN_SAMPLES = 5;
+
+    /** The maximum number of tracked command templates */
+    public static final int MAX_TEMPLATES = 1000;
+
+    private Map<String, LatencyHistory> latencyMap;
+
+
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final ProcessLatencyTracker INSTANCE = new ProcessLatencyTracker();
+    }
+
+
+    /**
+     * Constructor
+     */
+    private ProcessLatencyTracker() {
+        latencyMap = new LinkedHashMap<String, LatencyHistory>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            /**
+             * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+             */
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LatencyHistory> eldest) {
+                return size() > MAX_TEMPLATES;
+            }
+        };
+    }
+
+
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static ProcessLatencyTracker getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+
+    /**
+     * Record the latency of a successful execution
+     *
+     * @param template the command template
+     * @param latencyInMilliseconds the latency in milliseconds
+     */
+    public void record(String template, long latencyInMilliseconds) {
+        if (template == null) {
+            return;
+        }
+
+        LatencyHistory history;
+        synchronized (latencyMap) {
+            history = latencyMap.computeIfAbsent(template, k -> new LatencyHistory());
+        }
+
+        history.add(latencyInMilliseconds);
+    }
+
+
+    /**
+     * Get the latency percentile of a command template
+     *
+     * @param template the command template
+     * @param percentile the percentile, e.g. 95
+     * @return the latency in milliseconds or null if there are not enough samples
+     * @throws IllegalArgumentException In case of an invalid percentile
+     */
+    public Long getPercentile(String template, double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile [" + percentile + "]!");
+        }
+
+        LatencyHistory history;
+        synchronized (latencyMap) {
+            history = latencyMap.get(template);
+        }
+
+        if (history == null) {
+            return null;
+        }
+
+        return history.getPercentile(percentile);
+    }
+
+
+    /**
+     * Remove the history of a command template
+     *
+     * @param template the command template
+     */
+    public void reset(String template) {
+        synchronized (latencyMap) {
+            latencyMap.remove(template);
+        }
+    }
+
+
+    /**
+     * The latency history as ring buffer
+     *
+     * @author patrick
+     */
+    private static class LatencyHistory {
+        private final long[] latencies;
+        private int count;
+        private int position;
+
+
+        /**
+         * Constructor for LatencyHistory
+         */
+        LatencyHistory() {
+            latencies = new long[HISTORY_SIZE];
+            count = 0;
+            position = 0;
+        }
+
+
+        /**
+         * Add a latency
+         *
+         * @param latency the latency
+         */
+        public synchronized void add(long latency) {
+            latencies[position] = latency;
+            position = (position + 1) % latencies.length;
+            if (count < latencies.length) {
+                count++;
+            }
+        }
+
+
+        /**
+         * Get the percentile
+         *
+         * @param percentile the percentile
+         * @return the percentile or null if there are not enough samples
+         */
+        public Long getPercentile(double percentile) {
+            long[] sorted;
+            synchronized (this) {
+                if (count < MIN_SAMPLES) {
+                    return null;
+                }
+
+                sorted = Arrays.copyOf(latencies, count);
+            }
+
+            Arrays.sort(sorted);
+            int index = (int)Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
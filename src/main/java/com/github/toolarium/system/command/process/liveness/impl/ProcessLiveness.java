@@ -5,14 +5,20 @@
  */
 package com.github.toolarium.system.command.process.liveness.impl;
 
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.process.folder.ProcessFolderRegistry;
+import com.github.toolarium.system.command.process.journal.ProcessJournal;
 import com.github.toolarium.system.command.process.liveness.IProcessLiveness;
 import com.github.toolarium.system.command.process.stream.IProcessOutputStream;
 import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
+import com.github.toolarium.system.command.process.util.ProcessIdRegistry;
+import com.github.toolarium.system.command.process.util.ScriptUtil;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,6 +59,30 @@ public class ProcessLiveness implements IProcessLiveness, Runnable {
                            final Path scriptPath,
                            final Instant lockTimeout,
                            long pollTimeout) {
+        this(id, processList, outputStream, errorStream, scriptPath, lockTimeout, pollTimeout, false);
+    }
+
+
+    /**
+     * Constructor for ProcessLiveness
+     * 
+     * @param id the id 
+     * @param processList the process list
+     * @param outputStream the output stream
+     * @param errorStream the error output stream
+     * @param scriptPath the script path
+     * @param lockTimeout the lock timeout
+     * @param pollTimeout the poll timeout, e.g. 10
+     * @param detached true if the output of the process is redirected into the script path, it is followed until the process ends
+     */
+    public ProcessLiveness(String id, 
+                           final List<Process> processList, 
+                           final IProcessOutputStream outputStream, 
+                           final IProcessOutputStream errorStream,
+                           final Path scriptPath,
+                           final Instant lockTimeout,
+                           long pollTimeout,
+                           boolean detached) {
         this.id = id;
         this.processList = processList;
         Process process = getProcess();
@@ -60,29 +90,40 @@ public class ProcessLiveness implements IProcessLiveness, Runnable {
         if (outputStream != null && process != null) {
             File file = null;
             if (scriptPath != null) {
-                file = new File(scriptPath + "/" + id + ".out");
+                file = ScriptUtil.getInstance().getOutputFile(scriptPath, id).toFile();
+            }
+            
+            if (detached) {
+                this.outputStream = new ProcessStreamConsumer(null, outputStream, file, process.toHandle());
+            } else {
+                this.outputStream = new ProcessStreamConsumer(new BufferedInputStream(process.getInputStream()), outputStream, file);
             }
-            this.outputStream = new ProcessStreamConsumer(new BufferedInputStream(process.getInputStream()), outputStream, file);
         }
             
         if (errorStream != null && process != null) {
             File file = null;
             if (scriptPath != null) {
-                file = new File(scriptPath + "/" + id + ".err");
+                file = ScriptUtil.getInstance().getErrorFile(scriptPath, id).toFile();
             }
             
-            this.errorStream = new ProcessStreamConsumer(new BufferedInputStream(process.getErrorStream()), errorStream, file);
+            if (detached) {
+                this.errorStream = new ProcessStreamConsumer(null, errorStream, file, process.toHandle());
+            } else {
+                this.errorStream = new ProcessStreamConsumer(new BufferedInputStream(process.getErrorStream()), errorStream, file);
+            }
         }
         
         this.scriptPath = scriptPath;
         this.lockTimeout = lockTimeout;
         this.pollTimeout = pollTimeout;
         this.isAlive = true;
-        if (process == null || process.info() == null || process.info().startInstant().isEmpty()) {
-            startupTime = Instant.now();            
-        } else {
-            startupTime = getProcess().info().startInstant().get();
+        Optional<Instant> startInstant = Optional.empty();
+        if (process != null && process.info() != null) {
+            startInstant = process.info().startInstant();
         }
+
+        // the process info is only read once, a short running process may already be ended on a second read
+        startupTime = startInstant.orElseGet(Instant::now);
     }
 
 
@@ -125,13 +166,39 @@ public class ProcessLiveness implements IProcessLiveness, Runnable {
             LOG.info("Process ended (id:" + id + ", pid:" + process.pid() + ")");
         }
         
+        ProcessIdRegistry.getInstance().unregister(id);
+        ProcessJournal.getInstance().end(id, getExitValue(process));
+
         if ((lockTimeout == null || Instant.now().isAfter(lockTimeout)) && scriptPath != null && scriptPath.toFile().exists()) {
             LOG.debug("Delete script path [" + scriptPath + "]...");
             ProcessStreamUtil.getInstance().deleteDirectory(scriptPath);
+            ProcessFolderRegistry.getInstance().unregister(scriptPath);
+
+            Path inputPath = SystemCommandExecuterFactory.getInstance().getInputFolderPath(scriptPath);
+            if (!scriptPath.equals(inputPath) && inputPath.toFile().exists()) {
+                LOG.debug("Delete input path [" + inputPath + "]...");
+                ProcessStreamUtil.getInstance().deleteDirectory(inputPath);
+                ProcessFolderRegistry.getInstance().unregister(inputPath);
+            }
         }
     }
 
     
+    /**
+     * Get the exit value of an ended process
+     *
+     * @param process the process
+     * @return the exit value or -1 if it is not available
+     */
+    private int getExitValue(Process process) {
+        try {
+            return process.exitValue();
+        } catch (IllegalThreadStateException e) {
+            return -1;
+        }
+    }
+
+
     /**
      * Read available bytes
      * 
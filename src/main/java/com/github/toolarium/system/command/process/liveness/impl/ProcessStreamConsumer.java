@@ -29,6 +29,8 @@ public class ProcessStreamConsumer {
     private long totalBytes;
     private File optionalSourceFile;
     private InputStream optionalSource;
+    private ProcessHandle followedProcess;
+    private boolean followedProcessEnded;
 
     
     /**
@@ -44,6 +46,22 @@ public class ProcessStreamConsumer {
         this.totalBytes = 0;
         this.optionalSourceFile = optionalSourceFile;
         this.optionalSource = null;
+        this.followedProcess = null;
+        this.followedProcessEnded = false;
+    }
+
+    
+    /**
+     * Constructor for ProcessStreamConsumer: the optional source file is followed as long as the given process is alive.
+     *
+     * @param source the input stream or null
+     * @param processOutputStream the process output stream
+     * @param optionalSourceFile the optional source file
+     * @param followedProcess the process which writes into the optional source file
+     */
+    public ProcessStreamConsumer(InputStream source, IProcessOutputStream processOutputStream, File optionalSourceFile, ProcessHandle followedProcess) {
+        this(source, processOutputStream, optionalSourceFile);
+        this.followedProcess = followedProcess;
     }
 
     
@@ -67,15 +85,15 @@ public class ProcessStreamConsumer {
             prepareOptionalSource();
             if (optionalSource != null) {
                 int optionalResult = ProcessStreamUtil.getInstance().pipeAvailableBytes(optionalSource, processOutputStream);
-                if (optionalResult == -1) {
+                if (optionalResult == -1 && followedProcess == null) {
                     optionalSource = closeInputstream(optionalSource);
-                } else {
+                } else if (optionalResult > 0) {
                     addTotalBytes(optionalResult);
                     result += optionalResult;
                 }
             }
 
-            if (source == null && optionalSource == null) {
+            if (source == null && (optionalSource == null || followedProcess != null) && !isFollowing()) {
                 close();
             }
 
@@ -142,6 +160,27 @@ public class ProcessStreamConsumer {
     }
 
 
+    /**
+     * Check if the optional source file is followed: the followed process is alive. After the end of the process the file is 
+     * read once more, the last bytes can be written between the end of the file and the end of the process.
+     *
+     * @return true if the optional source file is followed
+     */
+    private boolean isFollowing() {
+        if (followedProcess == null) {
+            return false;
+        }
+        
+        if (followedProcess.isAlive()) {
+            return true;
+        }
+        
+        boolean result = !followedProcessEnded;
+        followedProcessEnded = true;
+        return result;
+    }
+
+    
     /**
      * Prepare the optional source
      */
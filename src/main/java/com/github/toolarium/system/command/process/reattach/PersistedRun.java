@@ -0,0 +1,155 @@
+/*
+ * PersistedRun.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.reattach;
+
+import com.github.toolarium.system.command.process.journal.ProcessJournalEntry;
+import com.github.toolarium.system.command.process.util.ScriptUtil;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+
+/**
+ * An immutable run which is persisted in the script folder or the process journal: the run id, the script path and the
+ * process ids with their start time. The persisted output of a detached run is in the script path.
+ *
+ * @author patrick
+ */
+public final class PersistedRun {
+    private final String id;
+    private final Path scriptPath;
+    private final List<Long> pidList;
+    private final List<Long> startTimeList;
+    private final Integer exitValue;
+
+
+    /**
+     * Constructor for PersistedRun
+     *
+     * @param id the id of the system command group list
+     * @param scriptPath the script path
+     * @param pidList the process ids
+     * @param startTimeList the start time of the processes in milliseconds, 0 if it is unknown
+     * @param exitValue the exit value or null if it is not known
+     */
+    public PersistedRun(String id, Path scriptPath, List<Long> pidList, List<Long> startTimeList, Integer exitValue) {
+        if (id == null || scriptPath == null || pidList == null || startTimeList == null || pidList.size() != startTimeList.size()) {
+            throw new IllegalArgumentException("Invalid persisted run parameters!");
+        }
+
+        this.id = id;
+        this.scriptPath = scriptPath;
+        this.pidList = Collections.unmodifiableList(pidList);
+        this.startTimeList = Collections.unmodifiableList(startTimeList);
+        this.exitValue = exitValue;
+    }
+
+
+    /**
+     * Get the id of the system command group list
+     *
+     * @return the id
+     */
+    public String getId() {
+        return id;
+    }
+
+
+    /**
+     * Get the script path
+     *
+     * @return the script path
+     */
+    public Path getScriptPath() {
+        return scriptPath;
+    }
+
+
+    /**
+     * Get the process ids
+     *
+     * @return the process ids
+     */
+    public List<Long> getProcessIds() {
+        return pidList;
+    }
+
+
+    /**
+     * Get the start time of the processes
+     *
+     * @return the start time of the processes in milliseconds, 0 if it is unknown
+     */
+    public List<Long> getStartTimes() {
+        return startTimeList;
+    }
+
+
+    /**
+     * Get the exit value
+     *
+     * @return the exit value or null if it is not known
+     */
+    public Integer getExitValue() {
+        return exitValue;
+    }
+
+
+    /**
+     * Get the file of the persisted standard output
+     *
+     * @return the file
+     */
+    public Path getOutputFile() {
+        return ScriptUtil.getInstance().getOutputFile(scriptPath, id);
+    }
+
+
+    /**
+     * Get the file of the persisted standard error
+     *
+     * @return the file
+     */
+    public Path getErrorFile() {
+        return ScriptUtil.getInstance().getErrorFile(scriptPath, id);
+    }
+
+
+    /**
+     * Get the process handle of the last process of the run which is still running. A reused process id is detected by the start time.
+     *
+     * @return the process handle or empty if no process is running
+     */
+    public Optional<ProcessHandle> getProcessHandle() {
+        for (int i = pidList.size() - 1; i >= 0; i--) {
+            if (ProcessJournalEntry.isRunning(pidList.get(i), startTimeList.get(i))) {
+                return ProcessHandle.of(pidList.get(i));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+
+    /**
+     * Check if at least one process of the run is running
+     *
+     * @return true if at least one process is running
+     */
+    public boolean isRunning() {
+        return getProcessHandle().isPresent();
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "PersistedRun [id=" + id + ", scriptPath=" + scriptPath + ", pidList=" + pidList + ", exitValue=" + exitValue + "]";
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * PersistedRunLocator.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.reattach;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.process.folder.ScriptFolderLayout;
+import com.github.toolarium.system.command.process.journal.ProcessJournal;
+import com.github.toolarium.system.command.process.journal.ProcessJournalEntry;
+import com.github.toolarium.system.command.process.util.ScriptUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Locates the persisted runs: the runs of the {@link ProcessJournal} and the script folders with pid files.
+ *
+ * @author patrick
+ */
+public final class PersistedRunLocator {
+    private static final Logger LOG = LoggerFactory.getLogger(PersistedRunLocator.class);
+
+
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final PersistedRunLocator INSTANCE = new PersistedRunLocator();
+    }
+
+
+    /**
+     * Constructor
+     */
+    private PersistedRunLocator() {
+        // NOP
+    }
+
+
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static PersistedRunLocator getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+
+    /**
+     * List the persisted runs with at least one running process
+     *
+     * @return the running runs
+     */
+    public List<PersistedRun> listRunning() {
+        Map<String, PersistedRun> result = new LinkedHashMap<>();
+        for (ProcessJournalEntry entry : ProcessJournal.getInstance().getEntries()) {
+            if (entry.getScriptPath() != null && entry.isRunning()) {
+                result.put(entry.getId(), toPersistedRun(entry));
+            }
+        }
+
+        for (Path scriptPath : listScriptFolders()) {
+            String id = scriptPath.getFileName().toString();
+            if (!result.containsKey(id)) {
+                PersistedRun persistedRun = readScriptFolder(scriptPath);
+                if (persistedRun.isRunning()) {
+                    result.put(id, persistedRun);
+                }
+            }
+        }
+
+        return new ArrayList<>(result.values());
+    }
+
+
+    /**
+     * Get a persisted run, it is not necessary running
+     *
+     * @param id the id of the system command group list
+     * @return the persisted run or null if it is not known
+     */
+    public PersistedRun get(String id) {
+        if (id == null || id.isBlank()) {
+            return null;
+        }
+
+        for (ProcessJournalEntry entry : ProcessJournal.getInstance().getEntries()) {
+            if (entry.getId().equals(id) && entry.getScriptPath() != null) {
+                return toPersistedRun(entry);
+            }
+        }
+
+        Path basePath = SystemCommandExecuterFactory.getInstance().getScriptFolderBasePath();
+        List<Path> candidateList = new ArrayList<>();
+        candidateList.add(basePath.resolve(id));
+        for (Path directory : list(basePath)) {
+            if (ScriptFolderLayout.ofBucket(basePath, directory) != null) {
+                candidateList.add(directory.resolve(id));
+            }
+        }
+
+        for (Path scriptPath : candidateList) {
+            if (Files.isDirectory(scriptPath)) {
+                return readScriptFolder(scriptPath);
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Convert a run of the journal
+     *
+     * @param entry the run of the journal
+     * @return the persisted run
+     */
+    private PersistedRun toPersistedRun(ProcessJournalEntry entry) {
+        return new PersistedRun(entry.getId(), entry.getScriptPath(), entry.getProcessIds(), entry.getStartTimes(), entry.getExitValue());
+    }
+
+
+    /**
+     * Read the pid files of a script folder. The start time of the processes is not known.
+     *
+     * @param scriptPath the script path
+     * @return the persisted run
+     */
+    private PersistedRun readScriptFolder(Path scriptPath) {
+        List<Long> pidList = new ArrayList<>();
+        List<Long> startTimeList = new ArrayList<>();
+        List<Path> pidFileList = list(scriptPath).stream()
+                .filter(p -> p.getFileName().toString().endsWith(ScriptUtil.PID_FILE_EXTENSION))
+                .sorted()
+                .collect(Collectors.toList());
+        for (Path pidFile : pidFileList) {
+            Long pid = ScriptUtil.getInstance().readPidFile(pidFile);
+            if (pid != null) {
+                pidList.add(pid);
+                startTimeList.add(0L);
+            }
+        }
+
+        return new PersistedRun(scriptPath.getFileName().toString(), scriptPath, pidList, startTimeList, null);
+    }
+
+
+    /**
+     * List the script folders of the script folder base path, the script folders in buckets are included
+     *
+     * @return the script folders
+     */
+    private List<Path> listScriptFolders() {
+        Path basePath = SystemCommandExecuterFactory.getInstance().getScriptFolderBasePath();
+        List<Path> result = new ArrayList<>();
+        for (Path directory : list(basePath)) {
+            String name = directory.getFileName().toString();
+            if (!Files.isDirectory(directory) || name.startsWith(ScriptUtil.RESERVED_FOLDER_PREFIX)) {
+                continue;
+            }
+
+            if (ScriptFolderLayout.ofBucket(basePath, directory) != null) {
+                list(directory).stream().filter(Files::isDirectory).forEach(result::add);
+            } else {
+                result.add(directory);
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * List a directory
+     *
+     * @param directory the directory
+     * @return the entries of the directory
+     */
+    private List<Path> list(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream.collect(Collectors.toList());
+        } catch (IOException e) {
+            LOG.debug("Could not list [" + directory + "]: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * LinePrefixOutputStream.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.stream.output;
+
+import com.github.toolarium.system.command.process.stream.IProcessOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+/**
+ * Output stream which writes complete lines with a prefix to a shared target. Several streams can write to the same
+ * target: the lines are written atomically, synchronized on the target, so they are interleaved but never mixed.
+ * 
+ * @author patrick
+ */
+public class LinePrefixOutputStream extends OutputStream {
+    private final IProcessOutputStream target;
+    private final byte[] prefix;
+    private final ByteArrayOutputStream line;
+
+    
+    /**
+     * Constructs a LinePrefixOutputStream.
+     *
+     * @param target the shared target
+     * @param prefix the prefix of each line
+     */
+    public LinePrefixOutputStream(final IProcessOutputStream target, final byte[] prefix) {
+        this.target = target;
+        this.prefix = prefix;
+        this.line = new ByteArrayOutputStream();
+    }
+
+
+    /**
+     * @see java.io.OutputStream#write(int)
+     */
+    @Override
+    public synchronized void write(int b) throws IOException {
+        line.write(b);
+        if (b == '\n') {
+            writeLine();
+        }
+    }
+
+
+    /**
+     * @see java.io.OutputStream#write(byte[], int, int)
+     */
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        int start = off;
+        for (int i = off; i < off + len; i++) {
+            if (b[i] == '\n') {
+                line.write(b, start, i + 1 - start);
+                writeLine();
+                start = i + 1;
+            }
+        }
+
+        line.write(b, start, off + len - start);
+    }
+
+
+    /**
+     * Write the incomplete line
+     *
+     * @see java.io.OutputStream#close()
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        writeLine();
+    }
+
+
+    /**
+     * Write the current line with its prefix to the target
+     *
+     * @throws IOException In case of an I/O error
+     */
+    private void writeLine() throws IOException {
+        if (line.size() == 0) {
+            return;
+        }
+
+        byte[] data = new byte[prefix.length + line.size()];
+        System.arraycopy(prefix, 0, data, 0, prefix.length);
+        System.arraycopy(line.toByteArray(), 0, data, prefix.length, line.size());
+        line.reset();
+
+        synchronized (target) {
+            target.write(data);
+            target.flush();
+        }
+    }
+}
@@ -6,10 +6,10 @@
 package com.github.toolarium.system.command.process.stream.output;
 
 import com.github.toolarium.system.command.dto.group.ISystemCommandGroup;
+import com.github.toolarium.system.command.process.id.RunIdFactory;
 import com.github.toolarium.system.command.process.stream.IProcessOutputStream;
 import com.github.toolarium.system.command.process.stream.IProcessStreamExceptionHandler;
 import com.github.toolarium.system.command.process.stream.handler.ProcessStreamExceptionHandler;
-import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -79,7 +79,7 @@ public class ProcessOutputStream implements IProcessOutputStream {
      * @param processStreamExceptionHandler the process stream exception handler
      */
     public ProcessOutputStream(OutputStream os, byte[] linePrefix, IProcessStreamExceptionHandler processStreamExceptionHandler) {
-        this.id = ProcessStreamUtil.getInstance().getId();
+        this.id = RunIdFactory.getInstance().nextId();
         this.os = os;
         this.linePrefix = linePrefix;
         this.processStreamExceptionHandler = processStreamExceptionHandler;
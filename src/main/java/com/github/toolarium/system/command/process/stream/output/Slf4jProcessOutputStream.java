@@ -6,10 +6,10 @@
 package com.github.toolarium.system.command.process.stream.output;
 
 import com.github.toolarium.system.command.dto.group.ISystemCommandGroup;
+import com.github.toolarium.system.command.process.id.RunIdFactory;
 import com.github.toolarium.system.command.process.stream.IProcessOutputStream;
 import com.github.toolarium.system.command.process.stream.IProcessStreamExceptionHandler;
 import com.github.toolarium.system.command.process.stream.handler.Slf4jProcessStreamExceptionHandler;
-import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import org.slf4j.Logger;
@@ -93,7 +93,7 @@ public class Slf4jProcessOutputStream implements IProcessOutputStream {
      * @param processStreamExceptionHandler the process stream exception handler
      */
     public Slf4jProcessOutputStream(final Logger logger, final Level level, String linePrefix, IProcessStreamExceptionHandler processStreamExceptionHandler) {
-        this.id = ProcessStreamUtil.getInstance().getId();
+        this.id = RunIdFactory.getInstance().nextId();
         this.logger = logger;
         this.level = level;
         
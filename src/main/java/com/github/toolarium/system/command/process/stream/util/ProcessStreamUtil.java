@@ -5,22 +5,21 @@
  */
 package com.github.toolarium.system.command.process.stream.util;
 
+import com.github.toolarium.system.command.process.id.RunIdFactory;
 import com.github.toolarium.system.command.process.stream.IProcessOutputStream;
 import com.github.toolarium.system.command.process.stream.IProcessStreamExceptionHandler;
 import com.github.toolarium.system.command.process.stream.output.ProcessOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Comparator;
-import java.util.concurrent.ThreadLocalRandom;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,13 +62,12 @@ public final class ProcessStreamUtil {
 
     
     /**
-     * Create a unique id
+     * Create a unique id by the {@link RunIdFactory}
      *
      * @return the id
      */
     public String getId() {
-        return DateTimeFormatter.ofPattern("yyyyMMddHHmmss").format(LocalDateTime.now())
-               + String.format("%02x", ThreadLocalRandom.current().nextInt(16)).toUpperCase();
+        return RunIdFactory.getInstance().nextId();
     }
     
     
@@ -290,15 +288,75 @@ public final class ProcessStreamUtil {
      * @param pathToBeDeleted the directory
      */
     public void deleteDirectory(Path pathToBeDeleted) {
+        deleteDirectory(pathToBeDeleted, null);
+    }
+
+
+    /**
+     * Delete a directory. The directory is deleted by a streaming post-order walk, the content is neither materialized nor sorted.
+     * 
+     * @param pathToBeDeleted the directory
+     * @param beforeDelete called before every single delete, e.g. to limit the delete rate; can be null
+     * @return the number of deleted files and directories
+     */
+    public long deleteDirectory(Path pathToBeDeleted, Runnable beforeDelete) {
         if (pathToBeDeleted == null || !pathToBeDeleted.toFile().exists()) {
-            return;
+            return 0;
         }
         
+        final long[] counter = new long[1];
         try {
             LOG.debug("Delete path [" + pathToBeDeleted + "] ...");
-            Files.walk(pathToBeDeleted).sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            Files.walkFileTree(pathToBeDeleted, new SimpleFileVisitor<Path>() {
+                /**
+                 * @see java.nio.file.SimpleFileVisitor#visitFile(java.lang.Object, java.nio.file.attribute.BasicFileAttributes)
+                 */
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                
+                /**
+                 * @see java.nio.file.SimpleFileVisitor#visitFileFailed(java.lang.Object, java.io.IOException)
+                 */
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    // e.g. deleted in the meantime
+                    return FileVisitResult.CONTINUE;
+                }
+
+                
+                /**
+                 * @see java.nio.file.SimpleFileVisitor#postVisitDirectory(java.lang.Object, java.io.IOException)
+                 */
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+                    delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                
+                /**
+                 * Delete a file or an empty directory
+                 *
+                 * @param path the path
+                 */
+                private void delete(Path path) {
+                    if (beforeDelete != null) {
+                        beforeDelete.run();
+                    }
+
+                    if (path.toFile().delete()) {
+                        counter[0]++;
+                    }
+                }
+            });
         } catch (IOException e) {
             LOG.info("Directory [" + pathToBeDeleted + "] can't be deleted: " + e.getMessage(), e);
         }
+        
+        return counter[0];
     }
-}
\ No newline at end of file
+}
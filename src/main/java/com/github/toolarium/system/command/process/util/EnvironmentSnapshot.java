@@ -0,0 +1,297 @@
+/*
+ * EnvironmentSnapshot.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.util;
+
+import com.github.toolarium.system.command.util.OSUtil;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+
+/**
+ * An immutable snapshot of the effective environment of a process which is applied to a {@link ProcessBuilder}. The
+ * snapshot keeps the difference to the environment of the JVM: a process which inherits the environment unchanged
+ * gets no copy of it at all, otherwise only the changed and removed variables are applied. In minimal mode the
+ * environment starts from an allowlist instead of the whole environment of the JVM.
+ *
+ * <p>The snapshots are cached by the effective environment variables and the allowlist.</p>
+ *
+ * @author patrick
+ */
+public final class EnvironmentSnapshot {
+    /** The default allowlist of the minimal environment */
+    public static final Set<String> DEFAULT_ALLOWLIST = Set.of("PATH", "HOME", "USER", "LOGNAME", "SHELL", "LANG", "LC_ALL", "LC_CTYPE", "TZ", "TMPDIR", "TERM",
+                                                               "PATHEXT", "SystemRoot", "SystemDrive", "windir", "ComSpec", "TEMP", "TMP", "USERPROFILE", "USERNAME");
+
+    /** The maximum number of cached snapshots */
+    public static final int CACHE_SIZE = 256;
+
+    private static final Map<Key, EnvironmentSnapshot> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, EnvironmentSnapshot> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final Map<String, String> environmentVariables;
+    private final Set<String> removedEnvironmentVariables;
+    private final boolean minimal;
+
+
+    /**
+     * Constructor for EnvironmentSnapshot
+     *
+     * @param environmentVariables the environment variables to apply
+     * @param removedEnvironmentVariables the environment variables of the JVM to remove
+     * @param minimal true if the environment variables replace the whole environment
+     */
+    private EnvironmentSnapshot(Map<String, String> environmentVariables, Set<String> removedEnvironmentVariables, boolean minimal) {
+        this.environmentVariables = Collections.unmodifiableMap(environmentVariables);
+        this.removedEnvironmentVariables = Collections.unmodifiableSet(removedEnvironmentVariables);
+        this.minimal = minimal;
+    }
+
+
+    /**
+     * Get the snapshot of an effective environment
+     *
+     * @param environmentVariables the effective environment variables
+     * @param allowlist the allowlist of the inherited environment variables or null to inherit the whole environment of the JVM
+     * @return the snapshot
+     */
+    public static EnvironmentSnapshot of(Map<String, String> environmentVariables, Set<String> allowlist) {
+        Map<String, String> effectiveEnvironmentVariables = environmentVariables;
+        if (effectiveEnvironmentVariables == null) {
+            effectiveEnvironmentVariables = Collections.emptyMap();
+        }
+
+        if (effectiveEnvironmentVariables.containsKey(ProcessBuilderUtil.TEMP)) {
+            // the environment of a script contains its script folder, it is never reused
+            return create(effectiveEnvironmentVariables, allowlist, System.getenv());
+        }
+
+        Key key = new Key(effectiveEnvironmentVariables, allowlist);
+        synchronized (CACHE) {
+            EnvironmentSnapshot snapshot = CACHE.get(key);
+            if (snapshot != null) {
+                return snapshot;
+            }
+        }
+
+        // the key of the cache keeps a copy, the environment variables of the caller can change
+        EnvironmentSnapshot snapshot = create(effectiveEnvironmentVariables, allowlist, System.getenv());
+        Set<String> allowlistCopy = null;
+        if (allowlist != null) {
+            allowlistCopy = new HashSet<>(allowlist);
+        }
+
+        synchronized (CACHE) {
+            CACHE.put(new Key(new HashMap<>(effectiveEnvironmentVariables), allowlistCopy), snapshot);
+        }
+
+        return snapshot;
+    }
+
+
+    /**
+     * Create a snapshot without cache
+     *
+     * @param environmentVariables the effective environment variables
+     * @param allowlist the allowlist of the inherited environment variables or null
+     * @param parentEnvironmentVariables the environment variables of the JVM
+     * @return the snapshot
+     */
+    public static EnvironmentSnapshot create(Map<String, String> environmentVariables, Set<String> allowlist, Map<String, String> parentEnvironmentVariables) {
+        Set<String> effectiveAllowlist = null;
+        if (allowlist != null) {
+            if (OSUtil.getInstance().isWindows()) {
+                // the environment variables of windows are case insensitive
+                effectiveAllowlist = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+                effectiveAllowlist.addAll(allowlist);
+            } else {
+                effectiveAllowlist = allowlist;
+            }
+        }
+
+        Map<String, String> result = new HashMap<>();
+        for (Map.Entry<String, String> e : environmentVariables.entrySet()) {
+            if (e.getKey() == null || e.getKey().isBlank() || e.getValue() == null) {
+                continue;
+            }
+
+            boolean changed = !e.getValue().equals(parentEnvironmentVariables.get(e.getKey()));
+            if (changed || (effectiveAllowlist != null && effectiveAllowlist.contains(e.getKey()))) {
+                result.put(e.getKey(), e.getValue());
+            }
+        }
+
+        Set<String> removed = new HashSet<>();
+        if (effectiveAllowlist == null) {
+            for (String key : parentEnvironmentVariables.keySet()) {
+                if (!environmentVariables.containsKey(key)) {
+                    removed.add(key);
+                }
+            }
+        }
+
+        return new EnvironmentSnapshot(result, removed, effectiveAllowlist != null);
+    }
+
+
+    /**
+     * Get the number of cached snapshots
+     *
+     * @return the number of cached snapshots
+     */
+    public static int getCacheSize() {
+        synchronized (CACHE) {
+            return CACHE.size();
+        }
+    }
+
+
+    /**
+     * Clear the cached snapshots
+     */
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+
+    /**
+     * Apply the snapshot to a process builder. In case the environment of the JVM is inherited unchanged the environment
+     * of the process builder is not touched, the process inherits it without a copy.
+     *
+     * @param processBuilder the process builder
+     */
+    public void apply(ProcessBuilder processBuilder) {
+        if (isInherited()) {
+            return;
+        }
+
+        Map<String, String> environment = processBuilder.environment();
+        if (minimal) {
+            environment.clear();
+        } else if (!removedEnvironmentVariables.isEmpty()) {
+            environment.keySet().removeAll(removedEnvironmentVariables);
+        }
+
+        environment.putAll(environmentVariables);
+    }
+
+
+    /**
+     * Check if the environment of the JVM is inherited unchanged
+     *
+     * @return true if the environment of the JVM is inherited unchanged
+     */
+    public boolean isInherited() {
+        return !minimal && environmentVariables.isEmpty() && removedEnvironmentVariables.isEmpty();
+    }
+
+
+    /**
+     * Check if the snapshot replaces the whole environment
+     *
+     * @return true in minimal mode
+     */
+    public boolean isMinimal() {
+        return minimal;
+    }
+
+
+    /**
+     * Get the environment variables which are applied: in minimal mode the whole environment, otherwise the changed environment variables
+     *
+     * @return the environment variables
+     */
+    public Map<String, String> getEnvironmentVariables() {
+        return environmentVariables;
+    }
+
+
+    /**
+     * Get the environment variables of the JVM which are removed, in minimal mode it is empty
+     *
+     * @return the removed environment variables
+     */
+    public Set<String> getRemovedEnvironmentVariables() {
+        return removedEnvironmentVariables;
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "EnvironmentSnapshot [minimal=" + minimal + ", environmentVariables=" + environmentVariables.keySet() + ", removedEnvironmentVariables=" + removedEnvironmentVariables + "]";
+    }
+
+
+    /**
+     * The key of a snapshot
+     *
+     * @author patrick
+     */
+    private static final class Key {
+        private final Map<String, String> environmentVariables;
+        private final Set<String> allowlist;
+        private final int hashCode;
+
+
+        /**
+         * Constructor for Key
+         *
+         * @param environmentVariables the environment variables
+         * @param allowlist the allowlist or null
+         */
+        Key(Map<String, String> environmentVariables, Set<String> allowlist) {
+            this.environmentVariables = environmentVariables;
+            this.allowlist = allowlist;
+            this.hashCode = Objects.hash(environmentVariables, allowlist);
+        }
+
+
+        /**
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+
+        /**
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+
+            Key other = (Key) obj;
+            return hashCode == other.hashCode && Objects.equals(allowlist, other.allowlist) && Objects.equals(environmentVariables, other.environmentVariables);
+        }
+    }
+}
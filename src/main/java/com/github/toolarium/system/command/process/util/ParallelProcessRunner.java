@@ -0,0 +1,216 @@
+/*
+ * ParallelProcessRunner.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.util;
+
+import com.github.toolarium.system.command.process.thread.NameableThreadFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Runs tasks which start processes on a bounded pool, e.g. the shards or batches of an execution. The processes are
+ * started by the runner: in case the execution is interrupted or a task fails, the tasks which are not started are
+ * dropped, the running processes are destroyed and the running tasks are awaited before the run returns.
+ *
+ * @author patrick
+ */
+public final class ParallelProcessRunner {
+    /** The time in milliseconds to wait for the running tasks of an aborted run */
+    public static final long TERMINATION_TIMEOUT = 10000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelProcessRunner.class);
+    private final String name;
+    private final int maxParallelism;
+    private final List<Process> processList;
+    private boolean aborted;
+
+
+    /**
+     * Constructor for ParallelProcessRunner
+     *
+     * @param name the name of the execution, it is used for the threads
+     * @param maxParallelism the maximum number of tasks which run in parallel
+     * @throws IllegalArgumentException In case of an invalid max parallelism
+     */
+    public ParallelProcessRunner(String name, int maxParallelism) {
+        if (maxParallelism <= 0) {
+            throw new IllegalArgumentException("Invalid max parallelism: " + maxParallelism + "!");
+        }
+
+        this.name = name;
+        this.maxParallelism = maxParallelism;
+        this.processList = new ArrayList<>();
+        this.aborted = false;
+    }
+
+
+    /**
+     * Run the tasks and wait until they ended
+     *
+     * @param count the number of tasks
+     * @param task the task which is called with the index of the task
+     * @return true if all tasks ended; false if the run was interrupted or a task failed
+     */
+    public boolean run(int count, IntConsumer task) {
+        if (count <= 0) {
+            return true;
+        }
+
+        boolean completed = false;
+        boolean interrupted = false;
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(maxParallelism, count), new NameableThreadFactory(name));
+        try {
+            List<Future<?>> futureList = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                final int index = i;
+                futureList.add(executorService.submit(() -> task.accept(index)));
+            }
+
+            for (Future<?> future : futureList) {
+                future.get();
+            }
+
+            completed = true;
+        } catch (InterruptedException e) {
+            interrupted = true;
+            LOG.warn("Execution [" + name + "] interrupted.");
+        } catch (ExecutionException e) {
+            LOG.warn("Execution [" + name + "] ended with error: " + e.getCause().getMessage());
+        } finally {
+            executorService.shutdownNow();
+            if (!completed) {
+                // a task which reads the output of its process does not react on the interrupt
+                abort();
+            }
+
+            try {
+                if (!executorService.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    LOG.warn("Execution [" + name + "] has still running tasks.");
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        return completed;
+    }
+
+
+    /**
+     * Start a process of a task
+     *
+     * @param processBuilder the process builder
+     * @return the started process
+     * @throws IOException In case the process could not be started or the run was aborted
+     */
+    public Process start(ProcessBuilder processBuilder) throws IOException {
+        synchronized (processList) {
+            if (aborted) {
+                throw new IOException("Execution [" + name + "] aborted!");
+            }
+
+            Process process = processBuilder.start();
+            processList.add(process);
+            return process;
+        }
+    }
+
+
+    /**
+     * End a process of a task: it is destroyed in case it is still alive
+     *
+     * @param process the process or null
+     */
+    public void end(Process process) {
+        if (process == null) {
+            return;
+        }
+
+        synchronized (processList) {
+            processList.remove(process);
+        }
+
+        destroy(process);
+    }
+
+
+    /**
+     * Start a daemon thread which transfers a stream, e.g. the error output of a process
+     *
+     * @param threadName the name of the thread
+     * @param is the input stream which is closed at the end
+     * @param os the output stream
+     * @return the started thread
+     */
+    public Thread transfer(String threadName, InputStream is, OutputStream os) {
+        return startThread(threadName, () -> {
+            try (InputStream in = is) {
+                in.transferTo(os);
+            } catch (IOException e) {
+                LOG.debug("Could not transfer the stream of [" + threadName + "]: " + e.getMessage());
+            }
+        });
+    }
+
+
+    /**
+     * Start a daemon thread
+     *
+     * @param threadName the name of the thread
+     * @param runnable the runnable
+     * @return the started thread
+     */
+    public Thread startThread(String threadName, Runnable runnable) {
+        Thread thread = new Thread(runnable, threadName);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+
+    /**
+     * Abort the run: no more processes are started and the running processes are destroyed
+     */
+    private void abort() {
+        List<Process> list;
+        synchronized (processList) {
+            aborted = true;
+            list = new ArrayList<>(processList);
+        }
+
+        for (Process process : list) {
+            destroy(process);
+        }
+    }
+
+
+    /**
+     * Destroy a process and its descendants in case it is alive
+     *
+     * @param process the process
+     */
+    private void destroy(Process process) {
+        if (process.isAlive()) {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+    }
+}
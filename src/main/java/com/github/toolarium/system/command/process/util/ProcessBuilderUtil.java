@@ -5,12 +5,15 @@
  */
 package com.github.toolarium.system.command.process.util;
 
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
 import com.github.toolarium.system.command.dto.ISystemCommand;
+import com.github.toolarium.system.command.dto.env.IProcessEnvironment;
 import com.github.toolarium.system.command.dto.group.ISystemCommandGroup;
 import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
 import com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport;
 import com.github.toolarium.system.command.executer.impl.SystemCommandExecuterPlatformSupportWrapper;
 import com.github.toolarium.system.command.process.IProcess;
+import com.github.toolarium.system.command.process.cache.ScriptCache;
 import com.github.toolarium.system.command.process.stream.IProcessInputStream;
 import com.github.toolarium.system.command.process.stream.IProcessOutputStream;
 import com.github.toolarium.system.command.process.stream.ProcessStreamFactory;
@@ -39,6 +42,9 @@ import org.slf4j.LoggerFactory;
 public final class ProcessBuilderUtil {
     /** TEMP Environment variable */
     public static final String TEMP = "TOOLARIUM_TEMP";
+
+    /** The prefix of the environment variables which contains the command lines of a cached script */
+    public static final String COMMAND = "TOOLARIUM_COMMAND_";
     
     private static final String DOT = ".";
     private static final Logger LOG = LoggerFactory.getLogger(ProcessBuilderUtil.class);
@@ -111,20 +117,30 @@ public final class ProcessBuilderUtil {
             return null;
         }
         
+        Path inputPath = scriptPath;
+        if (systemCommandGroupList.isInputOnDisk()) {
+            inputPath = SystemCommandExecuterFactory.getInstance().getInputFolderPath(scriptPath);
+        }
+
         List<ProcessBuilder> list = new ArrayList<>();
         Iterator<ISystemCommandGroup> it = systemCommandGroupList.iterator();
         while (it.hasNext()) {
             ISystemCommandGroup systemCommandGroup = it.next();
-            ProcessBuilder processBuilder = createProcessBuilder(systemCommandGroup, inputSystemCommandExecuterPlatformSupport, scriptPath);
+            ProcessBuilder processBuilder;
+            if (systemCommandGroupList.isScriptCache() && systemCommandGroup.runAsScript()) {
+                processBuilder = createCachedScriptProcessBuilder(systemCommandGroup, inputSystemCommandExecuterPlatformSupport, scriptPath);
+            } else {
+                processBuilder = createProcessBuilder(systemCommandGroup, inputSystemCommandExecuterPlatformSupport, scriptPath);
+            }
 
             // prepare streams
             if (systemCommandGroupList.size() == 1) {
-                prepareProcessInputStream(systemCommandGroup, processBuilder, processInputStream, scriptPath, inputSystemCommandExecuterPlatformSupport);
+                prepareProcessInputStream(systemCommandGroup, processBuilder, processInputStream, inputPath, inputSystemCommandExecuterPlatformSupport);
                 prepareProcessOutputStream(systemCommandGroup, processBuilder, processOut);
                 prepareProcessErrorStream(systemCommandGroup, processBuilder, processErr);
             } else {
                 if (list.size() == 0) {
-                    prepareProcessInputStream(systemCommandGroup, processBuilder, processInputStream, scriptPath, inputSystemCommandExecuterPlatformSupport);
+                    prepareProcessInputStream(systemCommandGroup, processBuilder, processInputStream, inputPath, inputSystemCommandExecuterPlatformSupport);
                     LOG.debug("Redirect standard output and error to pipe for process #" + systemCommandGroup.getId() + DOT);
                     processBuilder.redirectOutput(Redirect.PIPE);
                     processBuilder.redirectError(Redirect.PIPE);
@@ -143,6 +159,13 @@ public final class ProcessBuilderUtil {
                 }
             }
 
+            if (systemCommandGroupList.isDetached() && scriptPath != null && !it.hasNext()) {
+                // the output of a detached run is kept in the script folder, a pipe would break with the JVM 
+                LOG.debug("Redirect standard output and error to script path [" + scriptPath + "] for process #" + systemCommandGroup.getId() + DOT);
+                processBuilder.redirectOutput(Redirect.appendTo(ScriptUtil.getInstance().getOutputFile(scriptPath, systemCommandGroupList.getId()).toFile()));
+                processBuilder.redirectError(Redirect.appendTo(ScriptUtil.getInstance().getErrorFile(scriptPath, systemCommandGroupList.getId()).toFile()));
+            }
+
             LOG.debug("Prepared command (id:" + systemCommandGroup.getId() + ") to run in path [" + processBuilder.directory().getAbsolutePath() + "]: \n" + systemCommandGroup.toString());
             list.add(processBuilder);
         }
@@ -232,97 +255,229 @@ public final class ProcessBuilderUtil {
     public ProcessBuilder createScriptProcessBuilder(ISystemCommandGroup systemCommandGroup, ISystemCommandExecuterPlatformSupport inputSystemCommandExecuterPlatformSupport, Path scriptPath) {
         validateParameters(systemCommandGroup, inputSystemCommandExecuterPlatformSupport);
         ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport = new SystemCommandExecuterPlatformSupportWrapper(inputSystemCommandExecuterPlatformSupport); 
-        ISystemCommand primarySystemCommand = null;
+        ISystemCommand primarySystemCommand = systemCommandGroup.iterator().next();
+        Path file = ScriptUtil.getInstance().getScriptFile(scriptPath, systemCommandGroup.getId(), systemCommandExecuterPlatformSupport);
+        LOG.debug("Set script [" + file.toString() + "]");
+        List<String> cmdList = createCommandLine(systemCommandGroup.getId(), primarySystemCommand, systemCommandExecuterPlatformSupport, Arrays.asList(file.toString()));
 
-        List<String> cmdList = new ArrayList<>();
+        try {
+            // create a temp script to run multiple commands, the script is prepared in memory and written at once
+            String script = createScript(systemCommandGroup, systemCommandExecuterPlatformSupport, scriptPath);
+            ScriptUtil.getInstance().writeScriptFile(scriptPath, systemCommandGroup.getId(), systemCommandExecuterPlatformSupport, script);
+        } catch (IOException e) {
+            LOG.warn("Error occured: " + e.getMessage(), e);
+        }
 
+        ProcessBuilder builder = new ProcessBuilder();
+        builder.command(cmdList);
+        setWorkingPath(primarySystemCommand, builder);
+        setEnvironmentVariables(primarySystemCommand, builder);
+        return builder;
+    }
+
+
+    /**
+     * Create a process builder which runs a cached script. The script is parametrized through the environment variables 
+     * {@link #COMMAND} and it is shared with all system command groups of the same shape, see {@link ScriptCache}.
+     * 
+     * @param systemCommandGroup the system command group
+     * @param inputSystemCommandExecuterPlatformSupport the system command executer platform support
+     * @param scriptPath the script path
+     * @return the process builder
+     * @throws IllegalArgumentException In case of invalid parameters
+     */
+    public ProcessBuilder createCachedScriptProcessBuilder(ISystemCommandGroup systemCommandGroup, ISystemCommandExecuterPlatformSupport inputSystemCommandExecuterPlatformSupport, Path scriptPath) {
+        validateParameters(systemCommandGroup, inputSystemCommandExecuterPlatformSupport);
+        final ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport = new SystemCommandExecuterPlatformSupportWrapper(inputSystemCommandExecuterPlatformSupport); 
+        ISystemCommand primarySystemCommand = systemCommandGroup.iterator().next();
+
+        Path file;
         try {
-            Path file = ScriptUtil.getInstance().prepareTempPathAndScript(scriptPath, systemCommandGroup.getId(), systemCommandExecuterPlatformSupport);
-            LOG.debug("Set script [" + file.toString() + "]");
+            file = ScriptCache.getInstance().getScript(systemCommandGroup, systemCommandExecuterPlatformSupport, () -> createScript(systemCommandGroup, systemCommandExecuterPlatformSupport, null, true));
+        } catch (IOException e) {
+            LOG.warn("Could not use cached script, write script: " + e.getMessage(), e);
+            return createScriptProcessBuilder(systemCommandGroup, inputSystemCommandExecuterPlatformSupport, scriptPath);
+        }
+        
+        LOG.debug("Set cached script [" + file.toString() + "]");
+        List<String> cmdList = createCommandLine(systemCommandGroup.getId(), primarySystemCommand, systemCommandExecuterPlatformSupport, Arrays.asList(file.toString()));
+        ProcessBuilder builder = new ProcessBuilder();
+        builder.command(cmdList);
+        setWorkingPath(primarySystemCommand, builder);
+        setEnvironmentVariables(primarySystemCommand, builder);
+        
+        // the parameters of the cached script
+        builder.environment().put(TEMP, scriptPath.toString());
+        int commandCount = 0;
+        Iterator<ISystemCommand> it = systemCommandGroup.iterator();
+        while (it.hasNext()) {
+            builder.environment().put(COMMAND + commandCount++, ScriptUtil.getInstance().prepareCommandList(it.next().getCommandList()));
+        }
+        
+        return builder;
+    }
+
+
+    /**
+     * Create a process builder which reads the script from the standard input of the shell. 
+     * The script itself has to be written by the caller into the output stream of the process, see {@link #createScript(ISystemCommandGroup, ISystemCommandExecuterPlatformSupport, Path)}.
+     * 
+     * @param systemCommandGroup the system command group
+     * @param inputSystemCommandExecuterPlatformSupport the system command executer platform support
+     * @param processOut the process output stream
+     * @param processErr the process error stream
+     * @return the process builder or null in case the platform don't support to read the script from the standard input
+     * @throws IllegalArgumentException In case of invalid parameters
+     */
+    public ProcessBuilder createStdinScriptProcessBuilder(ISystemCommandGroup systemCommandGroup, 
+                                                          ISystemCommandExecuterPlatformSupport inputSystemCommandExecuterPlatformSupport,
+                                                          IProcessOutputStream processOut, 
+                                                          IProcessOutputStream processErr) {
+        validateParameters(systemCommandGroup, inputSystemCommandExecuterPlatformSupport);
+        ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport = new SystemCommandExecuterPlatformSupportWrapper(inputSystemCommandExecuterPlatformSupport); 
+        ISystemCommand primarySystemCommand = systemCommandGroup.iterator().next();
+        List<String> cmdList = systemCommandExecuterPlatformSupport.getShellStdinCommand(systemCommandGroup.getId(), primarySystemCommand);
+        if (cmdList.isEmpty()) {
+            return null;
+        }
+
+        ProcessBuilder builder = new ProcessBuilder();
+        builder.command(cmdList);
+        setWorkingPath(primarySystemCommand, builder);
+        setEnvironmentVariables(primarySystemCommand, builder);
+
+        LOG.debug("Read script from standard input for process #" + systemCommandGroup.getId() + DOT);
+        builder.redirectInput(Redirect.PIPE);
+        prepareProcessOutputStream(systemCommandGroup, builder, processOut);
+        prepareProcessErrorStream(systemCommandGroup, builder, processErr);
+        return builder;
+    }
+
+
+    /**
+     * Create the script content of a system command group which is read from the standard input of the shell. 
+     * The script is enclosed as one compound command, the shell reads it completely before the first command is 
+     * executed. Therefore a command of the script which reads from the standard input don't consume the script.
+     * 
+     * @param systemCommandGroup the system command group
+     * @param inputSystemCommandExecuterPlatformSupport the system command executer platform support
+     * @return the script
+     */
+    public String createStdinScript(ISystemCommandGroup systemCommandGroup, ISystemCommandExecuterPlatformSupport inputSystemCommandExecuterPlatformSupport) {
+        validateParameters(systemCommandGroup, inputSystemCommandExecuterPlatformSupport);
+        ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport = new SystemCommandExecuterPlatformSupportWrapper(inputSystemCommandExecuterPlatformSupport); 
+        final String endOfLine = systemCommandExecuterPlatformSupport.getEndOfLine();
+        return "{" + endOfLine + createScript(systemCommandGroup, systemCommandExecuterPlatformSupport, null) + endOfLine + "}" + endOfLine;
+    }
+
+
+    /**
+     * Create the script content of a system command group
+     * 
+     * @param systemCommandGroup the system command group
+     * @param systemCommandExecuterPlatformSupport the system command executer platform support
+     * @param scriptPath the script path or null in case there is no script folder
+     * @return the script
+     */
+    public String createScript(ISystemCommandGroup systemCommandGroup, ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport, Path scriptPath) {
+        return createScript(systemCommandGroup, systemCommandExecuterPlatformSupport, scriptPath, false);
+    }
+
+
+    /**
+     * Create the script content of a system command group
+     * 
+     * @param systemCommandGroup the system command group
+     * @param systemCommandExecuterPlatformSupport the system command executer platform support
+     * @param scriptPath the script path or null in case there is no script folder
+     * @param parametrized true to read the command lines from the environment variables {@link #COMMAND}
+     * @return the script
+     */
+    public String createScript(ISystemCommandGroup systemCommandGroup, ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport, Path scriptPath, boolean parametrized) {
+        ISystemCommand primarySystemCommand = null;
+        int commandCount = 0;
+        StringBuilder script = new StringBuilder(ScriptUtil.getInstance().prepareScriptHeader(systemCommandExecuterPlatformSupport, scriptPath));
+        Map<String, String> currentEnvironmentMap = null;
+        String currentWorkingPath = null;
+
+        String onSuccessOrErrorEnd = null;
+        Iterator<ISystemCommand> it = systemCommandGroup.iterator();
+        while (it.hasNext()) {
+            ISystemCommand systemCommand = it.next();
             
-            // create a temp script to run multiple commands
-            Map<String, String> currentEnvironmentMap = null;
-            String currentWorkingPath = null;
-
-            String onSuccessOrErrorEnd = null;
-            Iterator<ISystemCommand> it = systemCommandGroup.iterator();
-            while (it.hasNext()) {
-                ISystemCommand systemCommand = it.next();
-                
-                if (primarySystemCommand == null) {
-                    primarySystemCommand = systemCommand;
-                    cmdList.addAll(createCommandLine(systemCommandGroup.getId(), primarySystemCommand, systemCommandExecuterPlatformSupport, Arrays.asList(file.toString())));
-                    currentEnvironmentMap = primarySystemCommand.getProcessEnvironment().getEnvironmentVariables();
-                    currentEnvironmentMap.put(ProcessBuilderUtil.TEMP, file.getParent().toString());
-                    currentWorkingPath = primarySystemCommand.getProcessEnvironment().getWorkingPath();
+            if (primarySystemCommand == null) {
+                primarySystemCommand = systemCommand;
+                currentEnvironmentMap = primarySystemCommand.getProcessEnvironment().getEnvironmentVariables();
+                if (scriptPath != null) {
+                    currentEnvironmentMap.put(ProcessBuilderUtil.TEMP, scriptPath.toString());
                 }
-
-                LOG.debug("Prepare command [" + systemCommand.toString(true) + "]");
-                systemCommandExecuterPlatformSupport.writeToFile(file, systemCommandExecuterPlatformSupport.getEndOfLine());
-                
-                // set environment variables
-                currentEnvironmentMap = prepareEnvironmentVariables(systemCommandExecuterPlatformSupport, file, currentEnvironmentMap, systemCommand.getProcessEnvironment().getEnvironmentVariables());
-                LOG.debug("Set " + ProcessBuilderUtil.TEMP + " [" + file.getParent().toString() + "]");
-                currentEnvironmentMap.put(ProcessBuilderUtil.TEMP, file.getParent().toString());
                 
-                // the working directory
-                String newWorkingPath = systemCommand.getProcessEnvironment().getWorkingPath();
-                // TODO: relative path new File(base).toURI().relativize(new File(path).toURI()).getPath();
-                
-                if (newWorkingPath != null && !currentWorkingPath.equals(newWorkingPath)) {
-                    LOG.debug("Set in script working path to [" + newWorkingPath + "]. ");
-                    systemCommandExecuterPlatformSupport.writeToFile(file, systemCommandExecuterPlatformSupport.getEnvironmentChangeDirectoryCommand() + newWorkingPath + systemCommandExecuterPlatformSupport.getEndOfLine());
-                    currentWorkingPath = newWorkingPath;
-                } else {
-                    LOG.debug("Keep script working path to [" + newWorkingPath + "].");
-                }
+                currentWorkingPath = primarySystemCommand.getProcessEnvironment().getWorkingPath();
+            }
+
+            LOG.debug("Prepare command [" + systemCommand.toString(true) + "]");
+            script.append(systemCommandExecuterPlatformSupport.getEndOfLine());
+            
+            // set environment variables
+            currentEnvironmentMap = prepareEnvironmentVariables(systemCommandExecuterPlatformSupport, script, currentEnvironmentMap, systemCommand.getProcessEnvironment().getEnvironmentVariables());
+            if (scriptPath != null) {
+                LOG.debug("Set " + ProcessBuilderUtil.TEMP + " [" + scriptPath.toString() + "]");
+                currentEnvironmentMap.put(ProcessBuilderUtil.TEMP, scriptPath.toString());
+            }
+            
+            // the working directory
+            String newWorkingPath = systemCommand.getProcessEnvironment().getWorkingPath();
+            // TODO: relative path new File(base).toURI().relativize(new File(path).toURI()).getPath();
+            
+            if (newWorkingPath != null && !currentWorkingPath.equals(newWorkingPath)) {
+                LOG.debug("Set in script working path to [" + newWorkingPath + "]. ");
+                script.append(systemCommandExecuterPlatformSupport.getEnvironmentChangeDirectoryCommand() + newWorkingPath + systemCommandExecuterPlatformSupport.getEndOfLine());
+                currentWorkingPath = newWorkingPath;
+            } else {
+                LOG.debug("Keep script working path to [" + newWorkingPath + "].");
+            }
 
-                // the command
-                systemCommandExecuterPlatformSupport.writeToFile(file, 
-                                                                 /*ScriptUtil.getInstance().prepareCommandList(systemCommandExecuterPlatformSupport.getShellCommand(systemCommand))
+            // the command
+            if (parametrized) {
+                script.append(systemCommandExecuterPlatformSupport.getEvaluateEnvironmentVariableCommand(COMMAND + commandCount++));
+            } else {
+                script.append(/*ScriptUtil.getInstance().prepareCommandList(systemCommandExecuterPlatformSupport.getShellCommand(systemCommand))
                                                                  + SystemCommand.SPACE*/ ""                            
                                                                  + ScriptUtil.getInstance().prepareCommandList(systemCommand.getCommandList()));
-                // handle on success or error
-                if (systemCommand.getSystemCommandExecutionStatusResult() != null) {
-                    if (onSuccessOrErrorEnd != null) {
-                        systemCommandExecuterPlatformSupport.writeToFile(file, onSuccessOrErrorEnd);
+            }
+            
+            // handle on success or error
+            if (systemCommand.getSystemCommandExecutionStatusResult() != null) {
+                if (onSuccessOrErrorEnd != null) {
+                    script.append(onSuccessOrErrorEnd);
+                    onSuccessOrErrorEnd = null;
+                }
+                
+                switch (systemCommand.getSystemCommandExecutionStatusResult()) {
+                    case SUCCESS:
+                        script.append(systemCommandExecuterPlatformSupport.getCommandOnSuccessStart());
+                        onSuccessOrErrorEnd = systemCommandExecuterPlatformSupport.getCommandOnSuccessEnd();
+                        break;
+                    case ERROR: 
+                        script.append(systemCommandExecuterPlatformSupport.getCommandOnErrorStart());
+                        onSuccessOrErrorEnd = systemCommandExecuterPlatformSupport.getCommandOnErrorEnd();
+                        break;
+                    case SUCCESS_OR_ERROR: 
+                    default:
                         onSuccessOrErrorEnd = null;
-                    }
-                    
-                    switch (systemCommand.getSystemCommandExecutionStatusResult()) {
-                        case SUCCESS:
-                            systemCommandExecuterPlatformSupport.writeToFile(file, systemCommandExecuterPlatformSupport.getCommandOnSuccessStart());
-                            onSuccessOrErrorEnd = systemCommandExecuterPlatformSupport.getCommandOnSuccessEnd();
-                            break;
-                        case ERROR: 
-                            systemCommandExecuterPlatformSupport.writeToFile(file, systemCommandExecuterPlatformSupport.getCommandOnErrorStart());
-                            onSuccessOrErrorEnd = systemCommandExecuterPlatformSupport.getCommandOnErrorEnd();
-                            break;
-                        case SUCCESS_OR_ERROR: 
-                        default:
-                            onSuccessOrErrorEnd = null;
-                            systemCommandExecuterPlatformSupport.writeToFile(file, systemCommandExecuterPlatformSupport.getEndOfLine());
-                    }
+                        script.append(systemCommandExecuterPlatformSupport.getEndOfLine());
                 }
             }
-
-            if (onSuccessOrErrorEnd != null) {
-                systemCommandExecuterPlatformSupport.writeToFile(file, onSuccessOrErrorEnd);
-                systemCommandExecuterPlatformSupport.writeToFile(file, systemCommandExecuterPlatformSupport.getEndOfLine());
-                onSuccessOrErrorEnd = null;
-            }
-            
-            // close script file
-            ScriptUtil.getInstance().closeScriptFile(systemCommandExecuterPlatformSupport, file);
-        } catch (IOException e) {
-            LOG.warn("Error occured: " + e.getMessage(), e);
         }
 
-        ProcessBuilder builder = new ProcessBuilder();
-        builder.command(cmdList);
-        setWorkingPath(primarySystemCommand, builder);
-        setEnvironmentVariables(primarySystemCommand, builder);
-        return builder;
+        if (onSuccessOrErrorEnd != null) {
+            script.append(onSuccessOrErrorEnd);
+            script.append(systemCommandExecuterPlatformSupport.getEndOfLine());
+            onSuccessOrErrorEnd = null;
+        }
+        
+        script.append(ScriptUtil.getInstance().prepareScriptFooter(systemCommandExecuterPlatformSupport));
+        return script.toString();
     }
 
 
@@ -337,6 +492,26 @@ public final class ProcessBuilderUtil {
      * @throws IOException In case of write issues
      */
     public Map<String, String> prepareEnvironmentVariables(ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport, Path file, Map<String, String> currentEnv, Map<String, String> newEnv) throws IOException {
+        StringBuilder script = new StringBuilder();
+        Map<String, String> result = prepareEnvironmentVariables(systemCommandExecuterPlatformSupport, script, currentEnv, newEnv);
+        if (script.length() > 0) {
+            systemCommandExecuterPlatformSupport.writeToFile(file, script.toString());
+        }
+        
+        return result;
+    }
+
+
+    /**
+     * Prepare the environment variable 
+     *
+     * @param systemCommandExecuterPlatformSupport the system command executer platform support
+     * @param script the script to append
+     * @param currentEnv the current environment
+     * @param newEnv the new environment
+     * @return the new environment variables
+     */
+    public Map<String, String> prepareEnvironmentVariables(ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport, StringBuilder script, Map<String, String> currentEnv, Map<String, String> newEnv) {
         
         // unset environment variables
         for (String key : ProcessBuilderUtil.getInstance().unsetEnvironment(currentEnv, newEnv)) {
@@ -347,7 +522,7 @@ public final class ProcessBuilderUtil {
             LOG.debug("Unset environment variable [" + key + "].");
             
             if (!key.equals(ProcessBuilderUtil.TEMP)) {
-                systemCommandExecuterPlatformSupport.writeToFile(file, envSetting + systemCommandExecuterPlatformSupport.getEndOfLine());
+                script.append(envSetting).append(systemCommandExecuterPlatformSupport.getEndOfLine());
             }
         }
 
@@ -361,7 +536,7 @@ public final class ProcessBuilderUtil {
                                           + e.getValue() 
                                           + systemCommandExecuterPlatformSupport.getEnvironmentAssignCommandEnd();
                 LOG.debug("Set environment variable [" + e.getKey() + "].");
-                systemCommandExecuterPlatformSupport.writeToFile(file, envSetting + systemCommandExecuterPlatformSupport.getEndOfLine());
+                script.append(envSetting).append(systemCommandExecuterPlatformSupport.getEndOfLine());
             }
         }
         
@@ -483,15 +658,9 @@ public final class ProcessBuilderUtil {
      * @param builder the builder
      */
     private void setEnvironmentVariables(ISystemCommand systemCommand, ProcessBuilder builder) {
-        //builder.environment().clear();
-
-        // set environment variables
-        final Map<String, String> environmentVariables = systemCommand.getProcessEnvironment().getEnvironmentVariables();
-        for (Map.Entry<String, String> e : environmentVariables.entrySet()) {
-            if (e.getKey() != null && !e.getKey().isBlank()) {
-                builder.environment().put(e.getKey(), e.getValue());
-            }
-        }
+        // the cached snapshot applies only the difference to the environment of the JVM
+        IProcessEnvironment processEnvironment = systemCommand.getProcessEnvironment();
+        EnvironmentSnapshot.of(processEnvironment.getEnvironmentVariables(), processEnvironment.getEnvironmentAllowlist()).apply(builder);
     }
 
 
@@ -0,0 +1,139 @@
+/*
+ * ProcessIdRegistry.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Tracks the process ids of running processes in memory. It is the counterpart of the pid files in the script folder
+ * for executions without any script folder (diskless).
+ *
+ * @author patrick
+ */
+public final class ProcessIdRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(ProcessIdRegistry.class);
+    private Map<String, Map<String, Long>> processIdMap;
+
+
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final ProcessIdRegistry INSTANCE = new ProcessIdRegistry();
+    }
+
+
+    /**
+     * Constructor
+     */
+    private ProcessIdRegistry() {
+        processIdMap = new ConcurrentHashMap<>();
+    }
+
+
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static ProcessIdRegistry getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+
+    /**
+     * Register a process id
+     *
+     * @param id the id of the system command group list
+     * @param groupId the id of the system command group
+     * @param pid the process id
+     */
+    public void register(String id, String groupId, Long pid) {
+        if (id == null || groupId == null || pid == null) {
+            return;
+        }
+
+        LOG.debug("Register process id " + pid + " (id:" + id + ", group:" + groupId + ").");
+        processIdMap.compute(id, (k, v) -> {
+            Map<String, Long> result = v;
+            if (result == null) {
+                result = new LinkedHashMap<>();
+            }
+
+            result.put(groupId, pid);
+            return result;
+        });
+    }
+
+
+    /**
+     * Get the registered process ids of a system command group list
+     *
+     * @param id the id of the system command group list
+     * @return the process ids by system command group id, empty if there are none
+     */
+    public Map<String, Long> getProcessIds(String id) {
+        if (id == null) {
+            return Collections.emptyMap();
+        }
+
+        // copy under the lock of the entry
+        final Map<String, Long> result = new LinkedHashMap<>();
+        processIdMap.computeIfPresent(id, (k, v) -> {
+            result.putAll(v);
+            return v;
+        });
+
+        return Collections.unmodifiableMap(result);
+    }
+
+
+    /**
+     * Check if there is a running process of a system command group list
+     *
+     * @param id the id of the system command group list
+     * @return true if there is at least one running process
+     */
+    public boolean isRunning(String id) {
+        for (Long pid : getProcessIds(id).values()) {
+            if (ProcessBuilderUtil.getInstance().isProcessRunning(pid)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Unregister the process ids of a system command group list
+     *
+     * @param id the id of the system command group list
+     */
+    public void unregister(String id) {
+        if (id != null && processIdMap.remove(id) != null) {
+            LOG.debug("Unregister process ids (id:" + id + ").");
+        }
+    }
+
+
+    /**
+     * Get the number of registered system command group lists
+     *
+     * @return the number of registered system command group lists
+     */
+    public int size() {
+        return processIdMap.size();
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * ProcessLivenessSnapshot.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.util;
+
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A snapshot of the living process ids which answers many liveness queries at once, e.g. of one cleanup cycle. On linux
+ * the snapshot is one listing of <code>/proc</code>, otherwise {@link ProcessHandle#allProcesses()}. The start time of a
+ * process is only read on demand to detect a reused process id.
+ *
+ * @author patrick
+ */
+public final class ProcessLivenessSnapshot {
+    /** The tolerance in milliseconds of the start time comparison */
+    public static final long START_TIME_TOLERANCE = 1000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProcessLivenessSnapshot.class);
+    private static final Path PROC_PATH = Paths.get("/proc");
+    private final Set<Long> pidSet;
+    private final Map<Long, ProcessHandle> processHandleMap;
+    private final Map<Long, Long> startTimeMap;
+    private final long timestamp;
+
+
+    /**
+     * Constructor for ProcessLivenessSnapshot
+     *
+     * @param pidSet the living process ids
+     * @param processHandleMap the process handles or null if they are not available
+     */
+    private ProcessLivenessSnapshot(Set<Long> pidSet, Map<Long, ProcessHandle> processHandleMap) {
+        this.pidSet = pidSet;
+        this.processHandleMap = processHandleMap;
+        this.startTimeMap = new ConcurrentHashMap<>();
+        this.timestamp = System.currentTimeMillis();
+    }
+
+
+    /**
+     * Create a snapshot of the living processes
+     *
+     * @return the snapshot
+     */
+    public static ProcessLivenessSnapshot create() {
+        if (OSUtil.getInstance().isLinux() && Files.isDirectory(PROC_PATH)) {
+            try {
+                return new ProcessLivenessSnapshot(readProcessIds(PROC_PATH), null);
+            } catch (IOException | RuntimeException e) {
+                LOG.debug("Could not list [" + PROC_PATH + "], use the process handles: " + e.getMessage());
+            }
+        }
+
+        Map<Long, ProcessHandle> processHandleMap = ProcessHandle.allProcesses().collect(Collectors.toMap(ProcessHandle::pid, p -> p, (a, b) -> a, HashMap::new));
+        return new ProcessLivenessSnapshot(processHandleMap.keySet(), processHandleMap);
+    }
+
+
+    /**
+     * Check if a process is alive
+     *
+     * @param pid the process id
+     * @return true if the process was alive when the snapshot was taken
+     */
+    public boolean isRunning(long pid) {
+        return pidSet.contains(pid);
+    }
+
+
+    /**
+     * Check if a process is alive and was started at the given time. A process with a different start time reuses the process id.
+     *
+     * @param pid the process id
+     * @param startTime the start time recorded at launch in milliseconds or 0 if it is unknown
+     * @return true if the process is alive and has the given start time
+     */
+    public boolean isRunning(long pid, long startTime) {
+        if (!isRunning(pid)) {
+            return false;
+        }
+
+        if (startTime <= 0) {
+            return true;
+        }
+
+        long processStartTime = getStartTime(pid);
+        return processStartTime <= 0 || Math.abs(processStartTime - startTime) <= START_TIME_TOLERANCE;
+    }
+
+
+    /**
+     * Check if a process is alive and was started before the given time, e.g. the time when its pid file was written.
+     * A process which was started later reuses the process id.
+     *
+     * @param pid the process id
+     * @param notAfter the time in milliseconds after which the process can not be started
+     * @return true if the process is alive and was started before the given time
+     */
+    public boolean isRunningSince(long pid, long notAfter) {
+        if (!isRunning(pid)) {
+            return false;
+        }
+
+        long processStartTime = getStartTime(pid);
+        return processStartTime <= 0 || processStartTime <= notAfter + START_TIME_TOLERANCE;
+    }
+
+
+    /**
+     * Get the start time of a living process. It is read on the first request.
+     *
+     * @param pid the process id
+     * @return the start time in milliseconds or 0 if it is unknown or the process is not alive
+     */
+    public long getStartTime(long pid) {
+        if (!isRunning(pid)) {
+            return 0;
+        }
+
+        return startTimeMap.computeIfAbsent(pid, this::readStartTime);
+    }
+
+
+    /**
+     * Get the number of living processes
+     *
+     * @return the number of living processes
+     */
+    public int size() {
+        return pidSet.size();
+    }
+
+
+    /**
+     * Get the time when the snapshot was taken
+     *
+     * @return the time in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "ProcessLivenessSnapshot [size=" + pidSet.size() + ", timestamp=" + Instant.ofEpochMilli(timestamp) + "]";
+    }
+
+
+    /**
+     * Read the start time of a process
+     *
+     * @param pid the process id
+     * @return the start time in milliseconds or 0 if it is unknown
+     */
+    private long readStartTime(long pid) {
+        Optional<ProcessHandle> processHandle;
+        if (processHandleMap != null) {
+            processHandle = Optional.ofNullable(processHandleMap.get(pid));
+        } else {
+            processHandle = ProcessHandle.of(pid);
+        }
+
+        return processHandle.flatMap(p -> p.info().startInstant()).map(Instant::toEpochMilli).orElse(0L);
+    }
+
+
+    /**
+     * Read the process ids of the proc file system: the numeric folder names
+     *
+     * @param procPath the path of the proc file system
+     * @return the process ids
+     * @throws IOException In case of an I/O error
+     */
+    static Set<Long> readProcessIds(Path procPath) throws IOException {
+        Set<Long> result = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(procPath)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                if (!name.isEmpty() && name.chars().allMatch(Character::isDigit)) {
+                    result.add(Long.valueOf(name));
+                }
+            }
+        }
+
+        return result;
+    }
+}
@@ -11,9 +11,11 @@ import com.github.toolarium.system.command.util.OSUtil;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
@@ -30,6 +32,24 @@ public final class ScriptUtil {
     /** The process lock filename */
     public static final String PROCESS_LOCK_FILENAME = ".lock";
 
+    /** The prefix of reserved folders in the script folder base path */
+    public static final String RESERVED_FOLDER_PREFIX = ".";
+
+    /** The reserved folder in the disk base path with the input files of RAM backed script folders */
+    public static final String INPUT_FOLDER_NAME = RESERVED_FOLDER_PREFIX + "input";
+
+    /** The extension of a script which is not completely written */
+    public static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    /** The extension of a pid file */
+    public static final String PID_FILE_EXTENSION = ".pid";
+
+    /** The extension of the persisted standard output */
+    public static final String OUTPUT_FILE_EXTENSION = ".out";
+
+    /** The extension of the persisted standard error */
+    public static final String ERROR_FILE_EXTENSION = ".err";
+
     private static final Logger LOG = LoggerFactory.getLogger(ScriptUtil.class);
     
     
@@ -75,7 +95,7 @@ public final class ScriptUtil {
         }
         
         try {
-            Path pidFilePath = createTempFile(scriptPath, filename + ".pid").toPath();
+            Path pidFilePath = createTempFile(scriptPath, filename + PID_FILE_EXTENSION).toPath();
             Files.writeString(pidFilePath, Long.toString(pid), StandardCharsets.UTF_8, StandardOpenOption.CREATE);
             return pidFilePath;
         } catch (IOException e) {
@@ -109,6 +129,30 @@ public final class ScriptUtil {
     }
 
     
+    /**
+     * Get the file of the persisted standard output of a run
+     * 
+     * @param scriptPath the script path
+     * @param id the id of the system command group list
+     * @return the file
+     */
+    public Path getOutputFile(Path scriptPath, String id) {
+        return scriptPath.resolve(id + OUTPUT_FILE_EXTENSION);
+    }
+
+
+    /**
+     * Get the file of the persisted standard error of a run
+     * 
+     * @param scriptPath the script path
+     * @param id the id of the system command group list
+     * @return the file
+     */
+    public Path getErrorFile(Path scriptPath, String id) {
+        return scriptPath.resolve(id + ERROR_FILE_EXTENSION);
+    }
+
+    
     /**
      * Create lock file
      *
@@ -133,15 +177,28 @@ public final class ScriptUtil {
      * @return true if it has no running processes
      */
     public boolean hasNoRunningProcesses(Path directory) {
-        File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(".pid"));
+        return hasNoRunningProcesses(directory, null);
+    }
+
+
+    /**
+     * Verify if the directory has no running processes
+     * 
+     * @param directory the directory
+     * @param snapshot the snapshot of the living processes or null to check every process on its own
+     * @return true if it has no running processes
+     */
+    public boolean hasNoRunningProcesses(Path directory, ProcessLivenessSnapshot snapshot) {
+        File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(PID_FILE_EXTENSION));
         if (files == null || files.length == 0) {
             return true;
         } 
         
         boolean hasNoRunningProcesses = true;
         for (File pidFile : files) {
-            if (isRunningProcess(pidFile)) {
+            if (isRunningProcess(pidFile, snapshot)) {
                 hasNoRunningProcesses = false;
+                break;
             }
         }
         
@@ -156,8 +213,29 @@ public final class ScriptUtil {
      * @return true if the pid file is valid and the process is still running 
      */
     public boolean isRunningProcess(File pidFile) {
+        return isRunningProcess(pidFile, null);
+    }
+
+
+    /**
+     * Verify if the process is running. The pid file is written after the start of the process, a process which 
+     * was started later reuses the process id.
+     * 
+     * @param pidFile the pid file
+     * @param snapshot the snapshot of the living processes or null to check the process on its own
+     * @return true if the pid file is valid and the process is still running 
+     */
+    public boolean isRunningProcess(File pidFile, ProcessLivenessSnapshot snapshot) {
         Long pid = readPidFile(pidFile.toPath());
-        return (pid != null && ProcessBuilderUtil.getInstance().isProcessRunning(pid));
+        if (pid == null) {
+            return false;
+        }
+        
+        if (snapshot == null) {
+            return ProcessBuilderUtil.getInstance().isProcessRunning(pid);
+        }
+        
+        return snapshot.isRunningSince(pid, pidFile.lastModified());
     }
 
     
@@ -180,6 +258,53 @@ public final class ScriptUtil {
         return tempFile.toPath();
     }
 
+
+    /**
+     * Get the script file of the given filename, the file itself will not be created
+     * 
+     * @param basePath the base path
+     * @param filename the filename
+     * @param systemCommandExecuterPlatformSupport the system command executer platform support
+     * @return the script file
+     */
+    public Path getScriptFile(Path basePath, String filename, ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport) {
+        return basePath.resolve(filename + systemCommandExecuterPlatformSupport.getScriptFileExtension());
+    }
+
+
+    /**
+     * Write the prepared script content at once. The content is written into a temporary file which will be
+     * renamed atomically, a running process never sees a partially written script.
+     * 
+     * @param basePath the base path
+     * @param filename the filename
+     * @param systemCommandExecuterPlatformSupport the system command executer platform support
+     * @param content the script content
+     * @return the script file
+     * @throws IOException In case of an I/O issue
+     */
+    public Path writeScriptFile(Path basePath, String filename, ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport, CharSequence content) throws IOException {
+        Path file = getScriptFile(basePath, filename, systemCommandExecuterPlatformSupport);
+        
+        // the temporary file is unique, concurrent writers of the same script don't interfere
+        File tempFile = createTempFile(basePath, file.getFileName().toString() + "." + Thread.currentThread().getId() + "-" + System.nanoTime() + TEMP_FILE_EXTENSION);
+        
+        try {
+            systemCommandExecuterPlatformSupport.writeToFile(tempFile.toPath(), content.toString());
+            tempFile.setExecutable(true);
+            
+            try {
+                Files.move(tempFile.toPath(), file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+
+        return file;
+    }
+
     
     /**
      * Prepare the temp path and the script file
@@ -208,28 +333,45 @@ public final class ScriptUtil {
      * @throws IOException In case of an I/O issue
      */
     public void createScriptFile(ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport, Path file) throws IOException {
+        systemCommandExecuterPlatformSupport.writeToFile(file, prepareScriptHeader(systemCommandExecuterPlatformSupport, file.getParent()));
+    }
+
+
+    /**
+     * Prepare the script header
+     * 
+     * @param systemCommandExecuterPlatformSupport the system command executer platform support
+     * @param scriptPath the path of the script or null in case there is no script folder
+     * @return the script header
+     */
+    public String prepareScriptHeader(ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport, Path scriptPath) {
+        StringBuilder header = new StringBuilder();
         if (systemCommandExecuterPlatformSupport.getScriptFileHeader() != null && !systemCommandExecuterPlatformSupport.getScriptFileHeader().isBlank()) {
-            systemCommandExecuterPlatformSupport.writeToFile(file, systemCommandExecuterPlatformSupport.getScriptFileHeader() + systemCommandExecuterPlatformSupport.getEndOfLine());
+            header.append(systemCommandExecuterPlatformSupport.getScriptFileHeader()).append(systemCommandExecuterPlatformSupport.getEndOfLine());
         }
         
         // set env variable in case it don't exist for debug purpose
-        systemCommandExecuterPlatformSupport.writeToFile(file, systemCommandExecuterPlatformSupport.getNotExistEnvironmentVariableCommand(ProcessBuilderUtil.TEMP) 
-                                                             + systemCommandExecuterPlatformSupport.getEnvironmentSetCommand() + ProcessBuilderUtil.TEMP 
-                                                             + systemCommandExecuterPlatformSupport.getEnvironmentAssignCommand() 
-                                                             + file.getParent().toString() 
-                                                             + systemCommandExecuterPlatformSupport.getEnvironmentAssignCommandEnd() 
-                                                             + systemCommandExecuterPlatformSupport.getEndOfLine());
+        if (scriptPath != null) {
+            header.append(systemCommandExecuterPlatformSupport.getNotExistEnvironmentVariableCommand(ProcessBuilderUtil.TEMP) 
+                          + systemCommandExecuterPlatformSupport.getEnvironmentSetCommand() + ProcessBuilderUtil.TEMP 
+                          + systemCommandExecuterPlatformSupport.getEnvironmentAssignCommand() 
+                          + scriptPath.toString() 
+                          + systemCommandExecuterPlatformSupport.getEnvironmentAssignCommandEnd() 
+                          + systemCommandExecuterPlatformSupport.getEndOfLine());
+        }
 
         
         if (systemCommandExecuterPlatformSupport.getScriptFileComment() != null && !systemCommandExecuterPlatformSupport.getScriptFileComment().isBlank()) {
             final String comment = systemCommandExecuterPlatformSupport.getScriptFileComment() + SystemCommand.SPACE;
             final String line = prepareString(systemCommandExecuterPlatformSupport.getScriptFileComment(), 80);
-            systemCommandExecuterPlatformSupport.writeToFile(file, systemCommandExecuterPlatformSupport.getEndOfLine()
-                                                               + line + systemCommandExecuterPlatformSupport.getEndOfLine()
-                                                               + comment + "Temporary script for batch execution." + systemCommandExecuterPlatformSupport.getEndOfLine()
-                                                               + comment + "Powered by toolarium" + systemCommandExecuterPlatformSupport.getEndOfLine()
-                                                               + line + systemCommandExecuterPlatformSupport.getEndOfLine());
+            header.append(systemCommandExecuterPlatformSupport.getEndOfLine()
+                          + line + systemCommandExecuterPlatformSupport.getEndOfLine()
+                          + comment + "Temporary script for batch execution." + systemCommandExecuterPlatformSupport.getEndOfLine()
+                          + comment + "Powered by toolarium" + systemCommandExecuterPlatformSupport.getEndOfLine()
+                          + line + systemCommandExecuterPlatformSupport.getEndOfLine());
         }
+        
+        return header.toString();
     }
 
 
@@ -242,17 +384,34 @@ public final class ScriptUtil {
      */
     public void closeScriptFile(ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport, Path file)
             throws IOException {
+        String footer = prepareScriptFooter(systemCommandExecuterPlatformSupport);
+        if (!footer.isEmpty()) {
+            systemCommandExecuterPlatformSupport.writeToFile(file, footer);
+        }
+    }
+
+
+    /**
+     * Prepare the script footer
+     * 
+     * @param systemCommandExecuterPlatformSupport the system command executer platform support
+     * @return the script footer
+     */
+    public String prepareScriptFooter(ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport) {
+        StringBuilder footer = new StringBuilder();
         if (systemCommandExecuterPlatformSupport.getScriptFileFooter() != null && !systemCommandExecuterPlatformSupport.getScriptFileFooter().isBlank()) {
-            systemCommandExecuterPlatformSupport.writeToFile(file, systemCommandExecuterPlatformSupport.getScriptFileFooter() + systemCommandExecuterPlatformSupport.getEndOfLine());
+            footer.append(systemCommandExecuterPlatformSupport.getScriptFileFooter()).append(systemCommandExecuterPlatformSupport.getEndOfLine());
         }
 
         if (systemCommandExecuterPlatformSupport.getScriptFileComment() != null && !systemCommandExecuterPlatformSupport.getScriptFileComment().isBlank()) {
             final String comment = systemCommandExecuterPlatformSupport.getScriptFileComment() + SystemCommand.SPACE;
             final String line = prepareString(systemCommandExecuterPlatformSupport.getScriptFileComment(), 80);
-            systemCommandExecuterPlatformSupport.writeToFile(file, systemCommandExecuterPlatformSupport.getEndOfLine() + line + systemCommandExecuterPlatformSupport.getEndOfLine()
-                                                                    + comment + "EOF" + systemCommandExecuterPlatformSupport.getEndOfLine()
-                                                                    + line + systemCommandExecuterPlatformSupport.getEndOfLine());
+            footer.append(systemCommandExecuterPlatformSupport.getEndOfLine() + line + systemCommandExecuterPlatformSupport.getEndOfLine()
+                          + comment + "EOF" + systemCommandExecuterPlatformSupport.getEndOfLine()
+                          + line + systemCommandExecuterPlatformSupport.getEndOfLine());
         }
+        
+        return footer.toString();
     }
 
     
@@ -312,31 +471,14 @@ public final class ScriptUtil {
      */
     public List<Path> selectInvalidProcessDirectories(Path basePath, long newFolderThreshold, long lockFolderThreshold) throws IOException {
         List<Path> list = new ArrayList<>();
+        ProcessLivenessSnapshot snapshot = ProcessLivenessSnapshot.create();
         
         Files.find(basePath, Integer.MAX_VALUE, (filePath, fileAttr) -> fileAttr.isDirectory()).forEach(directory -> {
             if (!directory.toString().equals(basePath.toString()) // ignore base directory
-                && hasReachedThresholdValue(OSUtil.getInstance().getCreationTimestamp(directory), newFolderThreshold)) {
-                //if (LOG.isDebugEnabled()) {
-                //    LOG.debug("Check directory [" + directory + "]...");
-                //}
-          
-                final String parentName = directory.toString().replace("\\", "/");
-                String id = prepareIdFromName(parentName);
-                Path processLockFile = Paths.get(parentName, ScriptUtil.PROCESS_LOCK_FILENAME);
-                if (processLockFile.toFile().exists()) {
-                    if (hasReachedThresholdValue(OSUtil.getInstance().getCreationTimestamp(processLockFile), lockFolderThreshold) 
-                        && ScriptUtil.getInstance().hasNoRunningProcesses(directory)) {
-                        LOG.debug("Process ended by cleanup (id:" + id + ", script:" + directory + ", lock timeouted)");
-                        list.add(directory);
-                    } else {
-                        //if (LOG.isDebugEnabled()) {
-                        //    LOG.debug("Ignore folder (id:" + id + ")" + parentName);
-                        //}
-                    }
-                } else if (ScriptUtil.getInstance().hasNoRunningProcesses(directory)) {
-                    LOG.debug("Process ended by cleanup (id:" + id + ", script:" + directory + ")");
-                    list.add(directory);
-                }
+                && !isReservedDirectory(basePath, directory) // ignore e.g. the result cache
+                && hasReachedThresholdValue(OSUtil.getInstance().getCreationTimestamp(directory), newFolderThreshold)
+                && isInvalidProcessDirectory(directory, lockFolderThreshold, snapshot)) {
+                list.add(directory);
             }
         });
         
@@ -344,6 +486,61 @@ public final class ScriptUtil {
     }
 
 
+    /**
+     * Verify if a process directory is invalid: it has no running processes and either no lock file or a lock file which reached the lock folder threshold.
+     *
+     * @param directory the process directory
+     * @param lockFolderThreshold the lock folder threshold
+     * @return true if the directory can be deleted
+     */
+    public boolean isInvalidProcessDirectory(Path directory, long lockFolderThreshold) {
+        return isInvalidProcessDirectory(directory, lockFolderThreshold, null);
+    }
+
+
+    /**
+     * Verify if a process directory is invalid: it has no running processes and either no lock file or a lock file which reached the lock folder threshold.
+     *
+     * @param directory the process directory
+     * @param lockFolderThreshold the lock folder threshold
+     * @param snapshot the snapshot of the living processes or null to check every process on its own
+     * @return true if the directory can be deleted
+     */
+    public boolean isInvalidProcessDirectory(Path directory, long lockFolderThreshold, ProcessLivenessSnapshot snapshot) {
+        final String parentName = directory.toString().replace("\\", "/");
+        String id = prepareIdFromName(parentName);
+        Path processLockFile = Paths.get(parentName, ScriptUtil.PROCESS_LOCK_FILENAME);
+        if (processLockFile.toFile().exists()) {
+            if (hasReachedThresholdValue(OSUtil.getInstance().getCreationTimestamp(processLockFile), lockFolderThreshold) 
+                && hasNoRunningProcesses(directory, snapshot)) {
+                LOG.debug("Process ended by cleanup (id:" + id + ", script:" + directory + ", lock timeouted)");
+                return true;
+            }
+        } else if (hasNoRunningProcesses(directory, snapshot)) {
+            LOG.debug("Process ended by cleanup (id:" + id + ", script:" + directory + ")");
+            return true;
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Verify if the directory is reserved. Reserved directories are direct sub folders of the base path which starts with a dot, e.g. the result cache.
+     *
+     * @param basePath the base path
+     * @param directory the directory
+     * @return true if the directory or its parent is reserved
+     */
+    public boolean isReservedDirectory(Path basePath, Path directory) {
+        if (!directory.startsWith(basePath) || directory.equals(basePath)) {
+            return false;
+        }
+
+        return basePath.relativize(directory).getName(0).toString().startsWith(RESERVED_FOLDER_PREFIX);
+    }
+
+
     /**
      * Verify if the threshold is reached
      *
@@ -0,0 +1,367 @@
+/*
+ * RemoteAsynchronousProcess.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.remote;
+
+import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
+import com.github.toolarium.system.command.process.IAsynchronousProcess;
+import com.github.toolarium.system.command.process.impl.AbstractProcess;
+import com.github.toolarium.system.command.process.stream.IProcessOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Implements the {@link IAsynchronousProcess} of a system command group list which runs on a {@link SystemCommandAgent}.
+ * A reader thread dispatches the frames of the agent to the output streams. The destroy methods send a cancel to the
+ * agent; the process handle is not available.
+ *
+ * @author patrick
+ */
+class RemoteAsynchronousProcess extends AbstractProcess implements IAsynchronousProcess {
+    private static final Logger LOG = LoggerFactory.getLogger(RemoteAsynchronousProcess.class);
+    private static final long DESTROY_TIMEOUT = 10000;
+    private final RemoteConnection connection;
+    private final IProcessOutputStream processOut;
+    private final IProcessOutputStream processErr;
+    private final OutputStream inputStream;
+    private final Runnable endListener;
+    private final CountDownLatch startedLatch;
+    private final CountDownLatch endedLatch;
+    private volatile Long pid;
+    private volatile Instant startTime;
+    private volatile Duration totalCpuDuration;
+    private volatile Integer exitValue;
+    private volatile String errorMessage;
+
+
+    /**
+     * Constructor for RemoteAsynchronousProcess
+     *
+     * @param systemCommandGroupList the system command group list
+     * @param connection the connection which got the ready of the agent
+     * @param processOut the process output stream or null to discard
+     * @param processErr the process error stream or null to discard
+     * @param endListener the listener which is called at the end
+     */
+    RemoteAsynchronousProcess(ISystemCommandGroupList systemCommandGroupList, RemoteConnection connection, IProcessOutputStream processOut, IProcessOutputStream processErr, Runnable endListener) {
+        super(systemCommandGroupList, null, null, null, null);
+        this.connection = connection;
+        this.processOut = processOut;
+        this.processErr = processErr;
+        this.inputStream = new RemoteFrameOutputStream(connection, RemoteConnection.STDIN, RemoteConnection.STDIN_CLOSE);
+        this.endListener = endListener;
+        this.startedLatch = new CountDownLatch(1);
+        this.endedLatch = new CountDownLatch(1);
+    }
+
+
+    /**
+     * Start the reader thread and wait until the agent started the process
+     *
+     * @param runPayload the binary serialized system command group list
+     * @param readerThreadName the name of the reader thread
+     * @throws IOException In case the run could not be sent
+     * @throws InterruptedException in case of thread interrupt
+     */
+    void start(byte[] runPayload, String readerThreadName) throws IOException, InterruptedException {
+        if (getSystemCommandGroupList().iterator().hasNext()) {
+            if (processOut != null) {
+                processOut.start(getSystemCommandGroupList().iterator().next());
+            }
+
+            if (processErr != null) {
+                processErr.start(getSystemCommandGroupList().iterator().next());
+            }
+        }
+
+        Thread readerThread = new Thread(this::read, readerThreadName);
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        try {
+            connection.writeFrame(RemoteConnection.RUN, runPayload);
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+
+        startedLatch.await();
+        if (errorMessage != null && pid == null) {
+            throw new IllegalStateException("Could not start remote process (id:" + getSystemCommandGroupList().getId() + ", agent:" + connection.getRemoteAddress() + "): " + errorMessage);
+        }
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IProcess#getPid()
+     */
+    @Override
+    public Long getPid() {
+        return pid;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IProcess#getStartTime()
+     */
+    @Override
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IProcess#getTotalCpuDuration()
+     */
+    @Override
+    public Duration getTotalCpuDuration() {
+        return totalCpuDuration;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IProcess#getExitValue()
+     */
+    @Override
+    public Integer getExitValue() {
+        return exitValue;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#waitFor()
+     */
+    @Override
+    public int waitFor() throws InterruptedException {
+        endedLatch.await();
+        return exitValue;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#waitFor(long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+        return endedLatch.await(timeout, unit);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#isAlive()
+     */
+    @Override
+    public boolean isAlive() {
+        return endedLatch.getCount() > 0;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#tryDestroy()
+     */
+    @Override
+    public void tryDestroy() {
+        cancel(RemoteConnection.CANCEL_TRY);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#destroy()
+     */
+    @Override
+    public void destroy() {
+        cancel(RemoteConnection.CANCEL_FORCE);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#destroyTree()
+     */
+    @Override
+    public void destroyTree() {
+        cancel(RemoteConnection.CANCEL_TREE);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#getInputStream()
+     */
+    @Override
+    public OutputStream getInputStream() {
+        return inputStream;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#getProcessHandle()
+     */
+    @Override
+    public ProcessHandle getProcessHandle() {
+        return null;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.process.IAsynchronousProcess#close()
+     */
+    @Override
+    public void close() {
+        try {
+            waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Send a cancel to the agent. If the process is not alive, no action is taken.
+     *
+     * @param kind the kind of cancel
+     */
+    private void cancel(byte kind) {
+        if (!isAlive()) {
+            return;
+        }
+
+        try {
+            connection.writeFrame(RemoteConnection.CANCEL, new byte[] {kind});
+            if (kind != RemoteConnection.CANCEL_TRY) {
+                // a destroy returns after the process has ended as the local one
+                endedLatch.await(DESTROY_TIMEOUT, TimeUnit.MILLISECONDS);
+            }
+        } catch (IOException e) {
+            LOG.debug("Could not cancel remote process (id:" + getSystemCommandGroupList().getId() + "): " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Read and dispatch the frames of the agent
+     */
+    private void read() {
+        try {
+            RemoteConnection.Frame frame = connection.readFrame();
+            while (frame != null && exitValue == null) {
+                dispatch(frame);
+                frame = connection.readFrame();
+            }
+        } catch (IOException | RuntimeException e) {
+            errorMessage = e.getMessage();
+        } finally {
+            if (exitValue == null) {
+                if (errorMessage == null) {
+                    errorMessage = "Connection closed by agent!";
+                }
+
+                LOG.warn("Remote process ended with error (id:" + getSystemCommandGroupList().getId() + ", agent:" + connection.getRemoteAddress() + "): " + errorMessage);
+                exitValue = -1;
+            }
+
+            closeStream(processOut);
+            if (processErr != processOut) {
+                closeStream(processErr);
+            }
+
+            connection.close();
+            endListener.run();
+            startedLatch.countDown();
+            endedLatch.countDown();
+        }
+    }
+
+
+    /**
+     * Dispatch a frame of the agent
+     *
+     * @param frame the frame
+     * @throws IOException In case of an I/O error
+     */
+    private void dispatch(RemoteConnection.Frame frame) throws IOException {
+        switch (frame.getType()) {
+            case RemoteConnection.STARTED:
+                ByteBuffer startedBuffer = ByteBuffer.wrap(frame.getPayload());
+                long remotePid = startedBuffer.getLong();
+                long remoteStartTime = startedBuffer.getLong();
+                if (remotePid != SystemCommandAgent.NONE) {
+                    pid = remotePid;
+                }
+
+                if (remoteStartTime != SystemCommandAgent.NONE) {
+                    startTime = Instant.ofEpochMilli(remoteStartTime);
+                } else {
+                    startTime = Instant.now();
+                }
+
+                startedLatch.countDown();
+                break;
+            case RemoteConnection.STDOUT:
+                write(processOut, frame.getPayload());
+                break;
+            case RemoteConnection.STDERR:
+                write(processErr, frame.getPayload());
+                break;
+            case RemoteConnection.EXIT:
+                ByteBuffer exitBuffer = ByteBuffer.wrap(frame.getPayload());
+                long cpuNanos = exitBuffer.getLong();
+                if (cpuNanos != SystemCommandAgent.NONE) {
+                    totalCpuDuration = Duration.ofNanos(cpuNanos);
+                }
+
+                exitValue = exitBuffer.getInt();
+                break;
+            case RemoteConnection.ERROR:
+                errorMessage = new String(frame.getPayload(), StandardCharsets.UTF_8);
+                break;
+            default:
+                LOG.debug("Ignore frame " + frame.getType() + " of agent " + connection.getRemoteAddress() + ".");
+                break;
+        }
+    }
+
+
+    /**
+     * Write to a process output stream
+     *
+     * @param processOutputStream the process output stream or null to discard
+     * @param data the data
+     * @throws IOException In case of an I/O error
+     */
+    private void write(IProcessOutputStream processOutputStream, byte[] data) throws IOException {
+        if (processOutputStream != null) {
+            processOutputStream.write(data, 0, data.length);
+            processOutputStream.flush();
+        }
+    }
+
+
+    /**
+     * Close a process output stream
+     *
+     * @param processOutputStream the process output stream or null
+     */
+    private void closeStream(IProcessOutputStream processOutputStream) {
+        if (processOutputStream == null) {
+            return;
+        }
+
+        try {
+            processOutputStream.close();
+        } catch (IOException e) {
+            LOG.debug("Could not close stream: " + e.getMessage());
+        }
+    }
+}
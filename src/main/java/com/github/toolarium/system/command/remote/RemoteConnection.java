@@ -0,0 +1,372 @@
+/*
+ * RemoteConnection.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.remote;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+
+/**
+ * A connection between a {@link RemoteSystemCommandExecuter} and a {@link SystemCommandAgent} over TCP or a unix
+ * domain socket. The protocol exchanges frames: a frame consists of its type (one byte), the length of the payload
+ * (four bytes, big endian) and the payload. The frames are written thread safe, e.g. by the output and the error
+ * stream of a process.
+ *
+ * <p>A client starts with {@link #HELLO} and gets {@link #READY} as soon as the agent has a free slot. Then it sends
+ * {@link #RUN} and optional {@link #STDIN} frames; the agent answers with {@link #STARTED}, the output frames and
+ * finally {@link #EXIT}. In case of an error the agent sends {@link #ERROR} and closes the connection.</p>
+ *
+ * @author patrick
+ */
+final class RemoteConnection implements Closeable {
+    /** The version of the protocol */
+    static final int PROTOCOL_VERSION = 1;
+
+    /** The maximum payload size of a frame */
+    static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+
+    /** Client hello: the protocol version and the token */
+    static final byte HELLO = 1;
+
+    /** Client run: the binary or JSON serialized system command group list, see {@link com.github.toolarium.system.command.serialization.SystemCommandSerializer} */
+    static final byte RUN = 2;
+
+    /** Client standard input */
+    static final byte STDIN = 3;
+
+    /** Client end of the standard input */
+    static final byte STDIN_CLOSE = 4;
+
+    /** Client cancel: the kind of destroy, see {@link #CANCEL_TRY}, {@link #CANCEL_FORCE} and {@link #CANCEL_TREE} */
+    static final byte CANCEL = 5;
+
+    /** Agent ready: the number of active runs and the maximum number of concurrent runs */
+    static final byte READY = 10;
+
+    /** Agent started: the pid and the start time in milliseconds, -1 if unknown */
+    static final byte STARTED = 11;
+
+    /** Agent standard output */
+    static final byte STDOUT = 12;
+
+    /** Agent standard error output */
+    static final byte STDERR = 13;
+
+    /** Agent exit: the total cpu duration in nanoseconds (-1 if unknown) and the exit value */
+    static final byte EXIT = 14;
+
+    /** Agent error: the message */
+    static final byte ERROR = 15;
+
+    /** Cancel by a normal termination */
+    static final byte CANCEL_TRY = 0;
+
+    /** Cancel by a forced termination */
+    static final byte CANCEL_FORCE = 1;
+
+    /** Cancel by a forced termination of the process tree */
+    static final byte CANCEL_TREE = 2;
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final String LOCAL = "local";
+    private final SocketChannel channel;
+    private final String remoteAddress;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+
+    /**
+     * Constructor for RemoteConnection
+     *
+     * @param channel the connected blocking channel
+     * @throws IOException In case of an I/O error
+     */
+    RemoteConnection(SocketChannel channel) throws IOException {
+        this.channel = channel;
+        if (channel.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY)) {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+
+        // the client of a unix domain socket is unnamed
+        String address = String.valueOf(channel.getRemoteAddress());
+        if (address.isBlank()) {
+            address = LOCAL;
+        }
+
+        this.remoteAddress = address;
+        this.in = new DataInputStream(new BufferedInputStream(new ChannelInputStream(channel)));
+        this.out = new DataOutputStream(new BufferedOutputStream(new ChannelOutputStream(channel)));
+    }
+
+
+    /**
+     * Connect to an agent
+     *
+     * @param socketAddress the address of the agent: an {@link InetSocketAddress} or a unix domain socket address
+     * @param connectTimeout the connect timeout of TCP in milliseconds
+     * @return the connection
+     * @throws IOException In case of an I/O error
+     */
+    static RemoteConnection connect(SocketAddress socketAddress, int connectTimeout) throws IOException {
+        SocketChannel socketChannel;
+        if (socketAddress instanceof InetSocketAddress) {
+            socketChannel = SocketChannel.open();
+        } else {
+            socketChannel = UnixDomainSocketUtil.getInstance().openSocketChannel();
+        }
+
+        try {
+            if (socketAddress instanceof InetSocketAddress) {
+                socketChannel.socket().connect(socketAddress, connectTimeout);
+            } else {
+                socketChannel.connect(socketAddress);
+            }
+
+            return new RemoteConnection(socketChannel);
+        } catch (IOException | RuntimeException e) {
+            socketChannel.close();
+            throw e;
+        }
+    }
+
+
+    /**
+     * Write a frame without payload
+     *
+     * @param type the type
+     * @throws IOException In case of an I/O error
+     */
+    void writeFrame(byte type) throws IOException {
+        writeFrame(type, EMPTY, 0, 0);
+    }
+
+
+    /**
+     * Write a frame
+     *
+     * @param type the type
+     * @param payload the payload
+     * @throws IOException In case of an I/O error
+     */
+    void writeFrame(byte type, byte[] payload) throws IOException {
+        writeFrame(type, payload, 0, payload.length);
+    }
+
+
+    /**
+     * Write a frame
+     *
+     * @param type the type
+     * @param payload the payload
+     * @param offset the offset of the payload
+     * @param length the length of the payload
+     * @throws IOException In case of an I/O error
+     */
+    synchronized void writeFrame(byte type, byte[] payload, int offset, int length) throws IOException {
+        out.writeByte(type);
+        out.writeInt(length);
+        out.write(payload, offset, length);
+        out.flush();
+    }
+
+
+    /**
+     * Read the next frame
+     *
+     * @return the frame or null at the end of the stream
+     * @throws IOException In case of an I/O error or an invalid frame
+     */
+    Frame readFrame() throws IOException {
+        int type = in.read();
+        if (type < 0) {
+            return null;
+        }
+
+        int length;
+        byte[] payload;
+        try {
+            length = in.readInt();
+            if (length < 0 || length > MAX_FRAME_SIZE) {
+                throw new IOException("Invalid frame size " + length + "!");
+            }
+
+            payload = new byte[length];
+            in.readFully(payload);
+        } catch (EOFException e) {
+            throw new IOException("Unexpected end of frame!", e);
+        }
+
+        return new Frame((byte) type, payload);
+    }
+
+
+    /**
+     * Get the remote address
+     *
+     * @return the remote address
+     */
+    String getRemoteAddress() {
+        return remoteAddress;
+    }
+
+
+    /**
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // NOP
+        }
+    }
+
+
+    /**
+     * A frame of the protocol
+     *
+     * @author patrick
+     */
+    static final class Frame {
+        private final byte type;
+        private final byte[] payload;
+
+
+        /**
+         * Constructor for Frame
+         *
+         * @param type the type
+         * @param payload the payload
+         */
+        Frame(byte type, byte[] payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+
+
+        /**
+         * Get the type
+         *
+         * @return the type
+         */
+        byte getType() {
+            return type;
+        }
+
+
+        /**
+         * Get the payload
+         *
+         * @return the payload
+         */
+        byte[] getPayload() {
+            return payload;
+        }
+    }
+
+
+    /**
+     * The input stream of a channel. In contrast to {@link java.nio.channels.Channels#newInputStream(java.nio.channels.ReadableByteChannel)}
+     * it does not lock the channel, a thread can read while another one writes.
+     *
+     * @author patrick
+     */
+    private static final class ChannelInputStream extends InputStream {
+        private final SocketChannel channel;
+
+
+        /**
+         * Constructor for ChannelInputStream
+         *
+         * @param channel the channel
+         */
+        ChannelInputStream(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+
+        /**
+         * @see java.io.InputStream#read()
+         */
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            if (read(b, 0, 1) < 0) {
+                return -1;
+            }
+
+            return b[0] & 0xFF;
+        }
+
+
+        /**
+         * @see java.io.InputStream#read(byte[], int, int)
+         */
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            return channel.read(ByteBuffer.wrap(b, off, len));
+        }
+    }
+
+
+    /**
+     * The output stream of a channel. In contrast to {@link java.nio.channels.Channels#newOutputStream(java.nio.channels.WritableByteChannel)}
+     * it does not lock the channel, a thread can write while another one reads.
+     *
+     * @author patrick
+     */
+    private static final class ChannelOutputStream extends OutputStream {
+        private final SocketChannel channel;
+
+
+        /**
+         * Constructor for ChannelOutputStream
+         *
+         * @param channel the channel
+         */
+        ChannelOutputStream(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+
+        /**
+         * @see java.io.OutputStream#write(int)
+         */
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+
+        /**
+         * @see java.io.OutputStream#write(byte[], int, int)
+         */
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * RemoteFrameOutputStream.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.remote;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+/**
+ * An output stream which writes every chunk as frame of a {@link RemoteConnection}. Closing the stream writes the
+ * optional close frame, the connection stays open.
+ *
+ * @author patrick
+ */
+final class RemoteFrameOutputStream extends OutputStream {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private final RemoteConnection connection;
+    private final byte type;
+    private final Byte closeType;
+    private boolean closed;
+
+
+    /**
+     * Constructor for RemoteFrameOutputStream
+     *
+     * @param connection the connection
+     * @param type the type of the frames
+     * @param closeType the type of the frame which is written on close or null
+     */
+    RemoteFrameOutputStream(RemoteConnection connection, byte type, Byte closeType) {
+        this.connection = connection;
+        this.type = type;
+        this.closeType = closeType;
+        this.closed = false;
+    }
+
+
+    /**
+     * @see java.io.OutputStream#write(int)
+     */
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+
+    /**
+     * @see java.io.OutputStream#write(byte[], int, int)
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed!");
+        }
+
+        // large writes are split, the frames of the other stream are not blocked too long
+        for (int i = 0; i < len; i += CHUNK_SIZE) {
+            connection.writeFrame(type, b, off + i, Math.min(CHUNK_SIZE, len - i));
+        }
+    }
+
+
+    /**
+     * @see java.io.OutputStream#close()
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        if (closeType != null) {
+            connection.writeFrame(closeType);
+        }
+    }
+}
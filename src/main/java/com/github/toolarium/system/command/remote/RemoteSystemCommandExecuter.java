@@ -0,0 +1,401 @@
+/*
+ * RemoteSystemCommandExecuter.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.remote;
+
+import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
+import com.github.toolarium.system.command.executer.ISystemCommandExecuter;
+import com.github.toolarium.system.command.process.stream.IProcessOutputStream;
+import com.github.toolarium.system.command.serialization.SerializationFormat;
+import com.github.toolarium.system.command.serialization.SystemCommandSerializer;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Routes the execution of system command group lists to a set of {@link SystemCommandAgent}s. Every execution is sent
+ * to the least loaded agent: the load is the number of runs of this client on the agent or the number of active runs
+ * which the agent reported, whichever is higher. Agents with the same load are used round robin. An agent which could
+ * not be connected is skipped for {@link #UNAVAILABLE_TIMEOUT} milliseconds and the next agent is tried.
+ *
+ * <p>The agents are reached over TCP ({@link java.net.InetSocketAddress}) or a unix domain socket, which needs Java 16
+ * or later. The system command group list is executed as it is on the agent: the working path and the environment
+ * variables have to be valid on the host of the agent.</p>
+ *
+ * @author patrick
+ */
+public class RemoteSystemCommandExecuter {
+    /** The default connect timeout in milliseconds */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+
+    /** The time in milliseconds an agent is skipped after a connect failure */
+    public static final long UNAVAILABLE_TIMEOUT = 5000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(RemoteSystemCommandExecuter.class);
+    private final List<Agent> agentList;
+    private final AtomicInteger roundRobin;
+    private byte[] token;
+    private int connectTimeout;
+
+
+    /**
+     * Constructor for RemoteSystemCommandExecuter
+     *
+     * @param agentAddressList the addresses of the agents
+     */
+    public RemoteSystemCommandExecuter(List<? extends SocketAddress> agentAddressList) {
+        if (agentAddressList == null || agentAddressList.isEmpty()) {
+            throw new IllegalArgumentException("Invalid agent addresses!");
+        }
+
+        this.agentList = new ArrayList<>();
+        for (SocketAddress agentAddress : agentAddressList) {
+            if (agentAddress == null) {
+                throw new IllegalArgumentException("Invalid agent address!");
+            }
+
+            agentList.add(new Agent(agentAddress));
+        }
+
+        this.roundRobin = new AtomicInteger();
+        this.token = new byte[0];
+        this.connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    }
+
+
+    /**
+     * Constructor for RemoteSystemCommandExecuter of a local agent which is bound to a unix domain socket
+     *
+     * @param socketPath the path of the socket file
+     * @throws IllegalStateException In case the unix domain sockets are not supported by the Java runtime
+     */
+    public RemoteSystemCommandExecuter(Path socketPath) {
+        this(List.of(UnixDomainSocketUtil.getInstance().createAddress(socketPath)));
+    }
+
+
+    /**
+     * Set the token of the agents
+     *
+     * @param token the token or null
+     * @return this instance
+     */
+    public RemoteSystemCommandExecuter setToken(String token) {
+        if (token == null) {
+            this.token = new byte[0];
+        } else {
+            this.token = token.getBytes(StandardCharsets.UTF_8);
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Set the connect timeout
+     *
+     * @param connectTimeout the connect timeout in milliseconds
+     * @return this instance
+     */
+    public RemoteSystemCommandExecuter setConnectTimeout(int connectTimeout) {
+        if (connectTimeout < 0) {
+            throw new IllegalArgumentException("Invalid connect timeout " + connectTimeout + "!");
+        }
+
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+
+    /**
+     * Get the addresses of the agents
+     *
+     * @return the addresses of the agents
+     */
+    public List<SocketAddress> getAgentAddresses() {
+        List<SocketAddress> result = new ArrayList<>();
+        for (Agent agent : agentList) {
+            result.add(agent.getAddress());
+        }
+
+        return Collections.unmodifiableList(result);
+    }
+
+
+    /**
+     * Get the number of runs of this client on an agent
+     *
+     * @param agentAddress the address of the agent
+     * @return the number of runs
+     */
+    public int getRuns(SocketAddress agentAddress) {
+        for (Agent agent : agentList) {
+            if (agent.getAddress().equals(agentAddress)) {
+                return agent.getInFlight().get();
+            }
+        }
+
+        return 0;
+    }
+
+
+    /**
+     * Create a system command executer which runs the system command group list on an agent
+     *
+     * @param systemCommandGroupList the system command group list
+     * @return the system command executer
+     */
+    public ISystemCommandExecuter createSystemCommandExecuter(ISystemCommandGroupList systemCommandGroupList) {
+        if (systemCommandGroupList == null || systemCommandGroupList.size() == 0) {
+            throw new IllegalArgumentException("Invalid system command group list!");
+        }
+
+        return new RemoteSystemCommandExecuterImpl(this, systemCommandGroupList);
+    }
+
+
+    /**
+     * Start a system command group list on the least loaded agent
+     *
+     * @param systemCommandGroupList the system command group list
+     * @param processOut the process output stream or null to discard
+     * @param processErr the process error stream or null to discard
+     * @return the started process
+     */
+    RemoteAsynchronousProcess start(ISystemCommandGroupList systemCommandGroupList, IProcessOutputStream processOut, IProcessOutputStream processErr) {
+        byte[] runPayload = SystemCommandSerializer.getInstance().serialize(systemCommandGroupList, SerializationFormat.BINARY);
+        List<Agent> triedAgentList = new ArrayList<>();
+        Agent agent = selectAgent(triedAgentList);
+        while (agent != null) {
+            triedAgentList.add(agent);
+            agent.getInFlight().incrementAndGet();
+            RemoteConnection connection = connect(agent);
+            if (connection != null) {
+                final Agent selectedAgent = agent;
+                RemoteAsynchronousProcess process = new RemoteAsynchronousProcess(systemCommandGroupList, connection, processOut, processErr, () -> selectedAgent.end());
+                try {
+                    process.start(runPayload, "remote-" + systemCommandGroupList.getId());
+                    LOG.info("Process started (id:" + systemCommandGroupList.getId() + ", pid:" + process.getPid() + ", agent:" + agent.getAddress() + ").");
+                    return process;
+                } catch (IOException e) {
+                    // the agent closed the connection before the run, e.g. on shutdown
+                    LOG.warn("Could not send run to agent " + agent.getAddress() + ": " + e.getMessage());
+                    agent.setUnavailable();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    process.destroyTree();
+                    throw new IllegalStateException("Interrupted while starting remote process (id:" + systemCommandGroupList.getId() + ")!", e);
+                }
+            } else {
+                agent.end();
+            }
+
+            agent = selectAgent(triedAgentList);
+        }
+
+        throw new IllegalStateException("No agent available to run process (id:" + systemCommandGroupList.getId() + ", agents:" + getAgentAddresses() + ")!");
+    }
+
+
+    /**
+     * Select the least loaded agent
+     *
+     * @param triedAgentList the already tried agents
+     * @return the agent or null if no agent is available
+     */
+    private Agent selectAgent(List<Agent> triedAgentList) {
+        int size = agentList.size();
+        int offset = Math.floorMod(roundRobin.getAndIncrement(), size);
+        long now = System.currentTimeMillis();
+
+        Agent result = null;
+        Agent unavailableAgent = null;
+        for (int i = 0; i < size; i++) {
+            Agent agent = agentList.get((offset + i) % size);
+            if (triedAgentList.contains(agent)) {
+                continue;
+            }
+
+            if (agent.getUnavailableUntil() > now) {
+                if (unavailableAgent == null) {
+                    unavailableAgent = agent;
+                }
+            } else if (result == null || agent.getLoad() < result.getLoad()) {
+                result = agent;
+            }
+        }
+
+        if (result == null) {
+            // all remaining agents failed recently, give them a new chance
+            return unavailableAgent;
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Connect to an agent and wait until it is ready
+     *
+     * @param agent the agent
+     * @return the connection or null if the agent is not available
+     */
+    private RemoteConnection connect(Agent agent) {
+        RemoteConnection connection = null;
+        RemoteConnection.Frame frame;
+        try {
+            connection = RemoteConnection.connect(agent.getAddress(), connectTimeout);
+            connection.writeFrame(RemoteConnection.HELLO, ByteBuffer.allocate(4 + token.length).putInt(RemoteConnection.PROTOCOL_VERSION).put(token).array());
+            frame = connection.readFrame();
+        } catch (IOException e) {
+            LOG.warn("Agent " + agent.getAddress() + " is not available: " + e.getMessage());
+            closeConnection(connection);
+            agent.setUnavailable();
+            return null;
+        }
+
+        if (frame != null && frame.getType() == RemoteConnection.READY) {
+            ByteBuffer readyBuffer = ByteBuffer.wrap(frame.getPayload());
+            agent.setReportedActiveRuns(readyBuffer.getInt());
+            agent.setUnavailableUntil(0);
+            return connection;
+        }
+
+        closeConnection(connection);
+        if (frame != null && frame.getType() == RemoteConnection.ERROR) {
+            // a rejected hello is a configuration error, another agent would reject it as well
+            agent.end();
+            throw new IllegalStateException("Agent " + agent.getAddress() + " rejected connection: " + new String(frame.getPayload(), StandardCharsets.UTF_8));
+        }
+
+        LOG.warn("Agent " + agent.getAddress() + " closed the connection.");
+        agent.setUnavailable();
+        return null;
+    }
+
+
+    /**
+     * Close a connection
+     *
+     * @param connection the connection or null
+     */
+    private void closeConnection(RemoteConnection connection) {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+
+    /**
+     * The state of an agent
+     *
+     * @author patrick
+     */
+    private static final class Agent {
+        private final SocketAddress address;
+        private final AtomicInteger inFlight;
+        private volatile int reportedActiveRuns;
+        private volatile long unavailableUntil;
+
+
+        /**
+         * Constructor for Agent
+         *
+         * @param address the address
+         */
+        Agent(SocketAddress address) {
+            this.address = address;
+            this.inFlight = new AtomicInteger();
+            this.reportedActiveRuns = 0;
+            this.unavailableUntil = 0;
+        }
+
+
+        /**
+         * Get the address
+         *
+         * @return the address
+         */
+        SocketAddress getAddress() {
+            return address;
+        }
+
+
+        /**
+         * Get the number of runs of this client
+         *
+         * @return the number of runs
+         */
+        AtomicInteger getInFlight() {
+            return inFlight;
+        }
+
+
+        /**
+         * Get the load
+         *
+         * @return the load
+         */
+        int getLoad() {
+            return Math.max(inFlight.get(), reportedActiveRuns);
+        }
+
+
+        /**
+         * Set the number of active runs which the agent reported
+         *
+         * @param reportedActiveRuns the number of active runs
+         */
+        void setReportedActiveRuns(int reportedActiveRuns) {
+            this.reportedActiveRuns = reportedActiveRuns;
+        }
+
+
+        /**
+         * Get the time until the agent is skipped
+         *
+         * @return the time in milliseconds
+         */
+        long getUnavailableUntil() {
+            return unavailableUntil;
+        }
+
+
+        /**
+         * Set the time until the agent is skipped
+         *
+         * @param unavailableUntil the time in milliseconds
+         */
+        void setUnavailableUntil(long unavailableUntil) {
+            this.unavailableUntil = unavailableUntil;
+        }
+
+
+        /**
+         * Skip the agent for the next {@link RemoteSystemCommandExecuter#UNAVAILABLE_TIMEOUT} milliseconds
+         */
+        void setUnavailable() {
+            this.unavailableUntil = System.currentTimeMillis() + UNAVAILABLE_TIMEOUT;
+        }
+
+
+        /**
+         * A run of this client on the agent ended
+         */
+        void end() {
+            inFlight.decrementAndGet();
+            reportedActiveRuns = Math.max(0, reportedActiveRuns - 1);
+        }
+    }
+}
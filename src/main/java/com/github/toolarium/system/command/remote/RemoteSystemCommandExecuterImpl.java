@@ -0,0 +1,187 @@
+/*
+ * RemoteSystemCommandExecuterImpl.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.remote;
+
+import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
+import com.github.toolarium.system.command.executer.ISystemCommandExecuter;
+import com.github.toolarium.system.command.process.IAsynchronousProcess;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.impl.SynchronousProcess;
+import com.github.toolarium.system.command.process.stream.IProcessInputStream;
+import com.github.toolarium.system.command.process.stream.IProcessOutputStream;
+import com.github.toolarium.system.command.process.stream.ProcessStreamFactory;
+import com.github.toolarium.system.command.process.stream.input.ProcessInputStreamSource;
+import com.github.toolarium.system.command.process.stream.output.ProcessBufferOutputStream;
+import com.github.toolarium.system.command.process.stream.output.ProcessOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Implements the {@link ISystemCommandExecuter} which runs a system command group list on a {@link SystemCommandAgent}.
+ * The standard input of a buffer or a file is sent to the agent; an inherited or discarded standard input is closed
+ * and a piped standard input is available by {@link IAsynchronousProcess#getInputStream()}.
+ *
+ * @author patrick
+ */
+class RemoteSystemCommandExecuterImpl implements ISystemCommandExecuter {
+    private static final Logger LOG = LoggerFactory.getLogger(RemoteSystemCommandExecuterImpl.class);
+    private final RemoteSystemCommandExecuter remoteSystemCommandExecuter;
+    private final ISystemCommandGroupList systemCommandGroupList;
+
+
+    /**
+     * Constructor for RemoteSystemCommandExecuterImpl
+     *
+     * @param remoteSystemCommandExecuter the remote system command executer
+     * @param systemCommandGroupList the system command group list
+     */
+    RemoteSystemCommandExecuterImpl(RemoteSystemCommandExecuter remoteSystemCommandExecuter, ISystemCommandGroupList systemCommandGroupList) {
+        this.remoteSystemCommandExecuter = remoteSystemCommandExecuter;
+        this.systemCommandGroupList = systemCommandGroupList;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runSynchronous()
+     */
+    @Override
+    public ISynchronousProcess runSynchronous() {
+        return runSynchronous(0);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runSynchronous(int)
+     */
+    @Override
+    public ISynchronousProcess runSynchronous(int numberOfSecondsToWait) {
+        return runSynchronous(null, numberOfSecondsToWait);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runSynchronous(com.github.toolarium.system.command.process.stream.IProcessInputStream, int)
+     */
+    @Override
+    public ISynchronousProcess runSynchronous(IProcessInputStream processInputStream, int numberOfSecondsToWait) {
+        ProcessBufferOutputStream outputstream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+        ProcessBufferOutputStream errorOutputstream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+        IAsynchronousProcess asynchronousProcess = runAsynchronous(processInputStream, outputstream, errorOutputstream);
+
+        int exitValue = -1;
+        try {
+            if (numberOfSecondsToWait <= 0) {
+                exitValue = asynchronousProcess.waitFor();
+            } else if (asynchronousProcess.waitFor(numberOfSecondsToWait, TimeUnit.SECONDS)) {
+                exitValue = asynchronousProcess.getExitValue();
+            } else {
+                asynchronousProcess.destroyTree();
+                LOG.info("Remote process aborted (id:" + systemCommandGroupList.getId() + ", pid:" + asynchronousProcess.getPid() + ", timeout:" + numberOfSecondsToWait + ")!");
+                if (asynchronousProcess.getExitValue() != null) {
+                    exitValue = asynchronousProcess.getExitValue();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            asynchronousProcess.destroyTree();
+            LOG.warn("Remote process ended with error (id:" + systemCommandGroupList.getId() + ", pid:" + asynchronousProcess.getPid() + "): " + e.getMessage());
+        }
+
+        return new SynchronousProcess(systemCommandGroupList,
+                                      asynchronousProcess.getPid(),
+                                      asynchronousProcess.getStartTime(), asynchronousProcess.getTotalCpuDuration(),
+                                      exitValue,
+                                      outputstream.toString(), errorOutputstream.toString());
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runAsynchronous()
+     */
+    @Override
+    public IAsynchronousProcess runAsynchronous() {
+        return runAsynchronous(null, new ProcessOutputStream(System.out), new ProcessOutputStream(System.err));
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runAsynchronous(com.github.toolarium.system.command.process.stream.IProcessOutputStream)
+     */
+    @Override
+    public IAsynchronousProcess runAsynchronous(IProcessOutputStream processOutAndErr) {
+        return runAsynchronous(null, processOutAndErr, processOutAndErr);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runAsynchronous(com.github.toolarium.system.command.process.stream.IProcessOutputStream, com.github.toolarium.system.command.process.stream.IProcessOutputStream)
+     */
+    @Override
+    public IAsynchronousProcess runAsynchronous(IProcessOutputStream processOut, IProcessOutputStream processErr) {
+        return runAsynchronous(null, processOut, processErr);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runAsynchronous(com.github.toolarium.system.command.process.stream.IProcessInputStream,
+     *      com.github.toolarium.system.command.process.stream.IProcessOutputStream, com.github.toolarium.system.command.process.stream.IProcessOutputStream)
+     */
+    @Override
+    public IAsynchronousProcess runAsynchronous(IProcessInputStream processInputStream, IProcessOutputStream processOut, IProcessOutputStream processErr) {
+        RemoteAsynchronousProcess process = remoteSystemCommandExecuter.start(systemCommandGroupList, processOut, processErr);
+        sendInput(process, processInputStream);
+        return process;
+    }
+
+
+    /**
+     * The poll timeout is not used, the agent polls its processes.
+     *
+     * @see com.github.toolarium.system.command.executer.ISystemCommandExecuter#runAsynchronous(com.github.toolarium.system.command.process.stream.IProcessInputStream,
+     *      com.github.toolarium.system.command.process.stream.IProcessOutputStream, com.github.toolarium.system.command.process.stream.IProcessOutputStream, long)
+     */
+    @Override
+    public IAsynchronousProcess runAsynchronous(IProcessInputStream processInputStream, IProcessOutputStream processOut, IProcessOutputStream processErr, long pollTimeout) {
+        return runAsynchronous(processInputStream, processOut, processErr);
+    }
+
+
+    /**
+     * Send the standard input to the agent
+     *
+     * @param process the process
+     * @param processInputStream the process input stream or null
+     */
+    private void sendInput(RemoteAsynchronousProcess process, IProcessInputStream processInputStream) {
+        ProcessInputStreamSource source = null;
+        if (processInputStream != null) {
+            source = processInputStream.getProcessInputStreamSource();
+        }
+
+        if (source == ProcessInputStreamSource.PIPE) {
+            return;
+        }
+
+        OutputStream inputStream = process.getInputStream();
+        try {
+            if (source == ProcessInputStreamSource.BUFFER && source.getBuffer() != null) {
+                inputStream.write(source.getBuffer().getBytes(StandardCharsets.UTF_8));
+            } else if (source == ProcessInputStreamSource.FILE && source.getFile() != null) {
+                Files.copy(source.getFile().toPath(), inputStream);
+            }
+
+            inputStream.close();
+        } catch (IOException e) {
+            LOG.warn("Could not send standard input to remote process (id:" + systemCommandGroupList.getId() + "): " + e.getMessage());
+        }
+    }
+}
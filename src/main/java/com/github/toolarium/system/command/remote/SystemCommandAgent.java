@@ -0,0 +1,737 @@
+/*
+ * SystemCommandAgent.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.remote;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
+import com.github.toolarium.system.command.process.IAsynchronousProcess;
+import com.github.toolarium.system.command.process.stream.IProcessOutputStream;
+import com.github.toolarium.system.command.process.stream.ProcessStreamFactory;
+import com.github.toolarium.system.command.process.stream.input.ProcessInputStreamSource;
+import com.github.toolarium.system.command.process.thread.NameableThreadFactory;
+import com.github.toolarium.system.command.serialization.SerializationFormat;
+import com.github.toolarium.system.command.serialization.SystemCommandSerializer;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A standalone agent which executes system command group lists for a {@link RemoteSystemCommandExecuter}. The agent
+ * accepts connections over TCP or a unix domain socket, runs the received system command group lists with the
+ * executers of the {@link SystemCommandExecuterFactory} and streams the output, the error output and the exit value back.
+ *
+ * <p>Bound to a unix domain socket the agent is a local command service: short living tools pay one connect instead
+ * of a JVM startup per execution. The socket file is only accessible by the owner. Besides the binary format the
+ * agent accepts JSON serialized system command group lists, which are simple to create by scripts.</p>
+ *
+ * <p>At most the maximum number of concurrent runs are executed, further connections wait for a free slot. The hello
+ * and the token of a connection are verified before it waits for a slot, a client which does not send its hello and
+ * its run within the handshake timeout is disconnected. The system command group list is executed as it is: the
+ * working path and the environment variables have to be valid on the host of the agent. The agent binds by default
+ * to the loopback address; on TCP a token is required unless it is explicit allowed to run without, see
+ * {@link #setAllowWithoutToken(boolean)}. The standard input of a run is piped from the client.</p>
+ *
+ * @author patrick
+ */
+public final class SystemCommandAgent implements Closeable {
+    /** The default port */
+    public static final int DEFAULT_PORT = 7878;
+
+    /** The environment variable of the token */
+    public static final String TOKEN_ENVIRONMENT_VARIABLE = "TOOLARIUM_AGENT_TOKEN";
+
+    /** The default timeout in milliseconds to receive the hello and the run of a connection */
+    public static final long DEFAULT_HANDSHAKE_TIMEOUT = 10000;
+
+    /** Value of an unknown number */
+    static final long NONE = -1;
+
+    private static final Logger LOG = LoggerFactory.getLogger(SystemCommandAgent.class);
+    private static final String USAGE = "[--bind <address>] [--port <port>] [--socket <path>] [--max-runs <number>] [--allow-without-token]";
+    private final SocketAddress bindAddress;
+    private final Path socketPath;
+    private final int maxConcurrentRuns;
+    private final byte[] token;
+    private final AtomicInteger activeRuns;
+    private final AtomicLong totalRuns;
+    private final Set<RemoteConnection> connections;
+    private final CountDownLatch closeLatch;
+    private volatile long handshakeTimeout;
+    private volatile boolean allowWithoutToken;
+    private ServerSocketChannel serverSocketChannel;
+    private ExecutorService runExecutorService;
+    private ExecutorService inputExecutorService;
+    private ScheduledExecutorService timeoutExecutorService;
+
+
+    /**
+     * Constructor for SystemCommandAgent
+     *
+     * @param bindAddress the bind address, port 0 selects a free port
+     * @param maxConcurrentRuns the maximum number of concurrent runs
+     * @param token the token which the clients have to send or null
+     */
+    public SystemCommandAgent(InetSocketAddress bindAddress, int maxConcurrentRuns, String token) {
+        this(bindAddress, null, maxConcurrentRuns, token);
+    }
+
+
+    /**
+     * Constructor for SystemCommandAgent which binds to a unix domain socket, it needs Java 16 or later.
+     *
+     * @param socketPath the path of the socket file, an existing socket file is replaced
+     * @param maxConcurrentRuns the maximum number of concurrent runs
+     * @param token the token which the clients have to send or null
+     */
+    public SystemCommandAgent(Path socketPath, int maxConcurrentRuns, String token) {
+        this(null, socketPath, maxConcurrentRuns, token);
+    }
+
+
+    /**
+     * Constructor for SystemCommandAgent
+     *
+     * @param bindAddress the bind address or null
+     * @param socketPath the path of the socket file or null
+     * @param maxConcurrentRuns the maximum number of concurrent runs
+     * @param token the token which the clients have to send or null
+     */
+    private SystemCommandAgent(InetSocketAddress bindAddress, Path socketPath, int maxConcurrentRuns, String token) {
+        if (bindAddress == null && socketPath == null) {
+            throw new IllegalArgumentException("Invalid bind address!");
+        }
+
+        if (maxConcurrentRuns <= 0) {
+            throw new IllegalArgumentException("Invalid maximum number of concurrent runs " + maxConcurrentRuns + "!");
+        }
+
+        this.bindAddress = bindAddress;
+        this.socketPath = socketPath;
+        this.maxConcurrentRuns = maxConcurrentRuns;
+        this.token = toBytes(token);
+        this.activeRuns = new AtomicInteger();
+        this.totalRuns = new AtomicLong();
+        this.connections = ConcurrentHashMap.newKeySet();
+        this.closeLatch = new CountDownLatch(1);
+        this.handshakeTimeout = DEFAULT_HANDSHAKE_TIMEOUT;
+        this.allowWithoutToken = false;
+    }
+
+
+    /**
+     * Start an agent: <code>[--bind &lt;address&gt;] [--port &lt;port&gt;] [--socket &lt;path&gt;] [--max-runs &lt;number&gt;] [--allow-without-token]</code>. 
+     * With a socket path the agent binds to the unix domain socket instead of TCP. The token is read from the environment 
+     * variable {@link #TOKEN_ENVIRONMENT_VARIABLE}, on TCP it is required unless <code>--allow-without-token</code> is
+     * given. The agent runs until the JVM is stopped.
+     *
+     * @param args the arguments
+     * @throws IOException In case the agent could not be started
+     * @throws InterruptedException in case of thread interrupt
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String bind = InetAddress.getLoopbackAddress().getHostAddress();
+        int port = DEFAULT_PORT;
+        Path socket = null;
+        int maxRuns = Runtime.getRuntime().availableProcessors();
+        boolean allowWithoutToken = false;
+        int i = 0;
+        while (i < args.length) {
+            String name = args[i++];
+            if ("--allow-without-token".equals(name)) {
+                allowWithoutToken = true;
+                continue;
+            }
+
+            if (i >= args.length) {
+                throw new IllegalArgumentException("Missing value of argument [" + name + "], usage: " + USAGE);
+            }
+
+            String value = args[i++];
+            if ("--bind".equals(name)) {
+                bind = value;
+            } else if ("--port".equals(name)) {
+                port = Integer.parseInt(value);
+            } else if ("--socket".equals(name)) {
+                socket = Paths.get(value);
+            } else if ("--max-runs".equals(name)) {
+                maxRuns = Integer.parseInt(value);
+            } else {
+                throw new IllegalArgumentException("Invalid argument [" + name + "], usage: " + USAGE);
+            }
+        }
+
+        SystemCommandAgent agent;
+        if (socket != null) {
+            agent = new SystemCommandAgent(socket, maxRuns, System.getenv(TOKEN_ENVIRONMENT_VARIABLE));
+        } else {
+            agent = new SystemCommandAgent(new InetSocketAddress(bind, port), maxRuns, System.getenv(TOKEN_ENVIRONMENT_VARIABLE));
+        }
+
+        agent.setAllowWithoutToken(allowWithoutToken);
+        Runtime.getRuntime().addShutdownHook(new Thread(agent::close));
+        agent.start();
+
+        // the threads of the agent are daemon threads, the main thread keeps the JVM alive
+        agent.awaitClose();
+    }
+
+
+    /**
+     * Start the agent
+     *
+     * @throws IOException In case the agent could not bind
+     */
+    public synchronized void start() throws IOException {
+        if (serverSocketChannel != null) {
+            throw new IllegalStateException("Agent is already started!");
+        }
+
+        if (socketPath == null && token == null && !allowWithoutToken) {
+            throw new IllegalStateException("An agent on TCP requires a token (environment variable " + TOKEN_ENVIRONMENT_VARIABLE + ")!");
+        }
+
+        if (socketPath != null) {
+            serverSocketChannel = openUnixDomainSocket();
+        } else {
+            serverSocketChannel = ServerSocketChannel.open();
+            serverSocketChannel.socket().setReuseAddress(true);
+            serverSocketChannel.bind(bindAddress);
+        }
+
+        runExecutorService = Executors.newFixedThreadPool(maxConcurrentRuns, daemonThreadFactory("agent-run"));
+        inputExecutorService = Executors.newCachedThreadPool(daemonThreadFactory("agent-input"));
+        timeoutExecutorService = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("agent-timeout"));
+
+        Thread acceptThread = daemonThreadFactory("agent-accept").newThread(this::accept);
+        acceptThread.start();
+        LOG.info("Agent started on " + getAddress() + " (max-runs:" + maxConcurrentRuns + ", token:" + (token != null) + ").");
+    }
+
+
+    /**
+     * Allow an agent on TCP to run without a token: any local user can execute commands as the user of the agent.
+     *
+     * @param allowWithoutToken true to allow an agent on TCP without token
+     */
+    public void setAllowWithoutToken(boolean allowWithoutToken) {
+        this.allowWithoutToken = allowWithoutToken;
+    }
+
+
+    /**
+     * Get the timeout to receive the hello and the run of a connection
+     *
+     * @return the timeout in milliseconds
+     */
+    public long getHandshakeTimeout() {
+        return handshakeTimeout;
+    }
+
+
+    /**
+     * Set the timeout to receive the hello and the run of a connection
+     *
+     * @param handshakeTimeout the timeout in milliseconds
+     * @throws IllegalArgumentException In case of an invalid timeout
+     */
+    public void setHandshakeTimeout(long handshakeTimeout) {
+        if (handshakeTimeout <= 0) {
+            throw new IllegalArgumentException("Invalid handshake timeout " + handshakeTimeout + "!");
+        }
+
+        this.handshakeTimeout = handshakeTimeout;
+    }
+
+
+    /**
+     * Wait until the agent is closed
+     *
+     * @throws InterruptedException in case of thread interrupt
+     */
+    public void awaitClose() throws InterruptedException {
+        closeLatch.await();
+    }
+
+
+    /**
+     * Get the port of the started agent
+     *
+     * @return the port or -1 in case of a unix domain socket
+     */
+    public synchronized int getPort() {
+        if (socketPath != null) {
+            return -1;
+        }
+
+        if (serverSocketChannel == null) {
+            return ((InetSocketAddress) bindAddress).getPort();
+        }
+
+        return serverSocketChannel.socket().getLocalPort();
+    }
+
+
+    /**
+     * Get the path of the unix domain socket
+     *
+     * @return the path or null in case of TCP
+     */
+    public Path getSocketPath() {
+        return socketPath;
+    }
+
+
+    /**
+     * Check if the agent is running
+     *
+     * @return true if the agent is running
+     */
+    public synchronized boolean isRunning() {
+        return serverSocketChannel != null && serverSocketChannel.isOpen();
+    }
+
+
+    /**
+     * Get the maximum number of concurrent runs
+     *
+     * @return the maximum number of concurrent runs
+     */
+    public int getMaxConcurrentRuns() {
+        return maxConcurrentRuns;
+    }
+
+
+    /**
+     * Get the number of active runs
+     *
+     * @return the number of active runs
+     */
+    public int getActiveRuns() {
+        return activeRuns.get();
+    }
+
+
+    /**
+     * Get the number of received runs since the start
+     *
+     * @return the number of received runs
+     */
+    public long getTotalRuns() {
+        return totalRuns.get();
+    }
+
+
+    /**
+     * Stop the agent, the connections of active runs are closed and their processes destroyed.
+     *
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public synchronized void close() {
+        if (serverSocketChannel == null || !serverSocketChannel.isOpen()) {
+            return;
+        }
+
+        try {
+            serverSocketChannel.close();
+            if (socketPath != null) {
+                Files.deleteIfExists(socketPath);
+            }
+        } catch (IOException e) {
+            // NOP
+        }
+
+        for (RemoteConnection connection : connections) {
+            connection.close();
+        }
+
+        runExecutorService.shutdownNow();
+        inputExecutorService.shutdownNow();
+        timeoutExecutorService.shutdownNow();
+        closeLatch.countDown();
+        LOG.info("Agent stopped (total-runs:" + totalRuns.get() + ").");
+    }
+
+
+    /**
+     * Get the address of the agent
+     *
+     * @return the address
+     */
+    private String getAddress() {
+        if (socketPath != null) {
+            return socketPath.toString();
+        }
+
+        return String.valueOf(serverSocketChannel.socket().getLocalSocketAddress());
+    }
+
+
+    /**
+     * Open the server socket channel of the unix domain socket. An existing socket file of a previous run is replaced.
+     *
+     * @return the bound server socket channel
+     * @throws IOException In case of an I/O error
+     */
+    private ServerSocketChannel openUnixDomainSocket() throws IOException {
+        if (Files.isRegularFile(socketPath) || Files.isDirectory(socketPath)) {
+            throw new IllegalArgumentException("Invalid socket path [" + socketPath + "], it is not a socket file!");
+        }
+
+        Files.deleteIfExists(socketPath);
+        ServerSocketChannel channel = UnixDomainSocketUtil.getInstance().openServerSocketChannel();
+        try {
+            channel.bind(UnixDomainSocketUtil.getInstance().createAddress(socketPath));
+            if (!OSUtil.getInstance().isWindows()) {
+                Files.setPosixFilePermissions(socketPath, PosixFilePermissions.fromString("rw-------"));
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        return channel;
+    }
+
+
+    /**
+     * Accept the connections
+     */
+    private void accept() {
+        while (isRunning()) {
+            try {
+                SocketChannel socketChannel = serverSocketChannel.accept();
+                RemoteConnection connection;
+                try {
+                    connection = new RemoteConnection(socketChannel);
+                } catch (IOException e) {
+                    socketChannel.close();
+                    throw e;
+                }
+
+                connections.add(connection);
+                inputExecutorService.execute(() -> handshake(connection));
+            } catch (IOException e) {
+                if (isRunning()) {
+                    LOG.warn("Could not accept connection: " + e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                // rejected after close
+                LOG.debug("Connection rejected: " + e.getMessage());
+            }
+        }
+    }
+
+
+    /**
+     * Verify the hello of a connection before it waits for a slot of the runs
+     *
+     * @param connection the connection
+     */
+    private void handshake(RemoteConnection connection) {
+        boolean accepted = false;
+        try {
+            RemoteConnection.Frame hello = readFrame(connection);
+            if (hello == null) {
+                return;
+            }
+
+            if (hello.getType() != RemoteConnection.HELLO || hello.getPayload().length < 4) {
+                writeError(connection, "Invalid hello!");
+                return;
+            }
+
+            ByteBuffer helloBuffer = ByteBuffer.wrap(hello.getPayload());
+            int version = helloBuffer.getInt();
+            byte[] clientToken = new byte[helloBuffer.remaining()];
+            helloBuffer.get(clientToken);
+            if (version != RemoteConnection.PROTOCOL_VERSION) {
+                writeError(connection, "Unsupported protocol version " + version + "!");
+                return;
+            }
+
+            if (token != null && !MessageDigest.isEqual(token, clientToken)) {
+                LOG.warn("Rejected connection from " + connection.getRemoteAddress() + ": invalid token.");
+                writeError(connection, "Invalid token!");
+                return;
+            }
+
+            runExecutorService.execute(() -> handle(connection));
+            accepted = true;
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Rejected connection from " + connection.getRemoteAddress() + ": " + e.getMessage());
+        } finally {
+            if (!accepted) {
+                connection.close();
+                connections.remove(connection);
+            }
+        }
+    }
+
+
+    /**
+     * Handle a verified connection: wait for the run and execute it
+     *
+     * @param connection the connection
+     */
+    private void handle(RemoteConnection connection) {
+        try {
+            int active = activeRuns.incrementAndGet();
+            try {
+                connection.writeFrame(RemoteConnection.READY, ByteBuffer.allocate(8).putInt(active).putInt(maxConcurrentRuns).array());
+                RemoteConnection.Frame run = readFrame(connection);
+                if (run == null) {
+                    return;
+                }
+
+                if (run.getType() != RemoteConnection.RUN) {
+                    writeError(connection, "Invalid run!");
+                    return;
+                }
+
+                totalRuns.incrementAndGet();
+                SerializationFormat format = SerializationFormat.BINARY;
+                if (run.getPayload().length > 0 && run.getPayload()[0] == '{') {
+                    format = SerializationFormat.JSON;
+                }
+
+                ISystemCommandGroupList systemCommandGroupList = SystemCommandSerializer.getInstance().deserializeSystemCommandGroupList(run.getPayload(), format);
+                run(connection, systemCommandGroupList);
+            } finally {
+                activeRuns.decrementAndGet();
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Error occured while handle connection from " + connection.getRemoteAddress() + ": " + e.getMessage());
+            writeError(connection, e.getMessage());
+        } finally {
+            connection.close();
+            connections.remove(connection);
+        }
+    }
+
+
+    /**
+     * Read a frame of the handshake: in case it is not received within the handshake timeout the connection is closed
+     *
+     * @param connection the connection
+     * @return the frame or null in case the connection is closed
+     * @throws IOException In case of an I/O error or a timeout
+     */
+    private RemoteConnection.Frame readFrame(RemoteConnection connection) throws IOException {
+        ScheduledFuture<?> timeout = timeoutExecutorService.schedule(() -> {
+            LOG.warn("Close connection from " + connection.getRemoteAddress() + ": handshake timeout of " + handshakeTimeout + "ms.");
+            connection.close();
+        }, handshakeTimeout, TimeUnit.MILLISECONDS);
+
+        try {
+            return connection.readFrame();
+        } finally {
+            timeout.cancel(false);
+        }
+    }
+
+
+    /**
+     * Execute a system command group list
+     *
+     * @param connection the connection
+     * @param systemCommandGroupList the system command group list
+     * @throws IOException In case of an I/O error
+     */
+    private void run(RemoteConnection connection, ISystemCommandGroupList systemCommandGroupList) throws IOException {
+        IProcessOutputStream processOut = ProcessStreamFactory.getInstance().getProcessOutputStream(new RemoteFrameOutputStream(connection, RemoteConnection.STDOUT, null));
+        IProcessOutputStream processErr = ProcessStreamFactory.getInstance().getProcessOutputStream(new RemoteFrameOutputStream(connection, RemoteConnection.STDERR, null));
+        IAsynchronousProcess process = SystemCommandExecuterFactory.getInstance().createSystemCommandExecuter(systemCommandGroupList)
+                .runAsynchronous(() -> ProcessInputStreamSource.PIPE, processOut, processErr);
+
+        long pid = NONE;
+        if (process.getPid() != null) {
+            pid = process.getPid();
+        }
+
+        long startTime = NONE;
+        if (process.getStartTime() != null) {
+            startTime = process.getStartTime().toEpochMilli();
+        }
+
+        connection.writeFrame(RemoteConnection.STARTED, ByteBuffer.allocate(16).putLong(pid).putLong(startTime).array());
+        inputExecutorService.execute(() -> readInput(connection, process));
+
+        int exitValue;
+        try {
+            exitValue = process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyTree();
+            throw new IOException("Interrupted while waiting for process (id:" + systemCommandGroupList.getId() + ")!", e);
+        }
+
+        long totalCpuDuration = NONE;
+        if (process.getTotalCpuDuration() != null) {
+            totalCpuDuration = process.getTotalCpuDuration().toNanos();
+        }
+
+        connection.writeFrame(RemoteConnection.EXIT, ByteBuffer.allocate(12).putLong(totalCpuDuration).putInt(exitValue).array());
+    }
+
+
+    /**
+     * Read the standard input and the cancel frames of the client. In case the client disconnects the process is destroyed.
+     *
+     * @param connection the connection
+     * @param process the process
+     */
+    private void readInput(RemoteConnection connection, IAsynchronousProcess process) {
+        OutputStream processInput = process.getInputStream();
+        try {
+            RemoteConnection.Frame frame = connection.readFrame();
+            while (frame != null) {
+                switch (frame.getType()) {
+                    case RemoteConnection.STDIN:
+                        if (processInput != null) {
+                            processInput.write(frame.getPayload());
+                            processInput.flush();
+                        }
+                        break;
+                    case RemoteConnection.STDIN_CLOSE:
+                        closeInput(processInput);
+                        processInput = null;
+                        break;
+                    case RemoteConnection.CANCEL:
+                        cancel(process, frame.getPayload());
+                        break;
+                    default:
+                        LOG.debug("Ignore frame " + frame.getType() + " from " + connection.getRemoteAddress() + ".");
+                        break;
+                }
+
+                frame = connection.readFrame();
+            }
+        } catch (IOException e) {
+            LOG.debug("Connection closed: " + e.getMessage());
+        } finally {
+            closeInput(processInput);
+            if (process.isAlive()) {
+                // the client is gone
+                LOG.info("Destroy process (pid:" + process.getPid() + ") of closed connection from " + connection.getRemoteAddress() + ".");
+                process.destroyTree();
+            }
+        }
+    }
+
+
+    /**
+     * Cancel a process
+     *
+     * @param process the process
+     * @param payload the payload of the cancel frame
+     */
+    private void cancel(IAsynchronousProcess process, byte[] payload) {
+        byte kind = RemoteConnection.CANCEL_TREE;
+        if (payload.length > 0) {
+            kind = payload[0];
+        }
+
+        if (kind == RemoteConnection.CANCEL_TRY) {
+            process.tryDestroy();
+        } else if (kind == RemoteConnection.CANCEL_FORCE) {
+            process.destroy();
+        } else {
+            process.destroyTree();
+        }
+    }
+
+
+    /**
+     * Close the input of a process
+     *
+     * @param processInput the input of the process or null
+     */
+    private void closeInput(OutputStream processInput) {
+        if (processInput == null) {
+            return;
+        }
+
+        try {
+            processInput.close();
+        } catch (IOException e) {
+            // NOP
+        }
+    }
+
+
+    /**
+     * Write an error frame, errors are ignored
+     *
+     * @param connection the connection
+     * @param message the message
+     */
+    private void writeError(RemoteConnection connection, String message) {
+        try {
+            connection.writeFrame(RemoteConnection.ERROR, toBytes(String.valueOf(message)));
+        } catch (IOException e) {
+            // NOP
+        }
+    }
+
+
+    /**
+     * Convert a string to bytes
+     *
+     * @param value the value or null
+     * @return the bytes or null
+     */
+    private static byte[] toBytes(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Create a thread factory of daemon threads
+     *
+     * @param name the name
+     * @return the thread factory
+     */
+    private static ThreadFactory daemonThreadFactory(String name) {
+        NameableThreadFactory nameableThreadFactory = new NameableThreadFactory(name);
+        return runnable -> {
+            Thread thread = nameableThreadFactory.newThread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
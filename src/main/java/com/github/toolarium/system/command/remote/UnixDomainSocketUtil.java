@@ -0,0 +1,170 @@
+/*
+ * UnixDomainSocketUtil.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.remote;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+
+/**
+ * Access to the unix domain sockets of the {@link java.nio.channels} which are available since Java 16. The library
+ * targets an older Java version, therefore the API is resolved by reflection.
+ *
+ * @author patrick
+ */
+final class UnixDomainSocketUtil {
+    private final ProtocolFamily unixProtocolFamily;
+    private final Method createAddressMethod;
+    private final Method openServerSocketChannelMethod;
+    private final Method openSocketChannelMethod;
+
+
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final UnixDomainSocketUtil INSTANCE = new UnixDomainSocketUtil();
+    }
+
+
+    /**
+     * Constructor
+     */
+    private UnixDomainSocketUtil() {
+        ProtocolFamily protocolFamily = null;
+        Method createAddress = null;
+        Method openServerSocketChannel = null;
+        Method openSocketChannel = null;
+        try {
+            protocolFamily = StandardProtocolFamily.valueOf("UNIX");
+            createAddress = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class);
+            openServerSocketChannel = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+            openSocketChannel = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+        } catch (IllegalArgumentException | ClassNotFoundException | NoSuchMethodException e) {
+            protocolFamily = null;
+        }
+
+        this.unixProtocolFamily = protocolFamily;
+        this.createAddressMethod = createAddress;
+        this.openServerSocketChannelMethod = openServerSocketChannel;
+        this.openSocketChannelMethod = openSocketChannel;
+    }
+
+
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    static UnixDomainSocketUtil getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+
+    /**
+     * Check if the unix domain sockets are supported by the Java runtime
+     *
+     * @return true if they are supported
+     */
+    boolean isSupported() {
+        return unixProtocolFamily != null;
+    }
+
+
+    /**
+     * Check if an address is a unix domain socket address
+     *
+     * @param socketAddress the socket address
+     * @return true if it is a unix domain socket address
+     */
+    boolean isUnixDomainSocketAddress(SocketAddress socketAddress) {
+        return isSupported() && socketAddress != null && createAddressMethod.getDeclaringClass().isInstance(socketAddress);
+    }
+
+
+    /**
+     * Create the address of a unix domain socket
+     *
+     * @param path the path of the socket file
+     * @return the socket address
+     * @throws IllegalStateException In case unix domain sockets are not supported
+     */
+    SocketAddress createAddress(Path path) {
+        if (path == null) {
+            throw new IllegalArgumentException("Invalid socket path!");
+        }
+
+        try {
+            return (SocketAddress) invoke(createAddressMethod, path);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid socket path [" + path + "]: " + e.getMessage(), e);
+        }
+    }
+
+
+    /**
+     * Open an unbound server socket channel of a unix domain socket
+     *
+     * @return the server socket channel
+     * @throws IOException In case of an I/O error
+     * @throws IllegalStateException In case unix domain sockets are not supported
+     */
+    ServerSocketChannel openServerSocketChannel() throws IOException {
+        return (ServerSocketChannel) invoke(openServerSocketChannelMethod, unixProtocolFamily);
+    }
+
+
+    /**
+     * Open an unconnected socket channel of a unix domain socket
+     *
+     * @return the socket channel
+     * @throws IOException In case of an I/O error
+     * @throws IllegalStateException In case unix domain sockets are not supported
+     */
+    SocketChannel openSocketChannel() throws IOException {
+        return (SocketChannel) invoke(openSocketChannelMethod, unixProtocolFamily);
+    }
+
+
+    /**
+     * Invoke a static method
+     *
+     * @param method the method
+     * @param argument the argument
+     * @return the result
+     * @throws IOException In case of an I/O error
+     */
+    private Object invoke(Method method, Object argument) throws IOException {
+        if (!isSupported()) {
+            throw new IllegalStateException("Unix domain sockets are not supported by Java " + System.getProperty("java.version") + ", they need Java 16 or later!");
+        }
+
+        try {
+            return method.invoke(null, argument);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
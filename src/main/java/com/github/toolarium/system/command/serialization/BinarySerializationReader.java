@@ -0,0 +1,265 @@
+/*
+ * BinarySerializationReader.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.serialization;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * The reader of the compact binary format, see {@link BinarySerializationWriter}. The reader works directly on the given
+ * content without a copy.
+ *
+ * @author patrick
+ */
+final class BinarySerializationReader implements ISerializationReader {
+    private final byte[] data;
+    private final int limit;
+    private int position;
+
+
+    /**
+     * Constructor for BinarySerializationReader
+     *
+     * @param data the data
+     * @param offset the offset
+     * @param length the length
+     * @throws IllegalArgumentException In case the content has no binary format
+     */
+    BinarySerializationReader(byte[] data, int offset, int length) {
+        if (data == null || offset < 0 || length < 0 || offset + length > data.length) {
+            throw new IllegalArgumentException("Invalid data range!");
+        }
+
+        this.data = data;
+        this.position = offset;
+        this.limit = offset + length;
+
+        byte[] magic = BinarySerializationWriter.MAGIC;
+        if (length < magic.length) {
+            throw new IllegalArgumentException("Invalid binary format!");
+        }
+
+        for (int i = 0; i < magic.length; i++) {
+            if (data[position++] != magic[i]) {
+                throw new IllegalArgumentException("Invalid binary format!");
+            }
+        }
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#beginObject(java.lang.String)
+     */
+    @Override
+    public boolean beginObject(String name) {
+        return readBoolean(name);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#endObject()
+     */
+    @Override
+    public void endObject() {
+        // NOP
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#beginArray(java.lang.String)
+     */
+    @Override
+    public int beginArray(String name) {
+        return readSize();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#endArray()
+     */
+    @Override
+    public void endArray() {
+        // NOP
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#readString(java.lang.String)
+     */
+    @Override
+    public String readString(String name) {
+        int length = readSize();
+        if (length < 0) {
+            return null;
+        }
+
+        String result = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return result;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#readInt(java.lang.String)
+     */
+    @Override
+    public int readInt(String name) {
+        long value = unZigZag(readVarLong());
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid int value " + value + "!");
+        }
+
+        return (int) value;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#readLong(java.lang.String)
+     */
+    @Override
+    public Long readLong(String name) {
+        if (!readBoolean(name)) {
+            return null;
+        }
+
+        return unZigZag(readVarLong());
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#readDouble(java.lang.String)
+     */
+    @Override
+    public Double readDouble(String name) {
+        if (!readBoolean(name)) {
+            return null;
+        }
+
+        checkAvailable(8);
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits = (bits << 8) | (data[position++] & 0xFF);
+        }
+
+        return Double.longBitsToDouble(bits);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#readBoolean(java.lang.String)
+     */
+    @Override
+    public boolean readBoolean(String name) {
+        checkAvailable(1);
+        byte value = data[position++];
+        if (value != 0 && value != 1) {
+            throw new IllegalArgumentException("Invalid boolean value " + value + "!");
+        }
+
+        return value == 1;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#readStringList(java.lang.String)
+     */
+    @Override
+    public List<String> readStringList(String name) {
+        int size = readSize();
+        if (size < 0) {
+            return null;
+        }
+
+        List<String> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(readString(null));
+        }
+
+        return result;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#readStringMap(java.lang.String)
+     */
+    @Override
+    public Map<String, String> readStringMap(String name) {
+        int size = readSize();
+        if (size < 0) {
+            return null;
+        }
+
+        Map<String, String> result = new HashMap<>((int) (size / 0.75f) + 1);
+        for (int i = 0; i < size; i++) {
+            String key = readString(null);
+            result.put(key, readString(null));
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Read a size or length: the value plus one, zero for null. A size is never larger than the remaining bytes.
+     *
+     * @return the size or -1 for null
+     */
+    private int readSize() {
+        long value = readVarLong() - 1;
+        if (value < -1 || value > limit - position) {
+            throw new IllegalArgumentException("Invalid size " + value + ", the data is truncated!");
+        }
+
+        return (int) value;
+    }
+
+
+    /**
+     * Read an unsigned variable length integer
+     *
+     * @return the value
+     */
+    private long readVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            checkAvailable(1);
+            byte b = data[position++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+
+        throw new IllegalArgumentException("Invalid variable length integer!");
+    }
+
+
+    /**
+     * Check the number of available bytes
+     *
+     * @param length the number of bytes to read
+     */
+    private void checkAvailable(int length) {
+        if (position + length > limit) {
+            throw new IllegalArgumentException("The data is truncated!");
+        }
+    }
+
+
+    /**
+     * Decode a zig zag encoded value
+     *
+     * @param value the encoded value
+     * @return the value
+     */
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
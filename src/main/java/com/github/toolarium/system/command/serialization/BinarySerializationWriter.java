@@ -0,0 +1,350 @@
+/*
+ * BinarySerializationWriter.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.serialization;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+
+/**
+ * The writer of the compact binary format. The content starts with the {@link #MAGIC} followed by the values in their
+ * order without names: numbers are written as variable length integers, strings as UTF-8 with a length prefix. Strings,
+ * lists and maps share one length prefix for the null value: the length plus one, zero for null. The writer encodes
+ * directly into a growing buffer which is reused after a {@link #reset()}.
+ *
+ * @author patrick
+ */
+final class BinarySerializationWriter implements ISerializationWriter {
+    /** The magic bytes of the binary format */
+    static final byte[] MAGIC = {'T', 'S', 'C'};
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+    private byte[] buffer;
+    private int position;
+
+
+    /**
+     * Constructor for BinarySerializationWriter
+     */
+    BinarySerializationWriter() {
+        buffer = new byte[INITIAL_CAPACITY];
+        reset();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#reset()
+     */
+    @Override
+    public void reset() {
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            // don't keep the buffer of an exceptional large content
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+
+        position = 0;
+        ensureCapacity(MAGIC.length);
+        System.arraycopy(MAGIC, 0, buffer, 0, MAGIC.length);
+        position = MAGIC.length;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#toByteArray()
+     */
+    @Override
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeTo(java.io.OutputStream)
+     */
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(buffer, 0, position);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#beginObject(java.lang.String)
+     */
+    @Override
+    public void beginObject(String name) {
+        writeByte(1);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#endObject()
+     */
+    @Override
+    public void endObject() {
+        // NOP
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#beginArray(java.lang.String, int)
+     */
+    @Override
+    public void beginArray(String name, int size) {
+        writeVarLong(size + 1L);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#endArray()
+     */
+    @Override
+    public void endArray() {
+        // NOP
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeNull(java.lang.String)
+     */
+    @Override
+    public void writeNull(String name) {
+        writeByte(0);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeString(java.lang.String, java.lang.String)
+     */
+    @Override
+    public void writeString(String name, String value) {
+        if (value == null) {
+            writeByte(0);
+            return;
+        }
+
+        int length = utf8Length(value);
+        writeVarLong(length + 1L);
+        ensureCapacity(length);
+
+        int p = position;
+        int i = 0;
+        while (i < value.length()) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[p++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[p++] = (byte) (0xC0 | (c >> 6));
+                buffer[p++] = (byte) (0x80 | (c & 0x3F));
+            } else if (isSurrogatePair(value, i)) {
+                int codePoint = Character.toCodePoint(c, value.charAt(i + 1));
+                buffer[p++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[p++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[p++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[p++] = (byte) (0x80 | (codePoint & 0x3F));
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // a lone surrogate is replaced like by String.getBytes
+                buffer[p++] = '?';
+            } else {
+                buffer[p++] = (byte) (0xE0 | (c >> 12));
+                buffer[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[p++] = (byte) (0x80 | (c & 0x3F));
+            }
+
+            i++;
+        }
+
+        position = p;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeInt(java.lang.String, int)
+     */
+    @Override
+    public void writeInt(String name, int value) {
+        writeVarLong(zigZag(value));
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeLong(java.lang.String, java.lang.Long)
+     */
+    @Override
+    public void writeLong(String name, Long value) {
+        if (value == null) {
+            writeByte(0);
+            return;
+        }
+
+        writeByte(1);
+        writeVarLong(zigZag(value));
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeDouble(java.lang.String, java.lang.Double)
+     */
+    @Override
+    public void writeDouble(String name, Double value) {
+        if (value == null) {
+            writeByte(0);
+            return;
+        }
+
+        writeByte(1);
+        long bits = Double.doubleToLongBits(value);
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (bits >>> shift);
+        }
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeBoolean(java.lang.String, boolean)
+     */
+    @Override
+    public void writeBoolean(String name, boolean value) {
+        if (value) {
+            writeByte(1);
+        } else {
+            writeByte(0);
+        }
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeStringList(java.lang.String, java.util.Collection)
+     */
+    @Override
+    public void writeStringList(String name, Collection<String> values) {
+        if (values == null) {
+            writeByte(0);
+            return;
+        }
+
+        writeVarLong(values.size() + 1L);
+        for (String value : values) {
+            writeString(null, value);
+        }
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeStringMap(java.lang.String, java.util.Map)
+     */
+    @Override
+    public void writeStringMap(String name, Map<String, String> values) {
+        if (values == null) {
+            writeByte(0);
+            return;
+        }
+
+        writeVarLong(values.size() + 1L);
+        for (Map.Entry<String, String> e : values.entrySet()) {
+            writeString(null, e.getKey());
+            writeString(null, e.getValue());
+        }
+    }
+
+
+    /**
+     * Write a byte
+     *
+     * @param value the value
+     */
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+
+    /**
+     * Write an unsigned variable length integer: 7 bits per byte, the highest bit marks a following byte
+     *
+     * @param value the value
+     */
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+
+        buffer[position++] = (byte) v;
+    }
+
+
+    /**
+     * Ensure the capacity of the buffer
+     *
+     * @param length the number of bytes to write
+     */
+    private void ensureCapacity(int length) {
+        if (position + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+        }
+    }
+
+
+    /**
+     * Get the number of UTF-8 bytes of a string
+     *
+     * @param value the value
+     * @return the number of bytes
+     */
+    private static int utf8Length(String value) {
+        int length = value.length();
+        int i = 0;
+        while (i < value.length()) {
+            char c = value.charAt(i);
+            if (c >= 0x800) {
+                if (isSurrogatePair(value, i)) {
+                    // 4 bytes for 2 chars
+                    length += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    length += 2;
+                }
+            } else if (c >= 0x80) {
+                length++;
+            }
+
+            i++;
+        }
+
+        return length;
+    }
+
+
+    /**
+     * Check if a surrogate pair starts at the given index
+     *
+     * @param value the value
+     * @param index the index
+     * @return true if it is a surrogate pair
+     */
+    private static boolean isSurrogatePair(String value, int index) {
+        return Character.isHighSurrogate(value.charAt(index)) && index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1));
+    }
+
+
+    /**
+     * Zig zag encoding of a signed value: small negative values get a short encoding
+     *
+     * @param value the value
+     * @return the encoded value
+     */
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
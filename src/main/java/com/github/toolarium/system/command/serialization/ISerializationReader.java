@@ -0,0 +1,112 @@
+/*
+ * ISerializationReader.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.serialization;
+
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Defines the reader of a serialization format, the counterpart of the {@link ISerializationWriter}. The values are read
+ * in the same order as they are written. A named format returns the default value for a missing name, which keeps
+ * newer data readable. In case of invalid data an {@link IllegalArgumentException} is thrown.
+ *
+ * @author patrick
+ */
+interface ISerializationReader {
+
+    /**
+     * Begin an object
+     *
+     * @param name the name
+     * @return true if the object is present; false if it is null
+     */
+    boolean beginObject(String name);
+
+
+    /**
+     * End the current object
+     */
+    void endObject();
+
+
+    /**
+     * Begin an array
+     *
+     * @param name the name
+     * @return the number of elements or -1 if the array is null
+     */
+    int beginArray(String name);
+
+
+    /**
+     * End the current array
+     */
+    void endArray();
+
+
+    /**
+     * Read a string
+     *
+     * @param name the name
+     * @return the value or null
+     */
+    String readString(String name);
+
+
+    /**
+     * Read an int
+     *
+     * @param name the name
+     * @return the value
+     */
+    int readInt(String name);
+
+
+    /**
+     * Read a long
+     *
+     * @param name the name
+     * @return the value or null
+     */
+    Long readLong(String name);
+
+
+    /**
+     * Read a double
+     *
+     * @param name the name
+     * @return the value or null
+     */
+    Double readDouble(String name);
+
+
+    /**
+     * Read a boolean
+     *
+     * @param name the name
+     * @return the value
+     */
+    boolean readBoolean(String name);
+
+
+    /**
+     * Read a string list
+     *
+     * @param name the name
+     * @return the values or null
+     */
+    List<String> readStringList(String name);
+
+
+    /**
+     * Read a string map
+     *
+     * @param name the name
+     * @return the values or null
+     */
+    Map<String, String> readStringMap(String name);
+}
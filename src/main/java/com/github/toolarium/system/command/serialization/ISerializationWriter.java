@@ -0,0 +1,143 @@
+/*
+ * ISerializationWriter.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.serialization;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+
+
+/**
+ * Defines the writer of a serialization format. The names of the values are used by named formats like JSON, a
+ * positional format like the binary format ignores them. The values of an array have no name.
+ *
+ * @author patrick
+ */
+interface ISerializationWriter {
+
+    /**
+     * Reset the writer to serialize new content, the buffer of the writer is reused
+     */
+    void reset();
+
+
+    /**
+     * Get the serialized content
+     *
+     * @return the serialized content
+     */
+    byte[] toByteArray();
+
+
+    /**
+     * Write the serialized content to an output stream without a copy
+     *
+     * @param outputStream the output stream
+     * @throws IOException In case of an I/O error
+     */
+    void writeTo(OutputStream outputStream) throws IOException;
+
+
+    /**
+     * Begin an object
+     *
+     * @param name the name
+     */
+    void beginObject(String name);
+
+
+    /**
+     * End the current object
+     */
+    void endObject();
+
+
+    /**
+     * Begin an array
+     *
+     * @param name the name
+     * @param size the number of elements
+     */
+    void beginArray(String name, int size);
+
+
+    /**
+     * End the current array
+     */
+    void endArray();
+
+
+    /**
+     * Write a null object or array
+     *
+     * @param name the name
+     */
+    void writeNull(String name);
+
+
+    /**
+     * Write a string
+     *
+     * @param name the name
+     * @param value the value or null
+     */
+    void writeString(String name, String value);
+
+
+    /**
+     * Write an int
+     *
+     * @param name the name
+     * @param value the value
+     */
+    void writeInt(String name, int value);
+
+
+    /**
+     * Write a long
+     *
+     * @param name the name
+     * @param value the value or null
+     */
+    void writeLong(String name, Long value);
+
+
+    /**
+     * Write a double
+     *
+     * @param name the name
+     * @param value the value or null
+     */
+    void writeDouble(String name, Double value);
+
+
+    /**
+     * Write a boolean
+     *
+     * @param name the name
+     * @param value the value
+     */
+    void writeBoolean(String name, boolean value);
+
+
+    /**
+     * Write a string list
+     *
+     * @param name the name
+     * @param values the values or null
+     */
+    void writeStringList(String name, Collection<String> values);
+
+
+    /**
+     * Write a string map
+     *
+     * @param name the name
+     * @param values the values or null
+     */
+    void writeStringMap(String name, Map<String, String> values);
+}
@@ -0,0 +1,559 @@
+/*
+ * JsonSerializationReader.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.serialization;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * The reader of the JSON format, see {@link JsonSerializationWriter}. The content is parsed once into maps and lists,
+ * the values of an object are looked up by their name: unknown names are ignored and missing names return the default
+ * value.
+ *
+ * @author patrick
+ */
+final class JsonSerializationReader implements ISerializationReader {
+    private static final int MAX_DEPTH = 64;
+    private final String content;
+    private final Deque<Object> stack;
+    private int position;
+
+
+    /**
+     * Constructor for JsonSerializationReader
+     *
+     * @param data the data
+     * @param offset the offset
+     * @param length the length
+     * @throws IllegalArgumentException In case of invalid JSON
+     */
+    JsonSerializationReader(byte[] data, int offset, int length) {
+        if (data == null || offset < 0 || length < 0 || offset + length > data.length) {
+            throw new IllegalArgumentException("Invalid data range!");
+        }
+
+        this.content = new String(data, offset, length, StandardCharsets.UTF_8);
+        this.position = 0;
+        this.stack = new ArrayDeque<>();
+
+        Object root = parseValue(0);
+        skipWhitespace();
+        if (position < content.length()) {
+            throw invalid("Unexpected content");
+        }
+
+        List<Object> rootList = new ArrayList<>(1);
+        rootList.add(root);
+        stack.push(new ArrayFrame(rootList));
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#beginObject(java.lang.String)
+     */
+    @Override
+    public boolean beginObject(String name) {
+        Object value = next(name);
+        if (value == null) {
+            return false;
+        }
+
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Invalid value of [" + name + "], expected an object!");
+        }
+
+        stack.push(value);
+        return true;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#endObject()
+     */
+    @Override
+    public void endObject() {
+        stack.pop();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#beginArray(java.lang.String)
+     */
+    @Override
+    public int beginArray(String name) {
+        Object value = next(name);
+        if (value == null) {
+            return -1;
+        }
+
+        if (!(value instanceof List)) {
+            throw new IllegalArgumentException("Invalid value of [" + name + "], expected an array!");
+        }
+
+        ArrayFrame frame = new ArrayFrame((List<?>) value);
+        stack.push(frame);
+        return frame.values.size();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#endArray()
+     */
+    @Override
+    public void endArray() {
+        stack.pop();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#readString(java.lang.String)
+     */
+    @Override
+    public String readString(String name) {
+        return toString(name, next(name));
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#readInt(java.lang.String)
+     */
+    @Override
+    public int readInt(String name) {
+        Long value = readLong(name);
+        if (value == null) {
+            return 0;
+        }
+
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid int value of [" + name + "]: " + value + "!");
+        }
+
+        return value.intValue();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#readLong(java.lang.String)
+     */
+    @Override
+    public Long readLong(String name) {
+        Object value = next(name);
+        if (value == null) {
+            return null;
+        }
+
+        if (!(value instanceof Long)) {
+            throw new IllegalArgumentException("Invalid value of [" + name + "], expected an integer!");
+        }
+
+        return (Long) value;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#readDouble(java.lang.String)
+     */
+    @Override
+    public Double readDouble(String name) {
+        Object value = next(name);
+        if (value == null) {
+            return null;
+        }
+
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException("Invalid value of [" + name + "], expected a number!");
+        }
+
+        return ((Number) value).doubleValue();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#readBoolean(java.lang.String)
+     */
+    @Override
+    public boolean readBoolean(String name) {
+        Object value = next(name);
+        if (value == null) {
+            return false;
+        }
+
+        if (!(value instanceof Boolean)) {
+            throw new IllegalArgumentException("Invalid value of [" + name + "], expected a boolean!");
+        }
+
+        return (Boolean) value;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#readStringList(java.lang.String)
+     */
+    @Override
+    public List<String> readStringList(String name) {
+        int size = beginArray(name);
+        if (size < 0) {
+            return null;
+        }
+
+        List<String> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(readString(name));
+        }
+
+        endArray();
+        return result;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationReader#readStringMap(java.lang.String)
+     */
+    @Override
+    public Map<String, String> readStringMap(String name) {
+        Object value = next(name);
+        if (value == null) {
+            return null;
+        }
+
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Invalid value of [" + name + "], expected an object!");
+        }
+
+        Map<?, ?> map = (Map<?, ?>) value;
+        Map<String, String> result = new HashMap<>((int) (map.size() / 0.75f) + 1);
+        for (Map.Entry<?, ?> e : map.entrySet()) {
+            result.put((String) e.getKey(), toString(name, e.getValue()));
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Get the next value: the value of the name in an object or the next element of an array
+     *
+     * @param name the name
+     * @return the value or null
+     */
+    private Object next(String name) {
+        Object frame = stack.peek();
+        if (frame instanceof ArrayFrame) {
+            ArrayFrame arrayFrame = (ArrayFrame) frame;
+            if (arrayFrame.index >= arrayFrame.values.size()) {
+                throw new IllegalArgumentException("No more elements in array!");
+            }
+
+            return arrayFrame.values.get(arrayFrame.index++);
+        }
+
+        return ((Map<?, ?>) frame).get(name);
+    }
+
+
+    /**
+     * Convert a value to string
+     *
+     * @param name the name
+     * @param value the value
+     * @return the string or null
+     */
+    private String toString(String name, Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException("Invalid value of [" + name + "], expected a string!");
+        }
+
+        return (String) value;
+    }
+
+
+    /**
+     * Parse a value
+     *
+     * @param depth the depth of the value
+     * @return the value
+     */
+    private Object parseValue(int depth) {
+        if (depth > MAX_DEPTH) {
+            throw invalid("Too deep nesting");
+        }
+
+        skipWhitespace();
+        if (position >= content.length()) {
+            throw invalid("Unexpected end");
+        }
+
+        char c = content.charAt(position);
+        switch (c) {
+            case '{':
+                return parseObject(depth);
+            case '[':
+                return parseArray(depth);
+            case '"':
+                return parseString();
+            case 't':
+                expect("true");
+                return Boolean.TRUE;
+            case 'f':
+                expect("false");
+                return Boolean.FALSE;
+            case 'n':
+                expect("null");
+                return null;
+            default:
+                return parseNumber();
+        }
+    }
+
+
+    /**
+     * Parse an object
+     *
+     * @param depth the depth of the object
+     * @return the object
+     */
+    private Map<String, Object> parseObject(int depth) {
+        position++;
+        Map<String, Object> result = new LinkedHashMap<>();
+        skipWhitespace();
+        if (position < content.length() && content.charAt(position) == '}') {
+            position++;
+            return result;
+        }
+
+        while (true) {
+            skipWhitespace();
+            if (position >= content.length() || content.charAt(position) != '"') {
+                throw invalid("Expected a name");
+            }
+
+            String name = parseString();
+            skipWhitespace();
+            expect(":");
+            result.put(name, parseValue(depth + 1));
+            skipWhitespace();
+            if (position < content.length() && content.charAt(position) == ',') {
+                position++;
+            } else {
+                expect("}");
+                return result;
+            }
+        }
+    }
+
+
+    /**
+     * Parse an array
+     *
+     * @param depth the depth of the array
+     * @return the array
+     */
+    private List<Object> parseArray(int depth) {
+        position++;
+        List<Object> result = new ArrayList<>();
+        skipWhitespace();
+        if (position < content.length() && content.charAt(position) == ']') {
+            position++;
+            return result;
+        }
+
+        while (true) {
+            result.add(parseValue(depth + 1));
+            skipWhitespace();
+            if (position < content.length() && content.charAt(position) == ',') {
+                position++;
+            } else {
+                expect("]");
+                return result;
+            }
+        }
+    }
+
+
+    /**
+     * Parse a string, a string without escapes is taken as substring
+     *
+     * @return the string
+     */
+    private String parseString() {
+        position++;
+        int start = position;
+        while (position < content.length()) {
+            char c = content.charAt(position);
+            if (c == '"') {
+                String result = content.substring(start, position);
+                position++;
+                return result;
+            }
+
+            if (c == '\\') {
+                break;
+            }
+
+            position++;
+        }
+
+        StringBuilder result = new StringBuilder(content.length() - start);
+        result.append(content, start, position);
+        while (position < content.length()) {
+            char c = content.charAt(position++);
+            if (c == '"') {
+                return result.toString();
+            }
+
+            if (c != '\\') {
+                result.append(c);
+                continue;
+            }
+
+            if (position >= content.length()) {
+                break;
+            }
+
+            char escape = content.charAt(position++);
+            switch (escape) {
+                case 'b':
+                    result.append('\b');
+                    break;
+                case 'f':
+                    result.append('\f');
+                    break;
+                case 'n':
+                    result.append('\n');
+                    break;
+                case 'r':
+                    result.append('\r');
+                    break;
+                case 't':
+                    result.append('\t');
+                    break;
+                case 'u':
+                    if (position + 4 > content.length()) {
+                        throw invalid("Invalid unicode escape");
+                    }
+
+                    try {
+                        result.append((char) Integer.parseInt(content.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw invalid("Invalid unicode escape");
+                    }
+
+                    position += 4;
+                    break;
+                default:
+                    result.append(escape);
+                    break;
+            }
+        }
+
+        throw invalid("Unterminated string");
+    }
+
+
+    /**
+     * Parse a number: a number without fraction and exponent is a long, otherwise a double
+     *
+     * @return the number
+     */
+    private Number parseNumber() {
+        int start = position;
+        boolean decimal = false;
+        while (position < content.length()) {
+            char c = content.charAt(position);
+            if (c == '.' || c == 'e' || c == 'E') {
+                decimal = true;
+            } else if (c != '-' && c != '+' && (c < '0' || c > '9')) {
+                break;
+            }
+
+            position++;
+        }
+
+        String number = content.substring(start, position);
+        try {
+            if (decimal) {
+                return Double.valueOf(number);
+            }
+
+            return Long.valueOf(number);
+        } catch (NumberFormatException e) {
+            throw invalid("Invalid number [" + number + "]");
+        }
+    }
+
+
+    /**
+     * Expect a token
+     *
+     * @param token the token
+     */
+    private void expect(String token) {
+        if (!content.startsWith(token, position)) {
+            throw invalid("Expected [" + token + "]");
+        }
+
+        position += token.length();
+    }
+
+
+    /**
+     * Skip the whitespaces
+     */
+    private void skipWhitespace() {
+        while (position < content.length()) {
+            char c = content.charAt(position);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+
+            position++;
+        }
+    }
+
+
+    /**
+     * Create an exception of invalid JSON
+     *
+     * @param message the message
+     * @return the exception
+     */
+    private IllegalArgumentException invalid(String message) {
+        return new IllegalArgumentException("Invalid JSON: " + message + " at position " + position + "!");
+    }
+
+
+    /**
+     * The current position in an array
+     *
+     * @author patrick
+     */
+    private static final class ArrayFrame {
+        private final List<?> values;
+        private int index;
+
+
+        /**
+         * Constructor for ArrayFrame
+         *
+         * @param values the values
+         */
+        ArrayFrame(List<?> values) {
+            this.values = values;
+            this.index = 0;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * JsonSerializationWriter.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.serialization;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+
+/**
+ * The writer of the JSON format. The content is written compact without whitespaces into a reused buffer.
+ *
+ * @author patrick
+ */
+final class JsonSerializationWriter implements ISerializationWriter {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final String NULL = "null";
+    private StringBuilder buffer;
+    private boolean needsSeparator;
+
+
+    /**
+     * Constructor for JsonSerializationWriter
+     */
+    JsonSerializationWriter() {
+        buffer = new StringBuilder(INITIAL_CAPACITY);
+        needsSeparator = false;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#reset()
+     */
+    @Override
+    public void reset() {
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            // don't keep the buffer of an exceptional large content
+            buffer = new StringBuilder(INITIAL_CAPACITY);
+        }
+
+        buffer.setLength(0);
+        needsSeparator = false;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#toByteArray()
+     */
+    @Override
+    public byte[] toByteArray() {
+        return buffer.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeTo(java.io.OutputStream)
+     */
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(toByteArray());
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#beginObject(java.lang.String)
+     */
+    @Override
+    public void beginObject(String name) {
+        writeName(name);
+        buffer.append('{');
+        needsSeparator = false;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#endObject()
+     */
+    @Override
+    public void endObject() {
+        buffer.append('}');
+        needsSeparator = true;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#beginArray(java.lang.String, int)
+     */
+    @Override
+    public void beginArray(String name, int size) {
+        writeName(name);
+        buffer.append('[');
+        needsSeparator = false;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#endArray()
+     */
+    @Override
+    public void endArray() {
+        buffer.append(']');
+        needsSeparator = true;
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeNull(java.lang.String)
+     */
+    @Override
+    public void writeNull(String name) {
+        writeName(name);
+        buffer.append(NULL);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeString(java.lang.String, java.lang.String)
+     */
+    @Override
+    public void writeString(String name, String value) {
+        writeName(name);
+        writeQuoted(value);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeInt(java.lang.String, int)
+     */
+    @Override
+    public void writeInt(String name, int value) {
+        writeName(name);
+        buffer.append(value);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeLong(java.lang.String, java.lang.Long)
+     */
+    @Override
+    public void writeLong(String name, Long value) {
+        writeName(name);
+        if (value == null) {
+            buffer.append(NULL);
+        } else {
+            buffer.append(value.longValue());
+        }
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeDouble(java.lang.String, java.lang.Double)
+     */
+    @Override
+    public void writeDouble(String name, Double value) {
+        if (value != null && (value.isNaN() || value.isInfinite())) {
+            throw new IllegalArgumentException("Invalid JSON number " + value + " of [" + name + "]!");
+        }
+
+        writeName(name);
+        if (value == null) {
+            buffer.append(NULL);
+        } else {
+            buffer.append(value.doubleValue());
+        }
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeBoolean(java.lang.String, boolean)
+     */
+    @Override
+    public void writeBoolean(String name, boolean value) {
+        writeName(name);
+        buffer.append(value);
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeStringList(java.lang.String, java.util.Collection)
+     */
+    @Override
+    public void writeStringList(String name, Collection<String> values) {
+        if (values == null) {
+            writeNull(name);
+            return;
+        }
+
+        beginArray(name, values.size());
+        for (String value : values) {
+            writeString(null, value);
+        }
+        endArray();
+    }
+
+
+    /**
+     * @see com.github.toolarium.system.command.serialization.ISerializationWriter#writeStringMap(java.lang.String, java.util.Map)
+     */
+    @Override
+    public void writeStringMap(String name, Map<String, String> values) {
+        if (values == null) {
+            writeNull(name);
+            return;
+        }
+
+        beginObject(name);
+        for (Map.Entry<String, String> e : values.entrySet()) {
+            writeString(e.getKey(), e.getValue());
+        }
+        endObject();
+    }
+
+
+    /**
+     * Write the separator and the name of a value
+     *
+     * @param name the name or null for an element of an array
+     */
+    private void writeName(String name) {
+        if (needsSeparator) {
+            buffer.append(',');
+        }
+
+        needsSeparator = true;
+        if (name != null) {
+            writeQuoted(name);
+            buffer.append(':');
+        }
+    }
+
+
+    /**
+     * Write a quoted and escaped string
+     *
+     * @param value the value or null
+     */
+    private void writeQuoted(String value) {
+        if (value == null) {
+            buffer.append(NULL);
+            return;
+        }
+
+        buffer.append('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+
+            buffer.append(value, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    buffer.append("\\\"");
+                    break;
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                default:
+                    buffer.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    break;
+            }
+        }
+
+        buffer.append(value, start, value.length());
+        buffer.append('"');
+    }
+}
@@ -0,0 +1,20 @@
+/*
+ * SerializationFormat.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.serialization;
+
+
+/**
+ * Defines the serialization formats of the {@link SystemCommandSerializer}.
+ *
+ * @author patrick
+ */
+public enum SerializationFormat {
+    /** The compact binary format */
+    BINARY,
+
+    /** The JSON format */
+    JSON;
+}
@@ -0,0 +1,680 @@
+/*
+ * SystemCommandSerializer.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.serialization;
+
+import com.github.toolarium.system.command.dto.ISystemCommand;
+import com.github.toolarium.system.command.dto.ISystemCommand.SystemCommandExecutionStatusResult;
+import com.github.toolarium.system.command.dto.SystemCommand;
+import com.github.toolarium.system.command.dto.env.IProcessEnvironment;
+import com.github.toolarium.system.command.dto.env.ProcessEnvironment;
+import com.github.toolarium.system.command.dto.group.ISystemCommandGroup;
+import com.github.toolarium.system.command.dto.group.SystemCommandGroup;
+import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
+import com.github.toolarium.system.command.dto.list.SystemCommandGroupList;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.impl.SynchronousProcess;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Serializes system command group lists and the results of synchronous processes into a compact, versioned binary format
+ * or JSON, e.g. to ship them to worker processes or to persist job queues. The content starts with the version and the
+ * type. A reader rejects content of a newer version; the JSON reader ignores unknown names.
+ *
+ * <p>The writers are reused per thread, the binary writer encodes directly into its buffer. Commands which share the same
+ * process environment are written with a reference to the first one.</p>
+ *
+ * @author patrick
+ */
+public final class SystemCommandSerializer {
+    /** The current version of the format */
+    public static final int VERSION = 1;
+
+    /** The type of a serialized system command group list */
+    public static final int TYPE_SYSTEM_COMMAND_GROUP_LIST = 1;
+
+    /** The type of a serialized synchronous process */
+    public static final int TYPE_SYNCHRONOUS_PROCESS = 2;
+
+    private static final String SYSTEM_COMMAND_GROUP_LIST = "systemCommandGroupList";
+    private static final ThreadLocal<BinarySerializationWriter> BINARY_WRITER = ThreadLocal.withInitial(BinarySerializationWriter::new);
+    private static final ThreadLocal<JsonSerializationWriter> JSON_WRITER = ThreadLocal.withInitial(JsonSerializationWriter::new);
+
+
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final SystemCommandSerializer INSTANCE = new SystemCommandSerializer();
+    }
+
+
+    /**
+     * Constructor
+     */
+    private SystemCommandSerializer() {
+        // NOP
+    }
+
+
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static SystemCommandSerializer getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+
+    /**
+     * Serialize a system command group list
+     *
+     * @param systemCommandGroupList the system command group list
+     * @param format the format
+     * @return the serialized content
+     */
+    public byte[] serialize(ISystemCommandGroupList systemCommandGroupList, SerializationFormat format) {
+        return write(systemCommandGroupList, format).toByteArray();
+    }
+
+
+    /**
+     * Serialize a system command group list into an output stream
+     *
+     * @param systemCommandGroupList the system command group list
+     * @param format the format
+     * @param outputStream the output stream
+     * @throws IOException In case of an I/O error
+     */
+    public void serialize(ISystemCommandGroupList systemCommandGroupList, SerializationFormat format, OutputStream outputStream) throws IOException {
+        write(systemCommandGroupList, format).writeTo(outputStream);
+    }
+
+
+    /**
+     * Serialize the result of a synchronous process including its system command group list
+     *
+     * @param process the process
+     * @param format the format
+     * @return the serialized content
+     */
+    public byte[] serialize(ISynchronousProcess process, SerializationFormat format) {
+        return write(process, format).toByteArray();
+    }
+
+
+    /**
+     * Serialize the result of a synchronous process including its system command group list into an output stream
+     *
+     * @param process the process
+     * @param format the format
+     * @param outputStream the output stream
+     * @throws IOException In case of an I/O error
+     */
+    public void serialize(ISynchronousProcess process, SerializationFormat format, OutputStream outputStream) throws IOException {
+        write(process, format).writeTo(outputStream);
+    }
+
+
+    /**
+     * Deserialize a system command group list
+     *
+     * @param data the serialized content
+     * @param format the format
+     * @return the system command group list
+     * @throws IllegalArgumentException In case of invalid content or an unsupported version
+     */
+    public ISystemCommandGroupList deserializeSystemCommandGroupList(byte[] data, SerializationFormat format) {
+        if (data == null) {
+            throw new IllegalArgumentException("Invalid data!");
+        }
+
+        return deserializeSystemCommandGroupList(data, 0, data.length, format);
+    }
+
+
+    /**
+     * Deserialize a system command group list from a part of a buffer, e.g. a record of a job queue
+     *
+     * @param data the buffer
+     * @param offset the offset of the serialized content
+     * @param length the length of the serialized content
+     * @param format the format
+     * @return the system command group list
+     * @throws IllegalArgumentException In case of invalid content or an unsupported version
+     */
+    public ISystemCommandGroupList deserializeSystemCommandGroupList(byte[] data, int offset, int length, SerializationFormat format) {
+        ISerializationReader reader = createReader(data, offset, length, format);
+        readHeader(reader, TYPE_SYSTEM_COMMAND_GROUP_LIST);
+        ISystemCommandGroupList result = readSystemCommandGroupList(reader, SYSTEM_COMMAND_GROUP_LIST);
+        reader.endObject();
+        return result;
+    }
+
+
+    /**
+     * Deserialize the result of a synchronous process
+     *
+     * @param data the serialized content
+     * @param format the format
+     * @return the synchronous process
+     * @throws IllegalArgumentException In case of invalid content or an unsupported version
+     */
+    public ISynchronousProcess deserializeSynchronousProcess(byte[] data, SerializationFormat format) {
+        if (data == null) {
+            throw new IllegalArgumentException("Invalid data!");
+        }
+
+        return deserializeSynchronousProcess(data, 0, data.length, format);
+    }
+
+
+    /**
+     * Deserialize the result of a synchronous process from a part of a buffer
+     *
+     * @param data the buffer
+     * @param offset the offset of the serialized content
+     * @param length the length of the serialized content
+     * @param format the format
+     * @return the synchronous process
+     * @throws IllegalArgumentException In case of invalid content or an unsupported version
+     */
+    public ISynchronousProcess deserializeSynchronousProcess(byte[] data, int offset, int length, SerializationFormat format) {
+        ISerializationReader reader = createReader(data, offset, length, format);
+        readHeader(reader, TYPE_SYNCHRONOUS_PROCESS);
+        Long pid = reader.readLong("pid");
+        Instant startTime = toInstant(reader.readLong("startTime"));
+        Duration totalCpuDuration = toDuration(reader.readLong("totalCpuDuration"));
+        Integer exitValue = null;
+        Long exit = reader.readLong("exitValue");
+        if (exit != null) {
+            exitValue = exit.intValue();
+        }
+
+        String output = reader.readString("output");
+        String errorOutput = reader.readString("errorOutput");
+        ISystemCommandGroupList systemCommandGroupList = readSystemCommandGroupList(reader, SYSTEM_COMMAND_GROUP_LIST);
+        reader.endObject();
+        return new SynchronousProcess(systemCommandGroupList, pid, startTime, totalCpuDuration, exitValue, output, errorOutput);
+    }
+
+
+    /**
+     * Write a system command group list
+     *
+     * @param systemCommandGroupList the system command group list
+     * @param format the format
+     * @return the writer
+     */
+    private ISerializationWriter write(ISystemCommandGroupList systemCommandGroupList, SerializationFormat format) {
+        if (systemCommandGroupList == null) {
+            throw new IllegalArgumentException("Invalid system command group list!");
+        }
+
+        ISerializationWriter writer = getWriter(format);
+        writeHeader(writer, TYPE_SYSTEM_COMMAND_GROUP_LIST);
+        writeSystemCommandGroupList(writer, SYSTEM_COMMAND_GROUP_LIST, systemCommandGroupList);
+        writer.endObject();
+        return writer;
+    }
+
+
+    /**
+     * Write the result of a synchronous process
+     *
+     * @param process the process
+     * @param format the format
+     * @return the writer
+     */
+    private ISerializationWriter write(ISynchronousProcess process, SerializationFormat format) {
+        if (process == null) {
+            throw new IllegalArgumentException("Invalid process!");
+        }
+
+        ISerializationWriter writer = getWriter(format);
+        writeHeader(writer, TYPE_SYNCHRONOUS_PROCESS);
+        writer.writeLong("pid", process.getPid());
+        writer.writeLong("startTime", toLong(process.getStartTime()));
+        writer.writeLong("totalCpuDuration", toLong(process.getTotalCpuDuration()));
+        Long exitValue = null;
+        if (process.getExitValue() != null) {
+            exitValue = process.getExitValue().longValue();
+        }
+
+        writer.writeLong("exitValue", exitValue);
+        writer.writeString("output", process.getOutput());
+        writer.writeString("errorOutput", process.getErrorOutput());
+        if (process.getSystemCommandGroupList() == null) {
+            writer.writeNull(SYSTEM_COMMAND_GROUP_LIST);
+        } else {
+            writeSystemCommandGroupList(writer, SYSTEM_COMMAND_GROUP_LIST, process.getSystemCommandGroupList());
+        }
+
+        writer.endObject();
+        return writer;
+    }
+
+
+    /**
+     * Get the reset writer of the current thread
+     *
+     * @param format the format
+     * @return the writer
+     */
+    private ISerializationWriter getWriter(SerializationFormat format) {
+        if (format == null) {
+            throw new IllegalArgumentException("Invalid serialization format!");
+        }
+
+        ISerializationWriter writer;
+        if (format == SerializationFormat.JSON) {
+            writer = JSON_WRITER.get();
+        } else {
+            writer = BINARY_WRITER.get();
+        }
+
+        writer.reset();
+        return writer;
+    }
+
+
+    /**
+     * Create a reader
+     *
+     * @param data the buffer
+     * @param offset the offset of the serialized content
+     * @param length the length of the serialized content
+     * @param format the format
+     * @return the reader
+     */
+    private ISerializationReader createReader(byte[] data, int offset, int length, SerializationFormat format) {
+        if (format == null) {
+            throw new IllegalArgumentException("Invalid serialization format!");
+        }
+
+        if (format == SerializationFormat.JSON) {
+            return new JsonSerializationReader(data, offset, length);
+        }
+
+        return new BinarySerializationReader(data, offset, length);
+    }
+
+
+    /**
+     * Write the header: the root object starts with the version and the type
+     *
+     * @param writer the writer
+     * @param type the type
+     */
+    private void writeHeader(ISerializationWriter writer, int type) {
+        writer.beginObject(null);
+        writer.writeInt("version", VERSION);
+        writer.writeInt("type", type);
+    }
+
+
+    /**
+     * Read and verify the header
+     *
+     * @param reader the reader
+     * @param type the expected type
+     */
+    private void readHeader(ISerializationReader reader, int type) {
+        if (!reader.beginObject(null)) {
+            throw new IllegalArgumentException("Missing content!");
+        }
+
+        int version = reader.readInt("version");
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported version " + version + ", supported version is " + VERSION + "!");
+        }
+
+        int contentType = reader.readInt("type");
+        if (contentType != type) {
+            throw new IllegalArgumentException("Invalid type " + contentType + ", expected type " + type + "!");
+        }
+    }
+
+
+    /**
+     * Write a system command group list
+     *
+     * @param writer the writer
+     * @param name the name
+     * @param systemCommandGroupList the system command group list
+     */
+    private void writeSystemCommandGroupList(ISerializationWriter writer, String name, ISystemCommandGroupList systemCommandGroupList) {
+        writer.beginObject(name);
+        writer.writeString("id", systemCommandGroupList.getId());
+        writer.writeInt("lockTimeoutInSeconds", systemCommandGroupList.getLockTimeoutInSeconds());
+        writer.writeLong("lockTimeout", toLong(systemCommandGroupList.getLockTimeout()));
+        writer.writeLong("cacheTimeToLive", toLong(systemCommandGroupList.getCacheTimeToLive()));
+        writer.writeBoolean("singleFlight", systemCommandGroupList.isSingleFlight());
+        writer.writeDouble("hedgePercentile", systemCommandGroupList.getHedgePercentile());
+        writer.writeBoolean("diskless", systemCommandGroupList.isDiskless());
+        writer.writeBoolean("scriptCache", systemCommandGroupList.isScriptCache());
+        writer.writeBoolean("detached", systemCommandGroupList.isDetached());
+        writer.writeBoolean("inputOnDisk", systemCommandGroupList.isInputOnDisk());
+
+        List<IProcessEnvironment> processEnvironmentList = new ArrayList<>();
+        writer.beginArray("groups", systemCommandGroupList.size());
+        Iterator<ISystemCommandGroup> groupIterator = systemCommandGroupList.iterator();
+        while (groupIterator.hasNext()) {
+            ISystemCommandGroup systemCommandGroup = groupIterator.next();
+            writer.beginObject(null);
+            writer.writeString("id", systemCommandGroup.getId());
+            writer.writeBoolean("runAsScript", systemCommandGroup.runAsScript());
+            writer.beginArray("commands", systemCommandGroup.size());
+            Iterator<ISystemCommand> commandIterator = systemCommandGroup.iterator();
+            while (commandIterator.hasNext()) {
+                writeSystemCommand(writer, commandIterator.next(), processEnvironmentList);
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+
+    /**
+     * Read a system command group list
+     *
+     * @param reader the reader
+     * @param name the name
+     * @return the system command group list or null
+     */
+    private ISystemCommandGroupList readSystemCommandGroupList(ISerializationReader reader, String name) {
+        if (!reader.beginObject(name)) {
+            return null;
+        }
+
+        SystemCommandGroupList result = new SystemCommandGroupList(reader.readString("id"));
+        int lockTimeoutInSeconds = reader.readInt("lockTimeoutInSeconds");
+        result.setLockTimeout(lockTimeoutInSeconds, toInstant(reader.readLong("lockTimeout")));
+        result.setCacheTimeToLive(toDuration(reader.readLong("cacheTimeToLive")));
+        result.setSingleFlight(reader.readBoolean("singleFlight"));
+        result.setHedgePercentile(reader.readDouble("hedgePercentile"));
+        result.setDiskless(reader.readBoolean("diskless"));
+        result.setScriptCache(reader.readBoolean("scriptCache"));
+        result.setDetached(reader.readBoolean("detached"));
+        result.setInputOnDisk(reader.readBoolean("inputOnDisk"));
+
+        List<IProcessEnvironment> processEnvironmentList = new ArrayList<>();
+        int groupSize = reader.beginArray("groups");
+        for (int i = 0; i < groupSize; i++) {
+            if (!reader.beginObject(null)) {
+                throw new IllegalArgumentException("Invalid system command group!");
+            }
+
+            SystemCommandGroup systemCommandGroup = new SystemCommandGroup(reader.readString("id"));
+            boolean runAsScript = reader.readBoolean("runAsScript");
+            int commandSize = reader.beginArray("commands");
+            for (int j = 0; j < commandSize; j++) {
+                systemCommandGroup.add(readSystemCommand(reader, processEnvironmentList));
+            }
+            reader.endArray();
+            reader.endObject();
+
+            if (runAsScript && systemCommandGroup.size() <= 1) {
+                systemCommandGroup.forceRunAsScript();
+            }
+
+            result.add(systemCommandGroup);
+        }
+
+        if (groupSize >= 0) {
+            reader.endArray();
+        }
+
+        reader.endObject();
+        return result;
+    }
+
+
+    /**
+     * Write a system command: the process environment is referenced in case it is equal to a previous one
+     *
+     * @param writer the writer
+     * @param systemCommand the system command
+     * @param processEnvironmentList the already written process environments
+     */
+    private void writeSystemCommand(ISerializationWriter writer, ISystemCommand systemCommand, List<IProcessEnvironment> processEnvironmentList) {
+        writer.beginObject(null);
+
+        IProcessEnvironment processEnvironment = systemCommand.getProcessEnvironment();
+        int reference = indexOf(processEnvironmentList, processEnvironment);
+        writer.writeInt("environmentReference", reference);
+        if (reference < 0) {
+            writeProcessEnvironment(writer, "environment", processEnvironment);
+            if (processEnvironment != null) {
+                processEnvironmentList.add(processEnvironment);
+            }
+        }
+
+        writer.writeStringList("shell", systemCommand.getShell());
+        writer.writeStringList("commandList", systemCommand.getCommandList());
+
+        // the command for display is only written in case it differs
+        String displayCommand = systemCommand.toString(true);
+        if (displayCommand.equals(systemCommand.toString(false))) {
+            displayCommand = null;
+        }
+
+        writer.writeString("displayCommand", displayCommand);
+        String executionStatus = null;
+        if (systemCommand.getSystemCommandExecutionStatusResult() != null) {
+            executionStatus = systemCommand.getSystemCommandExecutionStatusResult().name();
+        }
+
+        writer.writeString("executionStatus", executionStatus);
+        writer.endObject();
+    }
+
+
+    /**
+     * Read a system command
+     *
+     * @param reader the reader
+     * @param processEnvironmentList the already read process environments
+     * @return the system command
+     */
+    private SystemCommand readSystemCommand(ISerializationReader reader, List<IProcessEnvironment> processEnvironmentList) {
+        if (!reader.beginObject(null)) {
+            throw new IllegalArgumentException("Invalid system command!");
+        }
+
+        IProcessEnvironment processEnvironment;
+        int reference = reader.readInt("environmentReference");
+        if (reference < 0) {
+            processEnvironment = readProcessEnvironment(reader, "environment");
+            if (processEnvironment != null) {
+                processEnvironmentList.add(processEnvironment);
+            }
+        } else if (reference < processEnvironmentList.size()) {
+            processEnvironment = processEnvironmentList.get(reference);
+        } else {
+            throw new IllegalArgumentException("Invalid process environment reference " + reference + "!");
+        }
+
+        SystemCommand result = new SystemCommand(processEnvironment);
+        result.setShell(reader.readStringList("shell"));
+        List<String> commandList = reader.readStringList("commandList");
+        if (commandList != null) {
+            for (String command : commandList) {
+                result.add(command);
+            }
+        }
+
+        String displayCommand = reader.readString("displayCommand");
+        if (displayCommand != null) {
+            result.setDisplayCommand(displayCommand);
+        }
+
+        String executionStatus = reader.readString("executionStatus");
+        if (executionStatus != null) {
+            try {
+                result.setSystemCommandExecutionStatusResult(SystemCommandExecutionStatusResult.valueOf(executionStatus));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid execution status [" + executionStatus + "]!", e);
+            }
+        }
+
+        reader.endObject();
+        return result;
+    }
+
+
+    /**
+     * Write a process environment
+     *
+     * @param writer the writer
+     * @param name the name
+     * @param processEnvironment the process environment or null
+     */
+    private void writeProcessEnvironment(ISerializationWriter writer, String name, IProcessEnvironment processEnvironment) {
+        if (processEnvironment == null) {
+            writer.writeNull(name);
+            return;
+        }
+
+        writer.beginObject(name);
+        writer.writeString("user", processEnvironment.getUser());
+        writer.writeBoolean("sudoUser", processEnvironment.isSudoUser());
+        writer.writeString("workingPath", processEnvironment.getWorkingPath());
+        writer.writeString("os", processEnvironment.getOS());
+        writer.writeString("osVersion", processEnvironment.getOSVersion());
+        writer.writeString("architecture", processEnvironment.getArchitecture());
+        writer.writeStringMap("environmentVariables", processEnvironment.getEnvironmentVariables());
+        writer.writeStringList("environmentAllowlist", processEnvironment.getEnvironmentAllowlist());
+        writer.endObject();
+    }
+
+
+    /**
+     * Read a process environment
+     *
+     * @param reader the reader
+     * @param name the name
+     * @return the process environment or null
+     */
+    private IProcessEnvironment readProcessEnvironment(ISerializationReader reader, String name) {
+        if (!reader.beginObject(name)) {
+            return null;
+        }
+
+        String user = reader.readString("user");
+        boolean sudoUser = reader.readBoolean("sudoUser");
+        String workingPath = reader.readString("workingPath");
+        String os = reader.readString("os");
+        String osVersion = reader.readString("osVersion");
+        String architecture = reader.readString("architecture");
+        Map<String, String> environmentVariables = reader.readStringMap("environmentVariables");
+        List<String> environmentAllowlist = reader.readStringList("environmentAllowlist");
+        reader.endObject();
+
+        Set<String> allowlist = null;
+        if (environmentAllowlist != null) {
+            allowlist = new LinkedHashSet<>(environmentAllowlist);
+        }
+
+        return new ProcessEnvironment(user, sudoUser, workingPath, environmentVariables, allowlist, os, osVersion, architecture);
+    }
+
+
+    /**
+     * Get the index of an equal process environment
+     *
+     * @param processEnvironmentList the process environments
+     * @param processEnvironment the process environment
+     * @return the index or -1
+     */
+    private int indexOf(List<IProcessEnvironment> processEnvironmentList, IProcessEnvironment processEnvironment) {
+        if (processEnvironment == null) {
+            return -1;
+        }
+
+        for (int i = 0; i < processEnvironmentList.size(); i++) {
+            if (processEnvironmentList.get(i) == processEnvironment) {
+                return i;
+            }
+        }
+
+        return processEnvironmentList.indexOf(processEnvironment);
+    }
+
+
+    /**
+     * Convert an instant
+     *
+     * @param value the epoch milliseconds or null
+     * @return the instant or null
+     */
+    private Instant toInstant(Long value) {
+        if (value == null) {
+            return null;
+        }
+
+        return Instant.ofEpochMilli(value);
+    }
+
+
+    /**
+     * Convert a duration
+     *
+     * @param value the nanoseconds or null
+     * @return the duration or null
+     */
+    private Duration toDuration(Long value) {
+        if (value == null) {
+            return null;
+        }
+
+        return Duration.ofNanos(value);
+    }
+
+
+    /**
+     * Convert an instant
+     *
+     * @param value the instant or null
+     * @return the epoch milliseconds or null
+     */
+    private Long toLong(Instant value) {
+        if (value == null) {
+            return null;
+        }
+
+        return value.toEpochMilli();
+    }
+
+
+    /**
+     * Convert a duration
+     *
+     * @param value the duration or null
+     * @return the nanoseconds or null
+     */
+    private Long toLong(Duration value) {
+        if (value == null) {
+            return null;
+        }
+
+        return value.toNanos();
+    }
+}
@@ -0,0 +1,755 @@
+/*
+ * SystemCommandShardExecuter.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.shard;
+
+import com.github.toolarium.system.command.process.util.ParallelProcessRunner;
+import com.github.toolarium.system.command.template.BoundSystemCommand;
+import com.github.toolarium.system.command.template.SystemCommandTemplate;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Executes a {@link SystemCommandTemplate} over a large input which is split into shards: each shard is written to the
+ * standard input of its own instance of the template. The shards are executed on a bounded pool and their outputs are
+ * merged in the order of the shards. This turns a single threaded command line tool which reads the standard input
+ * (e.g. a compressor, a parser or a converter) into a multi core pipeline.
+ *
+ * <p>A file is split at line ends into shards of about the same size, a list of items is split into shards of about
+ * the same number of items, one item per line. In case the template contains the placeholder
+ * <code>{{shard:int}}</code> it is bound to the index of the shard.</p>
+ *
+ * <p>With an output stream the merge is streaming: the output of the first running shard is written through, the
+ * output of the following shards is buffered until all shards before have ended. A shard buffers at most
+ * {@link #getMaxBufferSize()} bytes in memory, further output is spilled to a temporary file.</p>
+ *
+ * @author patrick
+ */
+public final class SystemCommandShardExecuter {
+    /** The name of the placeholder which is bound to the index of the shard */
+    public static final String SHARD_PARAMETER = "shard";
+
+    /** The default maximum size in bytes of the output of a shard which is buffered in memory */
+    public static final int DEFAULT_MAX_BUFFER_SIZE = 1024 * 1024;
+
+    private static final Logger LOG = LoggerFactory.getLogger(SystemCommandShardExecuter.class);
+    private static final int BUFFER_SIZE = 8192;
+    private final SystemCommandTemplate systemCommandTemplate;
+    private Map<String, ?> parameters;
+    private int maxParallelism;
+    private int shardCount;
+    private int maxBufferSize;
+
+
+    /**
+     * Constructor for SystemCommandShardExecuter
+     *
+     * @param systemCommandTemplate the system command template which reads its shard from the standard input
+     * @throws IllegalArgumentException In case of an invalid template
+     */
+    public SystemCommandShardExecuter(SystemCommandTemplate systemCommandTemplate) {
+        if (systemCommandTemplate == null) {
+            throw new IllegalArgumentException("Invalid system command template!");
+        }
+
+        this.systemCommandTemplate = systemCommandTemplate;
+        this.parameters = Collections.emptyMap();
+        this.maxParallelism = Runtime.getRuntime().availableProcessors();
+        this.shardCount = 0;
+        this.maxBufferSize = DEFAULT_MAX_BUFFER_SIZE;
+    }
+
+
+    /**
+     * Set the values of the placeholders of the template which are the same for all shards
+     *
+     * @param parameters the values of the placeholders by name
+     */
+    public void setParameters(Map<String, ?> parameters) {
+        if (parameters == null) {
+            this.parameters = Collections.emptyMap();
+        } else {
+            this.parameters = new HashMap<>(parameters);
+        }
+    }
+
+
+    /**
+     * Get the maximum number of shards which are executed in parallel
+     *
+     * @return the maximum number of parallel shards
+     */
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+
+    /**
+     * Set the maximum number of shards which are executed in parallel, by default the number of processors
+     *
+     * @param maxParallelism the maximum number of parallel shards
+     * @throws IllegalArgumentException In case of an invalid value
+     */
+    public void setMaxParallelism(int maxParallelism) {
+        if (maxParallelism <= 0) {
+            throw new IllegalArgumentException("Invalid max parallelism: " + maxParallelism + "!");
+        }
+
+        this.maxParallelism = maxParallelism;
+    }
+
+
+    /**
+     * Get the number of shards the input is split into
+     *
+     * @return the number of shards, by default the max parallelism
+     */
+    public int getShardCount() {
+        if (shardCount <= 0) {
+            return maxParallelism;
+        }
+
+        return shardCount;
+    }
+
+
+    /**
+     * Set the number of shards the input is split into. A small input results in less shards, a shard contains at
+     * least one line.
+     *
+     * @param shardCount the number of shards or 0 to use the max parallelism
+     * @throws IllegalArgumentException In case of an invalid value
+     */
+    public void setShardCount(int shardCount) {
+        if (shardCount < 0) {
+            throw new IllegalArgumentException("Invalid shard count: " + shardCount + "!");
+        }
+
+        this.shardCount = shardCount;
+    }
+
+
+    /**
+     * Get the maximum size of the output of a shard which is buffered in memory until all shards before have ended
+     *
+     * @return the maximum buffer size in bytes
+     */
+    public int getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+
+    /**
+     * Set the maximum size of the output of a shard which is buffered in memory until all shards before have ended,
+     * further output is spilled to a temporary file
+     *
+     * @param maxBufferSize the maximum buffer size in bytes
+     * @throws IllegalArgumentException In case of an invalid value
+     */
+    public void setMaxBufferSize(int maxBufferSize) {
+        if (maxBufferSize < 0) {
+            throw new IllegalArgumentException("Invalid max buffer size: " + maxBufferSize + "!");
+        }
+
+        this.maxBufferSize = maxBufferSize;
+    }
+
+
+    /**
+     * Execute the shards of a file, the merged output is part of the result
+     *
+     * @param inputFile the input file which is split at line ends
+     * @return the result
+     * @throws IOException In case the input file can not be read
+     */
+    public SystemCommandShardResult run(Path inputFile) throws IOException {
+        return run(inputFile, null);
+    }
+
+
+    /**
+     * Execute the shards of a file, the output is merged streaming into the output stream
+     *
+     * @param inputFile the input file which is split at line ends
+     * @param out the output stream or null to get the merged output as part of the result
+     * @return the result
+     * @throws IOException In case the input file can not be read or the output can not be written
+     */
+    public SystemCommandShardResult run(Path inputFile, OutputStream out) throws IOException {
+        if (inputFile == null || !Files.isRegularFile(inputFile)) {
+            throw new IllegalArgumentException("Invalid input file [" + inputFile + "]!");
+        }
+
+        return execute(splitFile(inputFile, getShardCount()), out);
+    }
+
+
+    /**
+     * Execute the shards of a list of items, the merged output is part of the result
+     *
+     * @param itemList the items, each item is written as one line
+     * @return the result
+     * @throws IOException In case the output can not be written
+     */
+    public SystemCommandShardResult run(List<String> itemList) throws IOException {
+        return run(itemList, null);
+    }
+
+
+    /**
+     * Execute the shards of a list of items, the output is merged streaming into the output stream
+     *
+     * @param itemList the items, each item is written as one line
+     * @param out the output stream or null to get the merged output as part of the result
+     * @return the result
+     * @throws IOException In case the output can not be written
+     */
+    public SystemCommandShardResult run(List<String> itemList, OutputStream out) throws IOException {
+        if (itemList == null) {
+            throw new IllegalArgumentException("Invalid item list!");
+        }
+
+        List<Shard> shardList = new ArrayList<>();
+        int count = Math.min(getShardCount(), itemList.size());
+        for (int i = 0; i < count; i++) {
+            int from = (int)((long)itemList.size() * i / count);
+            int to = (int)((long)itemList.size() * (i + 1) / count);
+            shardList.add(new ItemShard(new ArrayList<>(itemList.subList(from, to))));
+        }
+
+        return execute(shardList, out);
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "SystemCommandShardExecuter [template=" + systemCommandTemplate + ", maxParallelism=" + maxParallelism + ", shardCount=" + getShardCount() + "]";
+    }
+
+
+    /**
+     * Execute the shards
+     *
+     * @param shardList the shards
+     * @param out the output stream or null to get the merged output as part of the result
+     * @return the result
+     * @throws IOException In case the output can not be written
+     */
+    private SystemCommandShardResult execute(List<Shard> shardList, OutputStream out) throws IOException {
+        final Instant startTime = Instant.now();
+
+        // bind all shards before the first start, an invalid parameter fails before any process runs
+        List<BoundSystemCommand> boundSystemCommandList = new ArrayList<>();
+        boolean hasShardParameter = systemCommandTemplate.getParameterNames().contains(SHARD_PARAMETER);
+        for (int i = 0; i < shardList.size(); i++) {
+            Map<String, Object> shardParameters = new HashMap<>(parameters);
+            if (hasShardParameter) {
+                shardParameters.put(SHARD_PARAMETER, i);
+            }
+
+            boundSystemCommandList.add(systemCommandTemplate.bind(shardParameters));
+        }
+
+        ByteArrayOutputStream outputBuffer = null;
+        OutputStream mergeOutput = out;
+        if (mergeOutput == null) {
+            outputBuffer = new ByteArrayOutputStream();
+            mergeOutput = outputBuffer;
+        }
+
+        int[] exitValues = new int[shardList.size()];
+        Arrays.fill(exitValues, -1);
+        String[] errorOutputs = new String[shardList.size()];
+        ShardMerger shardMerger = new ShardMerger(mergeOutput, shardList.size(), maxBufferSize);
+        ParallelProcessRunner processRunner = new ParallelProcessRunner("shard", maxParallelism);
+        if (!processRunner.run(shardList.size(), index -> runShard(index, shardList.get(index), boundSystemCommandList.get(index), shardMerger, processRunner, exitValues, errorOutputs))) {
+            LOG.warn("Sharded execution aborted: " + systemCommandTemplate);
+        }
+
+        shardMerger.close();
+        byte[] output = null;
+        if (outputBuffer != null) {
+            output = outputBuffer.toByteArray();
+        }
+
+        SystemCommandShardResult result = new SystemCommandShardResult(exitValues, errorOutputs, output, Duration.between(startTime, Instant.now()));
+        LOG.debug("Sharded execution ended: " + result);
+        return result;
+    }
+
+
+    /**
+     * Run a shard
+     *
+     * @param index the index of the shard
+     * @param shard the shard
+     * @param boundSystemCommand the bound system command
+     * @param shardMerger the merger of the output
+     * @param processRunner the process runner
+     * @param exitValues the exit values of the shards
+     * @param errorOutputs the error output of the shards
+     */
+    private void runShard(int index, Shard shard, BoundSystemCommand boundSystemCommand, ShardMerger shardMerger, ParallelProcessRunner processRunner, int[] exitValues, String[] errorOutputs) {
+        int exitValue = -1;
+        ByteArrayOutputStream errorOutput = new ByteArrayOutputStream();
+        Process process = null;
+        try {
+            process = processRunner.start(boundSystemCommand.toProcessBuilder());
+            final Process shardProcess = process;
+            Thread inputThread = processRunner.startThread("shard-" + index + "-in", () -> {
+                try (OutputStream os = shardProcess.getOutputStream()) {
+                    shard.writeTo(os);
+                } catch (IOException e) {
+                    // the process ended before it read the whole shard
+                    LOG.debug("Could not write the input of shard " + index + ": " + e.getMessage());
+                }
+            });
+            Thread errorThread = processRunner.transfer("shard-" + index + "-err", process.getErrorStream(), errorOutput);
+
+            try (InputStream is = process.getInputStream()) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int len = is.read(buffer);
+                while (len >= 0) {
+                    shardMerger.write(index, buffer, len);
+                    len = is.read(buffer);
+                }
+            }
+
+            exitValue = process.waitFor();
+            errorThread.join();
+            inputThread.join();
+        } catch (IOException e) {
+            LOG.warn("Could not execute shard " + index + ": " + e.getMessage());
+            errorOutput.writeBytes(String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            processRunner.end(process);
+            exitValues[index] = exitValue;
+            errorOutputs[index] = errorOutput.toString();
+            shardMerger.end(index);
+        }
+    }
+
+
+    /**
+     * Split a file at line ends into shards of about the same size
+     *
+     * @param inputFile the input file
+     * @param count the number of shards
+     * @return the shards
+     * @throws IOException In case the input file can not be read
+     */
+    private List<Shard> splitFile(Path inputFile, int count) throws IOException {
+        List<Shard> shardList = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            for (int i = 1; i < count && start < size; i++) {
+                long end = nextLineStart(channel, Math.max(start + 1, size * i / count), size);
+                if (end >= size) {
+                    break;
+                }
+
+                shardList.add(new FileShard(inputFile, start, end - start));
+                start = end;
+            }
+
+            if (start < size) {
+                shardList.add(new FileShard(inputFile, start, size - start));
+            }
+        }
+
+        return shardList;
+    }
+
+
+    /**
+     * Get the start of the line which follows a position
+     *
+     * @param channel the file channel
+     * @param position the position
+     * @param size the size of the file
+     * @return the start of the next line or the size of the file
+     * @throws IOException In case the file can not be read
+     */
+    private long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long current = position - 1;
+        while (current < size) {
+            buffer.clear();
+            int len = channel.read(buffer, current);
+            if (len <= 0) {
+                break;
+            }
+
+            for (int i = 0; i < len; i++) {
+                if (buffer.get(i) == '\n') {
+                    return current + i + 1;
+                }
+            }
+
+            current += len;
+        }
+
+        return size;
+    }
+
+
+    /**
+     * A shard of the input
+     *
+     * @author patrick
+     */
+    private interface Shard {
+
+        /**
+         * Write the shard
+         *
+         * @param os the standard input of the process
+         * @throws IOException In case of an I/O error
+         */
+        void writeTo(OutputStream os) throws IOException;
+    }
+
+
+    /**
+     * A shard of a file
+     *
+     * @author patrick
+     */
+    private static final class FileShard implements Shard {
+        private final Path file;
+        private final long position;
+        private final long length;
+
+
+        /**
+         * Constructor for FileShard
+         *
+         * @param file the file
+         * @param position the start of the shard
+         * @param length the length of the shard
+         */
+        FileShard(Path file, long position, long length) {
+            this.file = file;
+            this.position = position;
+            this.length = length;
+        }
+
+
+        /**
+         * @see com.github.toolarium.system.command.shard.SystemCommandShardExecuter.Shard#writeTo(java.io.OutputStream)
+         */
+        @Override
+        public void writeTo(OutputStream os) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(os);
+                long written = 0;
+                while (written < length) {
+                    written += channel.transferTo(position + written, length - written, target);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * A shard of a list of items
+     *
+     * @author patrick
+     */
+    private static final class ItemShard implements Shard {
+        private final List<String> itemList;
+
+
+        /**
+         * Constructor for ItemShard
+         *
+         * @param itemList the items
+         */
+        ItemShard(List<String> itemList) {
+            this.itemList = itemList;
+        }
+
+
+        /**
+         * @see com.github.toolarium.system.command.shard.SystemCommandShardExecuter.Shard#writeTo(java.io.OutputStream)
+         */
+        @Override
+        public void writeTo(OutputStream os) throws IOException {
+            for (String item : itemList) {
+                os.write((item + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+
+    /**
+     * Merges the output of the shards in their order: the output of the first running shard is written through, the
+     * output of the following shards is buffered until all shards before have ended.
+     *
+     * @author patrick
+     */
+    private static final class ShardMerger {
+        private final OutputStream out;
+        private final ShardBuffer[] buffers;
+        private final boolean[] ended;
+        private final int maxBufferSize;
+        private int next;
+        private boolean closed;
+        private IOException writeException;
+
+
+        /**
+         * Constructor for ShardMerger
+         *
+         * @param out the output stream
+         * @param count the number of shards
+         * @param maxBufferSize the maximum size of the output of a shard which is buffered in memory
+         */
+        ShardMerger(OutputStream out, int count, int maxBufferSize) {
+            this.out = out;
+            this.buffers = new ShardBuffer[count];
+            this.ended = new boolean[count];
+            this.maxBufferSize = maxBufferSize;
+            this.next = 0;
+            this.closed = false;
+            this.writeException = null;
+        }
+
+
+        /**
+         * Write output of a shard
+         *
+         * @param index the index of the shard
+         * @param b the data
+         * @param len the length of the data
+         */
+        synchronized void write(int index, byte[] b, int len) {
+            if (closed) {
+                // a shard which did not end in time after an abort
+                return;
+            }
+
+            if (index == next) {
+                writeOut(b, len);
+                return;
+            }
+
+            if (writeException != null) {
+                return;
+            }
+
+            if (buffers[index] == null) {
+                buffers[index] = new ShardBuffer(index, maxBufferSize);
+            }
+
+            try {
+                buffers[index].write(b, len);
+            } catch (IOException e) {
+                writeException = e;
+            }
+        }
+
+
+        /**
+         * A shard has ended: the buffered output of the following shards is written as soon as all shards before ended
+         *
+         * @param index the index of the shard
+         */
+        synchronized void end(int index) {
+            if (closed) {
+                return;
+            }
+
+            ended[index] = true;
+            while (next < ended.length && ended[next]) {
+                next++;
+                if (next < ended.length && buffers[next] != null) {
+                    ShardBuffer buffer = buffers[next];
+                    buffers[next] = null;
+                    transfer(buffer);
+                }
+            }
+        }
+
+
+        /**
+         * Flush the output and delete the buffers which are left
+         *
+         * @throws IOException In case the output could not be written
+         */
+        synchronized void close() throws IOException {
+            closed = true;
+            for (int i = 0; i < buffers.length; i++) {
+                if (buffers[i] != null) {
+                    buffers[i].delete();
+                    buffers[i] = null;
+                }
+            }
+
+            if (writeException != null) {
+                throw writeException;
+            }
+
+            out.flush();
+        }
+
+
+        /**
+         * Write to the output stream, the first exception is kept
+         *
+         * @param b the data
+         * @param len the length of the data
+         */
+        private void writeOut(byte[] b, int len) {
+            if (writeException != null || len == 0) {
+                return;
+            }
+
+            try {
+                out.write(b, 0, len);
+            } catch (IOException e) {
+                writeException = e;
+            }
+        }
+
+
+        /**
+         * Write a buffer to the output stream and delete it, the first exception is kept
+         *
+         * @param buffer the buffer
+         */
+        private void transfer(ShardBuffer buffer) {
+            try {
+                if (writeException == null) {
+                    buffer.writeTo(out);
+                }
+            } catch (IOException e) {
+                writeException = e;
+            } finally {
+                buffer.delete();
+            }
+        }
+    }
+
+
+    /**
+     * The buffered output of a shard: it is kept in memory up to the maximum buffer size, afterwards it is spilled to
+     * a temporary file.
+     *
+     * @author patrick
+     */
+    private static final class ShardBuffer {
+        private final int index;
+        private final int maxBufferSize;
+        private ByteArrayOutputStream memory;
+        private Path file;
+        private OutputStream fileOutput;
+
+
+        /**
+         * Constructor for ShardBuffer
+         *
+         * @param index the index of the shard
+         * @param maxBufferSize the maximum size in bytes which is kept in memory
+         */
+        ShardBuffer(int index, int maxBufferSize) {
+            this.index = index;
+            this.maxBufferSize = maxBufferSize;
+            this.memory = new ByteArrayOutputStream();
+            this.file = null;
+            this.fileOutput = null;
+        }
+
+
+        /**
+         * Write output
+         *
+         * @param b the data
+         * @param len the length of the data
+         * @throws IOException In case the temporary file can not be written
+         */
+        void write(byte[] b, int len) throws IOException {
+            if (fileOutput == null && memory.size() + len > maxBufferSize) {
+                file = Files.createTempFile("toolarium-shard-" + index + "-", ".out");
+                fileOutput = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+                memory.writeTo(fileOutput);
+                memory = null;
+                LOG.debug("Spill the output of shard " + index + " to [" + file + "].");
+            }
+
+            if (fileOutput != null) {
+                fileOutput.write(b, 0, len);
+            } else {
+                memory.write(b, 0, len);
+            }
+        }
+
+
+        /**
+         * Write the buffered output
+         *
+         * @param out the output stream
+         * @throws IOException In case of an I/O error
+         */
+        void writeTo(OutputStream out) throws IOException {
+            if (fileOutput != null) {
+                fileOutput.close();
+                fileOutput = null;
+                Files.copy(file, out);
+            } else if (memory != null) {
+                memory.writeTo(out);
+            }
+        }
+
+
+        /**
+         * Delete the buffered output
+         */
+        void delete() {
+            memory = null;
+            try {
+                if (fileOutput != null) {
+                    fileOutput.close();
+                    fileOutput = null;
+                }
+
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                    file = null;
+                }
+            } catch (IOException e) {
+                LOG.debug("Could not delete the output of shard " + index + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * SystemCommandShardResult.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.shard;
+
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * The result of a sharded execution, see {@link SystemCommandShardExecuter}.
+ *
+ * @author patrick
+ */
+public final class SystemCommandShardResult {
+    private final int[] exitValues;
+    private final String[] errorOutputs;
+    private final byte[] output;
+    private final Duration duration;
+
+
+    /**
+     * Constructor for SystemCommandShardResult
+     *
+     * @param exitValues the exit values of the shards
+     * @param errorOutputs the error output of the shards
+     * @param output the merged output or null in case it was streamed
+     * @param duration the duration of the whole execution
+     */
+    SystemCommandShardResult(int[] exitValues, String[] errorOutputs, byte[] output, Duration duration) {
+        this.exitValues = exitValues;
+        this.errorOutputs = errorOutputs;
+        this.output = output;
+        this.duration = duration;
+    }
+
+
+    /**
+     * Check if all shards ended successful
+     *
+     * @return true if all shards ended with exit value 0
+     */
+    public boolean isSuccess() {
+        return getFailedShards().isEmpty();
+    }
+
+
+    /**
+     * Get the number of shards
+     *
+     * @return the number of shards
+     */
+    public int getShardCount() {
+        return exitValues.length;
+    }
+
+
+    /**
+     * Get the exit value of a shard
+     *
+     * @param shard the index of the shard
+     * @return the exit value, -1 in case the shard could not be executed
+     */
+    public int getExitValue(int shard) {
+        return exitValues[shard];
+    }
+
+
+    /**
+     * Get the error output of a shard
+     *
+     * @param shard the index of the shard
+     * @return the error output
+     */
+    public String getErrorOutput(int shard) {
+        return errorOutputs[shard];
+    }
+
+
+    /**
+     * Get the index of the failed shards
+     *
+     * @return the index of the failed shards in ascending order
+     */
+    public List<Integer> getFailedShards() {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < exitValues.length; i++) {
+            if (exitValues[i] != 0) {
+                result.add(i);
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Get the output of the shards merged in the order of the shards as text in the platform encoding
+     *
+     * @return the merged output or null in case it was streamed into an output stream
+     */
+    public String getOutput() {
+        if (output == null) {
+            return null;
+        }
+
+        return new String(output, Charset.defaultCharset());
+    }
+
+
+    /**
+     * Get the output of the shards merged in the order of the shards, e.g. a binary output
+     *
+     * @return the merged output or null in case it was streamed into an output stream
+     */
+    public byte[] getOutputBytes() {
+        return output;
+    }
+
+
+    /**
+     * Get the duration of the whole execution
+     *
+     * @return the duration
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "SystemCommandShardResult [shards=" + exitValues.length + ", failedShards=" + getFailedShards() + ", duration=" + duration + "]";
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * BoundSystemCommand.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.template;
+
+import com.github.toolarium.system.command.process.util.EnvironmentSnapshot;
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * A system command of a {@link SystemCommandTemplate} with bound parameters which is ready to launch.
+ *
+ * @author patrick
+ */
+public final class BoundSystemCommand {
+    private final String[] commandList;
+    private final EnvironmentSnapshot environmentSnapshot;
+    private final Map<String, String> boundEnvironmentVariables;
+    private final File workingPath;
+
+
+    /**
+     * Constructor for BoundSystemCommand
+     *
+     * @param commandList the command line
+     * @param environmentSnapshot the snapshot of the environment variables without placeholders
+     * @param boundEnvironmentVariables the environment variables with bound placeholders
+     * @param workingPath the working path
+     */
+    BoundSystemCommand(String[] commandList, EnvironmentSnapshot environmentSnapshot, Map<String, String> boundEnvironmentVariables, File workingPath) {
+        this.commandList = commandList;
+        this.environmentSnapshot = environmentSnapshot;
+        this.boundEnvironmentVariables = boundEnvironmentVariables;
+        this.workingPath = workingPath;
+    }
+
+
+    /**
+     * Get the command line including the shell
+     *
+     * @return the command line
+     */
+    public List<String> getCommandList() {
+        return Arrays.asList(commandList);
+    }
+
+
+    /**
+     * Get the environment variables which are applied: in minimal mode the whole environment, otherwise the 
+     * environment variables which differ from the environment of the JVM
+     *
+     * @return the environment variables
+     */
+    public Map<String, String> getEnvironmentVariables() {
+        if (boundEnvironmentVariables.isEmpty()) {
+            return environmentSnapshot.getEnvironmentVariables();
+        }
+
+        Map<String, String> result = new HashMap<>(environmentSnapshot.getEnvironmentVariables());
+        result.putAll(boundEnvironmentVariables);
+        return result;
+    }
+
+
+    /**
+     * Get the environment variables of the JVM which are removed
+     *
+     * @return the removed environment variables
+     */
+    public Set<String> getRemovedEnvironmentVariables() {
+        return environmentSnapshot.getRemovedEnvironmentVariables();
+    }
+
+
+    /**
+     * Get the working path
+     *
+     * @return the working path
+     */
+    public File getWorkingPath() {
+        return workingPath;
+    }
+
+
+    /**
+     * Create a process builder: the streams are inherited from the process builder defaults
+     *
+     * @return the process builder
+     */
+    public ProcessBuilder toProcessBuilder() {
+        ProcessBuilder processBuilder = new ProcessBuilder(commandList);
+        processBuilder.directory(workingPath);
+        environmentSnapshot.apply(processBuilder);
+        if (!boundEnvironmentVariables.isEmpty()) {
+            processBuilder.environment().putAll(boundEnvironmentVariables);
+        }
+
+        return processBuilder;
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return String.join(" ", commandList);
+    }
+}
@@ -0,0 +1,571 @@
+/*
+ * SystemCommandTemplate.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.template;
+
+import com.github.toolarium.system.command.dto.ISystemCommand;
+import com.github.toolarium.system.command.dto.group.ISystemCommandGroup;
+import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
+import com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport;
+import com.github.toolarium.system.command.process.util.EnvironmentSnapshot;
+import com.github.toolarium.system.command.process.util.ProcessBuilderUtil;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * An immutable system command which is compiled once and launched many times. The command line and the environment
+ * variables can contain typed placeholders <code>{{name}}</code> or <code>{{name:type}}</code>, see
+ * {@link SystemCommandTemplateParameterType}. The shell, the working path and the parts without placeholders are
+ * prepared on compile, a {@link #bind(Map)} only formats the parameters and creates the argument array.
+ *
+ * <p>The command line is interpreted by the shell: a bound value is quoted for the shell, depending if its placeholder
+ * stands outside or inside of single or double quotes. A value is therefore always exact one word of the command and
+ * can not inject further commands. The values of the environment variables are not quoted.</p>
+ *
+ * <p>The environment variables without placeholders are kept as {@link EnvironmentSnapshot}: only the difference to
+ * the environment of the JVM is applied on launch.</p>
+ *
+ * @author patrick
+ */
+public final class SystemCommandTemplate {
+    /** The start of a placeholder */
+    public static final String PLACEHOLDER_START = "{{";
+
+    /** The end of a placeholder */
+    public static final String PLACEHOLDER_END = "}}";
+
+    /** The separator of the name and the type of a placeholder */
+    public static final String TYPE_SEPARATOR = ":";
+
+    private final String[] parameterNames;
+    private final SystemCommandTemplateParameterType[] parameterTypes;
+    private final Map<String, Integer> parameterIndexMap;
+    private final CompiledValue[] commandList;
+    private final EnvironmentSnapshot environmentSnapshot;
+    private final String[] environmentKeys;
+    private final CompiledValue[] environmentValues;
+    private final File workingPath;
+    private final String displayCommand;
+
+
+    /**
+     * Constructor for SystemCommandTemplate
+     *
+     * @param commandList the command line
+     * @param shellLength the number of elements of the shell at the start of the command line
+     * @param environmentVariables the environment variables
+     * @param environmentAllowlist the allowlist of the inherited environment variables or null
+     * @param parentEnvironmentVariables the environment variables of the JVM
+     * @param workingPath the working path
+     * @param displayCommand the command to display
+     * @throws IllegalArgumentException In case of an invalid placeholder
+     */
+    SystemCommandTemplate(List<String> commandList, 
+                          int shellLength,
+                          Map<String, String> environmentVariables, 
+                          Set<String> environmentAllowlist, 
+                          Map<String, String> parentEnvironmentVariables, 
+                          File workingPath, 
+                          String displayCommand) {
+        List<String> parameterNameList = new ArrayList<>();
+        List<SystemCommandTemplateParameterType> parameterTypeList = new ArrayList<>();
+        Map<String, Integer> indexMap = new HashMap<>();
+
+        ShellQuoting shellQuoting = ShellQuoting.NONE;
+        if (shellLength > 0) {
+            shellQuoting = ShellQuoting.of(commandList.get(0));
+        }
+
+        this.commandList = new CompiledValue[commandList.size()];
+        for (int i = 0; i < commandList.size(); i++) {
+            ShellQuoting quoting = ShellQuoting.NONE;
+            if (i >= shellLength) {
+                // the part of the command line which is interpreted by the shell
+                quoting = shellQuoting;
+            }
+
+            this.commandList[i] = compile(commandList.get(i), quoting, indexMap, parameterNameList, parameterTypeList);
+        }
+
+        Map<String, String> literalEnvironmentVariables = new HashMap<>();
+        List<String> keyList = new ArrayList<>();
+        List<CompiledValue> valueList = new ArrayList<>();
+        for (Map.Entry<String, String> e : environmentVariables.entrySet()) {
+            if (e.getKey() == null || e.getKey().isBlank()) {
+                continue;
+            }
+
+            CompiledValue value = compile(e.getValue(), ShellQuoting.NONE, indexMap, parameterNameList, parameterTypeList);
+            if (value.isLiteral()) {
+                literalEnvironmentVariables.put(e.getKey(), e.getValue());
+            } else {
+                keyList.add(e.getKey());
+                valueList.add(value);
+            }
+        }
+
+        // the environment variables with placeholders are set on bind
+        Map<String, String> inheritedEnvironmentVariables = new HashMap<>(parentEnvironmentVariables);
+        inheritedEnvironmentVariables.keySet().removeAll(keyList);
+
+        this.parameterNames = parameterNameList.toArray(new String[parameterNameList.size()]);
+        this.parameterTypes = parameterTypeList.toArray(new SystemCommandTemplateParameterType[parameterTypeList.size()]);
+        this.parameterIndexMap = Collections.unmodifiableMap(indexMap);
+        this.environmentSnapshot = EnvironmentSnapshot.create(literalEnvironmentVariables, environmentAllowlist, inheritedEnvironmentVariables);
+        this.environmentKeys = keyList.toArray(new String[keyList.size()]);
+        this.environmentValues = valueList.toArray(new CompiledValue[valueList.size()]);
+        this.workingPath = workingPath;
+        this.displayCommand = displayCommand;
+    }
+
+
+    /**
+     * Compile a system command template: the system command group list has to consist of one system command which is not run as script.
+     *
+     * @param systemCommandGroupList the system command group list
+     * @param systemCommandExecuterPlatformSupport the system command executer platform support
+     * @return the system command template
+     * @throws IllegalArgumentException In case the system command group list can not be compiled
+     */
+    public static SystemCommandTemplate compile(ISystemCommandGroupList systemCommandGroupList, ISystemCommandExecuterPlatformSupport systemCommandExecuterPlatformSupport) {
+        if (systemCommandGroupList == null || systemCommandGroupList.size() != 1) {
+            throw new IllegalArgumentException("A system command template consists of exact one system command!");
+        }
+
+        ISystemCommandGroup systemCommandGroup = systemCommandGroupList.iterator().next();
+        if (systemCommandGroup.size() != 1 || systemCommandGroupList.runAsScript()) {
+            throw new IllegalArgumentException("A system command template can not be run as script!");
+        }
+
+        ISystemCommand systemCommand = systemCommandGroup.iterator().next();
+        ProcessBuilder processBuilder = ProcessBuilderUtil.getInstance().createProcessBuilder(systemCommandGroup, systemCommandExecuterPlatformSupport);
+        return new SystemCommandTemplate(processBuilder.command(),
+                                         processBuilder.command().size() - systemCommand.getCommandList().size(),
+                                         systemCommand.getProcessEnvironment().getEnvironmentVariables(),
+                                         systemCommand.getProcessEnvironment().getEnvironmentAllowlist(),
+                                         System.getenv(),
+                                         processBuilder.directory(),
+                                         systemCommand.toString(true));
+    }
+
+
+    /**
+     * Get the names of the placeholders in the order of their first occurrence
+     *
+     * @return the names of the placeholders
+     */
+    public List<String> getParameterNames() {
+        return List.of(parameterNames);
+    }
+
+
+    /**
+     * Get the type of a placeholder
+     *
+     * @param parameterName the name of the placeholder
+     * @return the type or null if the placeholder is not known
+     */
+    public SystemCommandTemplateParameterType getParameterType(String parameterName) {
+        Integer index = parameterIndexMap.get(parameterName);
+        if (index == null) {
+            return null;
+        }
+
+        return parameterTypes[index];
+    }
+
+
+    /**
+     * Bind the parameters
+     *
+     * @param parameters the values of the placeholders by name
+     * @return the bound system command
+     * @throws IllegalArgumentException In case of a missing, an unknown or an invalid value or a value which can not be quoted for the shell
+     */
+    public BoundSystemCommand bind(Map<String, ?> parameters) {
+        Map<String, ?> parameterMap = parameters;
+        if (parameterMap == null) {
+            parameterMap = Collections.emptyMap();
+        }
+
+        if (parameterMap.size() > parameterNames.length) {
+            for (String parameterName : parameterMap.keySet()) {
+                if (!parameterIndexMap.containsKey(parameterName)) {
+                    throw new IllegalArgumentException("Unknown placeholder [" + parameterName + "]!");
+                }
+            }
+        }
+
+        String[] values = new String[parameterNames.length];
+        for (int i = 0; i < parameterNames.length; i++) {
+            values[i] = parameterTypes[i].format(parameterNames[i], parameterMap.get(parameterNames[i]));
+        }
+
+        return bindValues(values);
+    }
+
+
+    /**
+     * Bind the parameters in the order of {@link #getParameterNames()}
+     *
+     * @param parameters the values of the placeholders
+     * @return the bound system command
+     * @throws IllegalArgumentException In case of a missing or an invalid value or a value which can not be quoted for the shell
+     */
+    public BoundSystemCommand bind(Object... parameters) {
+        if (parameters == null || parameters.length != parameterNames.length) {
+            throw new IllegalArgumentException("Expected " + parameterNames.length + " values of the placeholders " + getParameterNames() + "!");
+        }
+
+        String[] values = new String[parameterNames.length];
+        for (int i = 0; i < parameterNames.length; i++) {
+            values[i] = parameterTypes[i].format(parameterNames[i], parameters[i]);
+        }
+
+        return bindValues(values);
+    }
+
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "SystemCommandTemplate [command=" + displayCommand + ", parameters=" + getParameterNames() + "]";
+    }
+
+
+    /**
+     * Bind the formatted values
+     *
+     * @param values the formatted values of the placeholders
+     * @return the bound system command
+     * @throws IllegalArgumentException In case a value can not be quoted for the shell
+     */
+    private BoundSystemCommand bindValues(String[] values) {
+        String[] command = new String[commandList.length];
+        for (int i = 0; i < commandList.length; i++) {
+            command[i] = commandList[i].format(values);
+        }
+
+        Map<String, String> environment = Collections.emptyMap();
+        if (environmentKeys.length > 0) {
+            environment = new HashMap<>(environmentKeys.length);
+            for (int i = 0; i < environmentKeys.length; i++) {
+                environment.put(environmentKeys[i], environmentValues[i].format(values));
+            }
+        }
+
+        return new BoundSystemCommand(command, environmentSnapshot, environment, workingPath);
+    }
+
+
+    /**
+     * Compile a value
+     *
+     * @param value the value
+     * @param shellQuoting the quoting of the values for the shell
+     * @param indexMap the index of the placeholders by name
+     * @param parameterNameList the names of the placeholders
+     * @param parameterTypeList the types of the placeholders
+     * @return the compiled value
+     * @throws IllegalArgumentException In case of an invalid placeholder
+     */
+    private static CompiledValue compile(String value, 
+                                         ShellQuoting shellQuoting, 
+                                         Map<String, Integer> indexMap, 
+                                         List<String> parameterNameList, 
+                                         List<SystemCommandTemplateParameterType> parameterTypeList) {
+        if (value == null || value.indexOf(PLACEHOLDER_START) < 0) {
+            return new CompiledValue(value, null, null, null, shellQuoting);
+        }
+
+        List<String> textList = new ArrayList<>();
+        List<Integer> indexList = new ArrayList<>();
+        List<Character> quoteList = new ArrayList<>();
+        char quote = ShellQuoting.UNQUOTED;
+        int position = 0;
+        int start = value.indexOf(PLACEHOLDER_START);
+        while (start >= 0) {
+            int end = value.indexOf(PLACEHOLDER_END, start + PLACEHOLDER_START.length());
+            if (end < 0) {
+                throw new IllegalArgumentException("Unterminated placeholder in [" + value + "]!");
+            }
+
+            String placeholder = value.substring(start + PLACEHOLDER_START.length(), end).trim();
+            String name = placeholder;
+            SystemCommandTemplateParameterType type = null;
+            int separator = placeholder.indexOf(TYPE_SEPARATOR);
+            if (separator >= 0) {
+                name = placeholder.substring(0, separator).trim();
+                type = SystemCommandTemplateParameterType.of(placeholder.substring(separator + TYPE_SEPARATOR.length()));
+            }
+
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Placeholder without name in [" + value + "]!");
+            }
+
+            Integer index = indexMap.get(name);
+            if (index == null) {
+                if (type == null) {
+                    type = SystemCommandTemplateParameterType.STRING;
+                }
+
+                index = parameterNameList.size();
+                indexMap.put(name, index);
+                parameterNameList.add(name);
+                parameterTypeList.add(type);
+            } else if (type != null && type != parameterTypeList.get(index)) {
+                throw new IllegalArgumentException("Placeholder [" + name + "] is declared as " + parameterTypeList.get(index).getName() + " and " + type.getName() + "!");
+            }
+
+            String text = value.substring(position, start);
+            quote = shellQuoting.getQuote(quote, text);
+            textList.add(text);
+            indexList.add(index);
+            quoteList.add(quote);
+            position = end + PLACEHOLDER_END.length();
+            start = value.indexOf(PLACEHOLDER_START, position);
+        }
+
+        textList.add(value.substring(position));
+        char[] quotes = new char[quoteList.size()];
+        for (int i = 0; i < quotes.length; i++) {
+            quotes[i] = quoteList.get(i);
+        }
+
+        return new CompiledValue(null, textList.toArray(new String[textList.size()]), indexList.stream().mapToInt(Integer::intValue).toArray(), quotes, shellQuoting);
+    }
+
+
+    /**
+     * A compiled value: a literal or the texts between the placeholders
+     *
+     * @author patrick
+     */
+    private static final class CompiledValue {
+        private final String literal;
+        private final String[] texts;
+        private final int[] parameterIndexes;
+        private final char[] quotes;
+        private final ShellQuoting shellQuoting;
+        private final int textLength;
+
+
+        /**
+         * Constructor for CompiledValue
+         *
+         * @param literal the literal or null
+         * @param texts the texts between the placeholders, one more than placeholders
+         * @param parameterIndexes the indexes of the placeholders
+         * @param quotes the quote in which the placeholders stand
+         * @param shellQuoting the quoting of the values for the shell
+         */
+        CompiledValue(String literal, String[] texts, int[] parameterIndexes, char[] quotes, ShellQuoting shellQuoting) {
+            this.literal = literal;
+            this.texts = texts;
+            this.parameterIndexes = parameterIndexes;
+            this.quotes = quotes;
+            this.shellQuoting = shellQuoting;
+
+            int length = 0;
+            if (texts != null) {
+                for (String text : texts) {
+                    length += text.length();
+                }
+            }
+
+            this.textLength = length;
+        }
+
+
+        /**
+         * Check if the value has no placeholder
+         *
+         * @return true if the value is a literal
+         */
+        boolean isLiteral() {
+            return texts == null;
+        }
+
+
+        /**
+         * Format the value
+         *
+         * @param values the formatted values of the placeholders
+         * @return the value
+         * @throws IllegalArgumentException In case a value can not be quoted for the shell
+         */
+        String format(String[] values) {
+            if (texts == null) {
+                return literal;
+            }
+
+            if (textLength == 0 && parameterIndexes.length == 1) {
+                // the value is one placeholder
+                return shellQuoting.quote(values[parameterIndexes[0]], quotes[0]);
+            }
+
+            String[] quotedValues = new String[parameterIndexes.length];
+            int length = textLength;
+            for (int i = 0; i < parameterIndexes.length; i++) {
+                quotedValues[i] = shellQuoting.quote(values[parameterIndexes[i]], quotes[i]);
+                length += quotedValues[i].length();
+            }
+
+            StringBuilder result = new StringBuilder(length);
+            for (int i = 0; i < parameterIndexes.length; i++) {
+                result.append(texts[i]).append(quotedValues[i]);
+            }
+
+            return result.append(texts[texts.length - 1]).toString();
+        }
+    }
+
+
+    /**
+     * The quoting of the bound values for the shell which interprets the command line
+     *
+     * @author patrick
+     */
+    private enum ShellQuoting {
+        /** The value is passed as it is */
+        NONE,
+
+        /** The value is quoted for a POSIX shell */
+        POSIX,
+
+        /** The value is quoted for the cmd.exe */
+        WINDOWS;
+
+        /** The placeholder stands outside of quotes */
+        static final char UNQUOTED = ' ';
+        private static final String SAFE_CHARACTERS = "_-+=.,:/@%";
+
+
+        /**
+         * Get the quoting of a shell
+         *
+         * @param shell the shell executable
+         * @return the quoting
+         */
+        static ShellQuoting of(String shell) {
+            String name = shell.toLowerCase().replace('\\', '/');
+            name = name.substring(name.lastIndexOf('/') + 1);
+            if ("cmd.exe".equals(name) || "cmd".equals(name) || "command.com".equals(name)) {
+                return WINDOWS;
+            }
+
+            return POSIX;
+        }
+
+
+        /**
+         * Get the quote in which a placeholder stands
+         *
+         * @param quote the quote at the start of the text
+         * @param text the text before the placeholder
+         * @return the quote at the end of the text
+         */
+        char getQuote(char quote, String text) {
+            if (this == NONE) {
+                return UNQUOTED;
+            }
+
+            char result = quote;
+            boolean escaped = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (escaped) {
+                    escaped = false;
+                } else if (this == POSIX && c == '\\' && result != '\'') {
+                    // the next character is escaped
+                    escaped = true;
+                } else if (result == UNQUOTED && (c == '"' || (this == POSIX && c == '\''))) {
+                    result = c;
+                } else if (result == c) {
+                    result = UNQUOTED;
+                }
+            }
+
+            return result;
+        }
+
+
+        /**
+         * Quote a value
+         *
+         * @param value the value
+         * @param quote the quote in which the placeholder stands
+         * @return the quoted value
+         * @throws IllegalArgumentException In case the value can not be quoted
+         */
+        String quote(String value, char quote) {
+            if (this == NONE) {
+                return value;
+            }
+
+            if (this == POSIX) {
+                if (quote == '\'') {
+                    return value.replace("'", "'\\''");
+                }
+
+                if (quote == '"') {
+                    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("$", "\\$").replace("`", "\\`");
+                }
+
+                if (isSafe(value)) {
+                    return value;
+                }
+
+                return "'" + value.replace("'", "'\\''") + "'";
+            }
+
+            if (value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("The value [" + value + "] can not be quoted for the cmd.exe!");
+            }
+
+            // the percent is escaped outside of the quotes, otherwise it expands an environment variable
+            String result = value.replace("%", "\"^%\"");
+            if (quote == '"') {
+                return result;
+            }
+
+            if (isSafe(value) && value.indexOf('%') < 0) {
+                return value;
+            }
+
+            return "\"" + result + "\"";
+        }
+
+
+        /**
+         * Check if a value has only characters which have no meaning for the shell
+         *
+         * @param value the value
+         * @return true if the value can be passed without quotes
+         */
+        private static boolean isSafe(String value) {
+            if (value.isEmpty()) {
+                return false;
+            }
+
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (!Character.isLetterOrDigit(c) && SAFE_CHARACTERS.indexOf(c) < 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * SystemCommandTemplateParameterType.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.template;
+
+import java.io.File;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+
+/**
+ * Defines the types of the placeholders of a {@link SystemCommandTemplate}. The type of a placeholder is declared
+ * after its name, e.g. <code>{{count:int}}</code>, a placeholder without type is a string.
+ *
+ * @author patrick
+ */
+public enum SystemCommandTemplateParameterType {
+    /** A string, it is inserted as it is */
+    STRING("string"),
+
+    /** An integer */
+    INT("int"),
+
+    /** A long */
+    LONG("long"),
+
+    /** A boolean: true or false */
+    BOOLEAN("boolean"),
+
+    /** A path */
+    PATH("path");
+
+    private final String name;
+
+
+    /**
+     * Constructor for SystemCommandTemplateParameterType
+     *
+     * @param name the name in the placeholder
+     */
+    SystemCommandTemplateParameterType(String name) {
+        this.name = name;
+    }
+
+
+    /**
+     * Get the name of the type in the placeholder
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+
+    /**
+     * Get the type of a name
+     *
+     * @param name the name of the type in the placeholder
+     * @return the type
+     * @throws IllegalArgumentException In case of an unknown type
+     */
+    public static SystemCommandTemplateParameterType of(String name) {
+        if (name == null || name.isBlank()) {
+            return STRING;
+        }
+
+        String typeName = name.trim().toLowerCase();
+        for (SystemCommandTemplateParameterType type : values()) {
+            if (type.name.equals(typeName)) {
+                return type;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown placeholder type [" + name + "]!");
+    }
+
+
+    /**
+     * Verify a value and format it
+     *
+     * @param parameterName the name of the placeholder
+     * @param value the value
+     * @return the formatted value
+     * @throws IllegalArgumentException In case the value does not match the type
+     */
+    public String format(String parameterName, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing value of placeholder [" + parameterName + "]!");
+        }
+
+        switch (this) {
+            case INT:
+                if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                    return value.toString();
+                }
+
+                try {
+                    return Integer.toString(Integer.parseInt(value.toString().trim()));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid int value [" + value + "] of placeholder [" + parameterName + "]!");
+                }
+            case LONG:
+                if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                    return value.toString();
+                }
+
+                try {
+                    return Long.toString(Long.parseLong(value.toString().trim()));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid long value [" + value + "] of placeholder [" + parameterName + "]!");
+                }
+            case BOOLEAN:
+                if (value instanceof Boolean) {
+                    return value.toString();
+                }
+
+                String booleanValue = value.toString().trim().toLowerCase();
+                if (!"true".equals(booleanValue) && !"false".equals(booleanValue)) {
+                    throw new IllegalArgumentException("Invalid boolean value [" + value + "] of placeholder [" + parameterName + "]!");
+                }
+
+                return booleanValue;
+            case PATH:
+                if (value instanceof Path) {
+                    return value.toString();
+                } else if (value instanceof File) {
+                    return ((File) value).getPath();
+                }
+
+                try {
+                    return Paths.get(value.toString()).toString();
+                } catch (InvalidPathException e) {
+                    throw new IllegalArgumentException("Invalid path value [" + value + "] of placeholder [" + parameterName + "]!");
+                }
+            case STRING:
+            default:
+                return value.toString();
+        }
+    }
+}
@@ -21,6 +21,12 @@ import org.slf4j.LoggerFactory;
  * @author patrick
  */
 public final class OSUtil {
+    /** The argument size limit in case it can not be queried: the minimum of linux */
+    public static final long DEFAULT_ARGUMENT_MAX_LENGTH = 128L * 1024L;
+
+    /** The maximum length of a command line on windows */
+    public static final long WINDOWS_ARGUMENT_MAX_LENGTH = 32767L;
+
     private static final Logger LOG = LoggerFactory.getLogger(OSUtil.class);
     private static final String DEFAULT_CIPHER_NAME = "AESa";
     private static final int UNLIMITED_JURISDICTION_KEY_SIZE = 1024;
@@ -28,6 +34,7 @@ public final class OSUtil {
     private String osArchitecture;
     private Boolean isWindowsWsl;
     private Boolean isUnlimitedJurisdiction;
+    private volatile Long argumentMaxLength;
 
 
     /**
@@ -48,6 +55,7 @@ public final class OSUtil {
         osArchitecture = getOSArchitecture();
         isWindowsWsl = null;
         isUnlimitedJurisdiction = null;
+        argumentMaxLength = null;
     }
 
     
@@ -254,7 +262,43 @@ public final class OSUtil {
         return hostname;
     }
 
-    
+
+
+    /**
+     * Get the size limit of the arguments and the environment of a new process (ARG_MAX). On unix it is queried once
+     * by <code>getconf ARG_MAX</code> and cached, on windows it is the maximum length of a command line in characters.
+     *
+     * @return the size limit of the arguments
+     */
+    public long getArgumentMaxLength() {
+        if (argumentMaxLength != null) {
+            return argumentMaxLength;
+        }
+
+        long result = DEFAULT_ARGUMENT_MAX_LENGTH;
+        if (isWindows()) {
+            result = WINDOWS_ARGUMENT_MAX_LENGTH;
+        } else {
+            try {
+                Process process = new ProcessBuilder("getconf", "ARG_MAX").redirectErrorStream(true).start();
+                String content = new String(process.getInputStream().readAllBytes()).trim();
+                if (process.waitFor() == 0 && content.matches("[0-9]+")) {
+                    result = Long.parseLong(content);
+                } else {
+                    LOG.debug("Could not get ARG_MAX, use default: " + content);
+                }
+            } catch (IOException e) {
+                LOG.debug("Could not get ARG_MAX, use default: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return result;
+            }
+        }
+
+        argumentMaxLength = result;
+        return result;
+    }
+
 
     /**
      * Check if there is unlimited jurisdiction
@@ -0,0 +1,156 @@
+/*
+ * SystemCommandBatchExecuterTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link SystemCommandBatchExecuter}.
+ *
+ * @author patrick
+ */
+public class SystemCommandBatchExecuterTest {
+
+    /**
+     * Test the packing of the arguments into batches
+     */
+    @Test
+    public void createBatchesTest() {
+        assertTrue(OSUtil.getInstance().getArgumentMaxLength() > 0);
+        assertEquals(OSUtil.getInstance().getArgumentMaxLength(), OSUtil.getInstance().getArgumentMaxLength());
+
+        List<String> argumentList = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            argumentList.add("/var/data/input/folder/file-" + i + ".txt");
+        }
+
+        SystemCommandBatchExecuter executer = new SystemCommandBatchExecuter("echo");
+        long argumentLimit = executer.getArgumentLimit();
+        assertTrue(argumentLimit > 0);
+
+        List<List<String>> batchList = executer.createBatches(argumentList);
+        assertTrue(batchList.size() > 1);
+        List<String> flatList = new ArrayList<>();
+        for (List<String> batch : batchList) {
+            flatList.addAll(batch);
+        }
+
+        assertEquals(argumentList, flatList);
+
+        // the limit of the number of arguments
+        executer.setMaxArguments(30000);
+        batchList = executer.createBatches(argumentList);
+        assertTrue(batchList.size() >= 4);
+        assertTrue(batchList.get(0).size() <= 30000);
+
+        assertTrue(executer.createBatches(List.of()).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> executer.createBatches(List.of("x".repeat((int)Math.min(Integer.MAX_VALUE - 1, argumentLimit + 1)))));
+        assertThrows(IllegalArgumentException.class, () -> new SystemCommandBatchExecuter());
+    }
+
+
+    /**
+     * Test the parallel execution of the batches
+     */
+    @Test
+    public void runTest() {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        List<String> argumentList = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            argumentList.add("a" + i);
+        }
+
+        SystemCommandBatchExecuter executer = new SystemCommandBatchExecuter("echo");
+        executer.setMaxArguments(1000);
+        executer.setMaxParallelism(4);
+
+        SystemCommandBatchResult result = executer.run(argumentList);
+        assertTrue(result.isSuccess());
+        assertEquals(10, result.getBatchCount());
+        assertEquals(3, result.getBatchIndex(3500));
+        assertEquals(String.join(" ", argumentList.subList(3000, 4000)) + "\n", result.getOutput(3));
+        assertEquals(10000, result.getOutput().split("\\s+").length);
+    }
+
+
+    /**
+     * Test the failure of an argument
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void failureTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        Path file = Files.createTempFile("batch", ".txt");
+        try {
+            String missing = file.toString() + "-missing";
+            SystemCommandBatchExecuter executer = new SystemCommandBatchExecuter("ls", "-d");
+            executer.setMaxArguments(2);
+
+            SystemCommandBatchResult result = executer.run(List.of(file.toString(), file.toString(), file.toString(), missing, file.toString()));
+            assertFalse(result.isSuccess());
+            assertEquals(3, result.getBatchCount());
+            assertEquals(List.of(1), result.getFailedBatches());
+            assertEquals(List.of(missing), result.getFailedArguments());
+            assertEquals(1, result.getBatchIndex(3));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+
+    /**
+     * Test an interrupted execution: the batches which did not run are failed
+     */
+    @Test
+    public void interruptedTest() {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        SystemCommandBatchExecuter executer = new SystemCommandBatchExecuter("sleep");
+        executer.setMaxArguments(1);
+        executer.setMaxParallelism(1);
+
+        final Thread thread = Thread.currentThread();
+        Thread interruptThread = new Thread(() -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                // NOP
+            }
+            thread.interrupt();
+        });
+        interruptThread.start();
+
+        long start = System.currentTimeMillis();
+        SystemCommandBatchResult result = executer.run(List.of("5", "5", "5"));
+        assertTrue(Thread.interrupted());
+        assertTrue(System.currentTimeMillis() - start < 4000);
+        assertFalse(result.isSuccess());
+        assertEquals(List.of(0, 1, 2), result.getFailedBatches());
+        assertEquals(-1, result.getExitValue(2));
+        assertEquals("", result.getOutput());
+    }
+}
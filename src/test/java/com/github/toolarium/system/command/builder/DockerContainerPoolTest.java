@@ -0,0 +1,289 @@
+/*
+ * DockerContainerPoolTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.builder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.AbstractProcessTest;
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.builder.docker.DockerContainerPool;
+import com.github.toolarium.system.command.builder.docker.DockerStateCache;
+import com.github.toolarium.system.command.builder.docker.DockerUtil;
+import com.github.toolarium.system.command.executer.ISystemCommandExecuter;
+import com.github.toolarium.system.command.process.IAsynchronousProcess;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link DockerContainerPool} with a fake docker executable.
+ *
+ * @author patrick
+ */
+public class DockerContainerPoolTest extends AbstractProcessTest {
+    private static final String FAKE_DOCKER = "#!/bin/sh\n"
+                                              + "BASE=\"$(dirname \"$0\")\"\n"
+                                              + "echo \"$@\" >> \"$BASE/docker.log\"\n"
+                                              + "echo \"$#\" > \"$BASE/docker.argc\"\n"
+                                              + "for last; do true; done\n"
+                                              + "case \"$1\" in\n"
+                                              + "  run) shift; while [ \"$1\" != \"--name\" ]; do shift; done; touch \"$BASE/$2.running\"; echo 4711 ;;\n"
+                                              + "  inspect) if [ -f \"$BASE/$last.running\" ]; then echo true; else echo false; exit 1; fi ;;\n"
+                                              + "  rm) rm -f \"$BASE/$last.running\" ;;\n"
+                                              + "  stop) shift; for n; do rm -f \"$BASE/$n.running\"; echo \"$n\"; done ;;\n"
+                                              + "  images) echo \"toolarium/cache-test:1.0.0\" | grep \"$last\" || true ;;\n"
+                                              + "  exec) shift; while [ \"${1#-}\" != \"$1\" ]; do shift; done; [ -f \"$BASE/$1.running\" ] || exit 1; shift; \"$@\" ;;\n"
+                                              + "esac\n";
+
+
+    /**
+     * Test the reuse of a persistent container
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void persistentContainerTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        Path dockerExecutable = createFakeDocker("build/fake-docker-persistent");
+        final String image = "toolarium/persistent-test:1.0.0";
+
+        ISynchronousProcess process = SystemCommandExecuterFactory.builder().docker()
+                .dockerExecutable(dockerExecutable.toString())
+                .run(image)
+                .persistent(true)
+                .parameter("echo first")
+            .build()
+            .runSynchronous();
+        assertEquals(0, process.getExitValue());
+        assertEquals("first" + NL, process.getOutput());
+
+        process = SystemCommandExecuterFactory.builder().docker()
+                .dockerExecutable(dockerExecutable.toString())
+                .run(image)
+                .persistent(true)
+                .parameter("echo second")
+            .build()
+            .runSynchronous();
+        assertEquals(0, process.getExitValue());
+        assertEquals("second" + NL, process.getOutput());
+
+        List<String> log = readLog(dockerExecutable);
+        assertEquals(1, log.stream().filter(l -> l.startsWith("run -d")).count(), "" + log);
+        assertEquals(2, log.stream().filter(l -> l.startsWith("exec")).count(), "" + log);
+        assertEquals(1, log.stream().filter(l -> l.startsWith("inspect")).count(), "" + log);
+    }
+
+
+    /**
+     * Test the health check and the idle eviction
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void healthCheckAndEvictionTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        Path dockerExecutable = createFakeDocker("build/fake-docker-eviction");
+        final String image = "toolarium/eviction-test:1.0.0";
+        String name = DockerContainerPool.getInstance().acquire(dockerExecutable.toString(), image, null, null, null);
+        assertTrue(name.startsWith(DockerContainerPool.CONTAINER_NAME_PREFIX));
+        assertTrue(DockerContainerPool.getInstance().isRunning(dockerExecutable.toString(), name));
+        DockerContainerPool.getInstance().release(dockerExecutable.toString(), image, null, null, null);
+
+        // simulate a died container: the health check has to restart it
+        Files.delete(dockerExecutable.getParent().resolve(name + ".running"));
+        assertEquals(name, DockerContainerPool.getInstance().acquire(dockerExecutable.toString(), image, null, null, null));
+        assertEquals(2, readLog(dockerExecutable).stream().filter(l -> l.startsWith("run -d")).count());
+
+        long idleTimeout = DockerContainerPool.getInstance().getIdleTimeout();
+        try {
+            // a container in use is not evicted
+            DockerContainerPool.getInstance().setIdleTimeout(0);
+            DockerContainerPool.getInstance().evictIdleContainers();
+            assertTrue(DockerContainerPool.getInstance().isRunning(dockerExecutable.toString(), name));
+
+            DockerContainerPool.getInstance().release(dockerExecutable.toString(), image, null, null, null);
+            assertTrue(DockerContainerPool.getInstance().evictIdleContainers() >= 1);
+            assertTrue(!DockerContainerPool.getInstance().isRunning(dockerExecutable.toString(), name));
+        } finally {
+            DockerContainerPool.getInstance().setIdleTimeout(idleTimeout);
+        }
+    }
+
+
+    /**
+     * Test a run of an executer which was built before its container was evicted
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException In case of an interrupt
+     */
+    @Test
+    public void evictedContainerTest() throws IOException, InterruptedException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        Path dockerExecutable = createFakeDocker("build/fake-docker-evicted");
+        final String docker = dockerExecutable.toString();
+        final String image = "toolarium/evicted-test:1.0.0";
+        ISystemCommandExecuter executer = SystemCommandExecuterFactory.builder().docker()
+                .dockerExecutable(docker)
+                .run(image)
+                .persistent(true)
+                .parameter("echo evicted")
+            .build();
+        
+        // the container is started by the run, not by the build
+        String name = DockerContainerPool.getInstance().getContainerName(docker, image, null, null, null);
+        assertTrue(!DockerContainerPool.getInstance().isRunning(docker, name));
+
+        long idleTimeout = DockerContainerPool.getInstance().getIdleTimeout();
+        try {
+            ISynchronousProcess process = executer.runSynchronous();
+            assertEquals(0, process.getExitValue());
+            assertEquals("evicted" + NL, process.getOutput());
+
+            DockerContainerPool.getInstance().setIdleTimeout(0);
+            DockerContainerPool.getInstance().evictIdleContainers();
+            assertTrue(!DockerContainerPool.getInstance().isRunning(docker, name));
+
+            process = executer.runSynchronous();
+            assertEquals(0, process.getExitValue(), process.getErrorOutput());
+            assertEquals("evicted" + NL, process.getOutput());
+            assertEquals(2, readLog(dockerExecutable).stream().filter(l -> l.startsWith("run -d")).count());
+
+            // a running process holds its container
+            IAsynchronousProcess asynchronousProcess = SystemCommandExecuterFactory.builder().docker()
+                    .dockerExecutable(docker)
+                    .run(image)
+                    .persistent(true)
+                    .parameter("sleep 1")
+                .build()
+                .runAsynchronous();
+            DockerContainerPool.getInstance().evictIdleContainers();
+            assertTrue(DockerContainerPool.getInstance().isRunning(docker, name));
+            asynchronousProcess.waitFor();
+            assertEquals(0, asynchronousProcess.getExitValue());
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (DockerContainerPool.getInstance().isRunning(docker, name) && System.currentTimeMillis() < deadline) {
+                DockerContainerPool.getInstance().evictIdleContainers();
+                Thread.sleep(20);
+            }
+            assertTrue(!DockerContainerPool.getInstance().isRunning(docker, name));
+        } finally {
+            DockerContainerPool.getInstance().setIdleTimeout(idleTimeout);
+        }
+    }
+
+
+    /**
+     * Test the cached docker state lookups and the batched stop
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void stateCacheTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        Path dockerExecutable = createFakeDocker("build/fake-docker-cache");
+        final String docker = dockerExecutable.toString();
+        assertTrue(DockerStateCache.getInstance().existsImage(docker, "toolarium/cache-test"));
+        assertTrue(DockerStateCache.getInstance().existsImage(docker, "toolarium/cache-test"));
+        assertEquals(List.of("toolarium/cache-test:1.0.0"), DockerStateCache.getInstance().getImages(docker, "toolarium/cache-test"));
+        assertEquals(1, readLog(dockerExecutable).stream().filter(l -> l.startsWith("images")).count());
+
+        DockerStateCache.getInstance().invalidateImages();
+        assertTrue(!DockerStateCache.getInstance().existsImage(docker, "toolarium/unknown"));
+        assertTrue(DockerStateCache.getInstance().existsImage(docker, "toolarium/cache-test"));
+        assertEquals(3, readLog(dockerExecutable).stream().filter(l -> l.startsWith("images")).count());
+
+        String name1 = DockerContainerPool.getInstance().acquire(docker, "toolarium/cache-test:1.0.0", "cache-test-1", null, null);
+        String name2 = DockerContainerPool.getInstance().acquire(docker, "toolarium/cache-test:1.0.0", "cache-test-2", null, null);
+        assertTrue(DockerStateCache.getInstance().isContainerRunning(docker, name1));
+        assertTrue(DockerStateCache.getInstance().isContainerRunning(docker, name2));
+        assertEquals(0, readLog(dockerExecutable).stream().filter(l -> l.startsWith("inspect")).count());
+
+        // a lookup between the build and the run of the stop does not keep the running state
+        ISystemCommandExecuter stopExecuter = SystemCommandExecuterFactory.builder().docker().dockerExecutable(docker).stop(name1, name2).build();
+        assertTrue(DockerStateCache.getInstance().isContainerRunning(docker, name1));
+        ISynchronousProcess process = stopExecuter.runSynchronous();
+        assertEquals(0, process.getExitValue());
+        assertEquals(name1 + NL + name2 + NL, process.getOutput());
+        assertEquals(1, readLog(dockerExecutable).stream().filter(l -> l.startsWith("stop")).count());
+        assertTrue(!DockerStateCache.getInstance().isContainerRunning(docker, name1));
+        assertTrue(!DockerStateCache.getInstance().isContainerRunning(docker, name2));
+        assertEquals(2, readLog(dockerExecutable).stream().filter(l -> l.startsWith("inspect")).count());
+        DockerContainerPool.getInstance().removeAll();
+    }
+
+
+    /**
+     * Test the arguments of a docker command: they are passed unchanged to docker and are not interpreted by the shell
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void argumentTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        Path dockerExecutable = createFakeDocker("build/fake-docker-argument");
+        Path injected = dockerExecutable.getParent().resolve("injected");
+        ISynchronousProcess process = DockerUtil.getInstance().runDockerCommand(dockerExecutable.toString(), "images", "--format", "{{.Repository}}:{{.Tag}}", "a b;touch " + injected);
+        assertEquals(0, process.getExitValue());
+        assertEquals("4", Files.readString(dockerExecutable.getParent().resolve("docker.argc")).trim());
+        assertEquals(List.of("images --format {{.Repository}}:{{.Tag}} a b;touch " + injected), readLog(dockerExecutable));
+        assertTrue(!Files.exists(injected));
+    }
+
+
+    /**
+     * Create a fake docker executable
+     *
+     * @param folder the folder
+     * @return the fake docker executable
+     * @throws IOException In case of an I/O error
+     */
+    private Path createFakeDocker(String folder) throws IOException {
+        Path path = Paths.get(folder);
+        ProcessStreamUtil.getInstance().deleteDirectory(path);
+        Files.createDirectories(path);
+        Path dockerExecutable = path.resolve("docker").toAbsolutePath();
+        Files.writeString(dockerExecutable, FAKE_DOCKER);
+        dockerExecutable.toFile().setExecutable(true);
+        return dockerExecutable;
+    }
+
+
+    /**
+     * Read the docker log
+     *
+     * @param dockerExecutable the docker executable
+     * @return the log lines
+     * @throws IOException In case of an I/O error
+     */
+    private List<String> readLog(Path dockerExecutable) throws IOException {
+        return Files.readAllLines(dockerExecutable.getParent().resolve("docker.log")).stream().map(String::trim).collect(Collectors.toList());
+    }
+}
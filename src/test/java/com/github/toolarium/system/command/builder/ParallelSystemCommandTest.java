@@ -0,0 +1,119 @@
+/*
+ * ParallelSystemCommandTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.builder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.executer.ParallelOutputMode;
+import com.github.toolarium.system.command.process.IAsynchronousProcess;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.impl.ParallelSynchronousProcess;
+import com.github.toolarium.system.command.process.stream.ProcessStreamFactory;
+import com.github.toolarium.system.command.process.stream.output.ProcessBufferOutputStream;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the parallel branches of the system command builder
+ *  
+ * @author patrick
+ */
+public class ParallelSystemCommandTest {
+
+    /**
+     * Test the ordered output of parallel branches
+     */
+    @Test
+    public void orderedTest() {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        ISynchronousProcess process = SystemCommandExecuterFactory.builder()
+                .system().command("sleep 1; echo first")
+                .parallel().system().command("echo second")
+                .parallel().system().command("sleep 1; echo third")
+                .join()
+                .runSynchronous(30);
+        long duration = System.currentTimeMillis() - start;
+
+        assertEquals(0, process.getExitValue());
+        assertEquals("first\nsecond\nthird\n", process.getOutput());
+        assertTrue(duration < 1900, "Branches are not run in parallel: " + duration + "ms");
+
+        List<ISynchronousProcess> branchList = ((ParallelSynchronousProcess)process).getBranchProcesses();
+        assertEquals(3, branchList.size());
+        assertEquals("second\n", branchList.get(1).getOutput());
+    }
+
+
+    /**
+     * Test the prefixed output of parallel branches
+     *
+     * @throws InterruptedException in case of thread interrupt
+     */
+    @Test
+    public void prefixedTest() throws InterruptedException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        ProcessBufferOutputStream out = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+        IAsynchronousProcess process = SystemCommandExecuterFactory.builder()
+                .system().command("echo a1; sleep 1; echo a2")
+                .parallel().system().command("echo b1; printf b2")
+                .join(ParallelOutputMode.PREFIXED)
+                .runAsynchronous(out);
+        assertEquals(0, process.waitFor());
+
+        List<String> lineList = Arrays.asList(out.toString().split("\n"));
+        assertEquals(4, lineList.size());
+        assertTrue(lineList.containsAll(List.of("[1] a1", "[1] a2", "[2] b1", "[2] b2")));
+        assertTrue(lineList.indexOf("[2] b1") < lineList.indexOf("[1] a2"));
+    }
+
+
+    /**
+     * Test the combined exit value of parallel branches
+     */
+    @Test
+    public void exitValueTest() {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        ISynchronousProcess process = SystemCommandExecuterFactory.builder()
+                .system().command("echo ok")
+                .parallel().system().command("false")
+                .onError().system().command("exit 4")
+                .parallel().system().command("exit 5")
+                .build()
+                .runSynchronous(30);
+        assertEquals(4, process.getExitValue());
+        
+        List<ISynchronousProcess> branchList = ((ParallelSynchronousProcess)process).getBranchProcesses();
+        assertEquals(0, branchList.get(0).getExitValue());
+        assertEquals(4, branchList.get(1).getExitValue());
+        assertEquals(5, branchList.get(2).getExitValue());
+    }
+
+
+    /**
+     * Test a join without parallel branches
+     */
+    @Test
+    public void invalidJoinTest() {
+        assertThrows(IllegalStateException.class, () -> SystemCommandExecuterFactory.builder().system().command("echo").join());
+        assertThrows(IllegalStateException.class, () -> SystemCommandExecuterFactory.builder().system().command("echo 1").parallel().system().command("echo 2").buildTemplate());
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * SystemCommandDagTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.dag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.dto.ISystemCommand.SystemCommandExecutionStatusResult;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link SystemCommandDag}.
+ *
+ * @author patrick
+ */
+public class SystemCommandDagTest {
+
+    /**
+     * Test the parallel execution of independent branches and the critical path
+     */
+    @Test
+    public void parallelTest() {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        SystemCommandDag dag = SystemCommandExecuterFactory.dagBuilder()
+                .node("prepare", SystemCommandExecuterFactory.builder().system().command("echo prepare"))
+                .node("short", SystemCommandExecuterFactory.builder().system().command("sleep 0.2"))
+                .node("long", SystemCommandExecuterFactory.builder().system().command("sleep 1"))
+                .node("report", SystemCommandExecuterFactory.builder().system().command("echo report"))
+                .edge("prepare", "short")
+                .edge("prepare", "long")
+                .edge("short", "report")
+                .edge("long", "report")
+                .maxParallelism(2)
+                .build();
+        assertEquals(List.of("prepare", "short", "long", "report"), dag.getNodeNames());
+
+        SystemCommandDagResult result = dag.run();
+        assertTrue(result.isSuccess(), result.toString());
+        assertEquals("report", result.getNodeResult("report").getProcess().getOutput().trim());
+        assertEquals(List.of("prepare", "long", "report"), result.getCriticalPath());
+        assertTrue(result.getCriticalPathDuration().toMillis() >= 1000);
+
+        // the branches are executed in parallel
+        assertTrue(result.getDuration().toMillis() < 1000 + result.getNodeResult("short").getDuration().toMillis(), result.toString());
+    }
+
+
+    /**
+     * Test the conditions of the edges and the skip of the downstream nodes of a failure
+     */
+    @Test
+    public void conditionTest() {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        SystemCommandDagResult result = SystemCommandExecuterFactory.dagBuilder()
+                .node("build", SystemCommandExecuterFactory.builder().system().command("ls /not-existing-path"))
+                .node("test", SystemCommandExecuterFactory.builder().system().command("echo test"))
+                .node("deploy", SystemCommandExecuterFactory.builder().system().command("echo deploy"))
+                .node("notify", SystemCommandExecuterFactory.builder().system().command("echo notify"))
+                .node("cleanup", SystemCommandExecuterFactory.builder().system().command("echo cleanup"))
+                .edge("build", "test")
+                .edge("test", "deploy")
+                .edge("build", "notify", SystemCommandExecutionStatusResult.ERROR)
+                .edge("deploy", "cleanup", SystemCommandExecutionStatusResult.SUCCESS_OR_ERROR)
+                .build()
+                .run();
+
+        assertFalse(result.isSuccess());
+        assertEquals(SystemCommandDagNodeStatus.FAILED, result.getNodeResult("build").getStatus());
+        assertEquals(SystemCommandDagNodeStatus.SKIPPED, result.getNodeResult("test").getStatus());
+        assertEquals(SystemCommandDagNodeStatus.SKIPPED, result.getNodeResult("deploy").getStatus());
+        assertNull(result.getNodeResult("deploy").getProcess());
+        assertEquals(SystemCommandDagNodeStatus.SUCCESS, result.getNodeResult("notify").getStatus());
+        assertEquals(SystemCommandDagNodeStatus.SUCCESS, result.getNodeResult("cleanup").getStatus());
+        assertFalse(result.getNodeResult("build").getProcess().getErrorOutput().isBlank());
+    }
+
+
+    /**
+     * Test the cancel after a timeout
+     */
+    @Test
+    public void timeoutTest() {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        SystemCommandDagResult result = SystemCommandExecuterFactory.dagBuilder()
+                .node("wait", SystemCommandExecuterFactory.builder().system().command("sleep 30"))
+                .node("next", SystemCommandExecuterFactory.builder().system().command("echo next"))
+                .edge("wait", "next", SystemCommandExecutionStatusResult.SUCCESS_OR_ERROR)
+                .build()
+                .run(1);
+
+        assertFalse(result.isSuccess());
+        assertEquals(SystemCommandDagNodeStatus.CANCELLED, result.getNodeResult("wait").getStatus());
+        assertEquals(SystemCommandDagNodeStatus.CANCELLED, result.getNodeResult("next").getStatus());
+        assertTrue(result.getDuration().toMillis() < 15000, result.toString());
+    }
+
+
+    /**
+     * Test invalid dags
+     */
+    @Test
+    public void invalidDagTest() {
+        SystemCommandDagBuilder builder = SystemCommandExecuterFactory.dagBuilder()
+                .node("a", SystemCommandExecuterFactory.builder().system().command("echo a"))
+                .node("b", SystemCommandExecuterFactory.builder().system().command("echo b"))
+                .node("c", SystemCommandExecuterFactory.builder().system().command("echo c"))
+                .edge("a", "b")
+                .edge("b", "c")
+                .edge("c", "b");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> builder.build());
+        assertTrue(e.getMessage().contains("[b -> c -> b]"), e.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> SystemCommandExecuterFactory.dagBuilder().node("a", SystemCommandExecuterFactory.builder().system().command("echo a")).edge("a", "x").build());
+        assertThrows(IllegalArgumentException.class, () -> SystemCommandExecuterFactory.dagBuilder().node("a", SystemCommandExecuterFactory.builder().system().command("echo a")).node("a", SystemCommandExecuterFactory.builder().system().command("echo a")));
+        assertThrows(IllegalArgumentException.class, () -> SystemCommandExecuterFactory.dagBuilder().build());
+    }
+}
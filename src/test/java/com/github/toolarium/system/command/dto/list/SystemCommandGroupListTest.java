@@ -6,11 +6,18 @@
 package com.github.toolarium.system.command.dto.list;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.github.toolarium.system.command.dto.SystemCommand;
+import com.github.toolarium.system.command.dto.env.ProcessEnvironment;
+import com.github.toolarium.system.command.dto.group.SystemCommandGroup;
+import com.github.toolarium.system.command.process.cache.ProcessResultKey;
 import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 
@@ -51,4 +58,66 @@ public class SystemCommandGroupListTest {
         assertTrue(Instant.now().isBefore(systemCommandGroupList.getLockTimeout()));
         assertEquals(seconds1 + 1, systemCommandGroupList.getLockTimeout().getEpochSecond());
     }
+
+
+    
+    /**
+     * Test the content based equality
+     */
+    @Test
+    public void testContentEquality() {
+        SystemCommand systemCommand1 = new SystemCommand();
+        systemCommand1.add("echo");
+        systemCommand1.add("test");
+        SystemCommand systemCommand2 = new SystemCommand();
+        systemCommand2.add("echo");
+        systemCommand2.add("test");
+        assertEquals(systemCommand1, systemCommand2);
+        assertEquals(systemCommand1.hashCode(), systemCommand2.hashCode());
+
+        SystemCommandGroup systemCommandGroup1 = new SystemCommandGroup();
+        systemCommandGroup1.add(systemCommand1);
+        SystemCommandGroup systemCommandGroup2 = new SystemCommandGroup();
+        systemCommandGroup2.add(systemCommand2);
+        assertEquals(systemCommandGroup1, systemCommandGroup2);
+
+        SystemCommandGroupList systemCommandGroupList1 = new SystemCommandGroupList();
+        systemCommandGroupList1.add(systemCommandGroup1);
+        SystemCommandGroupList systemCommandGroupList2 = new SystemCommandGroupList();
+        systemCommandGroupList2.add(systemCommandGroup2);
+        assertEquals(ProcessResultKey.create(systemCommandGroupList1, null), ProcessResultKey.create(systemCommandGroupList2, null));
+        
+        systemCommand2.add("2");
+        assertNotEquals(systemCommand1, systemCommand2);
+        assertNotEquals(ProcessResultKey.create(systemCommandGroupList1, null), ProcessResultKey.create(systemCommandGroupList2, null));
+    }
+
+
+    /**
+     * Test the content based key of a minimal environment
+     */
+    @Test
+    public void testEnvironmentAllowlistKey() {
+        SystemCommand systemCommand1 = new SystemCommand();
+        systemCommand1.add("env");
+        ProcessEnvironment processEnvironment = new ProcessEnvironment();
+        processEnvironment.setEnvironmentAllowlist(new LinkedHashSet<>(List.of("PATH", "HOME")));
+        SystemCommand systemCommand2 = new SystemCommand(processEnvironment);
+        systemCommand2.add("env");
+
+        SystemCommandGroupList systemCommandGroupList1 = new SystemCommandGroupList();
+        systemCommandGroupList1.add(systemCommand1);
+        SystemCommandGroupList systemCommandGroupList2 = new SystemCommandGroupList();
+        systemCommandGroupList2.add(systemCommand2);
+        assertNotEquals(ProcessResultKey.create(systemCommandGroupList1, null), ProcessResultKey.create(systemCommandGroupList2, null));
+
+        // the order of the allowlist is not relevant
+        processEnvironment = new ProcessEnvironment();
+        processEnvironment.setEnvironmentAllowlist(new LinkedHashSet<>(List.of("HOME", "PATH")));
+        SystemCommand systemCommand3 = new SystemCommand(processEnvironment);
+        systemCommand3.add("env");
+        SystemCommandGroupList systemCommandGroupList3 = new SystemCommandGroupList();
+        systemCommandGroupList3.add(systemCommand3);
+        assertEquals(ProcessResultKey.create(systemCommandGroupList2, null), ProcessResultKey.create(systemCommandGroupList3, null));
+    }
 }
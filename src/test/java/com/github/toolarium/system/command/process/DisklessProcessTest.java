@@ -0,0 +1,101 @@
+/*
+ * DisklessProcessTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.AbstractProcessTest;
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.process.stream.ProcessStreamFactory;
+import com.github.toolarium.system.command.process.util.ProcessIdRegistry;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the diskless script execution
+ *
+ * @author patrick
+ */
+public class DisklessProcessTest extends AbstractProcessTest {
+
+    /**
+     * Test an on success and on error chain without script folder
+     *
+     * @throws InterruptedException in case of thread interrupt
+     */
+    @Test
+    public void disklessChainTest() throws InterruptedException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        ISynchronousProcess process = SystemCommandExecuterFactory.builder()
+                .system().command("echo ok1").onSuccess()
+                .system().command("false").onError()
+                .system().command("echo recovered").onSuccessOrError()
+                .system().command("echo $KEY").environmentVariable("KEY", "myValue")
+                .diskless()
+                .build()
+                .runSynchronous();
+        assertEquals(0, process.getExitValue());
+        assertEquals("ok1" + NL + "recovered" + NL + "myValue" + NL, process.getOutput());
+        assertTrue(!Files.exists(SystemCommandExecuterFactory.getInstance().getScriptFolderBasePath().resolve(process.getSystemCommandGroupList().getId())));
+
+        // the process ids are unregistered by the liveness thread after the process has ended
+        long end = System.currentTimeMillis() + 5000;
+        while (!ProcessIdRegistry.getInstance().getProcessIds(process.getSystemCommandGroupList().getId()).isEmpty() && System.currentTimeMillis() < end) {
+            Thread.sleep(20);
+        }
+        assertTrue(ProcessIdRegistry.getInstance().getProcessIds(process.getSystemCommandGroupList().getId()).isEmpty());
+    }
+
+
+    /**
+     * Test that a command which reads from the standard input don't consume the script
+     *
+     * @throws InterruptedException in case of thread interrupt
+     */
+    @Test
+    public void disklessStandardInTest() throws InterruptedException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        ISynchronousProcess process = SystemCommandExecuterFactory.builder()
+                .system().command("cat").onSuccessOrError()
+                .system().command("echo after")
+                .diskless()
+                .build()
+                .runSynchronous();
+        assertEquals(0, process.getExitValue());
+        assertEquals("after" + NL, process.getOutput());
+    }
+
+
+    /**
+     * Test the fallback to a script file in case of an input buffer
+     *
+     * @throws InterruptedException in case of thread interrupt
+     */
+    @Test
+    public void disklessFallbackTest() throws InterruptedException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        ISynchronousProcess process = SystemCommandExecuterFactory.builder()
+                .system().command("cat").onSuccess()
+                .system().command("echo after")
+                .diskless()
+                .build()
+                .runSynchronous(ProcessStreamFactory.getInstance().getStandardInFromBuffer("input" + NL), 0);
+        assertEquals(0, process.getExitValue());
+        assertEquals("input" + NL + "after" + NL, process.getOutput());
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * ProcessResultCacheTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.AbstractProcessTest;
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.util.ScriptUtil;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link ProcessResultCache}.
+ *
+ * @author patrick
+ */
+public class ProcessResultCacheTest extends AbstractProcessTest {
+
+    /**
+     * Test the cached execution
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void cachedResultTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        Path counterFile = prepareCounterFile("build/result-cache-test.txt");
+        ProcessResultCache.getInstance().invalidate();
+
+        ISynchronousProcess process = runCounter(counterFile, "A", Duration.ofMinutes(1));
+        assertEquals("1" + NL, process.getOutput());
+        assertNotNull(process.getPid());
+        Instant startTime = process.getStartTime();
+
+        // no process ran for the cached result
+        process = runCounter(counterFile, "A", Duration.ofMinutes(1));
+        assertEquals(0, process.getExitValue());
+        assertEquals("1" + NL, process.getOutput());
+        assertNull(process.getPid());
+        assertNull(process.getTotalCpuDuration());
+        assertEquals(startTime, process.getStartTime());
+        assertEquals(1, Files.readAllLines(counterFile).size());
+
+        // different environment
+        assertEquals("2" + NL, runCounter(counterFile, "B", Duration.ofMinutes(1)).getOutput());
+
+        // expired entry
+        assertEquals("3" + NL, runCounter(counterFile, "C", Duration.ofMillis(100)).getOutput());
+        sleep(200);
+        assertEquals("4" + NL, runCounter(counterFile, "C", Duration.ofMillis(100)).getOutput());
+    }
+
+
+    /**
+     * Test the LRU eviction and the disk store
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void diskStoreTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        Path counterFile = prepareCounterFile("build/result-cache-disk-test.txt");
+        ProcessResultCache.getInstance().invalidate();
+        int maxEntries = ProcessResultCache.getInstance().getMaxEntries();
+        try {
+            ProcessResultCache.getInstance().setDiskStore(true);
+            ProcessResultCache.getInstance().setMaxEntries(1);
+
+            assertEquals("1" + NL, runCounter(counterFile, "A", Duration.ofMinutes(1)).getOutput());
+            assertEquals("2" + NL, runCounter(counterFile, "B", Duration.ofMinutes(1)).getOutput());
+            assertEquals(1, ProcessResultCache.getInstance().size());
+            assertEquals(2, ProcessResultCache.getInstance().getCachePath().toFile().list().length);
+
+            // evicted in memory but available on disk
+            assertEquals("1" + NL, runCounter(counterFile, "A", Duration.ofMinutes(1)).getOutput());
+            assertEquals(2, Files.readAllLines(counterFile).size());
+            
+            // cache folder must not be cleaned up as process folder
+            Path basePath = SystemCommandExecuterFactory.getInstance().getScriptFolderBasePath();
+            assertTrue(ScriptUtil.getInstance().isReservedDirectory(basePath, ProcessResultCache.getInstance().getCachePath()));
+            assertTrue(!ScriptUtil.getInstance().isReservedDirectory(basePath, basePath.resolve("20230101000000abc")));
+
+            ProcessResultCache.getInstance().invalidate();
+            assertEquals(0, ProcessResultCache.getInstance().size());
+            assertEquals(0, ProcessResultCache.getInstance().getCachePath().toFile().list().length);
+        } finally {
+            ProcessResultCache.getInstance().setDiskStore(false);
+            ProcessResultCache.getInstance().setMaxEntries(maxEntries);
+        }
+    }
+
+
+    /**
+     * Run the counter command
+     *
+     * @param counterFile the counter file
+     * @param value the environment value
+     * @param timeToLive the time to live
+     * @return the process
+     */
+    private ISynchronousProcess runCounter(Path counterFile, String value, Duration timeToLive) {
+        return SystemCommandExecuterFactory.builder().system()
+                .command("echo x >> " + counterFile + " && wc -l < " + counterFile + " | tr -d ' '")
+                .environmentVariable("CACHE_TEST", value)
+                .cached(timeToLive)
+                .build()
+                .runSynchronous();
+    }
+
+
+    /**
+     * Prepare the counter file
+     *
+     * @param name the name
+     * @return the path
+     * @throws IOException In case of an I/O error
+     */
+    private Path prepareCounterFile(String name) throws IOException {
+        Path counterFile = Paths.get(name).toAbsolutePath();
+        Files.createDirectories(counterFile.getParent());
+        Files.deleteIfExists(counterFile);
+        return counterFile;
+    }
+
+    
+    /**
+     * Sleep
+     *
+     * @param millis the milliseconds
+     */
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * ProcessSingleFlightTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.github.toolarium.system.command.AbstractProcessTest;
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link ProcessSingleFlight}.
+ *
+ * @author patrick
+ */
+public class ProcessSingleFlightTest extends AbstractProcessTest {
+    private static final int NUMBER_OF_THREADS = 10;
+
+
+    /**
+     * Test identical concurrent executions
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException In case of an interrupt
+     * @throws ExecutionException In case of an execution error
+     */
+    @Test
+    public void singleFlightTest() throws IOException, InterruptedException, ExecutionException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        final Path counterFile = Paths.get("build/single-flight-test.txt").toAbsolutePath();
+        Files.createDirectories(counterFile.getParent());
+        Files.deleteIfExists(counterFile);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+        List<Future<ISynchronousProcess>> resultList = new ArrayList<>();
+        try {
+            for (int i = 0; i < NUMBER_OF_THREADS; i++) {
+                resultList.add(executorService.submit(() -> {
+                    latch.await();
+                    return SystemCommandExecuterFactory.builder().system()
+                            .command("echo x >> " + counterFile + " && sleep 1 && wc -l < " + counterFile + " | tr -d ' '")
+                            .singleFlight()
+                            .build()
+                            .runSynchronous();
+                }));
+            }
+
+            latch.countDown();
+            for (Future<ISynchronousProcess> result : resultList) {
+                ISynchronousProcess process = result.get();
+                assertEquals(0, process.getExitValue());
+                assertEquals("1" + NL, process.getOutput());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        assertEquals(1, Files.readAllLines(counterFile).size());
+        assertEquals(0, ProcessSingleFlight.getInstance().size());
+    }
+
+
+    /**
+     * Test that the result of an aborted execution is not shared
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException In case of an interrupt
+     * @throws ExecutionException In case of an execution error
+     */
+    @Test
+    public void abortedLeaderTest() throws IOException, InterruptedException, ExecutionException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        final Path counterFile = Paths.get("build/single-flight-abort-test.txt").toAbsolutePath();
+        Files.createDirectories(counterFile.getParent());
+        Files.deleteIfExists(counterFile);
+        final String command = "echo x >> " + counterFile + " && sleep 3 && echo done";
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<ISynchronousProcess> leader = executorService.submit(() -> SystemCommandExecuterFactory.builder().system().command(command).singleFlight().build().runSynchronous(1));
+            Thread.sleep(300);
+            Future<ISynchronousProcess> waiter = executorService.submit(() -> SystemCommandExecuterFactory.builder().system().command(command).singleFlight().build().runSynchronous(0));
+
+            // the leader is aborted by its timeout, the waiter runs the command on its own
+            leader.get();
+            ISynchronousProcess process = waiter.get();
+            assertEquals(0, process.getExitValue());
+            assertEquals("done" + NL, process.getOutput());
+        } finally {
+            executorService.shutdown();
+        }
+
+        assertEquals(2, Files.readAllLines(counterFile).size());
+        assertEquals(0, ProcessSingleFlight.getInstance().size());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * ScriptCacheTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.AbstractProcessTest;
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link ScriptCache}.
+ *
+ * @author patrick
+ */
+public class ScriptCacheTest extends AbstractProcessTest {
+
+    /**
+     * Test the reuse of a cached script with different parameters
+     */
+    @Test
+    public void cachedScriptTest() {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        ScriptCache.getInstance().invalidate();
+        ISynchronousProcess process = run("echo first", "echo \"a  b\" | tr a x", "shape-test");
+        assertEquals(0, process.getExitValue());
+        assertEquals("first" + NL + "x  b" + NL, process.getOutput());
+        assertEquals(1, ScriptCache.getInstance().size());
+
+        process = run("echo second", "echo 'c;d' && false", "shape-test");
+        assertEquals("second" + NL + "c;d" + NL, process.getOutput());
+        assertTrue(process.getExitValue() != 0);
+        assertEquals(1, ScriptCache.getInstance().size());
+
+        // a different shape
+        process = run("echo third", "echo $VALUE", "other-shape");
+        assertEquals("third" + NL + "other-shape" + NL, process.getOutput());
+        assertEquals(2, ScriptCache.getInstance().size());
+    }
+
+
+    /**
+     * Test the eviction of cached scripts
+     */
+    @Test
+    public void evictionTest() {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        int maxEntries = ScriptCache.getInstance().getMaxEntries();
+        try {
+            ScriptCache.getInstance().invalidate();
+            ScriptCache.getInstance().setMaxEntries(1);
+            assertEquals("1" + NL + "eviction-1" + NL, run("echo 1", "echo $VALUE", "eviction-1").getOutput());
+            assertEquals("2" + NL + "eviction-2" + NL, run("echo 2", "echo $VALUE", "eviction-2").getOutput());
+            assertEquals(1, ScriptCache.getInstance().size());
+
+            // the evicted script is used again before it is deleted
+            assertEquals("3" + NL + "eviction-1" + NL, run("echo 3", "echo $VALUE", "eviction-1").getOutput());
+            assertEquals(1, ScriptCache.getInstance().size());
+        } finally {
+            ScriptCache.getInstance().setMaxEntries(maxEntries);
+        }
+    }
+
+
+    /**
+     * Test concurrent launches of the same cached script
+     *
+     * @throws InterruptedException in case of thread interrupt
+     * @throws ExecutionException in case of an execution error
+     */
+    @Test
+    public void concurrentTest() throws InterruptedException, ExecutionException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        ScriptCache.getInstance().invalidate();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ISynchronousProcess>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                final int index = i;
+                futures.add(executorService.submit(() -> run("echo " + index, "echo $VALUE", "concurrent")));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                ISynchronousProcess process = futures.get(i).get();
+                assertEquals(0, process.getExitValue());
+                assertEquals(i + NL + "concurrent" + NL, process.getOutput());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        assertEquals(1, ScriptCache.getInstance().size());
+    }
+
+
+    /**
+     * Run two commands with a cached script
+     *
+     * @param command1 the first command
+     * @param command2 the second command
+     * @param value the value of the environment variable of the second command
+     * @return the process
+     */
+    private ISynchronousProcess run(String command1, String command2, String value) {
+        return SystemCommandExecuterFactory.builder()
+                .system().command(command1).onSuccess()
+                .system().command(command2).environmentVariable("VALUE", value)
+                .cachedScript()
+                .build()
+                .runSynchronous();
+    }
+}
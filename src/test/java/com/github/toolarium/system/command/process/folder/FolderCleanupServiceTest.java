@@ -0,0 +1,240 @@
+/*
+ * FolderCleanupServiceTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.folder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
+import com.github.toolarium.system.command.process.util.ScriptUtil;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link FolderCleanupService}.
+ *
+ * @author patrick
+ */
+public class FolderCleanupServiceTest {
+
+    /**
+     * Test the due order of the registry
+     */
+    @Test
+    public void registryTest() {
+        ProcessFolderRegistry registry = ProcessFolderRegistry.getInstance();
+        registry.clear();
+        registry.register(Paths.get("build/registry/a"), 100);
+        registry.register(Paths.get("build/registry/b"), 50);
+        registry.register(Paths.get("build/registry/a"), 10); // keeps its due time
+        registry.register(Paths.get("build/registry/c"), 200);
+        registry.unregister(Paths.get("build/registry/c"));
+        assertEquals(2, registry.size());
+
+        assertTrue(registry.pollDue(49).isEmpty());
+        assertEquals(List.of(Paths.get("build/registry/b")), registry.pollDue(99));
+        registry.schedule(Paths.get("build/registry/b"), 300);
+        assertEquals(List.of(Paths.get("build/registry/a")), registry.pollDue(250));
+        assertEquals(List.of(Paths.get("build/registry/b")), registry.pollDue(1000));
+        assertEquals(0, registry.size());
+    }
+
+
+    /**
+     * Test the cleanup of existing and new folders
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException in case of thread interrupt
+     */
+    @Test
+    public void cleanupTest() throws IOException, InterruptedException {
+        Path basePath = Paths.get("build/foldercleanup").toAbsolutePath();
+        ProcessStreamUtil.getInstance().deleteDirectory(basePath);
+        Files.createDirectories(basePath.resolve(".reserved"));
+        Path existing = ScriptUtil.getInstance().createPidFile(basePath.resolve("existing"), "name1", Long.MAX_VALUE).getParent();
+        ProcessFolderRegistry.getInstance().clear();
+
+        try (FolderCleanupService folderCleanupService = new FolderCleanupService(basePath, 100, 500)) {
+            folderCleanupService.run();
+            assertTrue(ProcessFolderRegistry.getInstance().contains(existing));
+            assertFalse(ProcessFolderRegistry.getInstance().contains(basePath.resolve(".reserved")));
+
+            Path created = ScriptUtil.getInstance().createLockFile(basePath, "created").getParent();
+            Path running = ScriptUtil.getInstance().createPidFile(basePath.resolve("running"), "name2", ProcessHandle.current().pid()).getParent();
+            assertTrue(waitFor(folderCleanupService, () -> !Files.exists(existing) && ProcessFolderRegistry.getInstance().contains(running)));
+
+            // the lock of the created folder has to time out, the running process keeps its folder
+            assertTrue(Files.exists(created));
+            assertTrue(waitFor(folderCleanupService, () -> !Files.exists(created)));
+            assertTrue(Files.exists(running));
+            assertTrue(Files.exists(basePath.resolve(".reserved")));
+        } finally {
+            ProcessFolderRegistry.getInstance().clear();
+        }
+    }
+
+
+    /**
+     * Test the script folder layouts
+     */
+    @Test
+    public void layoutTest() {
+        Path basePath = Paths.get("build/layout");
+        Instant timestamp = Instant.parse("2026-10-19T06:15:35Z");
+        assertEquals(basePath.resolve("id1"), ScriptFolderLayout.FLAT.resolve(basePath, "id1", timestamp));
+        assertEquals(basePath.resolve("@2026101906").resolve("id1"), ScriptFolderLayout.HOUR.resolve(basePath, "id1", timestamp));
+        Path hashFolder = ScriptFolderLayout.HASH.resolve(basePath, "id1", timestamp);
+        assertEquals(hashFolder, ScriptFolderLayout.HASH.resolve(basePath, "id1", Instant.now()));
+
+        assertEquals(ScriptFolderLayout.HASH, ScriptFolderLayout.ofBucket(basePath, hashFolder.getParent()));
+        assertEquals(ScriptFolderLayout.HOUR, ScriptFolderLayout.ofBucket(basePath, basePath.resolve("@2026101906")));
+        assertNull(ScriptFolderLayout.ofBucket(basePath, basePath.resolve("2026101906153509")));
+        assertNull(ScriptFolderLayout.ofBucket(basePath, basePath.resolve("@xyz")));
+        assertNull(ScriptFolderLayout.ofBucket(basePath, hashFolder));
+        assertEquals(Instant.parse("2026-10-19T07:00:00Z").toEpochMilli(), ScriptFolderLayout.getBucketEnd(basePath.resolve("@2026101906")));
+        assertEquals(-1, ScriptFolderLayout.getBucketEnd(basePath.resolve("@2026101999")));
+    }
+
+
+    /**
+     * Test the cleanup of buckets
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException in case of thread interrupt
+     */
+    @Test
+    public void bucketCleanupTest() throws IOException, InterruptedException {
+        Path basePath = Paths.get("build/bucketcleanup").toAbsolutePath();
+        ProcessStreamUtil.getInstance().deleteDirectory(basePath);
+        Files.createDirectories(basePath);
+        ProcessFolderRegistry.getInstance().clear();
+
+        Instant past = Instant.now().minusSeconds(2 * 60 * 60);
+        Path expired = ScriptFolderLayout.HOUR.resolve(basePath, "expired", past);
+        ScriptUtil.getInstance().createPidFile(expired, "name1", Long.MAX_VALUE);
+        ScriptUtil.getInstance().createPidFile(expired.resolveSibling("expired2"), "name2", Long.MAX_VALUE);
+        Path running = ScriptFolderLayout.HOUR.resolve(basePath, "running", past.minusSeconds(60 * 60));
+        ScriptUtil.getInstance().createPidFile(running, "name3", ProcessHandle.current().pid());
+        Path ended = running.resolveSibling("ended");
+        ScriptUtil.getInstance().createPidFile(ended, "name4", Long.MAX_VALUE);
+        Path current = ScriptFolderLayout.HOUR.resolve(basePath, "current", Instant.now());
+        ScriptUtil.getInstance().createPidFile(current, "name5", Long.MAX_VALUE);
+        Path hashed = ScriptFolderLayout.HASH.resolve(basePath, "hashed", Instant.now());
+        ScriptUtil.getInstance().createPidFile(hashed, "name6", Long.MAX_VALUE);
+
+        try (FolderCleanupService folderCleanupService = new FolderCleanupService(basePath, 100, 500)) {
+            assertTrue(waitFor(folderCleanupService, () -> !Files.exists(expired.getParent()) && !Files.exists(ended) && !Files.exists(hashed)));
+            assertTrue(Files.exists(running));
+            assertTrue(Files.exists(current));
+            assertTrue(ProcessFolderRegistry.getInstance().contains(running.getParent()));
+
+            // a new folder in a watched hash bucket
+            Path created = ScriptUtil.getInstance().createLockFile(hashed.getParent(), "created").getParent();
+            assertTrue(waitFor(folderCleanupService, () -> !Files.exists(created)));
+        } finally {
+            ProcessFolderRegistry.getInstance().clear();
+        }
+    }
+
+
+    /**
+     * Test the cleanup of the disk base path of a RAM backed base path
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException in case of thread interrupt
+     */
+    @Test
+    public void diskCleanupTest() throws IOException, InterruptedException {
+        Path ramBasePath = Paths.get("build/diskcleanup/ram").toAbsolutePath();
+        Path diskBasePath = Paths.get("build/diskcleanup/disk").toAbsolutePath();
+        ProcessStreamUtil.getInstance().deleteDirectory(ramBasePath.getParent());
+        Files.createDirectories(ramBasePath);
+        ProcessFolderRegistry.getInstance().clear();
+
+        // the folders of a previous start: a fallback script folder, an expired hour bucket and an input folder
+        Path existing = ScriptUtil.getInstance().createPidFile(diskBasePath.resolve("existing"), "name1", Long.MAX_VALUE).getParent();
+        Path expired = ScriptFolderLayout.HOUR.resolve(diskBasePath, "expired", Instant.now().minusSeconds(2 * 60 * 60));
+        ScriptUtil.getInstance().createPidFile(expired, "name2", Long.MAX_VALUE);
+        Path input = Files.createDirectories(diskBasePath.resolve(ScriptUtil.INPUT_FOLDER_NAME).resolve("input"));
+
+        try (FolderCleanupService folderCleanupService = new FolderCleanupService(ramBasePath, diskBasePath, 100, 500)) {
+            assertTrue(waitFor(folderCleanupService, () -> !Files.exists(existing) && !Files.exists(expired.getParent()) && !Files.exists(input)));
+            assertTrue(Files.isDirectory(diskBasePath.resolve(ScriptUtil.INPUT_FOLDER_NAME)));
+
+            // a new hour bucket on the disk base path
+            Path current = ScriptFolderLayout.HOUR.resolve(diskBasePath, "current", Instant.now());
+            ScriptUtil.getInstance().createPidFile(current, "name3", ProcessHandle.current().pid());
+            assertTrue(waitFor(folderCleanupService, () -> ProcessFolderRegistry.getInstance().contains(current.getParent())));
+            assertTrue(Files.exists(current));
+        } finally {
+            ProcessFolderRegistry.getInstance().clear();
+        }
+    }
+
+
+    /**
+     * Test an execution with a sharded script folder
+     */
+    @Test
+    public void layoutExecutionTest() {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        try {
+            SystemCommandExecuterFactory.getInstance().setScriptFolderLayout(ScriptFolderLayout.HOUR);
+            ISynchronousProcess process = SystemCommandExecuterFactory.builder()
+                    .system().command("echo a").onSuccess()
+                    .system().command("echo b")
+                    .build()
+                    .runSynchronous();
+            assertEquals(0, process.getExitValue());
+            assertEquals("a b", process.getOutput().trim().replace(System.lineSeparator(), " "));
+
+            // the process folder was created in the bucket of the current hour
+            Path basePath = SystemCommandExecuterFactory.getInstance().getScriptFolderBasePath();
+            assertTrue(Files.isDirectory(ScriptFolderLayout.HOUR.resolve(basePath, process.getSystemCommandGroupList().getId(), Instant.now()).getParent()));
+            assertFalse(Files.exists(basePath.resolve(process.getSystemCommandGroupList().getId())));
+        } finally {
+            SystemCommandExecuterFactory.getInstance().setScriptFolderLayout(null);
+        }
+    }
+
+
+    /**
+     * Run the cleanup until the condition is fulfilled
+     *
+     * @param folderCleanupService the folder cleanup service
+     * @param condition the condition
+     * @return true if the condition was fulfilled
+     * @throws InterruptedException in case of thread interrupt
+     */
+    private boolean waitFor(FolderCleanupService folderCleanupService, BooleanSupplier condition) throws InterruptedException {
+        long end = System.currentTimeMillis() + 20000;
+        while (System.currentTimeMillis() < end) {
+            folderCleanupService.run();
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+
+            Thread.sleep(50);
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * FolderDeleteServiceTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.folder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link FolderDeleteService}.
+ *
+ * @author patrick
+ */
+public class FolderDeleteServiceTest {
+
+    /**
+     * Test the bulk deletion of folders and their parent
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException in case of thread interrupt
+     * @throws ExecutionException in case of an execution error
+     */
+    @Test
+    public void bulkDeleteTest() throws IOException, InterruptedException, ExecutionException {
+        int rateLimit = FolderDeleteService.getInstance().getDeleteRateLimit();
+        try {
+            FolderDeleteService.getInstance().setDeleteRateLimit(0);
+            Path parent = Paths.get("build/folderdelete/bulk");
+            List<Path> folderList = createFolders(parent, 200, 3);
+            Files.writeString(parent.resolve("file.txt"), "content");
+
+            // 200 folders with 3 files, a sub folder with one file, the file in the parent and the parent
+            assertEquals(200 * 6 + 2, FolderDeleteService.getInstance().delete(folderList, parent).get().longValue());
+            assertFalse(Files.exists(parent));
+
+            // deleted folders are ignored
+            assertEquals(0, FolderDeleteService.getInstance().delete(folderList).get().longValue());
+        } finally {
+            FolderDeleteService.getInstance().setDeleteRateLimit(rateLimit);
+        }
+    }
+
+
+    /**
+     * Test the delete rate limit
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException in case of thread interrupt
+     * @throws ExecutionException in case of an execution error
+     */
+    @Test
+    public void rateLimitTest() throws IOException, InterruptedException, ExecutionException {
+        int rateLimit = FolderDeleteService.getInstance().getDeleteRateLimit();
+        try {
+            FolderDeleteService.getInstance().setDeleteRateLimit(200);
+            assertEquals(200, FolderDeleteService.getInstance().getDeleteRateLimit());
+            List<Path> folderList = createFolders(Paths.get("build/folderdelete/rate"), 10, 4);
+
+            long start = System.currentTimeMillis();
+            assertEquals(10 * 7, FolderDeleteService.getInstance().delete(folderList).get().longValue());
+            assertTrue(System.currentTimeMillis() - start >= 300);
+        } finally {
+            FolderDeleteService.getInstance().setDeleteRateLimit(rateLimit);
+        }
+    }
+
+
+    /**
+     * Create folders with files and a sub folder
+     *
+     * @param parent the parent
+     * @param numberOfFolders the number of folders
+     * @param numberOfFiles the number of files per folder
+     * @return the created folders
+     * @throws IOException In case of an I/O error
+     */
+    private List<Path> createFolders(Path parent, int numberOfFolders, int numberOfFiles) throws IOException {
+        ProcessStreamUtil.getInstance().deleteDirectory(parent);
+        List<Path> folderList = new ArrayList<>();
+        for (int i = 0; i < numberOfFolders; i++) {
+            Path folder = parent.resolve("folder" + i);
+            Files.createDirectories(folder.resolve("sub"));
+            Files.writeString(folder.resolve("sub").resolve("file.txt"), "content");
+            for (int j = 0; j < numberOfFiles; j++) {
+                Files.writeString(folder.resolve("file" + j + ".txt"), "content");
+            }
+
+            folderList.add(folder);
+        }
+
+        return folderList;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * RamFolderUtilTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.folder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.stream.ProcessStreamFactory;
+import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link RamFolderUtil} and the RAM backed script folder placement.
+ *
+ * @author patrick
+ */
+public class RamFolderUtilTest {
+    private static final String NL = "\n";
+
+
+    /**
+     * Test the selection of a RAM backed folder
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void selectTest() throws IOException {
+        Path diskPath = Paths.get("build/ramfolder");
+        Files.createDirectories(diskPath);
+        assertTrue(RamFolderUtil.getInstance().hasFreeSpace(diskPath, 0));
+        assertTrue(RamFolderUtil.getInstance().hasFreeSpace(diskPath.resolve("not/existing"), 0));
+        assertFalse(RamFolderUtil.getInstance().hasFreeSpace(diskPath, Long.MAX_VALUE));
+        FileStore fileStore = RamFolderUtil.getInstance().getFileStore(diskPath.resolve("not/existing"));
+        assertEquals(Files.getFileStore(diskPath), fileStore);
+        assertTrue(RamFolderUtil.getInstance().hasFreeSpace(fileStore, 0));
+        assertFalse(RamFolderUtil.getInstance().hasFreeSpace(fileStore, Long.MAX_VALUE));
+        assertFalse(RamFolderUtil.getInstance().hasFreeSpace((FileStore)null, 0));
+        assertNull(RamFolderUtil.getInstance().select(List.of(Paths.get("build/not-existing")), 0));
+        assertFalse(RamFolderUtil.getInstance().getCandidates().isEmpty());
+
+        Path sharedMemoryPath = Paths.get(RamFolderUtil.SHARED_MEMORY_FOLDER);
+        if (!RamFolderUtil.getInstance().isRamBacked(sharedMemoryPath) || !Files.isWritable(sharedMemoryPath)) {
+            return;
+        }
+
+        assertEquals(sharedMemoryPath, RamFolderUtil.getInstance().select(List.of(diskPath, sharedMemoryPath), 0));
+        assertNull(RamFolderUtil.getInstance().select(List.of(sharedMemoryPath), Long.MAX_VALUE));
+    }
+
+
+    /**
+     * Test the RAM backed script folder: the input files of an executer can be kept on disk and the script folders fall back to disk if the RAM backed folder is full
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void ramScriptFolderTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        SystemCommandExecuterFactory factory = SystemCommandExecuterFactory.getInstance();
+        Path basePath = factory.getScriptFolderBasePath();
+        ScriptFolderLayout scriptFolderLayout = factory.getScriptFolderLayout();
+        assertFalse(factory.useRamScriptFolderBasePath(List.of(Paths.get("build/not-existing"))));
+        assertFalse(factory.isScriptFolderBasePathInRam());
+        assertEquals(basePath, factory.getScriptFolderBasePath());
+        if (RamFolderUtil.getInstance().select(RamFolderUtil.getInstance().getCandidates(), factory.getRamMinimumFreeSpace()) == null) {
+            return;
+        }
+
+        try {
+            factory.setScriptFolderLayout(ScriptFolderLayout.FLAT);
+            assertTrue(factory.useRamScriptFolderBasePath());
+            assertTrue(factory.isScriptFolderBasePathInRam());
+            assertTrue(RamFolderUtil.getInstance().isRamBacked(factory.getScriptFolderBasePath()));
+            assertEquals(basePath, factory.getDiskScriptFolderBasePath());
+
+            // the input file is kept on disk, the script and pid files are placed in the RAM backed folder
+            ISynchronousProcess process = SystemCommandExecuterFactory.builder()
+                    .system().command("cat")
+                    .inputOnDisk()
+                    .build()
+                    .runSynchronous(ProcessStreamFactory.getInstance().getStandardInFromBuffer("input" + NL), 0);
+            assertEquals(0, process.getExitValue());
+            assertEquals("input" + NL, process.getOutput());
+
+            String id = process.getSystemCommandGroupList().getId();
+            Path scriptPath = factory.getScriptFolderBasePath().resolve(id);
+            Path inputPath = factory.getInputFolderPath(scriptPath);
+            assertTrue(inputPath.startsWith(basePath));
+            assertEquals(scriptPath, factory.getScriptFolderPathOfInputFolder(inputPath));
+            assertTrue(Files.isDirectory(scriptPath));
+            assertEquals(1, inputPath.toFile().listFiles((dir, name) -> name.endsWith(".in")).length);
+            assertEquals(0, scriptPath.toFile().listFiles((dir, name) -> name.endsWith(".in")).length);
+
+            // without input on disk the input file is placed in the script folder
+            process = SystemCommandExecuterFactory.builder()
+                    .system().command("cat")
+                    .build()
+                    .runSynchronous(ProcessStreamFactory.getInstance().getStandardInFromBuffer("input" + NL), 0);
+            assertEquals("input" + NL, process.getOutput());
+            assertEquals(1, factory.getScriptFolderBasePath().resolve(process.getSystemCommandGroupList().getId()).toFile().listFiles((dir, name) -> name.endsWith(".in")).length);
+
+            // the RAM backed folder is full
+            factory.setRamMinimumFreeSpace(Long.MAX_VALUE);
+            assertEquals(basePath.resolve("full"), factory.getScriptFolderPath("full"));
+            ProcessStreamUtil.getInstance().deleteDirectory(scriptPath);
+            ProcessStreamUtil.getInstance().deleteDirectory(inputPath);
+        } finally {
+            factory.setRamMinimumFreeSpace(SystemCommandExecuterFactory.DEFAULT_RAM_MINIMUM_FREE_SPACE);
+            factory.setScriptFolderLayout(scriptFolderLayout);
+            factory.setScriptFolderBasePath(basePath);
+        }
+
+        assertFalse(factory.isScriptFolderBasePathInRam());
+        assertNull(factory.getScriptFolderPathOfInputFolder(basePath.resolve("test")));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * MonotonicRunIdGeneratorTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.id;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.dto.group.SystemCommandGroup;
+import com.github.toolarium.system.command.dto.list.SystemCommandGroupList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link MonotonicRunIdGenerator}.
+ *
+ * @author patrick
+ */
+public class MonotonicRunIdGeneratorTest {
+    private static final int ID_LENGTH = 14 + MonotonicRunIdGenerator.COUNTER_LENGTH + MonotonicRunIdGenerator.NODE_LENGTH;
+
+
+    /**
+     * Test the format of the id
+     */
+    @Test
+    public void formatTest() {
+        MonotonicRunIdGenerator generator = new MonotonicRunIdGenerator(0x1F, () -> 1700000000L);
+        assertEquals("00001F", generator.getNode());
+        assertEquals("20231114221320" + "00000" + "00001F", generator.nextId());
+        assertEquals("20231114221320" + "00001" + "00001F", generator.nextId());
+        assertEquals(ID_LENGTH, RunIdFactory.getInstance().nextId().length());
+    }
+
+
+    /**
+     * Test the ids are strictly increasing even if the counter of a second is exhausted or the clock goes backwards
+     */
+    @Test
+    public void monotonicTest() {
+        AtomicInteger calls = new AtomicInteger();
+        MonotonicRunIdGenerator generator = new MonotonicRunIdGenerator(1, () -> 1700000000L - (calls.incrementAndGet() % 2));
+
+        String previous = generator.nextId();
+        int count = (1 << MonotonicRunIdGenerator.COUNTER_BITS) + 10;
+        for (int i = 0; i < count; i++) {
+            String id = generator.nextId();
+            assertTrue(id.compareTo(previous) > 0, id + " <= " + previous);
+            previous = id;
+        }
+
+        // the counter of the second is exhausted, the next second is borrowed
+        assertTrue(previous.startsWith("20231114221321"), previous);
+    }
+
+
+    /**
+     * Test the ids are unique under concurrent generation
+     *
+     * @throws Exception in case of an error
+     */
+    @Test
+    public void concurrentTest() throws Exception {
+        MonotonicRunIdGenerator generator = new MonotonicRunIdGenerator();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int idsPerThread = 20000;
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executorService.submit(() -> {
+                    for (int j = 0; j < idsPerThread; j++) {
+                        ids.add(generator.nextId());
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        assertEquals(threads * idsPerThread, ids.size());
+    }
+
+
+    /**
+     * Test the pluggable strategy
+     */
+    @Test
+    public void strategyTest() {
+        AtomicInteger counter = new AtomicInteger();
+        RunIdFactory.getInstance().setRunIdGenerator(() -> "RUN" + counter.incrementAndGet());
+        try {
+            assertEquals("RUN1", new SystemCommandGroupList().getId());
+            assertEquals("RUN2", new SystemCommandGroup().getId());
+        } finally {
+            RunIdFactory.getInstance().setRunIdGenerator(null);
+        }
+
+        assertTrue(RunIdFactory.getInstance().getRunIdGenerator() instanceof MonotonicRunIdGenerator);
+        assertEquals(ID_LENGTH, new SystemCommandGroupList().getId().length());
+    }
+}
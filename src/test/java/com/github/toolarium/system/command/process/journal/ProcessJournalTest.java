@@ -0,0 +1,359 @@
+/*
+ * ProcessJournalTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.process.IAsynchronousProcess;
+import com.github.toolarium.system.command.process.folder.FolderDeleteService;
+import com.github.toolarium.system.command.process.stream.ProcessStreamFactory;
+import com.github.toolarium.system.command.process.stream.output.ProcessBufferOutputStream;
+import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
+import com.github.toolarium.system.command.process.util.ScriptUtil;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link ProcessJournal}.
+ *
+ * @author patrick
+ */
+public class ProcessJournalTest {
+
+    /**
+     * Test the journal file: growth, torn records and compaction
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void journalFileTest() throws IOException {
+        Path file = Paths.get("build/journal/test.journal");
+        Files.createDirectories(file.getParent());
+
+        try (ProcessJournalFile journalFile = new ProcessJournalFile(file, 64)) {
+            for (int i = 0; i < 100; i++) {
+                journalFile.append(("record" + i).getBytes());
+            }
+
+            assertEquals(100, journalFile.getRecordCount());
+            assertTrue(journalFile.getCapacity() >= journalFile.getSize());
+            List<ByteBuffer> records = ProcessJournalFile.read(file);
+            assertEquals(100, records.size());
+            assertEquals("record99", toString(records.get(99)));
+
+            List<byte[]> payloadList = new ArrayList<>();
+            payloadList.add("a".getBytes());
+            payloadList.add("b".getBytes());
+            journalFile.replace(payloadList);
+            journalFile.append("c".getBytes());
+            records = ProcessJournalFile.read(file);
+            assertEquals(3, records.size());
+            assertEquals("c", toString(records.get(2)));
+        }
+
+        // a torn record at the end is ignored
+        byte[] content = Files.readAllBytes(file);
+        int end = ProcessJournalFile.FRAME_HEADER_SIZE * 3 + 3;
+        content[end + 3] = 5;
+        content[end + ProcessJournalFile.FRAME_HEADER_SIZE] = 'x';
+        Files.write(file, content);
+        assertEquals(3, ProcessJournalFile.read(file).size());
+    }
+
+
+    /**
+     * Test the process id reuse detection
+     */
+    @Test
+    public void processIdReuseTest() {
+        ProcessHandle current = ProcessHandle.current();
+        long start = current.info().startInstant().map(Instant::toEpochMilli).orElse(0L);
+        assertTrue(ProcessJournalEntry.isRunning(current.pid(), start));
+        assertTrue(ProcessJournalEntry.isRunning(current.pid(), 0));
+        if (start > 0) {
+            assertFalse(ProcessJournalEntry.isRunning(current.pid(), start - 60000));
+        }
+        assertFalse(ProcessJournalEntry.isRunning(Long.MAX_VALUE, 0));
+    }
+
+
+    /**
+     * Test an execution which is recorded in the journal
+     *
+     * @throws InterruptedException in case of thread interrupt
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void journalExecutionTest() throws InterruptedException, IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        try {
+            SystemCommandExecuterFactory.getInstance().setProcessJournalEnabled(true);
+            IAsynchronousProcess process = SystemCommandExecuterFactory.builder()
+                    .system().command("sleep 1").onSuccess()
+                    .system().command("echo done")
+                    .build()
+                    .runAsynchronous();
+            String id = process.getSystemCommandGroupList().getId();
+
+            ProcessJournalEntry entry = ProcessJournal.getInstance().get(id);
+            assertNotNull(entry);
+            assertEquals(Boolean.TRUE, ProcessJournal.getInstance().isValid(id));
+            assertTrue(ProcessJournal.getInstance().getRunningEntries().stream().anyMatch(e -> e.getId().equals(id)));
+            assertFalse(Files.exists(entry.getScriptPath().resolve(".lock")));
+            assertTrue(ProcessJournal.load(ProcessJournal.getInstance().getJournalFile()).containsKey(id));
+
+            process.waitFor();
+            long end = System.currentTimeMillis() + 10000;
+            while (!ProcessJournal.getInstance().get(id).isEnded() && System.currentTimeMillis() < end) {
+                Thread.sleep(20);
+            }
+
+            // the run is locked by default, it is kept until the lock timeout
+            entry = ProcessJournal.getInstance().get(id);
+            assertEquals(Integer.valueOf(0), entry.getExitValue());
+            assertTrue(entry.isLocked());
+            assertEquals(Boolean.TRUE, ProcessJournal.getInstance().isValid(id));
+            assertFalse(ProcessJournal.getInstance().getRunningEntries().stream().anyMatch(e -> e.getId().equals(id)));
+            assertEquals(Integer.valueOf(0), ProcessJournal.load(ProcessJournal.getInstance().getJournalFile()).get(id).getExitValue());
+        } finally {
+            SystemCommandExecuterFactory.getInstance().setProcessJournalEnabled(false);
+            ProcessJournal.getInstance().close();
+        }
+    }
+
+
+    /**
+     * Test the recovery of the journal of a crashed JVM
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void recoveryTest() throws IOException {
+        Path basePath = SystemCommandExecuterFactory.getInstance().getScriptFolderBasePath();
+        Path journalPath = basePath.resolve(ProcessJournal.JOURNAL_FOLDER_NAME);
+        Files.createDirectories(journalPath);
+        Path reapedFolder = basePath.resolve("journal-reaped");
+        Files.createDirectories(reapedFolder);
+        Files.writeString(reapedFolder.resolve("journal-reaped.out"), "output");
+
+        ProcessHandle current = ProcessHandle.current();
+        long start = current.info().startInstant().map(Instant::toEpochMilli).orElse(0L);
+        String foreignName = "999999999-1";
+        try (ProcessJournalFile journalFile = new ProcessJournalFile(journalPath.resolve(foreignName + ProcessJournal.JOURNAL_FILE_EXTENSION), 1024)) {
+            journalFile.append(ProcessJournal.encodeStart("journal-alive", basePath.resolve("journal-alive"), current.pid(), start, null));
+            journalFile.append(ProcessJournal.encodeStart("journal-reaped", reapedFolder, Long.MAX_VALUE, 0, null));
+            journalFile.append(ProcessJournal.encodeStart("journal-ended", null, Long.MAX_VALUE, 0, null));
+            journalFile.append(ProcessJournal.encodeEnd("journal-ended", 0));
+        }
+        Files.writeString(journalPath.resolve(foreignName + ProcessJournal.LOCK_FILE_EXTENSION), "");
+
+        Map<String, ProcessJournalEntry> entries = ProcessJournal.load(journalPath.resolve(foreignName + ProcessJournal.JOURNAL_FILE_EXTENSION));
+        assertEquals(2, entries.size());
+
+        try {
+            // opening the journal recovers the journal of the crashed JVM
+            ProcessJournal.getInstance().start("journal-own", null, current.pid(), null, null);
+            assertNotNull(ProcessJournal.getInstance().get("journal-alive"));
+            assertNull(ProcessJournal.getInstance().get("journal-reaped"));
+            assertFalse(Files.exists(journalPath.resolve(foreignName + ProcessJournal.JOURNAL_FILE_EXTENSION)));
+            assertFalse(Files.exists(journalPath.resolve(foreignName + ProcessJournal.LOCK_FILE_EXTENSION)));
+            assertTrue(FolderDeleteService.getInstance().awaitQuiescence(10, TimeUnit.SECONDS));
+            assertFalse(Files.exists(reapedFolder));
+
+            // compaction keeps the live runs
+            ProcessJournal.getInstance().end("journal-own", 0);
+            ProcessJournal.getInstance().compact();
+            Map<String, ProcessJournalEntry> compacted = ProcessJournal.load(ProcessJournal.getInstance().getJournalFile());
+            assertTrue(compacted.containsKey("journal-alive"));
+            assertFalse(compacted.containsKey("journal-own"));
+        } finally {
+            ProcessJournal.getInstance().end("journal-alive", 0);
+            ProcessJournal.getInstance().close();
+            ProcessStreamUtil.getInstance().deleteDirectory(reapedFolder);
+        }
+    }
+
+
+    /**
+     * Test the end of a run which is taken over from a crashed JVM: it is ended as soon as its process has ended
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException in case of thread interrupt
+     */
+    @Test
+    public void recoveredRunEndTest() throws IOException, InterruptedException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        Path basePath = SystemCommandExecuterFactory.getInstance().getScriptFolderBasePath();
+        Path journalPath = basePath.resolve(ProcessJournal.JOURNAL_FOLDER_NAME);
+        Files.createDirectories(journalPath);
+        Path recoveredFolder = basePath.resolve("journal-recovered");
+        Files.createDirectories(recoveredFolder);
+
+        Process foreignProcess = new ProcessBuilder("sleep", "30").start();
+        long start = foreignProcess.info().startInstant().map(Instant::toEpochMilli).orElse(0L);
+        String foreignName = "999999998-1";
+        try (ProcessJournalFile journalFile = new ProcessJournalFile(journalPath.resolve(foreignName + ProcessJournal.JOURNAL_FILE_EXTENSION), 1024)) {
+            journalFile.append(ProcessJournal.encodeStart("journal-recovered", recoveredFolder, foreignProcess.pid(), start, null));
+        }
+        Files.writeString(journalPath.resolve(foreignName + ProcessJournal.LOCK_FILE_EXTENSION), "");
+
+        Path ownJournal = null;
+        try {
+            ProcessJournal.getInstance().start("journal-own-run", null, ProcessHandle.current().pid(), null, null);
+            ProcessJournal.getInstance().end("journal-own-run", 0);
+            ownJournal = ProcessJournal.getInstance().getJournalFile();
+            assertNotNull(ProcessJournal.getInstance().get("journal-recovered"));
+
+            // the process is still running
+            ProcessJournal.getInstance().maintain();
+            assertNotNull(ProcessJournal.getInstance().get("journal-recovered"));
+
+            foreignProcess.destroy();
+            assertTrue(foreignProcess.waitFor(10, TimeUnit.SECONDS));
+            ProcessJournal.getInstance().maintain();
+            assertEquals(Integer.valueOf(ProcessJournal.UNKNOWN_EXIT_VALUE), ProcessJournal.getInstance().get("journal-recovered").getExitValue());
+            assertTrue(FolderDeleteService.getInstance().awaitQuiescence(10, TimeUnit.SECONDS));
+            assertFalse(Files.exists(recoveredFolder));
+
+            // the ended run is dropped after its script folder is reaped
+            ProcessJournal.getInstance().maintain();
+            assertNull(ProcessJournal.getInstance().get("journal-recovered"));
+
+            ProcessJournal.getInstance().compact();
+            assertFalse(ProcessJournal.load(ownJournal).containsKey("journal-recovered"));
+        } finally {
+            foreignProcess.destroyForcibly();
+            ProcessJournal.getInstance().close();
+            ProcessStreamUtil.getInstance().deleteDirectory(recoveredFolder);
+        }
+
+        // the journal is only kept for the locked runs of other tests
+        assertTrue(!Files.exists(ownJournal) || !ProcessJournal.load(ownJournal).containsKey("journal-recovered"));
+    }
+
+
+    /**
+     * Test the exit value of a reattached run which is recorded in the journal of another JVM
+     *
+     * @throws InterruptedException in case of thread interrupt
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void reattachedExitValueTest() throws InterruptedException, IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        // a run of another living JVM: the journal without lock file is not taken over
+        String id = "journal-reattach-" + System.currentTimeMillis();
+        Path basePath = SystemCommandExecuterFactory.getInstance().getScriptFolderBasePath();
+        Path scriptPath = basePath.resolve(id);
+        Path journalFile = basePath.resolve(ProcessJournal.JOURNAL_FOLDER_NAME).resolve("999999997-1" + ProcessJournal.JOURNAL_FILE_EXTENSION);
+        Files.createDirectories(scriptPath);
+        Files.createDirectories(journalFile.getParent());
+        Process foreignProcess = new ProcessBuilder("sh", "-c", "echo journaled; sleep 1; exit 3")
+                .redirectOutput(Redirect.appendTo(ScriptUtil.getInstance().getOutputFile(scriptPath, id).toFile()))
+                .redirectError(Redirect.appendTo(ScriptUtil.getInstance().getErrorFile(scriptPath, id).toFile()))
+                .start();
+        long start = foreignProcess.info().startInstant().map(Instant::toEpochMilli).orElse(0L);
+
+        try (ProcessJournalFile foreignJournal = new ProcessJournalFile(journalFile, 1024)) {
+            foreignJournal.append(ProcessJournal.encodeStart(id, scriptPath, foreignProcess.pid(), start, null));
+
+            // the journals of other JVMs are read periodically
+            long end = System.currentTimeMillis() + 10000;
+            while (ProcessJournal.getInstance().isValid(id) == null && System.currentTimeMillis() < end) {
+                Thread.sleep(100);
+            }
+
+            ProcessBufferOutputStream outputStream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+            IAsynchronousProcess process = SystemCommandExecuterFactory.getInstance().reattach(id, outputStream, null);
+            assertTrue(process.isAlive());
+
+            // the other JVM records the end of the run
+            assertEquals(3, foreignProcess.waitFor());
+            foreignJournal.append(ProcessJournal.encodeEnd(id, 3));
+
+            assertEquals(3, process.waitFor());
+            assertEquals(Integer.valueOf(3), process.getExitValue());
+            assertEquals("journaled\n", outputStream.toString());
+
+            // the ended run is kept as long as its script folder exists
+            assertEquals(Integer.valueOf(3), ProcessJournal.load(journalFile).get(id).getExitValue());
+            ProcessStreamUtil.getInstance().deleteDirectory(scriptPath);
+            assertNull(ProcessJournal.load(journalFile).get(id));
+        } finally {
+            foreignProcess.destroyForcibly();
+            ProcessStreamUtil.getInstance().deleteDirectory(scriptPath);
+            Files.deleteIfExists(journalFile);
+        }
+    }
+
+
+    /**
+     * Test an ended run of this JVM: its exit value is kept until its script folder is reaped
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void endedRunTest() throws IOException {
+        Path scriptPath = SystemCommandExecuterFactory.getInstance().getScriptFolderBasePath().resolve("journal-ended-run");
+        Files.createDirectories(scriptPath);
+
+        try {
+            ProcessJournal.getInstance().start("journal-ended-run", scriptPath, Long.MAX_VALUE, null, null);
+            ProcessJournal.getInstance().end("journal-ended-run", 5);
+            assertEquals(Integer.valueOf(5), ProcessJournal.getInstance().get("journal-ended-run").getExitValue());
+            assertEquals(Boolean.FALSE, ProcessJournal.getInstance().isValid("journal-ended-run"));
+
+            ProcessJournal.getInstance().maintain();
+            assertEquals(Integer.valueOf(5), ProcessJournal.getInstance().get("journal-ended-run").getExitValue());
+
+            ProcessStreamUtil.getInstance().deleteDirectory(scriptPath);
+            ProcessJournal.getInstance().maintain();
+            assertNull(ProcessJournal.getInstance().get("journal-ended-run"));
+        } finally {
+            ProcessJournal.getInstance().close();
+            ProcessStreamUtil.getInstance().deleteDirectory(scriptPath);
+        }
+    }
+
+
+    /**
+     * Convert a buffer to a string
+     *
+     * @param buffer the buffer
+     * @return the string
+     */
+    private String toString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes);
+    }
+}
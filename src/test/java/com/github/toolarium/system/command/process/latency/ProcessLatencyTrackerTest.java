@@ -0,0 +1,108 @@
+/*
+ * ProcessLatencyTrackerTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.latency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.AbstractProcessTest;
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link ProcessLatencyTracker} and the hedged execution.
+ *
+ * @author patrick
+ */
+public class ProcessLatencyTrackerTest extends AbstractProcessTest {
+
+    /**
+     * Test the percentile
+     */
+    @Test
+    public void percentileTest() {
+        final String template = "percentile-test";
+        ProcessLatencyTracker.getInstance().reset(template);
+        for (int i = 1; i < ProcessLatencyTracker.MIN_SAMPLES; i++) {
+            ProcessLatencyTracker.getInstance().record(template, i * 10);
+        }
+        assertNull(ProcessLatencyTracker.getInstance().getPercentile(template, 95));
+
+        for (int i = ProcessLatencyTracker.MIN_SAMPLES; i <= 20; i++) {
+            ProcessLatencyTracker.getInstance().record(template, i * 10);
+        }
+        assertEquals(190L, ProcessLatencyTracker.getInstance().getPercentile(template, 95));
+        assertEquals(100L, ProcessLatencyTracker.getInstance().getPercentile(template, 50));
+        assertEquals(200L, ProcessLatencyTracker.getInstance().getPercentile(template, 100));
+    }
+
+    
+    /**
+     * Test the hedged execution: the first copy stalls, the second copy wins.
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException In case of an interrupt 
+     */
+    @Test
+    public void hedgedTest() throws IOException, InterruptedException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        Path path = Paths.get("build/hedge-test").toAbsolutePath();
+        Files.createDirectories(path);
+        Path marker = path.resolve("marker");
+        Path slowFile = path.resolve("slow");
+        Files.deleteIfExists(slowFile);
+        Files.writeString(marker, "");
+        
+        final String command = "if [ -f " + marker + " ]; then sleep 0.3; echo fast; else touch " + marker + "; sleep 3; echo slow > " + slowFile + "; echo slow; fi";
+        String template = null;
+        for (int i = 0; i < ProcessLatencyTracker.MIN_SAMPLES; i++) {
+            ISynchronousProcess process = runHedged(command);
+            assertEquals("fast" + NL, process.getOutput());
+            template = process.getSystemCommandGroupList().toString(false);
+        }
+        
+        final long medianBefore = ProcessLatencyTracker.getInstance().getPercentile(template, 50);
+        final long maxBefore = ProcessLatencyTracker.getInstance().getPercentile(template, 100);
+
+        // the first execution stalls
+        Files.delete(marker);
+        long start = System.currentTimeMillis();
+        ISynchronousProcess process = runHedged(command);
+        assertEquals(0, process.getExitValue());
+        assertEquals("fast" + NL, process.getOutput());
+        assertTrue((System.currentTimeMillis() - start) < 2500, "" + (System.currentTimeMillis() - start));
+        
+        // the latency of the winning copy is recorded without the hedge delay
+        long maxAfter = ProcessLatencyTracker.getInstance().getPercentile(template, 100);
+        assertTrue(maxAfter < maxBefore + (medianBefore / 2), maxAfter + " / " + maxBefore);
+        
+        // the stalled process tree is killed
+        Thread.sleep(3500);
+        assertTrue(!slowFile.toFile().exists());
+    }
+
+
+    /**
+     * Run a hedged command
+     *
+     * @param command the command
+     * @return the process
+     */
+    private ISynchronousProcess runHedged(String command) {
+        return SystemCommandExecuterFactory.builder().system().command(command).hedged(50).build().runSynchronous();
+    }
+}
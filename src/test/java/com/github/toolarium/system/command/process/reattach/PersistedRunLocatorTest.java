@@ -0,0 +1,127 @@
+/*
+ * PersistedRunLocatorTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.reattach;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.process.IAsynchronousProcess;
+import com.github.toolarium.system.command.process.stream.ProcessStreamFactory;
+import com.github.toolarium.system.command.process.stream.output.ProcessBufferOutputStream;
+import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
+import com.github.toolarium.system.command.process.util.ScriptUtil;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link PersistedRunLocator} and the reattach of persisted runs.
+ *
+ * @author patrick
+ */
+public class PersistedRunLocatorTest {
+
+    /**
+     * Test a detached run: the output is written into the script folder and followed from there
+     *
+     * @throws InterruptedException in case of thread interrupt
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void detachedExecutionTest() throws InterruptedException, IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        ProcessBufferOutputStream outputStream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+        ProcessBufferOutputStream errorOutputStream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+        IAsynchronousProcess process = SystemCommandExecuterFactory.builder()
+                .system().command("echo first").onSuccess()
+                .system().command("sleep 1").onSuccess()
+                .system().command("echo second")
+                .detached()
+                .build()
+                .runAsynchronous(outputStream, errorOutputStream);
+        String id = process.getSystemCommandGroupList().getId();
+        assertTrue(process.getSystemCommandGroupList().isDetached());
+        assertTrue(SystemCommandExecuterFactory.getInstance().listRunning().stream().anyMatch(r -> r.getId().equals(id)));
+
+        assertEquals(0, process.waitFor());
+        assertEquals("first\nsecond\n", outputStream.toString());
+        assertEquals("", errorOutputStream.toString());
+
+        PersistedRun persistedRun = PersistedRunLocator.getInstance().get(id);
+        assertNotNull(persistedRun);
+        assertFalse(persistedRun.isRunning());
+        assertEquals("first\nsecond\n", Files.readString(persistedRun.getOutputFile()));
+        assertFalse(SystemCommandExecuterFactory.getInstance().listRunning().stream().anyMatch(r -> r.getId().equals(id)));
+    }
+
+
+    /**
+     * Test the reattach of a run which was started by another JVM
+     *
+     * @throws InterruptedException in case of thread interrupt
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void reattachTest() throws InterruptedException, IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        // a run of another JVM: the script folder with the pid file and the persisted output
+        String id = "reattach-" + System.currentTimeMillis();
+        Path scriptPath = SystemCommandExecuterFactory.getInstance().getScriptFolderBasePath().resolve(id);
+        Files.createDirectories(scriptPath);
+        Process foreignProcess = new ProcessBuilder("sh", "-c", "echo first; sleep 1; echo second; echo failure >&2")
+                .redirectOutput(Redirect.appendTo(ScriptUtil.getInstance().getOutputFile(scriptPath, id).toFile()))
+                .redirectError(Redirect.appendTo(ScriptUtil.getInstance().getErrorFile(scriptPath, id).toFile()))
+                .start();
+        ScriptUtil.getInstance().createPidFile(scriptPath, "group", foreignProcess.pid());
+
+        try {
+            PersistedRun persistedRun = SystemCommandExecuterFactory.getInstance().listRunning().stream().filter(r -> r.getId().equals(id)).findFirst().orElse(null);
+            assertNotNull(persistedRun);
+            assertEquals(scriptPath, persistedRun.getScriptPath());
+            assertEquals(Long.valueOf(foreignProcess.pid()), persistedRun.getProcessIds().get(0));
+
+            ProcessBufferOutputStream outputStream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+            ProcessBufferOutputStream errorOutputStream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+            IAsynchronousProcess process = SystemCommandExecuterFactory.getInstance().reattach(id, outputStream, errorOutputStream);
+            assertEquals(Long.valueOf(foreignProcess.pid()), process.getPid());
+            assertNull(process.getInputStream());
+            assertTrue(process.isAlive());
+
+            // the exit value of a run which is not recorded in the journal is not known
+            assertEquals(-1, process.waitFor());
+            assertFalse(process.isAlive());
+            assertEquals("first\nsecond\n", outputStream.toString());
+            assertEquals("failure\n", errorOutputStream.toString());
+            assertFalse(SystemCommandExecuterFactory.getInstance().listRunning().stream().anyMatch(r -> r.getId().equals(id)));
+
+            // an ended run can be reattached as long as its script folder exists
+            ProcessBufferOutputStream replayStream = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+            process = SystemCommandExecuterFactory.getInstance().reattach(id, replayStream, null);
+            process.waitFor();
+            assertEquals("first\nsecond\n", replayStream.toString());
+        } finally {
+            foreignProcess.destroyForcibly();
+            ProcessStreamUtil.getInstance().deleteDirectory(scriptPath);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> SystemCommandExecuterFactory.getInstance().reattach(id));
+    }
+}
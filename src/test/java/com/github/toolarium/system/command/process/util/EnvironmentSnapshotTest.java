@@ -0,0 +1,112 @@
+/*
+ * EnvironmentSnapshotTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link EnvironmentSnapshot}.
+ *
+ * @author patrick
+ */
+public class EnvironmentSnapshotTest {
+
+    /**
+     * Test the snapshot of an environment which is inherited unchanged
+     */
+    @Test
+    public void inheritedTest() {
+        Map<String, String> environmentVariables = new HashMap<>(System.getenv());
+        EnvironmentSnapshot snapshot = EnvironmentSnapshot.of(environmentVariables, null);
+        assertTrue(snapshot.isInherited());
+        assertSame(snapshot, EnvironmentSnapshot.of(new HashMap<>(System.getenv()), null));
+
+        // the cache keeps a copy of the environment variables
+        environmentVariables.put("SNAPSHOT_KEY", "value");
+        EnvironmentSnapshot changedSnapshot = EnvironmentSnapshot.of(environmentVariables, null);
+        assertFalse(changedSnapshot.isInherited());
+        assertEquals(Map.of("SNAPSHOT_KEY", "value"), changedSnapshot.getEnvironmentVariables());
+        assertTrue(EnvironmentSnapshot.of(new HashMap<>(System.getenv()), null).isInherited());
+        assertTrue(EnvironmentSnapshot.getCacheSize() >= 2);
+
+        ProcessBuilder processBuilder = new ProcessBuilder("echo");
+        changedSnapshot.apply(processBuilder);
+        assertEquals("value", processBuilder.environment().get("SNAPSHOT_KEY"));
+    }
+
+
+    /**
+     * Test the difference to the environment of the JVM
+     */
+    @Test
+    public void deltaTest() {
+        EnvironmentSnapshot snapshot = EnvironmentSnapshot.create(Map.of("A", "1", "B", "2"), null, Map.of("A", "1", "C", "3"));
+        assertFalse(snapshot.isMinimal());
+        assertEquals(Map.of("B", "2"), snapshot.getEnvironmentVariables());
+        assertEquals(Set.of("C"), snapshot.getRemovedEnvironmentVariables());
+    }
+
+
+    /**
+     * Test the minimal environment
+     */
+    @Test
+    public void minimalTest() {
+        Map<String, String> parentEnvironmentVariables = Map.of("PATH", "/bin", "HOME", "/home", "SECRET", "secret");
+        Map<String, String> environmentVariables = new HashMap<>(parentEnvironmentVariables);
+        environmentVariables.put("NEW", "value");
+        environmentVariables.put("HOME", "/other");
+
+        EnvironmentSnapshot snapshot = EnvironmentSnapshot.create(environmentVariables, Set.of("PATH"), parentEnvironmentVariables);
+        assertTrue(snapshot.isMinimal());
+        assertFalse(snapshot.isInherited());
+        assertEquals(Map.of("PATH", "/bin", "NEW", "value", "HOME", "/other"), snapshot.getEnvironmentVariables());
+        assertTrue(snapshot.getRemovedEnvironmentVariables().isEmpty());
+
+        ProcessBuilder processBuilder = new ProcessBuilder("echo");
+        snapshot.apply(processBuilder);
+        assertEquals(snapshot.getEnvironmentVariables(), processBuilder.environment());
+    }
+
+
+    /**
+     * Test the execution with a minimal environment
+     */
+    @Test
+    public void minimalEnvironmentExecutionTest() {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        String inheritedKey = System.getenv().keySet().stream().filter(k -> k.matches("[A-Za-z_][A-Za-z0-9_]*") && !EnvironmentSnapshot.DEFAULT_ALLOWLIST.contains(k)).findFirst().orElse(null);
+
+        ISynchronousProcess process = SystemCommandExecuterFactory.builder().system().command("env").environmentVariable("SNAPSHOT_KEY", "value").minimalEnvironment().build().runSynchronous();
+        assertEquals(0, process.getExitValue());
+        assertTrue(process.getOutput().contains("SNAPSHOT_KEY=value"));
+        assertTrue(process.getOutput().contains("PATH="));
+        if (inheritedKey != null) {
+            assertFalse(process.getOutput().contains(inheritedKey + "="));
+        }
+
+        process = SystemCommandExecuterFactory.builder().system().command("env").environmentVariable("SNAPSHOT_KEY", "value").build().runSynchronous();
+        assertTrue(process.getOutput().contains("SNAPSHOT_KEY=value"));
+        if (inheritedKey != null) {
+            assertTrue(process.getOutput().contains(inheritedKey + "="));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * ProcessLivenessSnapshotTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link ProcessLivenessSnapshot}.
+ *
+ * @author patrick
+ */
+public class ProcessLivenessSnapshotTest {
+
+    /**
+     * Test the liveness queries of a snapshot
+     */
+    @Test
+    public void snapshotTest() {
+        ProcessHandle current = ProcessHandle.current();
+        long start = current.info().startInstant().map(Instant::toEpochMilli).orElse(0L);
+
+        ProcessLivenessSnapshot snapshot = ProcessLivenessSnapshot.create();
+        assertTrue(snapshot.size() > 0);
+        assertTrue(snapshot.isRunning(current.pid()));
+        assertTrue(snapshot.isRunning(current.pid(), start));
+        assertTrue(snapshot.isRunning(current.pid(), 0));
+        assertTrue(snapshot.isRunningSince(current.pid(), System.currentTimeMillis()));
+        assertFalse(snapshot.isRunning(Long.MAX_VALUE));
+        assertFalse(snapshot.isRunning(Long.MAX_VALUE, 0));
+        assertEquals(0, snapshot.getStartTime(Long.MAX_VALUE));
+
+        if (start > 0) {
+            // the process id is reused by a process with another start time
+            assertEquals(start, snapshot.getStartTime(current.pid()));
+            assertFalse(snapshot.isRunning(current.pid(), start - 60000));
+            assertFalse(snapshot.isRunningSince(current.pid(), start - 60000));
+        }
+    }
+
+
+    /**
+     * Test the process ids of the proc file system
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void readProcessIdsTest() throws IOException {
+        Path procPath = Paths.get("build/proc");
+        ProcessStreamUtil.getInstance().deleteDirectory(procPath);
+        Files.createDirectories(procPath.resolve("1"));
+        Files.createDirectories(procPath.resolve("4711"));
+        Files.createDirectories(procPath.resolve("self"));
+        Files.createDirectories(procPath.resolve("sys"));
+
+        Set<Long> pidSet = ProcessLivenessSnapshot.readProcessIds(procPath);
+        assertEquals(Set.of(1L, 4711L), pidSet);
+    }
+
+
+    /**
+     * Test the pid files against a snapshot: a process which was started after the pid file was written reuses the process id
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void pidFileTest() throws IOException {
+        Path pidFileFolder = Paths.get("build/pidsnapshot");
+        ProcessStreamUtil.getInstance().deleteDirectory(pidFileFolder);
+        assertNotNull(ScriptUtil.getInstance().createPidFile(pidFileFolder, "ended", Long.MAX_VALUE));
+        ProcessLivenessSnapshot snapshot = ProcessLivenessSnapshot.create();
+        assertTrue(ScriptUtil.getInstance().hasNoRunningProcesses(pidFileFolder, snapshot));
+        assertTrue(ScriptUtil.getInstance().isInvalidProcessDirectory(pidFileFolder, 0, snapshot));
+
+        Path pidFile = ScriptUtil.getInstance().createPidFile(pidFileFolder, "current", ProcessHandle.current().pid());
+        assertFalse(ScriptUtil.getInstance().hasNoRunningProcesses(pidFileFolder, snapshot));
+        assertFalse(ScriptUtil.getInstance().isInvalidProcessDirectory(pidFileFolder, 0, snapshot));
+
+        long start = ProcessHandle.current().info().startInstant().map(Instant::toEpochMilli).orElse(0L);
+        if (start > 0) {
+            assertTrue(pidFile.toFile().setLastModified(start - 60000));
+            assertTrue(ScriptUtil.getInstance().hasNoRunningProcesses(pidFileFolder, ProcessLivenessSnapshot.create()));
+            assertFalse(ScriptUtil.getInstance().hasNoRunningProcesses(pidFileFolder));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * ScriptLaunchBenchmarkTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.process.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.AbstractProcessTest;
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.dto.ISystemCommand.SystemCommandExecutionStatusResult;
+import com.github.toolarium.system.command.dto.SystemCommand;
+import com.github.toolarium.system.command.dto.group.SystemCommandGroup;
+import com.github.toolarium.system.command.dto.list.SystemCommandGroupList;
+import com.github.toolarium.system.command.executer.ISystemCommandExecuterPlatformSupport;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.stream.util.ProcessStreamUtil;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Benchmark of the script generation and the script mode launch latency.
+ *
+ * @author patrick
+ */
+public class ScriptLaunchBenchmarkTest extends AbstractProcessTest {
+    private static final Logger LOG = LoggerFactory.getLogger(ScriptLaunchBenchmarkTest.class);
+    private static final int NUMBER_OF_COMMANDS = 50;
+    private static final int GENERATE_ITERATIONS = 200;
+    private static final int LAUNCH_ITERATIONS = 20;
+
+
+    /**
+     * Benchmark the script generation
+     */
+    @Test
+    public void scriptGenerationBenchmark() {
+        SystemCommandGroupList systemCommandGroupList = createSystemCommandGroupList();
+        SystemCommandGroup systemCommandGroup = (SystemCommandGroup)systemCommandGroupList.iterator().next();
+        ISystemCommandExecuterPlatformSupport platformSupport = (ISystemCommandExecuterPlatformSupport)SystemCommandExecuterFactory.getInstance().createSystemCommandExecuter(systemCommandGroupList);
+        Path basePath = Paths.get("build/script-benchmark").toAbsolutePath();
+
+        // warm up
+        for (int i = 0; i < 10; i++) {
+            ProcessBuilderUtil.getInstance().createScriptProcessBuilder(systemCommandGroup, platformSupport, basePath.resolve("warmup-" + i));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < GENERATE_ITERATIONS; i++) {
+            ProcessBuilderUtil.getInstance().createScriptProcessBuilder(systemCommandGroup, platformSupport, basePath.resolve("run-" + i));
+        }
+        long duration = System.nanoTime() - start;
+        LOG.info("Script generation (" + NUMBER_OF_COMMANDS + " commands): " + (duration / GENERATE_ITERATIONS / 1000) + "us per script");
+        assertTrue(Files.exists(basePath.resolve("run-0")));
+        ProcessStreamUtil.getInstance().deleteDirectory(basePath);
+    }
+
+
+    /**
+     * Benchmark the script mode launch latency
+     */
+    @Test
+    public void scriptLaunchBenchmark() {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        // warm up
+        SystemCommandExecuterFactory.getInstance().createSystemCommandExecuter(createSystemCommandGroupList()).runSynchronous();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < LAUNCH_ITERATIONS; i++) {
+            ISynchronousProcess process = SystemCommandExecuterFactory.getInstance().createSystemCommandExecuter(createSystemCommandGroupList()).runSynchronous();
+            assertEquals(0, process.getExitValue());
+        }
+        long duration = System.nanoTime() - start;
+        LOG.info("Script launch (" + NUMBER_OF_COMMANDS + " commands): " + (duration / LAUNCH_ITERATIONS / 1000) + "us per run");
+    }
+
+
+    /**
+     * Create a system command group list with many commands
+     *
+     * @return the system command group list
+     */
+    private SystemCommandGroupList createSystemCommandGroupList() {
+        SystemCommandGroupList systemCommandGroupList = new SystemCommandGroupList();
+        for (int i = 0; i < NUMBER_OF_COMMANDS; i++) {
+            SystemCommand systemCommand = new SystemCommand();
+            systemCommand.getProcessEnvironment().getEnvironmentVariables().put("BENCHMARK_" + (i % 5), "" + i);
+            systemCommand.add("true");
+            systemCommand.setSystemCommandExecutionStatusResult(SystemCommandExecutionStatusResult.SUCCESS_OR_ERROR);
+            systemCommandGroupList.add(systemCommand);
+        }
+
+        return systemCommandGroupList;
+    }
+}
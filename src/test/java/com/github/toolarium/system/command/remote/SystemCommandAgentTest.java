@@ -0,0 +1,347 @@
+/*
+ * SystemCommandAgentTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.remote;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.process.IAsynchronousProcess;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.stream.ProcessStreamFactory;
+import com.github.toolarium.system.command.process.stream.input.ProcessInputStreamSource;
+import com.github.toolarium.system.command.process.stream.output.ProcessBufferOutputStream;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link SystemCommandAgent} and the {@link RemoteSystemCommandExecuter}.
+ *
+ * @author patrick
+ */
+public class SystemCommandAgentTest {
+    static final String TOKEN = "secret";
+
+
+    /**
+     * Test the output and the exit value of a remote run
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void runTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        try (SystemCommandAgent agent = startAgent(2)) {
+            RemoteSystemCommandExecuter remote = new RemoteSystemCommandExecuter(List.of(address(agent))).setToken(TOKEN);
+            ISynchronousProcess process = SystemCommandExecuterFactory.builder().system().command("echo hello").buildRemote(remote).runSynchronous(10);
+            assertEquals(0, process.getExitValue());
+            assertEquals("hello", process.getOutput().trim());
+            assertNotNull(process.getPid());
+            assertNotNull(process.getStartTime());
+
+            process = SystemCommandExecuterFactory.builder().system().command("ls /not-existing-path").buildRemote(remote).runSynchronous(10);
+            assertTrue(process.getExitValue() != 0);
+            assertFalse(process.getErrorOutput().isBlank());
+            assertEquals(2, agent.getTotalRuns());
+        }
+    }
+
+
+    /**
+     * Test the least loaded balancing
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException in case of thread interrupt
+     */
+    @Test
+    public void balanceTest() throws IOException, InterruptedException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        try (SystemCommandAgent agent1 = startAgent(4); SystemCommandAgent agent2 = startAgent(4)) {
+            RemoteSystemCommandExecuter remote = new RemoteSystemCommandExecuter(List.of(address(agent1), address(agent2))).setToken(TOKEN);
+            List<IAsynchronousProcess> processList = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                processList.add(SystemCommandExecuterFactory.builder().system().command("sleep 1").buildRemote(remote).runAsynchronous(null, null));
+            }
+
+            assertEquals(2, agent1.getTotalRuns());
+            assertEquals(2, agent2.getTotalRuns());
+            assertEquals(2, remote.getRuns(address(agent1)));
+
+            for (IAsynchronousProcess process : processList) {
+                assertEquals(0, process.waitFor());
+            }
+
+            assertEquals(0, remote.getRuns(address(agent1)));
+            assertEquals(0, remote.getRuns(address(agent2)));
+        }
+    }
+
+
+    /**
+     * Test the standard input
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException in case of thread interrupt
+     */
+    @Test
+    public void inputTest() throws IOException, InterruptedException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        try (SystemCommandAgent agent = startAgent(2)) {
+            RemoteSystemCommandExecuter remote = new RemoteSystemCommandExecuter(List.of(address(agent))).setToken(TOKEN);
+            ProcessBufferOutputStream out = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+            IAsynchronousProcess process = SystemCommandExecuterFactory.builder().system().command("cat").buildRemote(remote)
+                    .runAsynchronous(() -> ProcessInputStreamSource.PIPE, out, null);
+            process.getInputStream().write("piped input".getBytes(StandardCharsets.UTF_8));
+            process.getInputStream().close();
+            assertEquals(0, process.waitFor());
+            assertEquals("piped input", out.toString());
+
+            ISynchronousProcess synchronousProcess = SystemCommandExecuterFactory.builder().system().command("cat").buildRemote(remote)
+                    .runSynchronous(ProcessStreamFactory.getInstance().getStandardInFromBuffer("buffer input"), 10);
+            assertEquals("buffer input", synchronousProcess.getOutput());
+        }
+    }
+
+
+    /**
+     * Test the cancel of a remote run
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException in case of thread interrupt
+     */
+    @Test
+    public void cancelTest() throws IOException, InterruptedException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        try (SystemCommandAgent agent = startAgent(2)) {
+            RemoteSystemCommandExecuter remote = new RemoteSystemCommandExecuter(List.of(address(agent))).setToken(TOKEN);
+            IAsynchronousProcess process = SystemCommandExecuterFactory.builder().system().command("sleep 30").buildRemote(remote).runAsynchronous(null, null);
+            assertTrue(process.isAlive());
+            process.destroyTree();
+            assertTrue(process.waitFor(10, TimeUnit.SECONDS));
+            assertTrue(process.getExitValue() != 0);
+            assertEquals(0, agent.getActiveRuns());
+        }
+    }
+
+
+    /**
+     * Test a wrong token and the failover to another agent
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void failoverTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        InetSocketAddress closedAddress;
+        try (SystemCommandAgent closedAgent = startAgent(1)) {
+            closedAddress = address(closedAgent);
+        }
+
+        try (SystemCommandAgent agent = startAgent(2)) {
+            RemoteSystemCommandExecuter wrongTokenRemote = new RemoteSystemCommandExecuter(List.of(address(agent))).setToken("wrong");
+            assertThrows(IllegalStateException.class, () -> SystemCommandExecuterFactory.builder().system().command("echo hello").buildRemote(wrongTokenRemote).runSynchronous(10));
+            assertEquals(0, agent.getTotalRuns());
+
+            RemoteSystemCommandExecuter remote = new RemoteSystemCommandExecuter(List.of(closedAddress, address(agent))).setToken(TOKEN).setConnectTimeout(1000);
+            for (int i = 0; i < 3; i++) {
+                assertEquals("hello", SystemCommandExecuterFactory.builder().system().command("echo hello").buildRemote(remote).runSynchronous(10).getOutput().trim());
+            }
+
+            assertEquals(3, agent.getTotalRuns());
+        }
+
+        RemoteSystemCommandExecuter unavailableRemote = new RemoteSystemCommandExecuter(List.of(closedAddress)).setConnectTimeout(1000);
+        assertThrows(IllegalStateException.class, () -> SystemCommandExecuterFactory.builder().system().command("echo hello").buildRemote(unavailableRemote).runSynchronous(10));
+    }
+
+
+    /**
+     * Test a client which does not send its hello: it does not take the slot of a run and it is disconnected after the
+     * handshake timeout
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void silentClientTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        try (SystemCommandAgent agent = new SystemCommandAgent(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1, TOKEN)) {
+            agent.setHandshakeTimeout(1000);
+            agent.start();
+
+            try (Socket silentClient = new Socket()) {
+                silentClient.connect(address(agent), 1000);
+                silentClient.setSoTimeout(10000);
+
+                RemoteSystemCommandExecuter remote = new RemoteSystemCommandExecuter(List.of(address(agent))).setToken(TOKEN);
+                ISynchronousProcess process = SystemCommandExecuterFactory.builder().system().command("echo hello").buildRemote(remote).runSynchronous(10);
+                assertEquals("hello", process.getOutput().trim());
+
+                // the agent closes the connection after the handshake timeout
+                assertEquals(-1, silentClient.getInputStream().read());
+            }
+        }
+    }
+
+
+    /**
+     * Test an agent on TCP without token: it is only started in case it is explicit allowed
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void withoutTokenTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        try (SystemCommandAgent agent = new SystemCommandAgent(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1, null)) {
+            assertThrows(IllegalStateException.class, () -> agent.start());
+
+            agent.setAllowWithoutToken(true);
+            agent.start();
+            RemoteSystemCommandExecuter remote = new RemoteSystemCommandExecuter(List.of(address(agent)));
+            assertEquals("hello", SystemCommandExecuterFactory.builder().system().command("echo hello").buildRemote(remote).runSynchronous(10).getOutput().trim());
+        }
+    }
+
+
+    /**
+     * Test the standalone agent which is started by its main method: it keeps running until it is stopped
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException in case of thread interrupt
+     */
+    @Test
+    public void mainTest() throws IOException, InterruptedException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = serverSocket.getLocalPort();
+        }
+
+        InetSocketAddress agentAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        Process agentProcess = startAgentProcess("--port", "" + port);
+        try {
+            waitForAgent(agentProcess, () -> {
+                try (Socket socket = new Socket()) {
+                    socket.connect(agentAddress, 500);
+                    return true;
+                } catch (IOException e) {
+                    return false;
+                }
+            });
+
+            RemoteSystemCommandExecuter remote = new RemoteSystemCommandExecuter(List.of(agentAddress)).setToken(TOKEN);
+            ISynchronousProcess process = SystemCommandExecuterFactory.builder().system().command("echo hello").buildRemote(remote).runSynchronous(10);
+            assertEquals("hello", process.getOutput().trim());
+
+            Thread.sleep(500);
+            assertTrue(agentProcess.isAlive());
+        } finally {
+            agentProcess.destroy();
+            assertTrue(agentProcess.waitFor(10, TimeUnit.SECONDS));
+        }
+    }
+
+
+    /**
+     * Start an agent by its main method in a separate JVM
+     *
+     * @param args the arguments of the agent
+     * @return the process of the agent
+     * @throws IOException In case of an I/O error
+     */
+    static Process startAgentProcess(String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SystemCommandAgent.class.getName());
+        command.addAll(List.of(args));
+
+        ProcessBuilder processBuilder = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        processBuilder.environment().put(SystemCommandAgent.TOKEN_ENVIRONMENT_VARIABLE, TOKEN);
+        return processBuilder.start();
+    }
+
+
+    /**
+     * Wait until an agent which is started in a separate JVM is available
+     *
+     * @param agentProcess the process of the agent
+     * @param available the check if the agent is available
+     * @throws InterruptedException in case of thread interrupt
+     */
+    static void waitForAgent(Process agentProcess, BooleanSupplier available) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20000;
+        while (!available.getAsBoolean()) {
+            assertTrue(agentProcess.isAlive(), "The agent has ended!");
+            assertTrue(System.currentTimeMillis() < deadline, "The agent is not available!");
+            Thread.sleep(100);
+        }
+    }
+
+
+    /**
+     * Start an agent on a free port of the loopback address
+     *
+     * @param maxConcurrentRuns the maximum number of concurrent runs
+     * @return the started agent
+     * @throws IOException In case of an I/O error
+     */
+    private SystemCommandAgent startAgent(int maxConcurrentRuns) throws IOException {
+        SystemCommandAgent agent = new SystemCommandAgent(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), maxConcurrentRuns, TOKEN);
+        agent.start();
+        return agent;
+    }
+
+
+    /**
+     * Get the address of an agent
+     *
+     * @param agent the agent
+     * @return the address
+     */
+    private InetSocketAddress address(SystemCommandAgent agent) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), agent.getPort());
+    }
+}
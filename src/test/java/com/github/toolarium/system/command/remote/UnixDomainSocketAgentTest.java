@@ -0,0 +1,176 @@
+/*
+ * UnixDomainSocketAgentTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.remote;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
+import com.github.toolarium.system.command.process.IAsynchronousProcess;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.stream.ProcessStreamFactory;
+import com.github.toolarium.system.command.process.stream.output.ProcessBufferOutputStream;
+import com.github.toolarium.system.command.serialization.SerializationFormat;
+import com.github.toolarium.system.command.serialization.SystemCommandSerializer;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link SystemCommandAgent} as local command service on a unix domain socket.
+ *
+ * @author patrick
+ */
+public class UnixDomainSocketAgentTest {
+
+    /**
+     * Test the queueing of several clients on a local command service
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException in case of thread interrupt
+     */
+    @Test
+    public void localServiceTest() throws IOException, InterruptedException {
+        if (OSUtil.getInstance().isWindows() || !UnixDomainSocketUtil.getInstance().isSupported()) {
+            return;
+        }
+
+        Path socketPath = Files.createTempDirectory("agent").resolve("agent.sock");
+        try (SystemCommandAgent agent = new SystemCommandAgent(socketPath, 1, null)) {
+            agent.start();
+            assertEquals(-1, agent.getPort());
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(socketPath)));
+
+            // the agent runs one process at a time, the other clients are queued
+            RemoteSystemCommandExecuter remote = new RemoteSystemCommandExecuter(socketPath);
+            List<IAsynchronousProcess> processList = new ArrayList<>();
+            List<ProcessBufferOutputStream> outputList = new ArrayList<>();
+            List<Thread> threadList = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                final int number = i;
+                ProcessBufferOutputStream out = ProcessStreamFactory.getInstance().getProcessBufferOutputStream();
+                outputList.add(out);
+                Thread thread = new Thread(() -> {
+                    IAsynchronousProcess process = SystemCommandExecuterFactory.builder().system().command("echo client" + number).buildRemote(remote).runAsynchronous(out, null);
+                    synchronized (processList) {
+                        processList.add(process);
+                    }
+                });
+                thread.start();
+                threadList.add(thread);
+            }
+
+            for (Thread thread : threadList) {
+                thread.join();
+            }
+
+            assertEquals(4, processList.size());
+            for (IAsynchronousProcess process : processList) {
+                assertEquals(0, process.waitFor());
+            }
+
+            for (int i = 0; i < 4; i++) {
+                assertEquals("client" + i, outputList.get(i).toString().trim());
+            }
+
+            assertEquals(4, agent.getTotalRuns());
+        }
+
+        assertFalse(Files.exists(socketPath));
+        Files.delete(socketPath.getParent());
+    }
+
+
+    /**
+     * Test the long running local service which is started by the main method of the agent
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException in case of thread interrupt
+     */
+    @Test
+    public void mainTest() throws IOException, InterruptedException {
+        if (OSUtil.getInstance().isWindows() || !UnixDomainSocketUtil.getInstance().isSupported()) {
+            return;
+        }
+
+        Path socketPath = Files.createTempDirectory("agent").resolve("agent.sock");
+        Process agentProcess = SystemCommandAgentTest.startAgentProcess("--socket", socketPath.toString());
+        try {
+            SystemCommandAgentTest.waitForAgent(agentProcess, () -> Files.exists(socketPath));
+
+            RemoteSystemCommandExecuter remote = new RemoteSystemCommandExecuter(socketPath).setToken(SystemCommandAgentTest.TOKEN);
+            for (int i = 0; i < 3; i++) {
+                ISynchronousProcess process = SystemCommandExecuterFactory.builder().system().command("echo run" + i).buildRemote(remote).runSynchronous(10);
+                assertEquals("run" + i, process.getOutput().trim());
+            }
+
+            Thread.sleep(500);
+            assertTrue(agentProcess.isAlive());
+        } finally {
+            agentProcess.destroy();
+            assertTrue(agentProcess.waitFor(10, TimeUnit.SECONDS));
+        }
+
+        // the shutdown hook removes the socket file
+        assertFalse(Files.exists(socketPath));
+        Files.delete(socketPath.getParent());
+    }
+
+
+    /**
+     * Test the protocol with a JSON serialized system command group list as a script would send it
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void jsonProtocolTest() throws IOException {
+        if (OSUtil.getInstance().isWindows() || !UnixDomainSocketUtil.getInstance().isSupported()) {
+            return;
+        }
+
+        ISystemCommandGroupList systemCommandGroupList = SystemCommandExecuterFactory.builder().system().command("echo json").build().runSynchronous().getSystemCommandGroupList();
+        Path socketPath = Files.createTempDirectory("agent").resolve("agent.sock");
+        try (SystemCommandAgent agent = new SystemCommandAgent(socketPath, 2, null)) {
+            agent.start();
+
+            try (RemoteConnection connection = RemoteConnection.connect(UnixDomainSocketUtil.getInstance().createAddress(socketPath), 1000)) {
+                connection.writeFrame(RemoteConnection.HELLO, ByteBuffer.allocate(4).putInt(RemoteConnection.PROTOCOL_VERSION).array());
+                assertEquals(RemoteConnection.READY, connection.readFrame().getType());
+                connection.writeFrame(RemoteConnection.RUN, SystemCommandSerializer.getInstance().serialize(systemCommandGroupList, SerializationFormat.JSON));
+                connection.writeFrame(RemoteConnection.STDIN_CLOSE);
+
+                StringBuilder output = new StringBuilder();
+                RemoteConnection.Frame frame = connection.readFrame();
+                assertEquals(RemoteConnection.STARTED, frame.getType());
+                while (frame.getType() != RemoteConnection.EXIT) {
+                    if (frame.getType() == RemoteConnection.STDOUT) {
+                        output.append(new String(frame.getPayload(), StandardCharsets.UTF_8));
+                    }
+
+                    frame = connection.readFrame();
+                    assertNotNull(frame);
+                }
+
+                assertEquals(0, ByteBuffer.wrap(frame.getPayload()).getInt(8));
+                assertEquals("json", output.toString().trim());
+            }
+        }
+
+        Files.delete(socketPath.getParent());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * SystemCommandSerializerBenchmarkTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.serialization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.github.toolarium.system.command.dto.ISystemCommand.SystemCommandExecutionStatusResult;
+import com.github.toolarium.system.command.dto.SystemCommand;
+import com.github.toolarium.system.command.dto.env.ProcessEnvironment;
+import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
+import com.github.toolarium.system.command.dto.list.SystemCommandGroupList;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Benchmark of the serialization throughput of system command group lists.
+ *
+ * @author patrick
+ */
+public class SystemCommandSerializerBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(SystemCommandSerializerBenchmarkTest.class);
+    private static final int NUMBER_OF_COMMANDS = 5;
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int ITERATIONS = 20000;
+
+
+    /**
+     * Benchmark the serialization throughput of the formats
+     */
+    @Test
+    public void serializationBenchmark() {
+        SystemCommandGroupList systemCommandGroupList = createSystemCommandGroupList();
+        for (SerializationFormat format : SerializationFormat.values()) {
+            byte[] data = null;
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                data = SystemCommandSerializer.getInstance().serialize(systemCommandGroupList, format);
+                SystemCommandSerializer.getInstance().deserializeSystemCommandGroupList(data, format);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                data = SystemCommandSerializer.getInstance().serialize(systemCommandGroupList, format);
+            }
+            long encodeDuration = System.nanoTime() - start;
+
+            ISystemCommandGroupList result = null;
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                result = SystemCommandSerializer.getInstance().deserializeSystemCommandGroupList(data, format);
+            }
+            long decodeDuration = System.nanoTime() - start;
+
+            assertEquals(systemCommandGroupList, result);
+            LOG.info("Serialization " + format + " (" + NUMBER_OF_COMMANDS + " commands, " + data.length + " bytes): encode " 
+                     + (ITERATIONS * 1_000_000_000L / Math.max(1, encodeDuration)) + " lists/s, decode " 
+                     + (ITERATIONS * 1_000_000_000L / Math.max(1, decodeDuration)) + " lists/s");
+        }
+    }
+
+
+    /**
+     * Create a system command group list with a typical environment
+     *
+     * @return the system command group list
+     */
+    private SystemCommandGroupList createSystemCommandGroupList() {
+        SystemCommandGroupList systemCommandGroupList = new SystemCommandGroupList();
+        ProcessEnvironment processEnvironment = new ProcessEnvironment();
+        processEnvironment.setEnvironmentVariable("BENCHMARK", "true");
+        for (int i = 0; i < NUMBER_OF_COMMANDS; i++) {
+            SystemCommand systemCommand = new SystemCommand(processEnvironment);
+            systemCommand.add("convert");
+            systemCommand.add("input-" + i + ".png");
+            systemCommand.add("output-" + i + ".png");
+            systemCommand.setSystemCommandExecutionStatusResult(SystemCommandExecutionStatusResult.SUCCESS);
+            systemCommandGroupList.add(systemCommand);
+        }
+
+        return systemCommandGroupList;
+    }
+}
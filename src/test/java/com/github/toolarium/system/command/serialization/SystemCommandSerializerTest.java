@@ -0,0 +1,237 @@
+/*
+ * SystemCommandSerializerTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.serialization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.dto.ISystemCommand;
+import com.github.toolarium.system.command.dto.ISystemCommand.SystemCommandExecutionStatusResult;
+import com.github.toolarium.system.command.dto.SystemCommand;
+import com.github.toolarium.system.command.dto.env.ProcessEnvironment;
+import com.github.toolarium.system.command.dto.group.ISystemCommandGroup;
+import com.github.toolarium.system.command.dto.group.SystemCommandGroup;
+import com.github.toolarium.system.command.dto.list.ISystemCommandGroupList;
+import com.github.toolarium.system.command.dto.list.SystemCommandGroupList;
+import com.github.toolarium.system.command.process.ISynchronousProcess;
+import com.github.toolarium.system.command.process.impl.SynchronousProcess;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link SystemCommandSerializer}.
+ *
+ * @author patrick
+ */
+public class SystemCommandSerializerTest {
+
+    /**
+     * Test the round trip of a system command group list
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void systemCommandGroupListRoundTripTest() throws IOException {
+        SystemCommandGroupList systemCommandGroupList = createSystemCommandGroupList();
+        for (SerializationFormat format : SerializationFormat.values()) {
+            byte[] data = SystemCommandSerializer.getInstance().serialize(systemCommandGroupList, format);
+            ISystemCommandGroupList result = SystemCommandSerializer.getInstance().deserializeSystemCommandGroupList(data, format);
+            assertEquals(systemCommandGroupList, result);
+            assertSystemCommandGroupList(systemCommandGroupList, result);
+
+            // the stream and a part of a buffer
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            outputStream.write(new byte[] {1, 2, 3});
+            SystemCommandSerializer.getInstance().serialize(systemCommandGroupList, format, outputStream);
+            assertEquals(systemCommandGroupList, SystemCommandSerializer.getInstance().deserializeSystemCommandGroupList(outputStream.toByteArray(), 3, data.length, format));
+        }
+    }
+
+
+    /**
+     * Test the round trip of the result of a synchronous process
+     */
+    @Test
+    public void synchronousProcessRoundTripTest() {
+        SystemCommandGroupList systemCommandGroupList = createSystemCommandGroupList();
+        Instant startTime = Instant.ofEpochMilli(1700000000123L);
+        ISynchronousProcess process = new SynchronousProcess(systemCommandGroupList, 4711L, startTime, Duration.ofNanos(123456789L), 2, "out \u00e4\u20ac\ud83d\ude00", null);
+
+        for (SerializationFormat format : SerializationFormat.values()) {
+            ISynchronousProcess result = SystemCommandSerializer.getInstance().deserializeSynchronousProcess(SystemCommandSerializer.getInstance().serialize(process, format), format);
+            assertEquals(4711L, result.getPid());
+            assertEquals(startTime, result.getStartTime());
+            assertEquals(Duration.ofNanos(123456789L), result.getTotalCpuDuration());
+            assertEquals(2, result.getExitValue());
+            assertEquals(process.getOutput(), result.getOutput());
+            assertNull(result.getErrorOutput());
+            assertEquals(systemCommandGroupList, result.getSystemCommandGroupList());
+        }
+
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        ISynchronousProcess executedProcess = SystemCommandExecuterFactory.builder().system().command("echo").command("serialized").build().runSynchronous();
+        ISynchronousProcess result = SystemCommandSerializer.getInstance().deserializeSynchronousProcess(SystemCommandSerializer.getInstance().serialize(executedProcess, SerializationFormat.BINARY), SerializationFormat.BINARY);
+        assertEquals(executedProcess.getOutput(), result.getOutput());
+        assertEquals(executedProcess.getExitValue(), result.getExitValue());
+        assertEquals(executedProcess.getSystemCommandGroupList().toString(), result.getSystemCommandGroupList().toString());
+    }
+
+
+    /**
+     * Test the JSON format
+     */
+    @Test
+    public void jsonTest() {
+        SystemCommandGroupList systemCommandGroupList = createSystemCommandGroupList();
+        String json = new String(SystemCommandSerializer.getInstance().serialize(systemCommandGroupList, SerializationFormat.JSON), StandardCharsets.UTF_8);
+        assertTrue(json.startsWith("{\"version\":1,\"type\":1,\"systemCommandGroupList\":{\"id\":\"" + systemCommandGroupList.getId() + "\""), json);
+        assertTrue(json.contains("\"commandList\":[\"echo\",\"a \\\"quoted\\\"\\n\\u0001 value\"]"), json);
+
+        // whitespaces and unknown names are accepted
+        String formatted = json.replace(",\"type\"", ",\n  \"unknown\" : [1, 2.5e3, {\"a\": null}, true] , \"type\"");
+        assertEquals(systemCommandGroupList, SystemCommandSerializer.getInstance().deserializeSystemCommandGroupList(formatted.getBytes(StandardCharsets.UTF_8), SerializationFormat.JSON));
+    }
+
+
+    /**
+     * Test invalid content
+     */
+    @Test
+    public void invalidTest() {
+        SystemCommandGroupList systemCommandGroupList = createSystemCommandGroupList();
+        byte[] binary = SystemCommandSerializer.getInstance().serialize(systemCommandGroupList, SerializationFormat.BINARY);
+        byte[] json = SystemCommandSerializer.getInstance().serialize(systemCommandGroupList, SerializationFormat.JSON);
+        SystemCommandSerializer serializer = SystemCommandSerializer.getInstance();
+
+        // truncated content
+        for (int length = 0; length < binary.length; length += 7) {
+            final int l = length;
+            assertThrows(IllegalArgumentException.class, () -> serializer.deserializeSystemCommandGroupList(binary, 0, l, SerializationFormat.BINARY));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> serializer.deserializeSystemCommandGroupList(json, 0, json.length - 1, SerializationFormat.JSON));
+        assertThrows(IllegalArgumentException.class, () -> serializer.deserializeSystemCommandGroupList(json, SerializationFormat.BINARY));
+        assertThrows(IllegalArgumentException.class, () -> serializer.deserializeSynchronousProcess(binary, SerializationFormat.BINARY));
+
+        // newer version
+        byte[] newerBinary = Arrays.copyOf(binary, binary.length);
+        newerBinary[4] = 2 * (SystemCommandSerializer.VERSION + 1);
+        assertThrows(IllegalArgumentException.class, () -> serializer.deserializeSystemCommandGroupList(newerBinary, SerializationFormat.BINARY));
+        byte[] newerJson = new String(json, StandardCharsets.UTF_8).replace("\"version\":1", "\"version\":2").getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalArgumentException.class, () -> serializer.deserializeSystemCommandGroupList(newerJson, SerializationFormat.JSON));
+    }
+
+
+    /**
+     * Test the process environment is written once in case it is shared
+     */
+    @Test
+    public void sharedProcessEnvironmentTest() {
+        SystemCommandGroupList systemCommandGroupList = new SystemCommandGroupList();
+        SystemCommand first = new SystemCommand();
+        first.add("echo");
+        systemCommandGroupList.add(first);
+        int singleSize = SystemCommandSerializer.getInstance().serialize(systemCommandGroupList, SerializationFormat.BINARY).length;
+
+        for (int i = 0; i < 9; i++) {
+            SystemCommand systemCommand = new SystemCommand(first.getProcessEnvironment());
+            systemCommand.add("echo");
+            systemCommandGroupList.add(systemCommand);
+        }
+
+        byte[] data = SystemCommandSerializer.getInstance().serialize(systemCommandGroupList, SerializationFormat.BINARY);
+        assertTrue(data.length < singleSize + 9 * 20, "Size " + data.length + " of " + singleSize);
+
+        ISystemCommandGroup systemCommandGroup = SystemCommandSerializer.getInstance().deserializeSystemCommandGroupList(data, SerializationFormat.BINARY).iterator().next();
+        Iterator<ISystemCommand> it = systemCommandGroup.iterator();
+        ISystemCommand systemCommand = it.next();
+        assertSame(systemCommand.getProcessEnvironment(), it.next().getProcessEnvironment());
+    }
+
+
+    /**
+     * Create a system command group list
+     *
+     * @return the system command group list
+     */
+    private SystemCommandGroupList createSystemCommandGroupList() {
+        SystemCommandGroupList systemCommandGroupList = new SystemCommandGroupList();
+        systemCommandGroupList.setLockTimeout(120, Instant.ofEpochMilli(1700000000000L));
+        systemCommandGroupList.setCacheTimeToLive(Duration.ofSeconds(30));
+        systemCommandGroupList.setHedgePercentile(95.5);
+        systemCommandGroupList.setDiskless(true);
+        systemCommandGroupList.setInputOnDisk(true);
+
+        SystemCommand systemCommand = new SystemCommand();
+        systemCommand.getProcessEnvironment().getEnvironmentVariables().put("SERIALIZER_KEY", "\u00e4\u00f6\u00fc \u20ac");
+        systemCommand.add("echo");
+        systemCommand.add("a \"quoted\"\n\u0001 value");
+        systemCommand.setSystemCommandExecutionStatusResult(SystemCommandExecutionStatusResult.SUCCESS);
+        systemCommandGroupList.add(systemCommand);
+
+        SystemCommandGroup systemCommandGroup = new SystemCommandGroup();
+        ProcessEnvironment processEnvironment = new ProcessEnvironment();
+        processEnvironment.setEnvironmentAllowlist(Set.of("PATH"));
+        SystemCommand secretCommand = new SystemCommand(processEnvironment);
+        secretCommand.setShell(List.of("sh", "-c"));
+        secretCommand.add("login");
+        secretCommand.add("-password=secret", "-password=***");
+        systemCommandGroup.add(secretCommand);
+        systemCommandGroup.forceRunAsScript();
+        systemCommandGroupList.add(systemCommandGroup);
+        return systemCommandGroupList;
+    }
+
+
+    /**
+     * Assert the deserialized system command group list
+     *
+     * @param expected the expected system command group list
+     * @param result the deserialized system command group list
+     */
+    private void assertSystemCommandGroupList(ISystemCommandGroupList expected, ISystemCommandGroupList result) {
+        assertEquals(expected.getId(), result.getId());
+        assertEquals(expected.getLockTimeoutInSeconds(), result.getLockTimeoutInSeconds());
+        assertEquals(expected.getCacheTimeToLive(), result.getCacheTimeToLive());
+        assertEquals(expected.getHedgePercentile(), result.getHedgePercentile());
+        assertEquals(expected.isDiskless(), result.isDiskless());
+        assertEquals(expected.isInputOnDisk(), result.isInputOnDisk());
+        assertEquals(expected.size(), result.size());
+        assertEquals(expected.toString(true), result.toString(true));
+        assertEquals(expected.toString(false), result.toString(false));
+
+        Iterator<ISystemCommandGroup> expectedIterator = expected.iterator();
+        Iterator<ISystemCommandGroup> resultIterator = result.iterator();
+        while (expectedIterator.hasNext()) {
+            ISystemCommandGroup expectedGroup = expectedIterator.next();
+            ISystemCommandGroup resultGroup = resultIterator.next();
+            assertEquals(expectedGroup.getId(), resultGroup.getId());
+            assertEquals(expectedGroup.runAsScript(), resultGroup.runAsScript());
+            ISystemCommand resultCommand = resultGroup.iterator().next();
+            ISystemCommand expectedCommand = expectedGroup.iterator().next();
+            assertEquals(expectedCommand.getProcessEnvironment().getOS(), resultCommand.getProcessEnvironment().getOS());
+            assertEquals(expectedCommand.getProcessEnvironment().getEnvironmentAllowlist(), resultCommand.getProcessEnvironment().getEnvironmentAllowlist());
+            assertEquals(expectedCommand.getShell(), resultCommand.getShell());
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * SystemCommandShardExecuterTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.shard;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link SystemCommandShardExecuter}.
+ *
+ * @author patrick
+ */
+public class SystemCommandShardExecuterTest {
+
+    /**
+     * Test the shards of a file
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void fileTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append("line ").append(i).append('\n');
+        }
+
+        Path inputFile = Files.createTempFile("shard", ".txt");
+        try {
+            Files.writeString(inputFile, content.toString(), StandardCharsets.UTF_8);
+            SystemCommandShardExecuter executer = new SystemCommandShardExecuter(SystemCommandExecuterFactory.builder().system().command("cat").buildTemplate());
+            executer.setMaxParallelism(2);
+            executer.setShardCount(4);
+
+            SystemCommandShardResult result = executer.run(inputFile);
+            assertTrue(result.isSuccess());
+            assertEquals(4, result.getShardCount());
+            assertEquals(content.toString(), result.getOutput());
+            
+            // a small file results in less shards
+            Files.writeString(inputFile, "a\nb\n", StandardCharsets.UTF_8);
+            result = executer.run(inputFile);
+            assertEquals(2, result.getShardCount());
+            assertEquals("a\nb\n", result.getOutput());
+        } finally {
+            Files.deleteIfExists(inputFile);
+        }
+    }
+
+
+    /**
+     * Test the streaming merge of the shards of items
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void streamingTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        List<String> itemList = new ArrayList<>();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            itemList.add("item" + i);
+            expected.append("ITEM").append(i).append('\n');
+        }
+
+        // the first shard is slow, the output is merged in the order of the shards
+        SystemCommandShardExecuter executer = new SystemCommandShardExecuter(SystemCommandExecuterFactory.builder().system()
+                .command("if [ {{shard:int}} -eq 0 ]; then sleep 1; fi; tr a-z A-Z").buildTemplate());
+        executer.setMaxParallelism(3);
+        executer.setShardCount(3);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SystemCommandShardResult result = executer.run(itemList, out);
+        assertTrue(result.isSuccess());
+        assertNull(result.getOutput());
+        assertEquals(expected.toString(), out.toString(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * Test the output of shards which exceeds the buffer size while the first shard is running: it is spilled to
+     * temporary files and merged in the order of the shards
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void spillTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        List<String> itemList = new ArrayList<>();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            itemList.add("" + i);
+            for (int j = 1; j <= 20000; j++) {
+                expected.append(i).append(' ').append(j).append('\n');
+            }
+        }
+
+        SystemCommandShardExecuter executer = new SystemCommandShardExecuter(SystemCommandExecuterFactory.builder().system()
+                .command("if [ {{shard:int}} -eq 0 ]; then sleep 1; fi; read item; seq 20000 | sed \"s/^/$item /\"").buildTemplate());
+        executer.setMaxParallelism(4);
+        executer.setShardCount(4);
+        executer.setMaxBufferSize(1024);
+
+        SystemCommandShardResult result = executer.run(itemList);
+        assertTrue(result.isSuccess());
+        assertEquals(expected.toString(), result.getOutput());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(executer.run(itemList, out).isSuccess());
+        assertEquals(expected.toString(), out.toString(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * Test a binary output: the merged output is kept as bytes
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void binaryOutputTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        SystemCommandShardExecuter executer = new SystemCommandShardExecuter(SystemCommandExecuterFactory.builder().system()
+                .command("if [ {{shard:int}} -eq 0 ]; then sleep 1; printf '\\200\\377'; else printf '\\0\\376'; fi").buildTemplate());
+        executer.setShardCount(2);
+        executer.setMaxBufferSize(1);
+
+        SystemCommandShardResult result = executer.run(List.of("a", "b"));
+        assertTrue(result.isSuccess());
+        assertArrayEquals(new byte[] {(byte)0x80, (byte)0xff, 0, (byte)0xfe}, result.getOutputBytes());
+    }
+
+
+    /**
+     * Test a failed shard
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void failedShardTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        SystemCommandShardExecuter executer = new SystemCommandShardExecuter(SystemCommandExecuterFactory.builder().system()
+                .command("if [ {{shard:int}} -eq {{failed:int}} ]; then echo failed >&2; exit 3; fi; sed 's/^/{{prefix}}/'").buildTemplate());
+        executer.setParameters(Map.of("failed", 1, "prefix", "> "));
+        executer.setShardCount(3);
+
+        SystemCommandShardResult result = executer.run(List.of("a", "b", "c"));
+        assertEquals(List.of(1), result.getFailedShards());
+        assertEquals(3, result.getExitValue(1));
+        assertEquals("failed\n", result.getErrorOutput(1));
+        assertEquals("> a\n> c\n", result.getOutput());
+
+        executer.setParameters(null);
+        assertThrows(IllegalArgumentException.class, () -> executer.run(List.of("a")));
+        assertThrows(IllegalArgumentException.class, () -> executer.setMaxParallelism(0));
+        assertThrows(IllegalArgumentException.class, () -> executer.setMaxBufferSize(-1));
+    }
+
+
+    /**
+     * Test an interrupted execution: the shards which did not run are failed
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void interruptedTest() throws IOException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        SystemCommandShardExecuter executer = new SystemCommandShardExecuter(SystemCommandExecuterFactory.builder().system().command("cat; sleep 5").buildTemplate());
+        executer.setMaxParallelism(1);
+        executer.setShardCount(3);
+
+        final Thread thread = Thread.currentThread();
+        Thread interruptThread = new Thread(() -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                // NOP
+            }
+            thread.interrupt();
+        });
+        interruptThread.start();
+
+        long start = System.currentTimeMillis();
+        SystemCommandShardResult result = executer.run(List.of("a", "b", "c"));
+        assertTrue(Thread.interrupted());
+        assertTrue(System.currentTimeMillis() - start < 4000);
+        assertFalse(result.isSuccess());
+        assertEquals(List.of(0, 1, 2), result.getFailedShards());
+        assertEquals(-1, result.getExitValue(2));
+    }
+}
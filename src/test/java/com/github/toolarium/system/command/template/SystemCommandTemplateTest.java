@@ -0,0 +1,180 @@
+/*
+ * SystemCommandTemplateTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.system.command.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.system.command.SystemCommandExecuterFactory;
+import com.github.toolarium.system.command.util.OSUtil;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link SystemCommandTemplate}.
+ *
+ * @author patrick
+ */
+public class SystemCommandTemplateTest {
+
+    /**
+     * Test the bind of the typed placeholders
+     */
+    @Test
+    public void bindTest() {
+        SystemCommandTemplate template = SystemCommandExecuterFactory.builder().system()
+                .command("convert {{input:path}} -resize {{width:int}}x{{width}} {{output:path}}")
+                .environmentVariable("VERBOSE", "{{verbose:boolean}}")
+                .environmentVariable("TEMPLATE_KEY", "value")
+                .buildTemplate();
+        assertEquals(List.of("input", "width", "output", "verbose"), template.getParameterNames());
+        assertEquals(SystemCommandTemplateParameterType.INT, template.getParameterType("width"));
+        assertEquals(SystemCommandTemplateParameterType.BOOLEAN, template.getParameterType("verbose"));
+        assertNull(template.getParameterType("unknown"));
+
+        BoundSystemCommand boundSystemCommand = template.bind(Map.of("input", Paths.get("in.png"), "width", 100, "output", "out.png", "verbose", "TRUE"));
+        List<String> commandList = boundSystemCommand.getCommandList();
+        assertEquals("convert in.png -resize 100x100 out.png", commandList.get(commandList.size() - 1));
+        assertEquals("true", boundSystemCommand.getEnvironmentVariables().get("VERBOSE"));
+        assertEquals("value", boundSystemCommand.getEnvironmentVariables().get("TEMPLATE_KEY"));
+        assertTrue(boundSystemCommand.getRemovedEnvironmentVariables().isEmpty());
+
+        // positional bind
+        assertEquals(commandList, template.bind("in.png", 100L, "out.png", false).getCommandList());
+
+        assertThrows(IllegalArgumentException.class, () -> template.bind(Map.of("input", "in.png", "width", "wide", "output", "out.png", "verbose", true)));
+        assertThrows(IllegalArgumentException.class, () -> template.bind(Map.of("input", "in.png", "output", "out.png", "verbose", true)));
+        assertThrows(IllegalArgumentException.class, () -> template.bind(Map.of("input", "in.png", "width", 1, "output", "out.png", "verbose", true, "unknown", 1)));
+        assertThrows(IllegalArgumentException.class, () -> template.bind("in.png", 100));
+    }
+
+
+    /**
+     * Test the quoting of the bound values for the shell
+     */
+    @Test
+    public void quoteTest() {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        SystemCommandTemplate template = SystemCommandExecuterFactory.builder().system().command("convert {{input:path}} {{output}}").buildTemplate();
+        List<String> commandList = template.bind("a.png; rm -rf ~", "it's.png").getCommandList();
+        assertEquals("convert 'a.png; rm -rf ~' 'it'\\''s.png'", commandList.get(commandList.size() - 1));
+
+        commandList = template.bind("", "$(id)").getCommandList();
+        assertEquals("convert '' '$(id)'", commandList.get(commandList.size() - 1));
+
+        template = SystemCommandExecuterFactory.builder().system().command("echo \"{{first}}\" '{{second}}'").buildTemplate();
+        commandList = template.bind("\"$HOME\"", "it's").getCommandList();
+        assertEquals("echo \"\\\"\\$HOME\\\"\" 'it'\\''s'", commandList.get(commandList.size() - 1));
+    }
+
+
+    /**
+     * Test that a bound value can not inject a command and that a path with spaces stays one argument
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException in case of thread interrupt
+     */
+    @Test
+    public void injectionTest() throws IOException, InterruptedException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        Path path = Files.createTempDirectory("template test");
+        Path file = path.resolve("in file.txt");
+        Path markerFile = path.resolve("injected");
+        try {
+            Files.write(file, "content".getBytes(StandardCharsets.UTF_8));
+
+            SystemCommandTemplate template = SystemCommandExecuterFactory.builder().system().command("cat {{input:path}}; echo \" {{message}}\" '{{quoted}}'").buildTemplate();
+            String injection = "x; touch " + markerFile + "; echo $(touch " + markerFile + ")`touch " + markerFile + "`";
+            for (String value : List.of(injection, "it's \"quoted\" $HOME")) {
+                Process process = template.bind(file, value, value).toProcessBuilder().start();
+                assertEquals(0, process.waitFor());
+                assertEquals("content " + value + " " + value + "\n", new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+                assertFalse(Files.exists(markerFile));
+            }
+
+            Process process = SystemCommandExecuterFactory.builder().system().command("ls {{input:path}}").buildTemplate().bind(file).toProcessBuilder().start();
+            assertEquals(0, process.waitFor());
+            assertEquals(file.toString() + "\n", new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(markerFile);
+            Files.deleteIfExists(path);
+        }
+    }
+
+
+    /**
+     * Test the literals: a template without placeholders and the environment variables without placeholders share their values
+     */
+    @Test
+    public void literalTest() {
+        SystemCommandTemplate template = SystemCommandExecuterFactory.builder().system().command("echo literal").environmentVariable("TEMPLATE_KEY", "value").buildTemplate();
+        assertTrue(template.getParameterNames().isEmpty());
+
+        BoundSystemCommand first = template.bind();
+        BoundSystemCommand second = template.bind(Map.of());
+        assertEquals(first.getCommandList(), second.getCommandList());
+        assertSame(first.getEnvironmentVariables(), second.getEnvironmentVariables());
+        assertEquals(Map.of("TEMPLATE_KEY", "value"), first.getEnvironmentVariables());
+    }
+
+
+    /**
+     * Test invalid templates
+     */
+    @Test
+    public void invalidTemplateTest() {
+        assertThrows(IllegalArgumentException.class, () -> SystemCommandExecuterFactory.builder().system().command("echo {{name").buildTemplate());
+        assertThrows(IllegalArgumentException.class, () -> SystemCommandExecuterFactory.builder().system().command("echo {{:int}}").buildTemplate());
+        assertThrows(IllegalArgumentException.class, () -> SystemCommandExecuterFactory.builder().system().command("echo {{name:float}}").buildTemplate());
+        assertThrows(IllegalArgumentException.class, () -> SystemCommandExecuterFactory.builder().system().command("echo {{name:int}} {{name:long}}").buildTemplate());
+        assertThrows(IllegalArgumentException.class, () -> SystemCommandExecuterFactory.builder().system().command("echo 1").onSuccess().system().command("echo 2").buildTemplate());
+        assertThrows(IllegalArgumentException.class, () -> SystemCommandExecuterFactory.builder().system().command("echo 1").pipe().system().command("cat").buildTemplate());
+    }
+
+
+    /**
+     * Test the launch of a bound system command
+     *
+     * @throws IOException In case of an I/O error
+     * @throws InterruptedException in case of thread interrupt
+     */
+    @Test
+    public void launchTest() throws IOException, InterruptedException {
+        if (OSUtil.getInstance().isWindows()) {
+            return;
+        }
+
+        SystemCommandTemplate template = SystemCommandExecuterFactory.builder().system()
+                .command("echo {{message}} {{count:int}} $TEMPLATE_KEY")
+                .environmentVariable("TEMPLATE_KEY", "{{key}}")
+                .buildTemplate();
+
+        for (int i = 0; i < 3; i++) {
+            Process process = template.bind(Map.of("message", "hello", "count", i, "key", "value" + i)).toProcessBuilder().start();
+            assertEquals(0, process.waitFor());
+            assertEquals("hello " + i + " value" + i + "\n", new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+            assertFalse(process.isAlive());
+        }
+    }
+}